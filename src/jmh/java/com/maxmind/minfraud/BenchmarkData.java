@@ -0,0 +1,143 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Account;
+import com.maxmind.minfraud.request.Billing;
+import com.maxmind.minfraud.request.CreditCard;
+import com.maxmind.minfraud.request.CustomInputs;
+import com.maxmind.minfraud.request.Device;
+import com.maxmind.minfraud.request.Email;
+import com.maxmind.minfraud.request.Event;
+import com.maxmind.minfraud.request.Order;
+import com.maxmind.minfraud.request.Payment;
+import com.maxmind.minfraud.request.Shipping;
+import com.maxmind.minfraud.request.ShoppingCartItem;
+import com.maxmind.minfraud.request.Transaction;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Date;
+
+/**
+ * The transactions the benchmarks work on. The IP address, date and URI are
+ * made once, so that building a transaction measures only the builders and
+ * their validation.
+ */
+final class BenchmarkData {
+    private static final InetAddress IP;
+    private static final Date TIME = new Date(1334272850520L);
+    private static final URI REFERRER = URI.create("http://www.amazon.com/");
+
+    static {
+        try {
+            IP = InetAddress.getByAddress(new byte[]{81, 2, 69, (byte) 160});
+        } catch (UnknownHostException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return A transaction with only the required device IP address.
+     */
+    static Transaction small() {
+        return new Transaction.Builder(new Device.Builder(IP).build()).build();
+    }
+
+    /**
+     * @return A transaction with every field set and the given number of
+     * shopping cart items.
+     */
+    static Transaction large(int cartItems) {
+        Transaction.Builder builder = new Transaction.Builder(
+                new Device.Builder(IP)
+                        .userAgent("Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/41.0.2272.89 Safari/537.36")
+                        .sessionAge(3600.5)
+                        .sessionId("foobar")
+                        .acceptLanguage("en-US,en;q=0.8")
+                        .build())
+                .event(new Event.Builder()
+                        .transactionId("txn3134133")
+                        .shopId("s2123")
+                        .time(TIME)
+                        .type(Event.Type.PURCHASE)
+                        .build())
+                .account(new Account.Builder()
+                        .userId("3132")
+                        .username("fred")
+                        .build())
+                .email(new Email.Builder()
+                        .address("test@maxmind.com")
+                        .domain("maxmind.com")
+                        .build())
+                .billing(new Billing.Builder()
+                        .firstName("First")
+                        .lastName("Last")
+                        .company("Company")
+                        .address("101 Address Rd.")
+                        .address2("Unit 5")
+                        .city("City of Thorns")
+                        .region("CT")
+                        .country("US")
+                        .postal("06510")
+                        .phoneNumber("323-123-4321")
+                        .phoneCountryCode("1")
+                        .build())
+                .shipping(new Shipping.Builder()
+                        .firstName("ShipFirst")
+                        .lastName("ShipLast")
+                        .company("ShipCo")
+                        .address("322 Ship Addr. Ln.")
+                        .address2("St. 43")
+                        .city("Nowhere")
+                        .region("OK")
+                        .country("US")
+                        .postal("73003")
+                        .phoneNumber("403-321-2323")
+                        .phoneCountryCode("1")
+                        .deliverySpeed(Shipping.DeliverySpeed.SAME_DAY)
+                        .build())
+                .payment(new Payment.Builder()
+                        .processor(Payment.Processor.STRIPE)
+                        .wasAuthorized(false)
+                        .declineCode("invalid number")
+                        .build())
+                .creditCard(new CreditCard.Builder()
+                        .issuerIdNumber("323132")
+                        .bankName("Bank of No Hope")
+                        .bankPhoneCountryCode("1")
+                        .bankPhoneNumber("800-342-1232")
+                        .avsResult('Y')
+                        .cvvResult('N')
+                        .last4Digits("7643")
+                        .token("123456abc1234")
+                        .build())
+                .order(new Order.Builder()
+                        .amount(323.21)
+                        .currency("USD")
+                        .discountCode("FIRST")
+                        .affiliateId("af12")
+                        .subaffiliateId("saf42")
+                        .referrerUri(REFERRER)
+                        .isGift(true)
+                        .hasGiftMessage(false)
+                        .build())
+                .customInputs(new CustomInputs.Builder()
+                        .put("float_input", 12.1)
+                        .put("integer_input", 3123)
+                        .put("string_input", "This is a string input.")
+                        .put("boolean_input", true)
+                        .build());
+        for (int i = 0; i < cartItems; i++) {
+            builder.addShoppingCartItem(new ShoppingCartItem.Builder()
+                    .category("pets")
+                    .itemId("ad" + i)
+                    .quantity(2)
+                    .price(20.43)
+                    .build());
+        }
+        return builder.build();
+    }
+}
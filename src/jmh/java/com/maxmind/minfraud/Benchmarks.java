@@ -0,0 +1,46 @@
+package com.maxmind.minfraud;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the benchmarks twice, once for throughput in operations per second
+ * and once for the average time of an operation in nanoseconds, both with
+ * the GC profiler so that {@code gc.alloc.rate.norm}, the bytes allocated
+ * per operation, is reported. The results are written to
+ * {@code target/jmh-throughput.json} and {@code target/jmh-average-time.json}.
+ * <p>
+ * The only argument is a regular expression for the benchmarks to run. By
+ * default, all of them are run.
+ * </p>
+ */
+public final class Benchmarks {
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "com\\.maxmind\\.minfraud\\..*Benchmark";
+        run(include, Mode.Throughput, TimeUnit.SECONDS, "target/jmh-throughput.json");
+        run(include, Mode.AverageTime, TimeUnit.NANOSECONDS, "target/jmh-average-time.json");
+    }
+
+    private static void run(String include, Mode mode, TimeUnit unit, String result)
+            throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(include)
+                .mode(mode)
+                .timeUnit(unit)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build();
+        new Runner(options).run();
+    }
+}
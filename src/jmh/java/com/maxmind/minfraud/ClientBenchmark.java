@@ -0,0 +1,55 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The whole call path of {@code WebServiceClient.score}, from serializing
+ * the transaction to reading the response, against a
+ * {@code FakeMinFraudServer} on the loopback interface that answers at once.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ClientBenchmark {
+    @Param({"APACHE_HTTP_CLIENT", "URL_CONNECTION"})
+    public Transport transport;
+
+    private FakeMinFraudServer server;
+    private WebServiceClient client;
+    private Transaction transaction;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new FakeMinFraudServer.Builder().build();
+        client = server.clientBuilder()
+                .transport(transport)
+                .maxConnections(8)
+                .build();
+        client.warmUp(4);
+        transaction = BenchmarkData.large(2);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public ScoreResponse score() throws Exception {
+        return client.score(transaction);
+    }
+}
@@ -0,0 +1,73 @@
+package com.maxmind.minfraud;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+import com.maxmind.minfraud.response.FactorsResponse;
+import com.maxmind.minfraud.response.InsightsResponse;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+
+/**
+ * Reading the response bodies in the test data into response models, with
+ * a mapper configured the way {@code WebServiceClient} configures its own.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class DeserializationBenchmark {
+    private ObjectReader scoreReader;
+    private ObjectReader insightsReader;
+    private ObjectReader factorsReader;
+    private byte[] score;
+    private byte[] insights;
+    private byte[] factors;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.disable(MapperFeature.CAN_OVERRIDE_ACCESS_MODIFIERS);
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper.setDateFormat(new StdDateFormat().withColonInTimeZone(true));
+        InjectableValues inject = new InjectableValues.Std()
+                .addValue("locales", Collections.singletonList("en"));
+        scoreReader = mapper.readerFor(ScoreResponse.class).with(inject);
+        insightsReader = mapper.readerFor(InsightsResponse.class).with(inject);
+        factorsReader = mapper.readerFor(FactorsResponse.class).with(inject);
+
+        score = readJsonFile("score-response").getBytes(StandardCharsets.UTF_8);
+        insights = readJsonFile("insights-response").getBytes(StandardCharsets.UTF_8);
+        factors = readJsonFile("factors-response").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ScoreResponse score() throws IOException {
+        return scoreReader.readValue(score);
+    }
+
+    @Benchmark
+    public InsightsResponse insights() throws IOException {
+        return insightsReader.readValue(insights);
+    }
+
+    @Benchmark
+    public FactorsResponse factors() throws IOException {
+        return factorsReader.readValue(factors);
+    }
+}
@@ -0,0 +1,48 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+
+/**
+ * Serializing transactions to the JSON request body with
+ * {@code AbstractModel.toJson}.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    /**
+     * The number of shopping cart items in the large transaction.
+     */
+    @Param({"2", "50"})
+    public int cartItems;
+
+    private Transaction small;
+    private Transaction large;
+
+    @Setup
+    public void setUp() {
+        small = BenchmarkData.small();
+        large = BenchmarkData.large(cartItems);
+    }
+
+    @Benchmark
+    public String toJsonSmall() throws IOException {
+        return small.toJson();
+    }
+
+    @Benchmark
+    public String toJsonLarge() throws IOException {
+        return large.toJson();
+    }
+}
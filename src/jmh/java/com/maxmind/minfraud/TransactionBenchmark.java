@@ -0,0 +1,26 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building transactions, which includes validating every field set.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransactionBenchmark {
+
+    @Benchmark
+    public Transaction buildSmall() {
+        return BenchmarkData.small();
+    }
+
+    @Benchmark
+    public Transaction buildLarge() {
+        return BenchmarkData.large(2);
+    }
+}
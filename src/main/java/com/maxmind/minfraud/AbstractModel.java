@@ -9,20 +9,24 @@ import com.fasterxml.jackson.databind.util.StdDateFormat;
 import java.io.IOException;
 
 public abstract class AbstractModel {
+    // The mapper is thread safe once configured. Sharing it lets Jackson
+    // reuse the serializers it builds for each class.
+    private static final ObjectMapper mapper = new ObjectMapper();
 
-    /**
-     * @return JSON representation of this object.
-     * @throws IOException if there is an error serializing the object to JSON.
-     */
-    public final String toJson() throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
+    static {
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
         mapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
         mapper.enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING);
         mapper.disable(MapperFeature.CAN_OVERRIDE_ACCESS_MODIFIERS);
         mapper.setDateFormat(new StdDateFormat().withColonInTimeZone(true));
         mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+    }
 
+    /**
+     * @return JSON representation of this object.
+     * @throws IOException if there is an error serializing the object to JSON.
+     */
+    public final String toJson() throws IOException {
         return mapper.writeValueAsString(this);
     }
 
@@ -0,0 +1,316 @@
+package com.maxmind.minfraud;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.ScoreResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the audit log configured by an {@code AuditPolicy}. Calls offer
+ * their entries to a {@code RingBuffer}, and a single background thread
+ * turns them into JSON lines, collects the lines in a buffer, and writes
+ * the buffer to the file when it is full, when the flush interval has
+ * passed, or when the log is closed.
+ * <p>
+ * A failure to write stops the log. It does not fail any call and is
+ * thrown by {@link #close}.
+ * </p>
+ */
+final class AuditLog implements Closeable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+    // How long the writer sleeps when there is nothing to write.
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private final AuditPolicy policy;
+    private final RingBuffer<Entry> ring;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    // Only used by the writer thread.
+    private final JsonFactory json = new JsonFactory();
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(1024);
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final SimpleDateFormat timestamps = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+    private final Random random = new Random();
+    private FileChannel channel;
+    private long fileBytes;
+    // The entries in the buffer, which are lost if writing fails.
+    private int unwritten;
+
+    private static final class Entry {
+        final long timestamp;
+        final String service;
+        final Transaction transaction;
+        final String outcome;
+        final ScoreResponse response;
+        final Exception exception;
+        final long nanos;
+
+        Entry(long timestamp, String service, Transaction transaction, String outcome,
+              ScoreResponse response, Exception exception, long nanos) {
+            this.timestamp = timestamp;
+            this.service = service;
+            this.transaction = transaction;
+            this.outcome = outcome;
+            this.response = response;
+            this.exception = exception;
+            this.nanos = nanos;
+        }
+    }
+
+    AuditLog(AuditPolicy policy) {
+        this.policy = policy;
+        ring = new RingBuffer<>(policy.getCapacity());
+        timestamps.setTimeZone(TimeZone.getTimeZone("UTC"));
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, "minfraud-audit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Hands a completed call to the writer. This never blocks.
+     *
+     * @param outcome   The outcome, as passed to {@code Metrics.recordCall}.
+     * @param response  The response, or null if the call threw.
+     * @param exception The exception thrown, or the one a fallback response
+     *                  stood in for, or null.
+     * @param nanos     How long the call took.
+     */
+    void offer(String service, Transaction transaction, String outcome, ScoreResponse response,
+               Exception exception, long nanos) {
+        if (closed || failure != null) {
+            dropped.incrementAndGet();
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), service, transaction, outcome, response,
+                exception, nanos);
+        if (!ring.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return The number of calls not logged because the buffer was full or
+     * the log was stopped.
+     */
+    long dropped() {
+        return dropped.get();
+    }
+
+    private void write() {
+        long lastFlush = System.nanoTime();
+        long flushNanos = TimeUnit.MILLISECONDS.toNanos(policy.getFlushInterval());
+        Entry entry = null;
+        try {
+            while (true) {
+                entry = ring.poll();
+                if (entry != null) {
+                    append(entry);
+                    entry = null;
+                    continue;
+                }
+                if (closed && ring.isEmpty()) {
+                    break;
+                }
+                if (buffer.position() > 0 && System.nanoTime() - lastFlush >= flushNanos) {
+                    flush();
+                    lastFlush = System.nanoTime();
+                }
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+            flush();
+        } catch (IOException e) {
+            failure = e;
+            dropped.addAndGet(unwritten + (entry == null ? 0 : 1));
+        } finally {
+            closeChannel();
+            // Entries offered after a failure are not written.
+            while (ring.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    private void append(Entry entry) throws IOException {
+        line.reset();
+        try (JsonGenerator generator = json.createGenerator(line)) {
+            generator.writeStartObject();
+            generator.writeStringField("timestamp", timestamps.format(new Date(entry.timestamp)));
+            generator.writeStringField("service", entry.service);
+            String transactionId = entry.transaction == null || entry.transaction.getEvent() == null
+                    ? null : entry.transaction.getEvent().getTransactionId();
+            if (transactionId != null) {
+                generator.writeStringField("transaction_id", transactionId);
+            }
+            generator.writeNumberField("latency_ms", TimeUnit.NANOSECONDS.toMicros(entry.nanos) / 1000.0);
+            generator.writeStringField("outcome", entry.outcome);
+            if (entry.response != null) {
+                if (entry.response.getId() != null) {
+                    generator.writeStringField("id", entry.response.getId().toString());
+                }
+                if (entry.response.getRiskScore() != null) {
+                    generator.writeNumberField("risk_score", entry.response.getRiskScore());
+                }
+                if (entry.response.getDisposition() != null
+                        && entry.response.getDisposition().getAction() != null) {
+                    generator.writeStringField("disposition", entry.response.getDisposition().getAction());
+                }
+            }
+            if (entry.exception != null) {
+                generator.writeStringField("error", String.valueOf(entry.exception.getMessage()));
+            }
+            if (policy.getBodySampleRate() > 0 && random.nextDouble() < policy.getBodySampleRate()) {
+                if (entry.transaction != null) {
+                    generator.writeFieldName("request");
+                    generator.writeRawValue(entry.transaction.toJson());
+                }
+                if (entry.response != null) {
+                    generator.writeFieldName("response");
+                    generator.writeRawValue(entry.response.toJson());
+                }
+            }
+            generator.writeEndObject();
+        }
+        line.write('\n');
+
+        int size = line.size();
+        if (fileBytes + buffer.position() + size > policy.getMaxFileBytes()
+                && fileBytes + buffer.position() > 0) {
+            flush();
+            rotate();
+        }
+        if (size > buffer.remaining()) {
+            flush();
+        }
+        if (size > buffer.capacity()) {
+            writeFully(ByteBuffer.wrap(line.toByteArray()));
+        } else {
+            buffer.put(line.toByteArray());
+            unwritten++;
+        }
+    }
+
+    private void flush() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+        unwritten = 0;
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        FileChannel out = channel();
+        while (bytes.hasRemaining()) {
+            fileBytes += out.write(bytes);
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Path directory = policy.getDirectory().toPath();
+            Files.createDirectories(directory);
+            channel = FileChannel.open(directory.resolve(policy.getFileName()),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            fileBytes = channel.size();
+        }
+        return channel;
+    }
+
+    /**
+     * Renames the current file to ".1", after shifting the rotated files
+     * up by one and deleting the oldest.
+     */
+    private void rotate() throws IOException {
+        channel();
+        closeChannel();
+        Path current = policy.getDirectory().toPath().resolve(policy.getFileName());
+        int maxFiles = policy.getMaxFiles();
+        if (maxFiles == 0) {
+            Files.delete(current);
+            return;
+        }
+        Files.deleteIfExists(rotated(current, maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path older = rotated(current, i);
+            if (Files.exists(older)) {
+                Files.move(older, rotated(current, i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(current, rotated(current, 1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static Path rotated(Path current, int index) {
+        return current.resolveSibling(current.getFileName() + "." + index);
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            channel = null;
+            fileBytes = 0;
+        }
+    }
+
+    /**
+     * Writes the entries already offered and closes the file.
+     *
+     * @throws IOException when writing failed, now or earlier.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the audit log");
+        }
+        IOException e = failure;
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /**
+     * @return The path of the current log file.
+     */
+    File file() {
+        return new File(policy.getDirectory(), policy.getFileName());
+    }
+}
@@ -0,0 +1,222 @@
+package com.maxmind.minfraud;
+
+import java.io.File;
+
+/**
+ * {@code AuditPolicy} configures the audit log of a
+ * {@code WebServiceClient}, which records a summary line for every call in
+ * newline-delimited JSON files.
+ * <p>
+ * A call only hands its transaction and result to a buffer, without
+ * locks. A background thread turns them into JSON, and includes the full
+ * request and response bodies for a sample of the calls. It writes the
+ * lines in large buffered writes and rotates the file when it reaches a
+ * maximum size. When the buffer is full because the writer cannot keep up,
+ * the calls' entries are dropped rather than making the calls wait.
+ * </p>
+ */
+public final class AuditPolicy {
+    private final File directory;
+    private final String fileName;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final int capacity;
+    private final double bodySampleRate;
+    private final int flushInterval;
+
+    private AuditPolicy(AuditPolicy.Builder builder) {
+        directory = builder.directory;
+        fileName = builder.fileName;
+        maxFileBytes = builder.maxFileBytes;
+        maxFiles = builder.maxFiles;
+        capacity = builder.capacity;
+        bodySampleRate = builder.bodySampleRate;
+        flushInterval = builder.flushInterval;
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code AuditPolicy}
+     * from values set by the builder's methods.
+     */
+    public static final class Builder {
+        final File directory;
+        String fileName = "minfraud-audit.log";
+        long maxFileBytes = 100L * 1024 * 1024;
+        int maxFiles = 10;
+        int capacity = 8192;
+        double bodySampleRate;
+        int flushInterval = 1000;
+
+        /**
+         * @param directory The directory to write the log files to. It is
+         *                  created if it does not exist.
+         * @throws IllegalArgumentException when directory is null.
+         */
+        public Builder(File directory) {
+            if (directory == null) {
+                throw new IllegalArgumentException("directory must not be null");
+            }
+            this.directory = directory;
+        }
+
+        /**
+         * @param val The name of the current log file. Rotated files get
+         *            ".1", ".2" and so on appended, with ".1" the most
+         *            recent. The default is "minfraud-audit.log".
+         * @return Builder object
+         * @throws IllegalArgumentException when val is null or empty.
+         */
+        public AuditPolicy.Builder fileName(String val) {
+            if (val == null || val.isEmpty()) {
+                throw new IllegalArgumentException("fileName must not be empty");
+            }
+            fileName = val;
+            return this;
+        }
+
+        /**
+         * @param val The size in bytes at which the log file is rotated. The
+         *            default is 100 MiB.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public AuditPolicy.Builder maxFileBytes(long val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("maxFileBytes must be positive");
+            }
+            maxFileBytes = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of rotated files to keep besides the current
+         *            one. Older ones are deleted. The default is 10.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public AuditPolicy.Builder maxFiles(int val) {
+            if (val < 0) {
+                throw new IllegalArgumentException("maxFiles must not be negative");
+            }
+            maxFiles = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of calls that may wait to be written. It is
+         *            rounded up to a power of two. Calls beyond this are not
+         *            logged. The default is 8192.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is out of range.
+         */
+        public AuditPolicy.Builder capacity(int val) {
+            if (val <= 0 || val > 1 << 30) {
+                throw new IllegalArgumentException("capacity must be from 1 to 2^30");
+            }
+            capacity = val;
+            return this;
+        }
+
+        /**
+         * @param val The fraction of calls, from 0 to 1, whose full request
+         *            and response bodies are logged with their summary. The
+         *            default is 0.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is out of range.
+         */
+        public AuditPolicy.Builder bodySampleRate(double val) {
+            if (val < 0 || val > 1) {
+                throw new IllegalArgumentException("bodySampleRate must be from 0 to 1");
+            }
+            bodySampleRate = val;
+            return this;
+        }
+
+        /**
+         * @param val The maximum number of milliseconds written lines may be
+         *            held in the buffer before they are written to the file.
+         *            The default is 1000.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public AuditPolicy.Builder flushInterval(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("flushInterval must be positive");
+            }
+            flushInterval = val;
+            return this;
+        }
+
+        /**
+         * @return An instance of {@code AuditPolicy} created from the
+         * fields set on this builder.
+         */
+        public AuditPolicy build() {
+            return new AuditPolicy(this);
+        }
+    }
+
+    /**
+     * @return The directory the log files are written to.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return The name of the current log file.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @return The size in bytes at which the log file is rotated.
+     */
+    public long getMaxFileBytes() {
+        return maxFileBytes;
+    }
+
+    /**
+     * @return The number of rotated files kept besides the current one.
+     */
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    /**
+     * @return The number of calls that may wait to be written.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The fraction of calls whose full request and response bodies
+     * are logged.
+     */
+    public double getBodySampleRate() {
+        return bodySampleRate;
+    }
+
+    /**
+     * @return The maximum number of milliseconds written lines may be held
+     * in the buffer.
+     */
+    public int getFlushInterval() {
+        return flushInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditPolicy{" +
+                "directory=" + directory +
+                ", fileName='" + fileName + '\'' +
+                ", maxFileBytes=" + maxFileBytes +
+                ", maxFiles=" + maxFiles +
+                ", capacity=" + capacity +
+                ", bodySampleRate=" + bodySampleRate +
+                ", flushInterval=" + flushInterval +
+                '}';
+    }
+}
@@ -0,0 +1,86 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the calls for a list of transactions on an executor, keeping as many
+ * in flight as the client's in-flight limit allows. Each call serializes its
+ * request, waits for the response, and parses it, so while one call is
+ * waiting on the network others are serializing or parsing.
+ */
+final class Batch<T> {
+    private final StreamProcessor.Call<T> call;
+    private final Executor executor;
+    private final StreamProcessor.Limit limit;
+
+    // Guarded by this.
+    private int inFlight;
+
+    Batch(StreamProcessor.Call<T> call, Executor executor, StreamProcessor.Limit limit) {
+        this.call = call;
+        this.executor = executor;
+        this.limit = limit;
+    }
+
+    /**
+     * @param transactions The transactions to make calls for.
+     * @return The results in the order of the transactions.
+     * @throws InterruptedIOException when the thread is interrupted. Calls
+     *                                already in flight still complete.
+     */
+    BatchResult<T> run(List<Transaction> transactions) throws InterruptedIOException {
+        long start = System.nanoTime();
+        @SuppressWarnings("unchecked")
+        final Result<T>[] results = new Result[transactions.size()];
+        try {
+            for (int i = 0; i < results.length; i++) {
+                final int index = i;
+                final Transaction transaction = transactions.get(i);
+                synchronized (this) {
+                    while (inFlight >= Math.max(1, limit.get())) {
+                        wait();
+                    }
+                    inFlight++;
+                }
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            Result<T> result;
+                            try {
+                                result = Result.success(transaction, call.call(transaction));
+                            } catch (Exception e) {
+                                result = Result.failure(transaction, e);
+                            }
+                            finish(results, index, result);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    finish(results, index, Result.<T>failure(transaction, e));
+                }
+            }
+            synchronized (this) {
+                while (inFlight > 0) {
+                    wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while running a batch");
+        }
+        return new BatchResult<>(new ArrayList<>(Arrays.asList(results)), System.nanoTime() - start);
+    }
+
+    private synchronized void finish(Result<T>[] results, int index, Result<T> result) {
+        results[index] = result;
+        inFlight--;
+        notifyAll();
+    }
+}
@@ -0,0 +1,75 @@
+package com.maxmind.minfraud;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The results of a batch of calls, in the order of the transactions passed
+ * in, along with how long the batch took.
+ *
+ * @param <T> The type of the responses.
+ */
+public final class BatchResult<T> {
+    private final List<Result<T>> results;
+    private final int failures;
+    private final long elapsedNanos;
+
+    BatchResult(List<Result<T>> results, long elapsedNanos) {
+        this.results = Collections.unmodifiableList(results);
+        this.elapsedNanos = elapsedNanos;
+        int failed = 0;
+        for (Result<T> result : results) {
+            if (!result.isSuccess()) {
+                failed++;
+            }
+        }
+        this.failures = failed;
+    }
+
+    /**
+     * @return The result for each transaction, in the order the
+     * transactions were passed in.
+     */
+    public List<Result<T>> getResults() {
+        return results;
+    }
+
+    /**
+     * @return The number of calls that succeeded.
+     */
+    public int getSuccesses() {
+        return results.size() - failures;
+    }
+
+    /**
+     * @return The number of calls that failed.
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return The number of milliseconds the batch took.
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000;
+    }
+
+    /**
+     * @return The number of transactions completed per second, counting
+     * both successes and failures.
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : results.size() * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "size=" + results.size() +
+                ", failures=" + failures +
+                ", elapsedMillis=" + getElapsedMillis() +
+                ", throughput=" + getThroughput() +
+                '}';
+    }
+}
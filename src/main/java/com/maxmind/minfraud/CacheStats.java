@@ -0,0 +1,78 @@
+package com.maxmind.minfraud;
+
+/**
+ * A snapshot of the counters of a {@code WebServiceClient}'s response
+ * cache.
+ */
+public final class CacheStats {
+    private final long hits;
+    private final long staleHits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    CacheStats(long hits, long staleHits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.staleHits = staleHits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * @return The number of calls answered with a fresh response.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of calls answered with a stale response while it
+     * was refreshed.
+     */
+    public long getStaleHits() {
+        return staleHits;
+    }
+
+    /**
+     * @return The number of calls that sent a request because there was no
+     * usable response in the cache.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The number of responses evicted to make room for others.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The number of responses in the cache.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return The fraction of calls answered from the cache, fresh or
+     * stale, or 0 if there have been no calls.
+     */
+    public double getHitRate() {
+        long total = hits + staleHits + misses;
+        return total == 0 ? 0 : (double) (hits + staleHits) / total;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", staleHits=" + staleHits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,42 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.response.ScoreResponse;
+
+/**
+ * A response held by a {@code ResponseStore}, with the time it was stored.
+ */
+public final class CachedResponse {
+    private final ScoreResponse response;
+    private final long storedAt;
+
+    CachedResponse(ScoreResponse response, long storedAt) {
+        this.response = response;
+        this.storedAt = storedAt;
+    }
+
+    /**
+     * @return The response. It is a {@code ScoreResponse},
+     * {@code InsightsResponse}, or {@code FactorsResponse}, depending on the
+     * service in the key.
+     */
+    public ScoreResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * @return The time the response was stored, in milliseconds since the
+     * epoch. Entries in the client's default store, which is not shared,
+     * are timed with {@code System.nanoTime()} instead.
+     */
+    public long getStoredAt() {
+        return storedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedResponse{" +
+                "response=" + response +
+                ", storedAt=" + storedAt +
+                '}';
+    }
+}
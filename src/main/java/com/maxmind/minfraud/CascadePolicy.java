@@ -0,0 +1,143 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.response.Disposition;
+import com.maxmind.minfraud.response.ScoreResponse;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * {@code CascadePolicy} configures {@code WebServiceClient.evaluate}, which
+ * makes a Score call first and escalates to an Insights or Factors call only
+ * for transactions that need a closer look. A transaction is escalated when
+ * its risk score reaches the threshold or when the disposition set by your
+ * custom rules has one of the configured actions.
+ */
+public final class CascadePolicy {
+
+    /**
+     * The services a cascade can escalate to.
+     */
+    public enum Escalation {
+        /**
+         * Make an Insights call.
+         */
+        INSIGHTS,
+        /**
+         * Make a Factors call.
+         */
+        FACTORS
+    }
+
+    private final Escalation escalation;
+    private final double riskScoreThreshold;
+    private final Set<String> actions;
+
+    private CascadePolicy(CascadePolicy.Builder builder) {
+        escalation = builder.escalation;
+        riskScoreThreshold = builder.riskScoreThreshold;
+        actions = Collections.unmodifiableSet(new LinkedHashSet<>(builder.actions));
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code CascadePolicy}
+     * from values set by the builder's methods.
+     */
+    public static final class Builder {
+        Escalation escalation = Escalation.INSIGHTS;
+        double riskScoreThreshold = 10;
+        final Set<String> actions = new LinkedHashSet<>();
+
+        /**
+         * @param val The service to escalate to. The default is
+         *            {@code INSIGHTS}.
+         * @return Builder object
+         */
+        public CascadePolicy.Builder escalateTo(Escalation val) {
+            if (val == null) {
+                throw new IllegalArgumentException("escalation must not be null");
+            }
+            escalation = val;
+            return this;
+        }
+
+        /**
+         * @param val The risk score from 0 to 100 at or above which a
+         *            transaction is escalated. Risk scores range from 0.01
+         *            to 99, so 0 escalates every transaction and 100 none.
+         *            The default is 10.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is out of range.
+         */
+        public CascadePolicy.Builder riskScoreThreshold(double val) {
+            if (val < 0 || val > 100) {
+                throw new IllegalArgumentException("riskScoreThreshold must be between 0 and 100");
+            }
+            riskScoreThreshold = val;
+            return this;
+        }
+
+        /**
+         * @param val A disposition action, e.g., "manual_review" or "reject",
+         *            for which a transaction is escalated whatever its risk
+         *            score. By default, no action leads to escalation.
+         * @return Builder object
+         */
+        public CascadePolicy.Builder escalateOnAction(String val) {
+            if (val == null) {
+                throw new IllegalArgumentException("action must not be null");
+            }
+            actions.add(val);
+            return this;
+        }
+
+        /**
+         * @return An instance of {@code CascadePolicy} created from the
+         * fields set on this builder.
+         */
+        public CascadePolicy build() {
+            return new CascadePolicy(this);
+        }
+    }
+
+    /**
+     * @return The service to escalate to.
+     */
+    public Escalation getEscalation() {
+        return escalation;
+    }
+
+    /**
+     * @return The risk score at or above which a transaction is escalated.
+     */
+    public double getRiskScoreThreshold() {
+        return riskScoreThreshold;
+    }
+
+    /**
+     * @return The disposition actions for which a transaction is escalated.
+     */
+    public Set<String> getActions() {
+        return actions;
+    }
+
+    boolean shouldEscalate(ScoreResponse score) {
+        Double riskScore = score.getRiskScore();
+        if (riskScore != null && riskScore >= riskScoreThreshold) {
+            return true;
+        }
+        Disposition disposition = score.getDisposition();
+        return disposition != null && disposition.getAction() != null
+                && actions.contains(disposition.getAction());
+    }
+
+    @Override
+    public String toString() {
+        return "CascadePolicy{" +
+                "escalation=" + escalation +
+                ", riskScoreThreshold=" + riskScoreThreshold +
+                ", actions=" + actions +
+                '}';
+    }
+}
@@ -0,0 +1,141 @@
+package com.maxmind.minfraud;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The circuit breaker state machine configured by a
+ * {@code CircuitBreakerPolicy}. Every call that is let through by
+ * {@link #tryAcquire()} must report its outcome to {@link #record}.
+ */
+final class CircuitBreaker {
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final CircuitBreakerPolicy policy;
+    private final long slowNanos;
+    private final long openNanos;
+
+    // Outcomes of the most recent calls while closed.
+    private final byte[] window;
+    private int next;
+    private int recorded;
+    private int failed;
+    private int slow;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesLeft;
+    private int probesRecorded;
+    private int probesFailed;
+    private int probesSlow;
+
+    CircuitBreaker(CircuitBreakerPolicy policy) {
+        this.policy = policy;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(policy.getSlowCallDuration());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(policy.getOpenDuration());
+        this.window = new byte[policy.getWindowSize()];
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesLeft = policy.getHalfOpenCalls();
+            probesRecorded = 0;
+            probesFailed = 0;
+            probesSlow = 0;
+        }
+        if (probesLeft == 0) {
+            return false;
+        }
+        probesLeft--;
+        return true;
+    }
+
+    /**
+     * Returns a permit from {@link #tryAcquire()} for a call that was not
+     * made after all.
+     */
+    synchronized void cancel() {
+        if (state == State.HALF_OPEN && probesLeft + probesRecorded < policy.getHalfOpenCalls()) {
+            probesLeft++;
+        }
+    }
+
+    synchronized void record(long nanos, boolean failure) {
+        byte outcome = (byte) ((failure ? FAILED : 0) | (nanos >= slowNanos ? SLOW : 0));
+        if (state == State.HALF_OPEN) {
+            probesRecorded++;
+            probesFailed += outcome & FAILED;
+            probesSlow += (outcome & SLOW) >> 1;
+            if (probesRecorded >= policy.getHalfOpenCalls()) {
+                if (exceeded(probesFailed, probesSlow, probesRecorded)) {
+                    open();
+                } else {
+                    close();
+                }
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // The call started before the breaker opened.
+            return;
+        }
+
+        if (recorded == window.length) {
+            failed -= window[next] & FAILED;
+            slow -= (window[next] & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        window[next] = outcome;
+        next = (next + 1) % window.length;
+        failed += outcome & FAILED;
+        slow += (outcome & SLOW) >> 1;
+
+        if (recorded >= policy.getMinimumCalls() && exceeded(failed, slow, recorded)) {
+            open();
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private boolean exceeded(int failures, int slowCalls, int calls) {
+        return failures * 100.0 / calls >= policy.getFailureRateThreshold()
+                || slowCalls * 100.0 / calls >= policy.getSlowCallRateThreshold();
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failed = 0;
+        slow = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{" +
+                "state=" + state() +
+                ", policy=" + policy +
+                '}';
+    }
+}
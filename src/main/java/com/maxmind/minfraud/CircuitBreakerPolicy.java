@@ -0,0 +1,223 @@
+package com.maxmind.minfraud;
+
+/**
+ * {@code CircuitBreakerPolicy} configures the circuit breaker of a
+ * {@code WebServiceClient}.
+ * <p>
+ * The breaker records the outcome of the most recent calls in a sliding
+ * window. A call is a failure when it fails with an {@code IOException}
+ * other than a 4xx {@code HttpException}, and it is slow when it takes at
+ * least the slow call duration. When the failure rate or the slow call rate
+ * of a full enough window reaches its threshold, the breaker opens and calls
+ * fail fast with a {@code CircuitOpenException}. After the open duration, a
+ * limited number of probe calls are let through. If they succeed, the
+ * breaker closes again. Otherwise it reopens.
+ * </p>
+ */
+public final class CircuitBreakerPolicy {
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final int slowCallDuration;
+    private final double slowCallRateThreshold;
+    private final int openDuration;
+    private final int halfOpenCalls;
+
+    private CircuitBreakerPolicy(CircuitBreakerPolicy.Builder builder) {
+        windowSize = builder.windowSize;
+        minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        failureRateThreshold = builder.failureRateThreshold;
+        slowCallDuration = builder.slowCallDuration;
+        slowCallRateThreshold = builder.slowCallRateThreshold;
+        openDuration = builder.openDuration;
+        halfOpenCalls = builder.halfOpenCalls;
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code CircuitBreakerPolicy}
+     * from values set by the builder's methods.
+     */
+    public static final class Builder {
+        int windowSize = 100;
+        int minimumCalls = 20;
+        double failureRateThreshold = 50;
+        int slowCallDuration = 1000;
+        double slowCallRateThreshold = 100;
+        int openDuration = 5000;
+        int halfOpenCalls = 5;
+
+        /**
+         * @param val The number of most recent calls whose outcomes are
+         *            used to calculate the failure and slow call rates. The
+         *            default is 100.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public CircuitBreakerPolicy.Builder windowSize(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("windowSize must be positive");
+            }
+            windowSize = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of calls that must be recorded before the
+         *            breaker may open. The default is 20.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public CircuitBreakerPolicy.Builder minimumCalls(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("minimumCalls must be positive");
+            }
+            minimumCalls = val;
+            return this;
+        }
+
+        /**
+         * @param val The percentage of failed calls at which the breaker
+         *            opens. The default is 50.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not greater than 0
+         *                                  and at most 100.
+         */
+        public CircuitBreakerPolicy.Builder failureRateThreshold(double val) {
+            checkRate(val);
+            failureRateThreshold = val;
+            return this;
+        }
+
+        /**
+         * @param val The duration in milliseconds at or above which a call
+         *            is considered slow. The default is 1000.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public CircuitBreakerPolicy.Builder slowCallDuration(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("slowCallDuration must be positive");
+            }
+            slowCallDuration = val;
+            return this;
+        }
+
+        /**
+         * @param val The percentage of slow calls at which the breaker
+         *            opens. The default is 100.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not greater than 0
+         *                                  and at most 100.
+         */
+        public CircuitBreakerPolicy.Builder slowCallRateThreshold(double val) {
+            checkRate(val);
+            slowCallRateThreshold = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of milliseconds the breaker stays open
+         *            before letting probe calls through. The default is
+         *            5000.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public CircuitBreakerPolicy.Builder openDuration(int val) {
+            if (val < 0) {
+                throw new IllegalArgumentException("openDuration must not be negative");
+            }
+            openDuration = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of probe calls let through while the
+         *            breaker is half-open. The default is 5.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public CircuitBreakerPolicy.Builder halfOpenCalls(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("halfOpenCalls must be positive");
+            }
+            halfOpenCalls = val;
+            return this;
+        }
+
+        /**
+         * @return An instance of {@code CircuitBreakerPolicy} created from
+         * the fields set on this builder.
+         */
+        public CircuitBreakerPolicy build() {
+            return new CircuitBreakerPolicy(this);
+        }
+
+        private static void checkRate(double val) {
+            if (val <= 0 || val > 100) {
+                throw new IllegalArgumentException("rate thresholds must be greater than 0 and at most 100");
+            }
+        }
+    }
+
+    /**
+     * @return The size of the sliding window.
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @return The number of calls required before the breaker may open.
+     */
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * @return The failure rate percentage at which the breaker opens.
+     */
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * @return The duration in milliseconds at which a call is slow.
+     */
+    public int getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    /**
+     * @return The slow call rate percentage at which the breaker opens.
+     */
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * @return The number of milliseconds the breaker stays open.
+     */
+    public int getOpenDuration() {
+        return openDuration;
+    }
+
+    /**
+     * @return The number of probe calls let through while half-open.
+     */
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerPolicy{" +
+                "windowSize=" + windowSize +
+                ", minimumCalls=" + minimumCalls +
+                ", failureRateThreshold=" + failureRateThreshold +
+                ", slowCallDuration=" + slowCallDuration +
+                ", slowCallRateThreshold=" + slowCallRateThreshold +
+                ", openDuration=" + openDuration +
+                ", halfOpenCalls=" + halfOpenCalls +
+                '}';
+    }
+}
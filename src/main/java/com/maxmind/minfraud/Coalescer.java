@@ -0,0 +1,122 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.DeadlineExceededException;
+import com.maxmind.minfraud.exception.MinFraudException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets concurrent calls with the same key share one call. The first caller
+ * for a key, the leader, makes the call on its own thread. Callers that
+ * arrive while it is in flight wait for it and get the same response or
+ * exception. Once the call completes, the next caller starts a new one.
+ * <p>
+ * A caller that is interrupted or whose deadline passes while waiting
+ * stops waiting without affecting the others. If the leader itself is
+ * interrupted before its call completes, the waiting callers do not take
+ * on its interruption. One of them makes the call instead.
+ * </p>
+ */
+final class Coalescer {
+    interface Call<T> {
+        T call() throws IOException, MinFraudException;
+    }
+
+    private static final class Flight {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Object response;
+        private volatile Throwable failure;
+        private volatile boolean leaderInterrupted;
+    }
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * @param key      The key identifying identical calls.
+     * @param deadline The deadline for waiting on another caller's call, or
+     *                 null.
+     * @param call     The call to make if no identical call is in flight.
+     * @return The response of the call made by this or another caller.
+     * @throws DeadlineExceededException when the deadline passes while
+     *                                   waiting for another caller's call.
+     * @throws InterruptedIOException    when interrupted while waiting for
+     *                                   another caller's call.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T call(String key, Deadline deadline, Call<T> call) throws IOException, MinFraudException {
+        while (true) {
+            Flight flight = new Flight();
+            Flight existing = flights.putIfAbsent(key, flight);
+            if (existing == null) {
+                return lead(key, flight, call);
+            }
+            await(existing, deadline);
+            if (existing.leaderInterrupted) {
+                // That is not an outcome of the call, so try again.
+                continue;
+            }
+            if (existing.failure != null) {
+                throw rethrow(existing.failure);
+            }
+            return (T) existing.response;
+        }
+    }
+
+    private <T> T lead(String key, Flight flight, Call<T> call) throws IOException, MinFraudException {
+        try {
+            T response = call.call();
+            flight.response = response;
+            return response;
+        } catch (IOException | MinFraudException | RuntimeException | Error e) {
+            flight.failure = e;
+            // A read timeout is also an InterruptedIOException, so the
+            // interrupt status tells whether the leader was interrupted.
+            flight.leaderInterrupted = Thread.currentThread().isInterrupted();
+            throw e;
+        } finally {
+            // Removed before the waiting callers are released, so that a
+            // caller arriving after completion starts a new call.
+            flights.remove(key, flight);
+            flight.done.countDown();
+        }
+    }
+
+    private static void await(Flight flight, Deadline deadline) throws IOException {
+        try {
+            if (deadline == null) {
+                flight.done.await();
+            } else if (!flight.done.await(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)) {
+                throw new DeadlineExceededException(
+                        "The identical call in flight did not complete before the deadline");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an identical call");
+        }
+    }
+
+    private static IOException rethrow(Throwable failure) throws MinFraudException {
+        if (failure instanceof IOException) {
+            return (IOException) failure;
+        }
+        if (failure instanceof MinFraudException) {
+            throw (MinFraudException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        throw (Error) failure;
+    }
+
+    /**
+     * @return The number of keys with a call in flight.
+     */
+    int inFlight() {
+        return flights.size();
+    }
+}
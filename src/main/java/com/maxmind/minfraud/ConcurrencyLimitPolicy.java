@@ -0,0 +1,268 @@
+package com.maxmind.minfraud;
+
+/**
+ * {@code ConcurrencyLimitPolicy} configures adaptive limiting of the number
+ * of calls a {@code WebServiceClient} has in flight.
+ * <p>
+ * The limit is adjusted after every call by comparing the call's round trip
+ * time with the no-load round trip time, which is the lowest recently
+ * observed round trip time. When round trip times rise, the web service is
+ * queueing work and the limit is lowered. When they stay near the no-load
+ * time, the limit is raised. Calls over the limit wait for up to the
+ * maximum wait and are then rejected with a
+ * {@code ConcurrencyLimitedException}.
+ * </p>
+ */
+public final class ConcurrencyLimitPolicy {
+
+    /**
+     * The algorithms available for adjusting the limit.
+     */
+    public enum Algorithm {
+        /**
+         * Additive increase, multiplicative decrease. The limit grows by one
+         * for every limit's worth of calls that were neither failed nor
+         * slower than the tolerated round trip time, so by about one per
+         * round trip, and is cut by the backoff ratio after any other
+         * call.
+         */
+        AIMD,
+        /**
+         * The limit is scaled by the ratio of the tolerated round trip time
+         * to the call's round trip time, plus an allowance of one call for
+         * queueing, as in Netflix's concurrency-limits library.
+         */
+        GRADIENT
+    }
+
+    private final Algorithm algorithm;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double backoffRatio;
+    private final double smoothing;
+    private final int maxWait;
+
+    private ConcurrencyLimitPolicy(ConcurrencyLimitPolicy.Builder builder) {
+        algorithm = builder.algorithm;
+        minLimit = builder.minLimit;
+        maxLimit = Math.max(builder.maxLimit, builder.minLimit);
+        initialLimit = Math.max(minLimit, Math.min(maxLimit, builder.initialLimit));
+        rttTolerance = builder.rttTolerance;
+        backoffRatio = builder.backoffRatio;
+        smoothing = builder.smoothing;
+        maxWait = builder.maxWait;
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code ConcurrencyLimitPolicy}
+     * from values set by the builder's methods.
+     */
+    public static final class Builder {
+        Algorithm algorithm = Algorithm.GRADIENT;
+        int initialLimit = 20;
+        int minLimit = 1;
+        int maxLimit = 200;
+        double rttTolerance = 1.2;
+        double backoffRatio = 0.9;
+        double smoothing = 0.2;
+        int maxWait;
+
+        /**
+         * @param val The algorithm used to adjust the limit. The default is
+         *            {@code GRADIENT}.
+         * @return Builder object
+         */
+        public ConcurrencyLimitPolicy.Builder algorithm(Algorithm val) {
+            if (val == null) {
+                throw new IllegalArgumentException("algorithm must not be null");
+            }
+            algorithm = val;
+            return this;
+        }
+
+        /**
+         * @param val The limit before any calls have been made. The default
+         *            is 20.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public ConcurrencyLimitPolicy.Builder initialLimit(int val) {
+            checkLimit(val);
+            initialLimit = val;
+            return this;
+        }
+
+        /**
+         * @param val The lowest the limit may go. The default is 1.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public ConcurrencyLimitPolicy.Builder minLimit(int val) {
+            checkLimit(val);
+            minLimit = val;
+            return this;
+        }
+
+        /**
+         * @param val The highest the limit may go. The default is 200.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public ConcurrencyLimitPolicy.Builder maxLimit(int val) {
+            checkLimit(val);
+            maxLimit = val;
+            return this;
+        }
+
+        /**
+         * @param val How many times the no-load round trip time a call may
+         *            take before the web service is considered to be
+         *            queueing. The default is 1.2.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is less than 1.
+         */
+        public ConcurrencyLimitPolicy.Builder rttTolerance(double val) {
+            if (val < 1) {
+                throw new IllegalArgumentException("rttTolerance must be at least 1");
+            }
+            rttTolerance = val;
+            return this;
+        }
+
+        /**
+         * @param val The factor the {@code AIMD} algorithm multiplies the
+         *            limit by after a failed or slow call. The default is
+         *            0.9.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not between 0 and 1,
+         *                                  exclusive.
+         */
+        public ConcurrencyLimitPolicy.Builder backoffRatio(double val) {
+            if (val <= 0 || val >= 1) {
+                throw new IllegalArgumentException("backoffRatio must be between 0 and 1, exclusive");
+            }
+            backoffRatio = val;
+            return this;
+        }
+
+        /**
+         * @param val How much of each new estimate the {@code GRADIENT}
+         *            algorithm applies to the limit, from 0, exclusive, to 1.
+         *            The default is 0.2.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is out of range.
+         */
+        public ConcurrencyLimitPolicy.Builder smoothing(double val) {
+            if (val <= 0 || val > 1) {
+                throw new IllegalArgumentException("smoothing must be greater than 0 and at most 1");
+            }
+            smoothing = val;
+            return this;
+        }
+
+        /**
+         * @param val The maximum number of milliseconds a call waits when the
+         *            limit has been reached. The default is 0, meaning such
+         *            calls are rejected immediately.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public ConcurrencyLimitPolicy.Builder maxWait(int val) {
+            if (val < 0) {
+                throw new IllegalArgumentException("maxWait must not be negative");
+            }
+            maxWait = val;
+            return this;
+        }
+
+        /**
+         * @return An instance of {@code ConcurrencyLimitPolicy} created from
+         * the fields set on this builder.
+         */
+        public ConcurrencyLimitPolicy build() {
+            return new ConcurrencyLimitPolicy(this);
+        }
+
+        private static void checkLimit(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("limits must be positive");
+            }
+        }
+    }
+
+    /**
+     * @return The algorithm used to adjust the limit.
+     */
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return The limit before any calls have been made.
+     */
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    /**
+     * @return The lowest the limit may go.
+     */
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    /**
+     * @return The highest the limit may go.
+     */
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * @return How many times the no-load round trip time a call may take
+     * before the web service is considered to be queueing.
+     */
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    /**
+     * @return The factor the {@code AIMD} algorithm multiplies the limit by
+     * after a failed or slow call.
+     */
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    /**
+     * @return How much of each new estimate the {@code GRADIENT} algorithm
+     * applies to the limit.
+     */
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    /**
+     * @return The maximum number of milliseconds a call waits when the limit
+     * has been reached.
+     */
+    public int getMaxWait() {
+        return maxWait;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimitPolicy{" +
+                "algorithm=" + algorithm +
+                ", initialLimit=" + initialLimit +
+                ", minLimit=" + minLimit +
+                ", maxLimit=" + maxLimit +
+                ", rttTolerance=" + rttTolerance +
+                ", backoffRatio=" + backoffRatio +
+                ", smoothing=" + smoothing +
+                ", maxWait=" + maxWait +
+                '}';
+    }
+}
@@ -0,0 +1,138 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.ConcurrencyLimitedException;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The adaptive concurrency limit configured by a
+ * {@code ConcurrencyLimitPolicy}. Every call let through by
+ * {@link #acquire} must report its round trip time to {@link #release}.
+ */
+final class ConcurrencyLimiter {
+    // The no-load round trip time is the lowest one seen. So that it can
+    // follow a lasting change in the network, it is allowed to rise by a
+    // tenth every period if no call in the period was as fast.
+    private static final int BASELINE_PERIOD = 500;
+    private static final double BASELINE_DRIFT = 1.1;
+    // The number of calls the gradient algorithm lets queue at the web
+    // service. This is also how fast the limit grows while calls are fast.
+    private static final double QUEUE_ALLOWANCE = 1;
+
+    private final ConcurrencyLimitPolicy policy;
+    private final long maxWaitNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private long noLoadRtt = Long.MAX_VALUE;
+    private long periodMinRtt = Long.MAX_VALUE;
+    private int periodSamples;
+
+    ConcurrencyLimiter(ConcurrencyLimitPolicy policy) {
+        this.policy = policy;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(policy.getMaxWait());
+        this.limit = policy.getInitialLimit();
+    }
+
+    /**
+     * @param deadline The deadline of the call, or null if it has none. The
+     *                 call is not made to wait past it.
+     */
+    void acquire(Deadline deadline) throws ConcurrencyLimitedException, InterruptedIOException {
+        lock.lock();
+        try {
+            long remaining = deadline == null
+                    ? maxWaitNanos
+                    : Math.min(maxWaitNanos, deadline.remaining(TimeUnit.NANOSECONDS));
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    throw new ConcurrencyLimitedException("The client already has "
+                            + inFlight + " calls in flight", (int) limit);
+                }
+                remaining = available.awaitNanos(remaining);
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the concurrency limit");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(long rttNanos, boolean failure) {
+        lock.lock();
+        try {
+            update(rttNanos, failure, inFlight);
+            inFlight--;
+            for (int i = inFlight; i < (int) limit; i++) {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rtt, boolean failure, int inFlight) {
+        if (!failure) {
+            trackNoLoadRtt(rtt);
+        }
+        double tolerated = noLoadRtt * policy.getRttTolerance();
+        // Only grow the limit when it is being used. Otherwise a quiet
+        // period would let it grow without bound.
+        boolean limited = inFlight * 2 >= limit;
+
+        double next;
+        if (failure) {
+            next = limit * policy.getBackoffRatio();
+        } else if (policy.getAlgorithm() == ConcurrencyLimitPolicy.Algorithm.AIMD) {
+            if (rtt > tolerated) {
+                next = limit * policy.getBackoffRatio();
+            } else {
+                next = limited ? limit + 1 / limit : limit;
+            }
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, tolerated / rtt));
+            // The allowance is kept small, as every call queued beyond the
+            // web service's capacity only adds latency.
+            double estimate = limit * gradient + QUEUE_ALLOWANCE;
+            if (estimate > limit && !limited) {
+                estimate = limit;
+            }
+            next = limit * (1 - policy.getSmoothing()) + estimate * policy.getSmoothing();
+        }
+        limit = Math.max(policy.getMinLimit(), Math.min(policy.getMaxLimit(), next));
+    }
+
+    private void trackNoLoadRtt(long rtt) {
+        noLoadRtt = Math.min(noLoadRtt, rtt);
+        periodMinRtt = Math.min(periodMinRtt, rtt);
+        if (++periodSamples >= BASELINE_PERIOD) {
+            noLoadRtt = Math.max(noLoadRtt, Math.min(periodMinRtt, (long) (noLoadRtt * BASELINE_DRIFT)));
+            periodMinRtt = Long.MAX_VALUE;
+            periodSamples = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimiter{" +
+                "limit=" + limit() +
+                ", policy=" + policy +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.maxmind.minfraud;
+
+/**
+ * A snapshot of the connection pool of a {@code WebServiceClient}. The
+ * pool is not used by the {@code URL_CONNECTION} transport.
+ */
+public final class ConnectionPoolStats {
+    private final int leased;
+    private final int available;
+    private final int pending;
+    private final int max;
+
+    ConnectionPoolStats(int leased, int available, int pending, int max) {
+        this.leased = leased;
+        this.available = available;
+        this.pending = pending;
+        this.max = max;
+    }
+
+    /**
+     * @return The number of connections in use by calls.
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * @return The number of idle connections kept open.
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * @return The number of calls waiting for a connection.
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * @return The maximum number of connections.
+     */
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats{" +
+                "leased=" + leased +
+                ", available=" + available +
+                ", pending=" + pending +
+                ", max=" + max +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+package com.maxmind.minfraud;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code Deadline} is a point in time by which a call to the web service
+ * must complete. Unlike the connect and read timeouts set on the
+ * {@code WebServiceClient.Builder}, which apply to each socket operation, a
+ * deadline covers the whole call: waiting for a rate limit lane, the
+ * concurrency limit, or a pooled connection, connecting, sending the
+ * request, and receiving and parsing the response.
+ * <p>
+ * A deadline is fixed when it is created, so a caller that retries a failed
+ * call with the same deadline gives the retry only the time that is left.
+ * </p>
+ */
+public final class Deadline {
+    private final long expiresAt;
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @param duration The time from now until the deadline.
+     * @param unit     The unit of the duration.
+     * @return A deadline that passes after the duration.
+     * @throws IllegalArgumentException when duration is negative.
+     */
+    public static Deadline after(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("duration must not be negative");
+        }
+        return new Deadline(System.nanoTime() + unit.toNanos(duration));
+    }
+
+    /**
+     * @param unit The unit to return the time in.
+     * @return The time left until the deadline, or 0 if it has passed.
+     */
+    public long remaining(TimeUnit unit) {
+        return unit.convert(Math.max(0, expiresAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return Whether the deadline has passed.
+     */
+    public boolean isExpired() {
+        return expiresAt - System.nanoTime() <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{" +
+                "remaining=" + remaining(TimeUnit.MILLISECONDS) + " ms" +
+                '}';
+    }
+}
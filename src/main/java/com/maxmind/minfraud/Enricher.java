@@ -0,0 +1,93 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs background calls on a small pool of low-priority threads as
+ * configured by an {@code EnrichmentPolicy}. A call that finds the queue
+ * full is dropped and counted, so the thread submitting it never waits.
+ */
+final class Enricher {
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong dropped = new AtomicLong();
+
+    Enricher(EnrichmentPolicy policy) {
+        executor = new ThreadPoolExecutor(policy.getThreads(), policy.getThreads(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(policy.getQueueCapacity()),
+                threadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        // Idle threads exit, so a client that never enriches has none.
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private static ThreadFactory threadFactory() {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "minfraud-enrichment-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Queues the call and hands its result to the sink once it completes.
+     *
+     * @return Whether the call was queued. It is dropped when the queue is
+     * full or the enricher has been shut down.
+     */
+    <T> boolean submit(final Transaction transaction, final StreamProcessor.Call<T> call,
+                       final EnrichmentSink<T> sink) {
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Result<T> result;
+                    try {
+                        result = Result.success(transaction, call.call(transaction));
+                    } catch (Exception e) {
+                        result = Result.failure(transaction, e);
+                    }
+                    try {
+                        sink.accept(result);
+                    } catch (RuntimeException e) {
+                        // The sink's problem must not stop later results.
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+            return false;
+        }
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    void shutdownNow() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "Enricher{" +
+                "executor=" + executor +
+                ", dropped=" + dropped +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+package com.maxmind.minfraud;
+
+/**
+ * {@code EnrichmentPolicy} configures the background calls started by
+ * {@code WebServiceClient.scoreWithInsights} and
+ * {@code WebServiceClient.scoreWithFactors}. These calls run on a small
+ * pool of low-priority threads with a bounded queue. When the queue is
+ * full, new background calls are dropped rather than slowing down the
+ * Score calls.
+ */
+public final class EnrichmentPolicy {
+    private final int threads;
+    private final int queueCapacity;
+    private final String lane;
+
+    private EnrichmentPolicy(EnrichmentPolicy.Builder builder) {
+        threads = builder.threads;
+        queueCapacity = builder.queueCapacity;
+        lane = builder.lane;
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code EnrichmentPolicy}
+     * from values set by the builder's methods.
+     */
+    public static final class Builder {
+        int threads = 1;
+        int queueCapacity = 1000;
+        String lane;
+
+        /**
+         * @param val The number of threads making background calls. The
+         *            default is 1.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public EnrichmentPolicy.Builder threads(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("threads must be positive");
+            }
+            threads = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of background calls that may wait for a
+         *            thread. Calls beyond this are dropped. The default is
+         *            1000.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public EnrichmentPolicy.Builder queueCapacity(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("queueCapacity must be positive");
+            }
+            queueCapacity = val;
+            return this;
+        }
+
+        /**
+         * @param val The name of a rate limit lane for the background calls.
+         *            By default, they are not rate limited.
+         * @return Builder object
+         */
+        public EnrichmentPolicy.Builder lane(String val) {
+            lane = val;
+            return this;
+        }
+
+        /**
+         * @return An instance of {@code EnrichmentPolicy} created from the
+         * fields set on this builder.
+         */
+        public EnrichmentPolicy build() {
+            return new EnrichmentPolicy(this);
+        }
+    }
+
+    /**
+     * @return The number of threads making background calls.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return The number of background calls that may wait for a thread.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return The name of the rate limit lane for the background calls, or
+     * null if they are not rate limited.
+     */
+    public String getLane() {
+        return lane;
+    }
+
+    @Override
+    public String toString() {
+        return "EnrichmentPolicy{" +
+                "threads=" + threads +
+                ", queueCapacity=" + queueCapacity +
+                ", lane='" + lane + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,18 @@
+package com.maxmind.minfraud;
+
+/**
+ * Receives the results of the background calls started by
+ * {@code WebServiceClient.scoreWithInsights} and
+ * {@code WebServiceClient.scoreWithFactors}. It is called on the client's
+ * enrichment threads, one result at a time per thread.
+ *
+ * @param <T> The type of the response.
+ */
+public interface EnrichmentSink<T> {
+    /**
+     * @param result The response of the background call, or the exception
+     *               it failed with. Exceptions thrown by this method are
+     *               ignored.
+     */
+    void accept(Result<T> result);
+}
@@ -0,0 +1,31 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.ScoreResponse;
+
+import java.io.IOException;
+
+/**
+ * A {@code Fallback} supplies the response returned by a
+ * {@code WebServiceClient} when a call fails because of a transport error, a
+ * server error, an open circuit breaker, the concurrency limit, or a passed
+ * deadline. This lets callers keep going during an outage rather than
+ * handling the exception on every call. Errors returned by the web service
+ * for the request itself, such as an invalid input, are still thrown.
+ */
+public interface Fallback {
+
+    /**
+     * @param cls         The class of the expected response. This is
+     *                    {@code ScoreResponse}, {@code InsightsResponse}, or
+     *                    {@code FactorsResponse}.
+     * @param transaction The transaction that could not be scored.
+     * @param cause       The exception that caused the call to fail.
+     * @param <T>         The type of the expected response.
+     * @return The response to return to the caller.
+     * @throws IOException to fail the call, e.g., by throwing
+     *                     {@code cause}.
+     */
+    <T extends ScoreResponse> T responseFor(Class<T> cls, Transaction transaction, IOException cause)
+            throws IOException;
+}
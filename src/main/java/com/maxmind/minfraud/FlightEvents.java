@@ -0,0 +1,72 @@
+package com.maxmind.minfraud;
+
+import org.apache.http.conn.routing.HttpRoute;
+
+/**
+ * Emits JDK Flight Recorder events for the client's calls. The library is
+ * built for Java 7, which has no {@code jdk.jfr}, so the events and the
+ * code that uses them are in {@code src/main/java11}, compiled only when
+ * building on JDK 11 or later, and are only loaded, by name, when the JVM
+ * has the flight recorder. Otherwise {@code INSTANCE} does nothing.
+ * <p>
+ * The begin methods return null while their event is not enabled in a
+ * recording, and the client then does no more work for it.
+ * </p>
+ */
+abstract class FlightEvents {
+    static final FlightEvents INSTANCE = load();
+
+    private static FlightEvents load() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (FlightEvents) Class.forName("com.maxmind.minfraud.JfrFlightEvents")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new FlightEvents() {
+                @Override
+                boolean isAvailable() {
+                    return false;
+                }
+
+                @Override
+                Object beginRequest() {
+                    return null;
+                }
+
+                @Override
+                void commitRequest(Object event, RequestTimeline timeline) {
+                }
+
+                @Override
+                Object beginPoolWait() {
+                    return null;
+                }
+
+                @Override
+                void commitPoolWait(Object event, HttpRoute route) {
+                }
+            };
+        }
+    }
+
+    /**
+     * @return Whether the JVM has the flight recorder.
+     */
+    abstract boolean isAvailable();
+
+    /**
+     * @return The started {@code MinFraudRequestEvent}, or null if it is not
+     * enabled.
+     */
+    abstract Object beginRequest();
+
+    abstract void commitRequest(Object event, RequestTimeline timeline);
+
+    /**
+     * @return The started {@code MinFraudPoolWaitEvent}, or null if it is
+     * not enabled.
+     */
+    abstract Object beginPoolWait();
+
+    abstract void commitPoolWait(Object event, HttpRoute route);
+}
@@ -0,0 +1,97 @@
+package com.maxmind.minfraud;
+
+/**
+ * The Reactive Streams interfaces, with the same methods and rules as
+ * {@code java.util.concurrent.Flow} in Java 9 and later. This library is
+ * built for Java 7, so it declares its own copy. A {@code Flow.Publisher}
+ * from the JDK or from another Reactive Streams library is connected to
+ * these by forwarding each method to the other interface.
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    /**
+     * A producer of items that are received by subscribers at the rate
+     * they request them.
+     *
+     * @param <T> The type of the items.
+     */
+    public interface Publisher<T> {
+        /**
+         * Adds the subscriber. The publisher calls its
+         * {@code onSubscribe} method, and then signals items, errors, or
+         * completion as requested.
+         *
+         * @param subscriber The subscriber.
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items from a publisher.
+     *
+     * @param <T> The type of the items.
+     */
+    public interface Subscriber<T> {
+        /**
+         * Called before any other method with the subscription used to
+         * request items.
+         *
+         * @param subscription The subscription.
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called with the next item. This is called no more often than
+         * items have been requested.
+         *
+         * @param item The item.
+         */
+        void onNext(T item);
+
+        /**
+         * Called when the publisher fails. No other method is called
+         * afterwards.
+         *
+         * @param throwable The cause of the failure.
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Called when the publisher has no more items. No other method is
+         * called afterwards.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a publisher and one of its subscribers.
+     */
+    public interface Subscription {
+        /**
+         * Requests more items.
+         *
+         * @param n The number of items to add to the demand. When it is not
+         *          positive, the publisher signals an
+         *          {@code IllegalArgumentException} to {@code onError}.
+         */
+        void request(long n);
+
+        /**
+         * Asks the publisher to stop sending items. Items already on their
+         * way may still arrive.
+         */
+        void cancel();
+    }
+
+    /**
+     * A stage that is both a subscriber and a publisher.
+     *
+     * @param <T> The type of the items received.
+     * @param <R> The type of the items published.
+     */
+    public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+    }
+}
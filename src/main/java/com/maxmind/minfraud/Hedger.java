@@ -0,0 +1,141 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.HttpException;
+import com.maxmind.minfraud.exception.MinFraudException;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a call and, if it has not completed within the hedge delay, a second
+ * identical call. The first response wins and the other request is aborted.
+ * <p>
+ * Hedges are paid for from a budget that grows by the maximum hedge fraction
+ * on every call and shrinks by one on every hedge, which caps hedges at that
+ * fraction of traffic.
+ * </p>
+ */
+final class Hedger {
+    // The budget is kept in thousandths of a hedge so it can be updated
+    // atomically without floating point.
+    private static final long SCALE = 1000;
+    private static final long MAX_BUDGET = 10 * SCALE;
+
+    private final HedgingPolicy policy;
+    private final ExecutorService executor;
+    private final LatencyTracker latencies = new LatencyTracker(1024);
+    private final AtomicLong budget = new AtomicLong();
+    private final long budgetPerCall;
+
+    Hedger(HedgingPolicy policy, ExecutorService executor) {
+        this.policy = policy;
+        this.executor = executor;
+        this.budgetPerCall = Math.round(policy.getMaxHedgeFraction() * SCALE);
+    }
+
+    <T> T execute(HttpUriRequest primary, Callable<T> primaryCall,
+                  HttpUriRequest hedge, Callable<T> hedgeCall)
+            throws IOException, MinFraudException {
+        long start = System.nanoTime();
+        deposit();
+
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        Future<T> primaryFuture = completion.submit(primaryCall);
+        Future<T> hedgeFuture = null;
+        try {
+            Future<T> done = completion.poll(delayNanos(), TimeUnit.NANOSECONDS);
+            if (done == null && withdraw()) {
+                hedgeFuture = completion.submit(hedgeCall);
+            }
+            if (done == null) {
+                done = completion.take();
+            }
+            int outstanding = hedgeFuture == null ? 0 : 1;
+            while (true) {
+                try {
+                    T result = done.get();
+                    latencies.record(System.nanoTime() - start);
+                    return result;
+                } catch (ExecutionException e) {
+                    // A failed connection is not an answer from the web
+                    // service, so wait for the other request if there is one.
+                    if (outstanding == 0 || !isTransportFailure(e.getCause())) {
+                        throw e;
+                    }
+                    outstanding--;
+                    done = completion.take();
+                }
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        } finally {
+            abortIfRunning(primaryFuture, primary);
+            if (hedgeFuture != null) {
+                abortIfRunning(hedgeFuture, hedge);
+            }
+        }
+    }
+
+    private long delayNanos() {
+        Double percentile = policy.getPercentile();
+        if (percentile != null && latencies.count() >= policy.getMinSamples()) {
+            return latencies.percentile(percentile);
+        }
+        return TimeUnit.MILLISECONDS.toNanos(policy.getDelay());
+    }
+
+    private void deposit() {
+        while (true) {
+            long current = budget.get();
+            long next = Math.min(MAX_BUDGET, current + budgetPerCall);
+            if (next == current || budget.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private boolean withdraw() {
+        while (true) {
+            long current = budget.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    private static void abortIfRunning(Future<?> future, HttpUriRequest request) {
+        if (!future.isDone()) {
+            request.abort();
+            future.cancel(true);
+        }
+    }
+
+    private static boolean isTransportFailure(Throwable t) {
+        return t instanceof IOException && !(t instanceof HttpException);
+    }
+
+    private static IOException unwrap(Throwable t) throws MinFraudException {
+        if (t instanceof IOException) {
+            return (IOException) t;
+        }
+        if (t instanceof MinFraudException) {
+            throw (MinFraudException) t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IOException(t);
+    }
+}
@@ -0,0 +1,146 @@
+package com.maxmind.minfraud;
+
+/**
+ * {@code HedgingPolicy} configures hedged requests for a
+ * {@code WebServiceClient}. When a call has not completed within the hedge
+ * delay, a second identical request is sent on a different connection. The
+ * first response to arrive is returned and the other request is aborted.
+ * <p>
+ * The hedge delay is either a fixed number of milliseconds or a percentile of
+ * recently observed call latencies. The number of hedges is limited to a
+ * fraction of the calls made so that hedging cannot amplify an overload.
+ * </p>
+ */
+public final class HedgingPolicy {
+    private final int delay;
+    private final Double percentile;
+    private final double maxHedgeFraction;
+    private final int minSamples;
+
+    private HedgingPolicy(HedgingPolicy.Builder builder) {
+        delay = builder.delay;
+        percentile = builder.percentile;
+        maxHedgeFraction = builder.maxHedgeFraction;
+        minSamples = builder.minSamples;
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code HedgingPolicy}
+     * from values set by the builder's methods.
+     */
+    public static final class Builder {
+        int delay = 100;
+        Double percentile;
+        double maxHedgeFraction = 0.05;
+        int minSamples = 100;
+
+        /**
+         * @param val The number of milliseconds to wait for a response
+         *            before sending a hedged request. If a percentile is also
+         *            set, this delay is only used until enough latency
+         *            samples have been collected. The default is 100.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public HedgingPolicy.Builder delay(int val) {
+            if (val < 0) {
+                throw new IllegalArgumentException("delay must not be negative");
+            }
+            delay = val;
+            return this;
+        }
+
+        /**
+         * @param val The percentile of recent call latencies, e.g., 95.0,
+         *            after which a hedged request is sent. By default the
+         *            fixed delay is used.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not greater than 0
+         *                                  and less than 100.
+         */
+        public HedgingPolicy.Builder percentile(double val) {
+            if (val <= 0 || val >= 100) {
+                throw new IllegalArgumentException("percentile must be greater than 0 and less than 100");
+            }
+            percentile = val;
+            return this;
+        }
+
+        /**
+         * @param val The maximum number of hedged requests as a fraction of
+         *            all calls, from 0 to 1. The default is 0.05.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not between 0 and 1.
+         */
+        public HedgingPolicy.Builder maxHedgeFraction(double val) {
+            if (val < 0 || val > 1) {
+                throw new IllegalArgumentException("maxHedgeFraction must be between 0 and 1");
+            }
+            maxHedgeFraction = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of latency samples required before the
+         *            percentile is used instead of the fixed delay. The
+         *            default is 100.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public HedgingPolicy.Builder minSamples(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("minSamples must be positive");
+            }
+            minSamples = val;
+            return this;
+        }
+
+        /**
+         * @return An instance of {@code HedgingPolicy} created from the
+         * fields set on this builder.
+         */
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+    }
+
+    /**
+     * @return The fixed hedge delay in milliseconds.
+     */
+    public int getDelay() {
+        return delay;
+    }
+
+    /**
+     * @return The latency percentile used as the hedge delay, or null if the
+     * fixed delay is always used.
+     */
+    public Double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * @return The maximum fraction of calls that may be hedged.
+     */
+    public double getMaxHedgeFraction() {
+        return maxHedgeFraction;
+    }
+
+    /**
+     * @return The number of latency samples required before the percentile
+     * is used.
+     */
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingPolicy{" +
+                "delay=" + delay +
+                ", percentile=" + percentile +
+                ", maxHedgeFraction=" + maxHedgeFraction +
+                ", minSamples=" + minSamples +
+                '}';
+    }
+}
@@ -0,0 +1,97 @@
+package com.maxmind.minfraud;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of a histogram of durations. Each bucket counts the durations
+ * up to its upper bound and above the bound of the bucket before it. The
+ * bounds are in microseconds and the last one is {@code Long.MAX_VALUE}.
+ * The bounds of a queue time histogram grow in steps of 1, 2.5 and 5; those
+ * of a latency histogram from {@code HistogramMetrics} are at most 1/32
+ * above the durations in their buckets.
+ */
+public final class Histogram {
+    static final long[] BOUNDS = {
+            0, 100, 250, 500,
+            1000, 2500, 5000,
+            10000, 25000, 50000,
+            100000, 250000, 500000,
+            1000000, 2500000, 5000000,
+            Long.MAX_VALUE
+    };
+
+    private final long[] bounds;
+    private final long[] counts;
+
+    Histogram(long[] counts) {
+        this(BOUNDS, counts);
+    }
+
+    Histogram(long[] bounds, long[] counts) {
+        this.bounds = bounds;
+        this.counts = counts;
+    }
+
+    /**
+     * @return The index of the bucket for a duration.
+     */
+    static int bucket(long micros) {
+        int i = Arrays.binarySearch(BOUNDS, micros);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /**
+     * @return The upper bound of each bucket in microseconds.
+     */
+    public long[] getUpperBounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * @return The number of durations in each bucket.
+     */
+    public long[] getCounts() {
+        return counts.clone();
+    }
+
+    /**
+     * @return The number of durations recorded.
+     */
+    public long getCount() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @param percentile The percentile, from 0 to 100.
+     * @return The upper bound in microseconds of the bucket that holds the
+     * duration at the percentile, or 0 when nothing has been recorded.
+     * @throws IllegalArgumentException when percentile is out of range.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be from 0 to 100");
+        }
+        long total = getCount();
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > 0 && seen >= rank) {
+                return bounds[i];
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{" +
+                "upperBounds=" + Arrays.toString(bounds) +
+                ", counts=" + Arrays.toString(counts) +
+                '}';
+    }
+}
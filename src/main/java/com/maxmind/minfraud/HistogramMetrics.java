@@ -0,0 +1,161 @@
+package com.maxmind.minfraud;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@code HistogramMetrics} keeps a latency histogram for each service and
+ * outcome, and counts the bytes sent and received and the retries for each
+ * service. Recording takes no locks: each thread records into one of
+ * several stripes, which are summed when they are read.
+ * <p>
+ * The connection pool and the remaining queries and funds are read from the
+ * client itself, with {@code WebServiceClient.getConnectionPoolStats},
+ * {@code getQueriesRemaining} and {@code getFundsRemaining}.
+ * </p>
+ */
+public final class HistogramMetrics implements Metrics {
+    private final Map<String, ServiceMetrics> services;
+
+    /**
+     * Creates metrics with nothing recorded yet.
+     */
+    public HistogramMetrics() {
+        Map<String, ServiceMetrics> map = new HashMap<>();
+        for (String service : new String[]{"score", "insights", "factors"}) {
+            map.put(service, new ServiceMetrics());
+        }
+        services = Collections.unmodifiableMap(map);
+    }
+
+    private static final class ServiceMetrics {
+        final ConcurrentMap<String, StripedHistogram> latencies = new ConcurrentHashMap<>();
+        final StripedCounter requestBytes = new StripedCounter();
+        final StripedCounter responseBytes = new StripedCounter();
+        final StripedCounter retries = new StripedCounter();
+
+        StripedHistogram latency(String outcome) {
+            StripedHistogram histogram = latencies.get(outcome);
+            if (histogram == null) {
+                StripedHistogram created = new StripedHistogram();
+                histogram = latencies.putIfAbsent(outcome, created);
+                if (histogram == null) {
+                    histogram = created;
+                }
+            }
+            return histogram;
+        }
+    }
+
+    private ServiceMetrics metrics(String service) {
+        ServiceMetrics metrics = services.get(service);
+        if (metrics == null) {
+            throw new IllegalArgumentException("Unknown service: " + service);
+        }
+        return metrics;
+    }
+
+    @Override
+    public void bindTo(WebServiceClient client) {
+    }
+
+    @Override
+    public void recordCall(String service, String outcome, long nanos) {
+        metrics(service).latency(outcome).record(nanos);
+    }
+
+    @Override
+    public void recordBytes(String service, long requestBytes, long responseBytes) {
+        ServiceMetrics metrics = metrics(service);
+        metrics.requestBytes.add(requestBytes);
+        metrics.responseBytes.add(responseBytes);
+    }
+
+    @Override
+    public void recordRetry(String service) {
+        metrics(service).retries.increment();
+    }
+
+    /**
+     * @param service The service, "score", "insights", or "factors".
+     * @return The latency histogram of the calls to the service for each
+     * outcome that has occurred, sorted by outcome.
+     * @throws IllegalArgumentException when the service is unknown.
+     */
+    public Map<String, Histogram> getLatencies(String service) {
+        Map<String, Histogram> latencies = new TreeMap<>();
+        for (Map.Entry<String, StripedHistogram> entry : metrics(service).latencies.entrySet()) {
+            latencies.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return latencies;
+    }
+
+    /**
+     * @param service The service, "score", "insights", or "factors".
+     * @param outcome The outcome, as passed to {@code recordCall}.
+     * @return The latency histogram of the calls to the service with the
+     * outcome, or null if there have been none.
+     * @throws IllegalArgumentException when the service is unknown.
+     */
+    public Histogram getLatency(String service, String outcome) {
+        StripedHistogram histogram = metrics(service).latencies.get(outcome);
+        return histogram == null ? null : histogram.snapshot();
+    }
+
+    /**
+     * @param service The service, "score", "insights", or "factors".
+     * @return The number of bytes sent in request bodies to the service.
+     * @throws IllegalArgumentException when the service is unknown.
+     */
+    public long getRequestBytes(String service) {
+        return metrics(service).requestBytes.sum();
+    }
+
+    /**
+     * @param service The service, "score", "insights", or "factors".
+     * @return The number of bytes received in response bodies from the
+     * service.
+     * @throws IllegalArgumentException when the service is unknown.
+     */
+    public long getResponseBytes(String service) {
+        return metrics(service).responseBytes.sum();
+    }
+
+    /**
+     * @param service The service, "score", "insights", or "factors".
+     * @return The number of requests to the service retried on another
+     * endpoint.
+     * @throws IllegalArgumentException when the service is unknown.
+     */
+    public long getRetries(String service) {
+        return metrics(service).retries.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("HistogramMetrics{");
+        String separator = "";
+        for (String service : new TreeMap<>(services).keySet()) {
+            builder.append(separator).append(service)
+                    .append("={calls=").append(counts(service))
+                    .append(", requestBytes=").append(getRequestBytes(service))
+                    .append(", responseBytes=").append(getResponseBytes(service))
+                    .append(", retries=").append(getRetries(service))
+                    .append('}');
+            separator = ", ";
+        }
+        return builder.append('}').toString();
+    }
+
+    private Map<String, Long> counts(String service) {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : getLatencies(service).entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().getCount());
+        }
+        return counts;
+    }
+}
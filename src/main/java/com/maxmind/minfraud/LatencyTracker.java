@@ -0,0 +1,68 @@
+package com.maxmind.minfraud;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps a window of the most recent latency samples and computes
+ * percentiles over it. Recording is lock-free. Percentiles are recomputed
+ * only after an eighth of the window has been replaced, so reading them on
+ * every call is cheap.
+ */
+final class LatencyTracker {
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+
+    private volatile long[] sorted = new long[0];
+    private volatile long sortedAt = -1;
+
+    LatencyTracker(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        samples = new AtomicLongArray(windowSize);
+    }
+
+    void record(long nanos) {
+        long i = count.getAndIncrement();
+        samples.set((int) (i % samples.length()), nanos);
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    /**
+     * @param percentile The percentile, greater than 0 and less than 100.
+     * @return The latency in nanoseconds at the percentile, or -1 when no
+     * samples have been recorded.
+     */
+    long percentile(double percentile) {
+        long[] window = window();
+        if (window.length == 0) {
+            return -1;
+        }
+        int index = (int) Math.ceil(percentile / 100 * window.length) - 1;
+        return window[Math.max(0, Math.min(index, window.length - 1))];
+    }
+
+    private long[] window() {
+        long n = count.get();
+        long[] cached = sorted;
+        long last = sortedAt;
+        if (n == last || (cached.length == samples.length()
+                && n - last < samples.length() / 8)) {
+            return cached;
+        }
+        int size = (int) Math.min(n, samples.length());
+        long[] copy = new long[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        sorted = copy;
+        sortedAt = n;
+        return copy;
+    }
+}
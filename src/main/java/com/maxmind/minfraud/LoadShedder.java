@@ -0,0 +1,153 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.DeadlineExceededException;
+import com.maxmind.minfraud.exception.OverloadedException;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The wait queue for connections, with the CoDel admission control
+ * configured by a {@code LoadSheddingPolicy}. Every call let through by
+ * {@link #acquire} must be handed back to {@link #release}.
+ */
+final class LoadShedder {
+    private final long targetNanos;
+    private final long intervalNanos;
+    private final StreamProcessor.Limit limit;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    // These are guarded by the lock.
+    private final long[] queueTime = new long[Histogram.BOUNDS.length];
+    private int inUse;
+    private int waiting;
+    private long admitted;
+    private long shed;
+    private boolean overloaded;
+    private long intervalEnd;
+    private long intervalMin = Long.MAX_VALUE;
+
+    /**
+     * @param limit The number of calls that may use a connection at once.
+     */
+    LoadShedder(LoadSheddingPolicy policy, StreamProcessor.Limit limit) {
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(policy.getTarget());
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(policy.getInterval());
+        this.limit = limit;
+        this.intervalEnd = System.nanoTime() + intervalNanos;
+    }
+
+    /**
+     * @param deadline The deadline of the call, or null if it has none. The
+     *                 call is not made to wait past it.
+     */
+    void acquire(Deadline deadline)
+            throws OverloadedException, DeadlineExceededException, InterruptedIOException {
+        lock.lock();
+        try {
+            long arrival = System.nanoTime();
+            if (inUse < limit.get()) {
+                admit(0);
+                return;
+            }
+            if (isOverloaded(arrival)) {
+                throw shed();
+            }
+            waiting++;
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    long sojourn = now - arrival;
+                    if (inUse < limit.get()) {
+                        admit(sojourn);
+                        return;
+                    }
+                    // This also starts a new interval if the last one ended,
+                    // so the wait below is always positive.
+                    boolean overloaded = isOverloaded(now);
+                    if (overloaded && sojourn > targetNanos) {
+                        throw shed();
+                    }
+                    long wait = intervalEnd - now;
+                    if (overloaded) {
+                        wait = Math.min(wait, targetNanos - sojourn + 1);
+                    }
+                    if (deadline != null) {
+                        long remaining = deadline.remaining(TimeUnit.NANOSECONDS);
+                        if (remaining <= 0) {
+                            throw new DeadlineExceededException(
+                                    "The deadline passed while waiting for a connection");
+                        }
+                        wait = Math.min(wait, remaining);
+                    }
+                    available.awaitNanos(wait);
+                }
+            } finally {
+                waiting--;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release() {
+        lock.lock();
+        try {
+            inUse--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void admit(long sojourn) {
+        inUse++;
+        admitted++;
+        intervalMin = Math.min(intervalMin, sojourn);
+        queueTime[Histogram.bucket(TimeUnit.NANOSECONDS.toMicros(sojourn))]++;
+    }
+
+    private OverloadedException shed() {
+        shed++;
+        return new OverloadedException("Calls have been waiting longer than "
+                + TimeUnit.NANOSECONDS.toMillis(targetNanos) + " ms for a connection");
+    }
+
+    /**
+     * At the end of each interval, the queue becomes overloaded if no call
+     * got through it within the target, including when calls waited and
+     * none got through at all.
+     */
+    private boolean isOverloaded(long now) {
+        if (now - intervalEnd >= 0) {
+            overloaded = intervalMin == Long.MAX_VALUE ? waiting > 0 : intervalMin > targetNanos;
+            intervalMin = Long.MAX_VALUE;
+            intervalEnd = now + intervalNanos;
+        }
+        return overloaded;
+    }
+
+    QueueStats stats() {
+        lock.lock();
+        try {
+            return new QueueStats(admitted, shed, waiting, isOverloaded(System.nanoTime()),
+                    new Histogram(queueTime.clone()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LoadShedder{" +
+                "targetNanos=" + targetNanos +
+                ", intervalNanos=" + intervalNanos +
+                '}';
+    }
+}
@@ -0,0 +1,97 @@
+package com.maxmind.minfraud;
+
+/**
+ * {@code LoadSheddingPolicy} configures how a {@code WebServiceClient}
+ * sheds calls when they wait too long for a connection.
+ * <p>
+ * The client keeps calls that find every connection busy in a wait queue
+ * and measures how long each one waits. If no call got through the queue
+ * within the target time during a whole interval, the queue is overloaded:
+ * until a later interval shows otherwise, calls that would have to wait are
+ * rejected at once with an {@code OverloadedException}, and calls already
+ * waiting longer than the target are rejected too. This is the CoDel
+ * algorithm. It lets short bursts queue but keeps a standing queue from
+ * forming, so that callers can fail open quickly rather than wait for a
+ * response that comes too late.
+ * </p>
+ */
+public final class LoadSheddingPolicy {
+    private final int target;
+    private final int interval;
+
+    private LoadSheddingPolicy(LoadSheddingPolicy.Builder builder) {
+        target = builder.target;
+        interval = builder.interval;
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code LoadSheddingPolicy}
+     * from values set by the builder's methods.
+     */
+    public static final class Builder {
+        int target = 5;
+        int interval = 100;
+
+        /**
+         * @param val The number of milliseconds a call may wait for a
+         *            connection without counting as delayed. The default
+         *            is 5.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public LoadSheddingPolicy.Builder target(int val) {
+            if (val < 0) {
+                throw new IllegalArgumentException("target must not be negative");
+            }
+            target = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of milliseconds over which the shortest wait
+         *            is measured. This should be around the time a call
+         *            takes. The default is 100.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public LoadSheddingPolicy.Builder interval(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("interval must be positive");
+            }
+            interval = val;
+            return this;
+        }
+
+        /**
+         * @return An instance of {@code LoadSheddingPolicy} created from the
+         * fields set on this builder.
+         */
+        public LoadSheddingPolicy build() {
+            return new LoadSheddingPolicy(this);
+        }
+    }
+
+    /**
+     * @return The number of milliseconds a call may wait for a connection
+     * without counting as delayed.
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * @return The number of milliseconds over which the shortest wait is
+     * measured.
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadSheddingPolicy{" +
+                "target=" + target +
+                ", interval=" + interval +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+package com.maxmind.minfraud;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The default {@code ResponseStore}, which evicts the least recently used
+ * entry when full.
+ */
+final class LruResponseStore implements ResponseStore {
+    // These are guarded by this.
+    private final LinkedHashMap<String, CachedResponse> entries;
+    private long evictions;
+
+    LruResponseStore(final int maxSize) {
+        entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                if (size() > maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public synchronized CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public synchronized void put(String key, CachedResponse entry) {
+        entries.put(key, entry);
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long evictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,70 @@
+package com.maxmind.minfraud;
+
+/**
+ * {@code Metrics} receives measurements of the calls a
+ * {@code WebServiceClient} makes. Set one with
+ * {@code WebServiceClient.Builder.metrics}; by default nothing is recorded.
+ * {@code HistogramMetrics} keeps the measurements in memory and
+ * {@code MicrometerMetrics} reports them to a Micrometer registry.
+ * <p>
+ * The methods are called on the threads making the calls, so an
+ * implementation must be thread-safe and should neither block nor throw.
+ * </p>
+ */
+public interface Metrics {
+    /**
+     * The outcome of a call that returned a response.
+     */
+    String SUCCESS = "2xx";
+
+    /**
+     * The outcome of a call that returned a response from the response
+     * cache without sending a request.
+     */
+    String CACHE_HIT = "cache_hit";
+
+    /**
+     * The outcome of a call that failed and returned the response the
+     * {@code Fallback} supplied instead.
+     */
+    String FALLBACK = "fallback";
+
+    /**
+     * Called once when a client using these metrics is built, so that
+     * gauges can read its connection pool and remaining queries and funds.
+     *
+     * @param client The client.
+     */
+    void bindTo(WebServiceClient client);
+
+    /**
+     * Called when a call to a service returns or throws.
+     *
+     * @param service The service, "score", "insights", or "factors".
+     * @param outcome {@code SUCCESS} if the call returned a response from
+     *                the web service, {@code CACHE_HIT} if it returned a
+     *                cached one, {@code FALLBACK} if it returned one from the
+     *                fallback, the simple name of the exception thrown if it
+     *                is from {@code com.maxmind.minfraud.exception}, and
+     *                otherwise "IOException" or "RuntimeException".
+     * @param nanos   How long the call took in nanoseconds.
+     */
+    void recordCall(String service, String outcome, long nanos);
+
+    /**
+     * Called when a response is received from the web service.
+     *
+     * @param service       The service, "score", "insights", or "factors".
+     * @param requestBytes  The size of the request body in bytes.
+     * @param responseBytes The size of the response body in bytes, or 0
+     *                      if the response did not give it.
+     */
+    void recordBytes(String service, long requestBytes, long responseBytes);
+
+    /**
+     * Called when a request that failed is retried on another endpoint.
+     *
+     * @param service The service, "score", "insights", or "factors".
+     */
+    void recordRetry(String service);
+}
@@ -0,0 +1,27 @@
+package com.maxmind.minfraud;
+
+/**
+ * The {@code Metrics} of a client that has none set.
+ */
+final class NoopMetrics implements Metrics {
+    static final Metrics INSTANCE = new NoopMetrics();
+
+    private NoopMetrics() {
+    }
+
+    @Override
+    public void bindTo(WebServiceClient client) {
+    }
+
+    @Override
+    public void recordCall(String service, String outcome, long nanos) {
+    }
+
+    @Override
+    public void recordBytes(String service, long requestBytes, long responseBytes) {
+    }
+
+    @Override
+    public void recordRetry(String service) {
+    }
+}
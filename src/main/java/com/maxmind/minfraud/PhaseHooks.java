@@ -0,0 +1,133 @@
+package com.maxmind.minfraud;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.apache.http.ssl.SSLContexts;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hooks into Apache HttpClient to mark the phases of a request on its
+ * {@code RequestTimeline}, which is passed along in the request's
+ * {@code HttpContext}, and to record waits for a pooled connection as
+ * flight recorder events. The client only uses these hooks when it has a
+ * {@code RequestListener}, so a client without one uses the default
+ * connection pool and request executor.
+ */
+final class PhaseHooks {
+    private static final String TIMELINE = "com.maxmind.minfraud.timeline";
+
+    private PhaseHooks() {
+    }
+
+    static HttpContext contextFor(RequestTimeline timeline) {
+        HttpContext context = new BasicHttpContext();
+        context.setAttribute(TIMELINE, timeline);
+        return context;
+    }
+
+    private static void mark(HttpContext context, RequestTimeline.Phase phase) {
+        Object timeline = context == null ? null : context.getAttribute(TIMELINE);
+        if (timeline instanceof RequestTimeline) {
+            ((RequestTimeline) timeline).mark(phase);
+        }
+    }
+
+    /**
+     * @return A connection pool like the default one that marks when a
+     * connection is leased, connected, and done with its TLS handshake.
+     * A kept-alive connection is not connected again, so for it the lease
+     * is marked when the request is sent.
+     */
+    static PoolingHttpClientConnectionManager connectionManager() {
+        SSLConnectionSocketFactory tls = new SSLConnectionSocketFactory(SSLContexts.createDefault(),
+                SSLConnectionSocketFactory.getDefaultHostnameVerifier()) {
+            @Override
+            public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+                    throws IOException {
+                mark(context, RequestTimeline.Phase.CONNECTED);
+                Socket layered = super.createLayeredSocket(socket, target, port, context);
+                mark(context, RequestTimeline.Phase.TLS_DONE);
+                return layered;
+            }
+        };
+        return new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", tls)
+                .build()) {
+            @Override
+            public ConnectionRequest requestConnection(final HttpRoute route, Object state) {
+                final ConnectionRequest request = super.requestConnection(route, state);
+                final Object event = FlightEvents.INSTANCE.beginPoolWait();
+                if (event == null) {
+                    return request;
+                }
+                return new ConnectionRequest() {
+                    @Override
+                    public HttpClientConnection get(long timeout, TimeUnit unit)
+                            throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                        try {
+                            return request.get(timeout, unit);
+                        } finally {
+                            FlightEvents.INSTANCE.commitPoolWait(event, route);
+                        }
+                    }
+
+                    @Override
+                    public boolean cancel() {
+                        return request.cancel();
+                    }
+                };
+            }
+
+            @Override
+            public void connect(HttpClientConnection connection, HttpRoute route, int connectTimeout,
+                                HttpContext context) throws IOException {
+                mark(context, RequestTimeline.Phase.LEASE_ACQUIRED);
+                super.connect(connection, route, connectTimeout, context);
+                mark(context, RequestTimeline.Phase.CONNECTED);
+            }
+        };
+    }
+
+    /**
+     * @return A request executor that marks when the request has been sent
+     * and when the response headers have been read.
+     */
+    static HttpRequestExecutor requestExecutor() {
+        return new HttpRequestExecutor() {
+            @Override
+            protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection connection,
+                                                 HttpContext context) throws IOException, HttpException {
+                mark(context, RequestTimeline.Phase.LEASE_ACQUIRED);
+                HttpResponse response = super.doSendRequest(request, connection, context);
+                mark(context, RequestTimeline.Phase.REQUEST_SENT);
+                return response;
+            }
+
+            @Override
+            protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection connection,
+                                                     HttpContext context) throws HttpException, IOException {
+                HttpResponse response = super.doReceiveResponse(request, connection, context);
+                mark(context, RequestTimeline.Phase.FIRST_BYTE);
+                return response;
+            }
+        };
+    }
+}
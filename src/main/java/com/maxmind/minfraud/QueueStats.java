@@ -0,0 +1,69 @@
+package com.maxmind.minfraud;
+
+/**
+ * A snapshot of the counters of a {@code WebServiceClient}'s wait queue
+ * for connections.
+ */
+public final class QueueStats {
+    private final long admitted;
+    private final long shed;
+    private final int waiting;
+    private final boolean overloaded;
+    private final Histogram queueTime;
+
+    QueueStats(long admitted, long shed, int waiting, boolean overloaded, Histogram queueTime) {
+        this.admitted = admitted;
+        this.shed = shed;
+        this.waiting = waiting;
+        this.overloaded = overloaded;
+        this.queueTime = queueTime;
+    }
+
+    /**
+     * @return The number of calls that got a connection.
+     */
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    /**
+     * @return The number of calls rejected with an
+     * {@code OverloadedException}.
+     */
+    public long getShed() {
+        return shed;
+    }
+
+    /**
+     * @return The number of calls waiting for a connection.
+     */
+    public int getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * @return Whether the queue was overloaded at the end of the last
+     * interval, so that calls that would have to wait are rejected.
+     */
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * @return How long the calls that got a connection waited for it.
+     */
+    public Histogram getQueueTime() {
+        return queueTime;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueStats{" +
+                "admitted=" + admitted +
+                ", shed=" + shed +
+                ", waiting=" + waiting +
+                ", overloaded=" + overloaded +
+                ", queueTime=" + queueTime +
+                '}';
+    }
+}
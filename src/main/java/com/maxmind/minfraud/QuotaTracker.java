@@ -0,0 +1,79 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.response.ScoreResponse;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the {@code queries_remaining} and {@code funds_remaining}
+ * values of the most recent responses.
+ */
+final class QuotaTracker {
+    // While the account has run out, rate limit lanes with a quota reserve
+    // let a call through this often, so that they find out once the
+    // account has been topped up.
+    static final long PROBE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentMap<String, Integer> queriesRemaining = new ConcurrentHashMap<>();
+    private volatile Double fundsRemaining;
+    private final AtomicLong nextProbe = new AtomicLong();
+
+    void update(String service, ScoreResponse response) {
+        Integer queries = response.getQueriesRemaining();
+        if (queries != null) {
+            queriesRemaining.put(service, queries);
+        }
+        Double funds = response.getFundsRemaining();
+        if (funds != null) {
+            fundsRemaining = funds;
+        }
+        if ((queries != null && queries <= 0) || (funds != null && funds <= 0)) {
+            scheduleProbe();
+        }
+    }
+
+    void exhausted() {
+        for (String service : queriesRemaining.keySet()) {
+            queriesRemaining.put(service, 0);
+        }
+        fundsRemaining = 0.0;
+        scheduleProbe();
+    }
+
+    private void scheduleProbe() {
+        nextProbe.set(System.nanoTime() + PROBE_INTERVAL_NANOS);
+    }
+
+    Integer queriesRemaining(String service) {
+        Integer queries = queriesRemaining.get(service);
+        if (queries == null && fundsRemaining != null && fundsRemaining <= 0) {
+            return 0;
+        }
+        return queries;
+    }
+
+    /**
+     * @return The queries remaining for a rate limit lane to go by. While
+     * none are left, this is null for one caller per probe interval, so
+     * that its call is sent and its response updates the quota.
+     */
+    Integer queriesRemainingForLane(String service) {
+        Integer queries = queriesRemaining(service);
+        if (queries == null || queries > 0) {
+            return queries;
+        }
+        long now = System.nanoTime();
+        long probe = nextProbe.get();
+        if (now - probe >= 0 && nextProbe.compareAndSet(probe, now + PROBE_INTERVAL_NANOS)) {
+            return null;
+        }
+        return queries;
+    }
+
+    Double fundsRemaining() {
+        return fundsRemaining;
+    }
+}
@@ -0,0 +1,165 @@
+package com.maxmind.minfraud;
+
+/**
+ * A {@code RateLimitLane} is a named token bucket that limits the rate of
+ * calls made through it. Calls choose a lane by name, e.g., "realtime" or
+ * "batch", so that a burst in one lane cannot starve another.
+ * <p>
+ * A lane may also hold back a reserve of the account's remaining queries.
+ * Once the {@code queries_remaining} value returned by the most recent
+ * response for a service drops below the lane's reserve, the lane's rate is
+ * reduced in proportion, and the lane stops sending requests when no
+ * queries remain. Give low-priority lanes a reserve so that they slow down
+ * as the quota drains and leave the remaining queries to other lanes.
+ * </p>
+ */
+public final class RateLimitLane {
+    private final String name;
+    private final double rate;
+    private final int burst;
+    private final int quotaReserve;
+    private final int maxWait;
+
+    private RateLimitLane(RateLimitLane.Builder builder) {
+        name = builder.name;
+        rate = builder.rate;
+        burst = builder.burst == null ? Math.max(1, (int) Math.ceil(builder.rate)) : builder.burst;
+        quotaReserve = builder.quotaReserve;
+        maxWait = builder.maxWait;
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code RateLimitLane}
+     * from values set by the builder's methods.
+     */
+    public static final class Builder {
+        final String name;
+        final double rate;
+        Integer burst;
+        int quotaReserve;
+        int maxWait = -1;
+
+        /**
+         * @param name The name calls use to select the lane.
+         * @param rate The number of calls per second allowed through the
+         *             lane.
+         * @throws IllegalArgumentException when name is null or rate is not
+         *                                  positive.
+         */
+        public Builder(String name, double rate) {
+            if (name == null) {
+                throw new IllegalArgumentException("name must not be null");
+            }
+            if (rate <= 0) {
+                throw new IllegalArgumentException("rate must be positive");
+            }
+            this.name = name;
+            this.rate = rate;
+        }
+
+        /**
+         * @param val The number of calls that may be made at once after the
+         *            lane has been idle. The default is one second's worth
+         *            of calls.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public RateLimitLane.Builder burst(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("burst must be positive");
+            }
+            burst = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of remaining queries below which the lane
+         *            is slowed. Once none are left, calls through the lane
+         *            fail with a {@code RateLimitedException}, except for
+         *            one a second, which is sent to find out whether the
+         *            account has been topped up. The default is 0, meaning
+         *            the lane is never slowed.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public RateLimitLane.Builder quotaReserve(int val) {
+            if (val < 0) {
+                throw new IllegalArgumentException("quotaReserve must not be negative");
+            }
+            quotaReserve = val;
+            return this;
+        }
+
+        /**
+         * @param val The maximum number of milliseconds a call waits for the
+         *            lane. Calls that would wait longer fail with a
+         *            {@code RateLimitedException}. By default calls wait as
+         *            long as needed.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public RateLimitLane.Builder maxWait(int val) {
+            if (val < 0) {
+                throw new IllegalArgumentException("maxWait must not be negative");
+            }
+            maxWait = val;
+            return this;
+        }
+
+        /**
+         * @return An instance of {@code RateLimitLane} created from the
+         * fields set on this builder.
+         */
+        public RateLimitLane build() {
+            return new RateLimitLane(this);
+        }
+    }
+
+    /**
+     * @return The name of the lane.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of calls per second allowed through the lane.
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return The number of calls that may be made at once.
+     */
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * @return The number of remaining queries below which the lane is
+     * slowed.
+     */
+    public int getQuotaReserve() {
+        return quotaReserve;
+    }
+
+    /**
+     * @return The maximum number of milliseconds a call waits for the lane,
+     * or -1 if there is no limit.
+     */
+    public int getMaxWait() {
+        return maxWait;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitLane{" +
+                "name='" + name + '\'' +
+                ", rate=" + rate +
+                ", burst=" + burst +
+                ", quotaReserve=" + quotaReserve +
+                ", maxWait=" + maxWait +
+                '}';
+    }
+}
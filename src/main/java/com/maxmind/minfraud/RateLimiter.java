@@ -0,0 +1,103 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.DeadlineExceededException;
+import com.maxmind.minfraud.exception.RateLimitedException;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The token bucket behind a {@code RateLimitLane}. A call reserves a token
+ * and then sleeps until the token would have been available, so a lane
+ * spaces out its calls rather than rejecting them.
+ */
+final class RateLimiter {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final RateLimitLane lane;
+    private final long maxWaitNanos;
+
+    private double tokens;
+    private long refilledAt;
+
+    RateLimiter(RateLimitLane lane) {
+        this.lane = lane;
+        this.maxWaitNanos = lane.getMaxWait() < 0
+                ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(lane.getMaxWait());
+        this.tokens = lane.getBurst();
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Waits until a call may be made through the lane.
+     *
+     * @param queriesRemaining The latest number of queries remaining for the
+     *                         service being called, or null if unknown.
+     * @param deadline         The deadline of the call, or null if it has
+     *                         none. The call is not made to wait past it.
+     */
+    void acquire(Integer queriesRemaining, Deadline deadline)
+            throws RateLimitedException, DeadlineExceededException, InterruptedIOException {
+        double rate = lane.getRate();
+        int reserve = lane.getQuotaReserve();
+        if (reserve > 0 && queriesRemaining != null && queriesRemaining < reserve) {
+            if (queriesRemaining <= 0) {
+                throw new RateLimitedException("The quota reserve of the "
+                        + lane.getName() + " lane has been used up", lane.getName());
+            }
+            rate = rate * queriesRemaining / reserve;
+        }
+
+        long maxWait = maxWaitNanos;
+        boolean deadlineFirst = false;
+        if (deadline != null) {
+            long remaining = deadline.remaining(TimeUnit.NANOSECONDS);
+            if (remaining < maxWait) {
+                maxWait = remaining;
+                deadlineFirst = true;
+            }
+        }
+        long wait = reserve(rate, maxWait);
+        if (wait < 0 && deadlineFirst) {
+            throw new DeadlineExceededException("The " + lane.getName()
+                    + " lane would wait past the deadline of the call");
+        }
+        if (wait < 0) {
+            throw new RateLimitedException("The " + lane.getName()
+                    + " lane would wait longer than " + lane.getMaxWait()
+                    + " ms for a call", lane.getName());
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the "
+                        + lane.getName() + " lane");
+            }
+        }
+    }
+
+    /**
+     * @return The number of nanoseconds to wait for the reserved token, or
+     * -1 if the wait would be too long and no token was reserved.
+     */
+    private synchronized long reserve(double rate, long maxWait) {
+        long now = System.nanoTime();
+        tokens = Math.min(lane.getBurst(), tokens + (now - refilledAt) * rate / NANOS_PER_SECOND);
+        refilledAt = now;
+        long wait = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / rate * NANOS_PER_SECOND);
+        if (wait > maxWait) {
+            return -1;
+        }
+        tokens -= 1;
+        return wait;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter{" +
+                "lane=" + lane +
+                '}';
+    }
+}
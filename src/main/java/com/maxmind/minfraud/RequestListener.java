@@ -0,0 +1,33 @@
+package com.maxmind.minfraud;
+
+/**
+ * {@code RequestListener} follows each call a {@code WebServiceClient}
+ * makes through its phases. Set one with
+ * {@code WebServiceClient.Builder.requestListener}. When none is set, the
+ * client does not time the phases at all.
+ * <p>
+ * The methods are called on the threads making the calls, including the
+ * threads of hedged requests, so an implementation must be thread-safe and
+ * should neither block nor throw. To log only slow calls, check
+ * {@code RequestTimeline.getTotalNanos} in {@code onComplete}, or sample
+ * the calls to log there.
+ * </p>
+ */
+public interface RequestListener {
+    /**
+     * Called the first time a call reaches a phase.
+     *
+     * @param timeline The timeline of the call.
+     * @param phase    The phase reached.
+     * @param nanos    The number of nanoseconds since the call started.
+     */
+    void onPhase(RequestTimeline timeline, RequestTimeline.Phase phase, long nanos);
+
+    /**
+     * Called when a call returns a response or throws an exception.
+     *
+     * @param timeline The timeline of the call, with its response or
+     *                 exception attached.
+     */
+    void onComplete(RequestTimeline timeline);
+}
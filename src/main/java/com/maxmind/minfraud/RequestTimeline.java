@@ -0,0 +1,236 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.ScoreResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@code RequestTimeline} holds the times at which one call reached each of
+ * its phases, the status and sizes of its response, and once it completes,
+ * its response or exception. Timelines are only created for a client with a
+ * {@code RequestListener}, or while the {@code MinFraudRequestEvent} is
+ * enabled in a flight recording.
+ * <p>
+ * A phase is recorded the first time it is reached. When a hedged request
+ * or a retry on another endpoint is sent, the later requests do not move
+ * the phases the first one already reached. Phases that a call does not go
+ * through, e.g., connecting on a kept-alive connection or any of them for
+ * a cached response, are not recorded.
+ * </p>
+ */
+public final class RequestTimeline {
+
+    /**
+     * The phases of a call, in the order they are normally reached.
+     * {@code LEASE_ACQUIRED}, {@code CONNECTED}, {@code TLS_DONE} and
+     * {@code REQUEST_SENT} are only recorded by the
+     * {@code APACHE_HTTP_CLIENT} transport.
+     */
+    public enum Phase {
+        /**
+         * The transaction is about to be serialized.
+         */
+        SERIALIZE_START,
+        /**
+         * The transaction has been serialized.
+         */
+        SERIALIZE_END,
+        /**
+         * A connection has been taken from the pool, after waiting for one
+         * if none was free.
+         */
+        LEASE_ACQUIRED,
+        /**
+         * A new connection has been opened, including the DNS lookup.
+         */
+        CONNECTED,
+        /**
+         * The TLS handshake on a new connection is done.
+         */
+        TLS_DONE,
+        /**
+         * The request has been written to the connection.
+         */
+        REQUEST_SENT,
+        /**
+         * The status line and headers of the response have been read.
+         */
+        FIRST_BYTE,
+        /**
+         * The body of the response has been read.
+         */
+        BODY_READ,
+        /**
+         * The body of the response has been parsed.
+         */
+        PARSE_DONE
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final String service;
+    private final Transaction transaction;
+    private final RequestListener listener;
+    private final Object flightEvent;
+    private final long start = System.nanoTime();
+    private final AtomicLongArray nanos = new AtomicLongArray(PHASES.length);
+    private final AtomicInteger retries = new AtomicInteger();
+    private volatile int status = -1;
+    private volatile long requestBytes;
+    private volatile long responseBytes;
+    private volatile long totalNanos = -1;
+    private volatile ScoreResponse response;
+    private volatile Exception exception;
+
+    /**
+     * @param listener    The listener to tell about the call, or null.
+     * @param flightEvent The flight recorder event to commit when the call
+     *                    completes, or null.
+     */
+    RequestTimeline(String service, Transaction transaction, RequestListener listener, Object flightEvent) {
+        this.service = service;
+        this.transaction = transaction;
+        this.listener = listener;
+        this.flightEvent = flightEvent;
+        for (int i = 0; i < PHASES.length; i++) {
+            nanos.set(i, -1);
+        }
+    }
+
+    void mark(Phase phase) {
+        long elapsed = System.nanoTime() - start;
+        if (nanos.compareAndSet(phase.ordinal(), -1, elapsed) && listener != null) {
+            listener.onPhase(this, phase, elapsed);
+        }
+    }
+
+    void received(int status, long requestBytes, long responseBytes) {
+        this.status = status;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+    }
+
+    void retried() {
+        retries.incrementAndGet();
+    }
+
+    void complete(ScoreResponse response, Exception exception) {
+        this.response = response;
+        this.exception = exception;
+        totalNanos = System.nanoTime() - start;
+        if (listener != null) {
+            listener.onComplete(this);
+        }
+        if (flightEvent != null) {
+            FlightEvents.INSTANCE.commitRequest(flightEvent, this);
+        }
+    }
+
+    /**
+     * @return The service, "score", "insights", or "factors".
+     */
+    public String getService() {
+        return service;
+    }
+
+    /**
+     * @return The transaction of the call.
+     */
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * @param phase The phase.
+     * @return The number of nanoseconds from the start of the call until it
+     * reached the phase, or -1 if it has not reached it.
+     */
+    public long getNanos(Phase phase) {
+        return nanos.get(phase.ordinal());
+    }
+
+    /**
+     * @return The HTTP status of the last response received, or -1 if none
+     * has been received.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The size in bytes of the request body sent for the last
+     * response received, or 0 if none has been received.
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * @return The size in bytes of the body of the last response received,
+     * or 0 if none has been received or it did not give its size.
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return The number of times the request was retried on another
+     * endpoint.
+     */
+    public int getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return The number of nanoseconds the call took, or -1 if it has not
+     * completed.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return The response of the call, or null if it has not completed or
+     * threw an exception.
+     */
+    public ScoreResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * @return The exception the call threw, or null if it has not completed
+     * or returned a response.
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("RequestTimeline{service=").append(service)
+                .append(", status=").append(status)
+                .append(", retries=").append(retries.get());
+        for (Phase phase : PHASES) {
+            long phaseNanos = getNanos(phase);
+            if (phaseNanos >= 0) {
+                builder.append(", ").append(phase).append('=').append(millis(phaseNanos));
+            }
+        }
+        long total = totalNanos;
+        if (total >= 0) {
+            builder.append(", total=").append(millis(total));
+        }
+        Exception e = exception;
+        if (e != null) {
+            builder.append(", exception=").append(e.getClass().getSimpleName());
+        }
+        return builder.append('}').toString();
+    }
+
+    private static String millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos) / 1000.0 + "ms";
+    }
+}
@@ -0,0 +1,135 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.response.ScoreResponse;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of responses as configured by a {@code ResponseCachePolicy},
+ * held in a {@code ResponseStore}. Keys already include the service.
+ */
+final class ResponseCache {
+    /**
+     * A response found in the cache.
+     */
+    static final class Hit {
+        private final ScoreResponse response;
+        private final boolean stale;
+
+        private Hit(ScoreResponse response, boolean stale) {
+            this.response = response;
+            this.stale = stale;
+        }
+
+        ScoreResponse getResponse() {
+            return response;
+        }
+
+        /**
+         * @return Whether the response is past its time to live and should
+         * be refreshed.
+         */
+        boolean isStale() {
+            return stale;
+        }
+    }
+
+    private final ResponseCachePolicy policy;
+    private final ResponseStore store;
+    // Whether the entries' times are from the wall clock rather than from
+    // System.nanoTime().
+    private final boolean wallClock;
+    private final Set<String> revalidating = Collections.synchronizedSet(new HashSet<String>());
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param store The store to hold the responses, or null for a least
+     *              recently used one of the policy's maximum size.
+     */
+    ResponseCache(ResponseCachePolicy policy, ResponseStore store) {
+        this.policy = policy;
+        this.store = store == null ? new LruResponseStore(policy.getMaxSize()) : store;
+        // A store set on the builder may be shared with other processes,
+        // whose nanoTime cannot be compared with ours. The default store is
+        // only used by this client, so its entries do not go stale too
+        // early or stay fresh forever when the wall clock is stepped.
+        this.wallClock = store != null;
+    }
+
+    /**
+     * @param service The service, "score", "insights", or "factors".
+     * @return Whether responses for the service are cached.
+     */
+    boolean caches(String service) {
+        return ttl(service) > 0;
+    }
+
+    /**
+     * @return The response for the key, or null if there is none that is
+     * fresh or within the stale-while-revalidate window.
+     */
+    Hit get(String service, String key) {
+        CachedResponse entry = store.get(key);
+        if (entry != null) {
+            long age = now() - entry.getStoredAt();
+            long ttl = ttl(service);
+            if (age < ttl) {
+                hits.incrementAndGet();
+                return new Hit(entry.getResponse(), false);
+            }
+            if (age < ttl + policy.getStaleWhileRevalidate()) {
+                staleHits.incrementAndGet();
+                return new Hit(entry.getResponse(), true);
+            }
+            store.remove(key);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    void put(String key, ScoreResponse response) {
+        store.put(key, new CachedResponse(response, now()));
+    }
+
+    private long now() {
+        return wallClock ? System.currentTimeMillis() : TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * @return Whether the caller should refresh the response for the key.
+     * This is false while another caller is refreshing it. A caller that
+     * gets true must call {@link #endRevalidation(String)}.
+     */
+    boolean startRevalidation(String key) {
+        return revalidating.add(key);
+    }
+
+    void endRevalidation(String key) {
+        revalidating.remove(key);
+    }
+
+    CacheStats stats() {
+        return new CacheStats(hits.get(), staleHits.get(), misses.get(), store.evictions(), store.size());
+    }
+
+    private long ttl(String service) {
+        int ttl;
+        switch (service) {
+            case "score":
+                ttl = policy.getScoreTtl();
+                break;
+            case "insights":
+                ttl = policy.getInsightsTtl();
+                break;
+            default:
+                ttl = policy.getFactorsTtl();
+        }
+        return ttl;
+    }
+}
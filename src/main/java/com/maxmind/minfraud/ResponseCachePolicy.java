@@ -0,0 +1,171 @@
+package com.maxmind.minfraud;
+
+/**
+ * {@code ResponseCachePolicy} configures an in-process cache of responses
+ * for a {@code WebServiceClient}. A call for a transaction that is identical
+ * to one made for the same service within the service's time to live is
+ * answered from the cache without sending a request.
+ * <p>
+ * The cache holds up to a maximum number of responses and evicts the least
+ * recently used one when full, unless another {@code ResponseStore} is
+ * set on the client. Optionally, a response that is past its time
+ * to live but within the stale-while-revalidate window is still returned,
+ * and a request to refresh it is sent in the background.
+ * </p>
+ */
+public final class ResponseCachePolicy {
+    private final int maxSize;
+    private final int scoreTtl;
+    private final int insightsTtl;
+    private final int factorsTtl;
+    private final int staleWhileRevalidate;
+
+    private ResponseCachePolicy(ResponseCachePolicy.Builder builder) {
+        maxSize = builder.maxSize;
+        scoreTtl = builder.scoreTtl;
+        insightsTtl = builder.insightsTtl;
+        factorsTtl = builder.factorsTtl;
+        staleWhileRevalidate = builder.staleWhileRevalidate;
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code ResponseCachePolicy}
+     * from values set by the builder's methods.
+     */
+    public static final class Builder {
+        int maxSize = 10000;
+        int scoreTtl = 60000;
+        int insightsTtl = 60000;
+        int factorsTtl = 60000;
+        int staleWhileRevalidate;
+
+        /**
+         * @param val The maximum number of responses to keep. The default is
+         *            10000. This does not apply to a store set with
+         *            {@code WebServiceClient.Builder.responseStore}.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public ResponseCachePolicy.Builder maxSize(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("maxSize must be positive");
+            }
+            maxSize = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of milliseconds a Score response is fresh
+         *            for. Zero disables caching of Score responses. The
+         *            default is 60000.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public ResponseCachePolicy.Builder scoreTtl(int val) {
+            scoreTtl = checkTtl(val);
+            return this;
+        }
+
+        /**
+         * @param val The number of milliseconds an Insights response is
+         *            fresh for. Zero disables caching of Insights responses.
+         *            The default is 60000.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public ResponseCachePolicy.Builder insightsTtl(int val) {
+            insightsTtl = checkTtl(val);
+            return this;
+        }
+
+        /**
+         * @param val The number of milliseconds a Factors response is fresh
+         *            for. Zero disables caching of Factors responses. The
+         *            default is 60000.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public ResponseCachePolicy.Builder factorsTtl(int val) {
+            factorsTtl = checkTtl(val);
+            return this;
+        }
+
+        /**
+         * @param val The number of milliseconds after its time to live
+         *            during which a response is still returned while it is
+         *            refreshed in the background. The default is 0, which
+         *            means expired responses are never returned.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public ResponseCachePolicy.Builder staleWhileRevalidate(int val) {
+            if (val < 0) {
+                throw new IllegalArgumentException("staleWhileRevalidate must not be negative");
+            }
+            staleWhileRevalidate = val;
+            return this;
+        }
+
+        private static int checkTtl(int val) {
+            if (val < 0) {
+                throw new IllegalArgumentException("The time to live must not be negative");
+            }
+            return val;
+        }
+
+        /**
+         * @return An instance of {@code ResponseCachePolicy} created from the
+         * fields set on this builder.
+         */
+        public ResponseCachePolicy build() {
+            return new ResponseCachePolicy(this);
+        }
+    }
+
+    /**
+     * @return The maximum number of responses to keep.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return The number of milliseconds a Score response is fresh for.
+     */
+    public int getScoreTtl() {
+        return scoreTtl;
+    }
+
+    /**
+     * @return The number of milliseconds an Insights response is fresh for.
+     */
+    public int getInsightsTtl() {
+        return insightsTtl;
+    }
+
+    /**
+     * @return The number of milliseconds a Factors response is fresh for.
+     */
+    public int getFactorsTtl() {
+        return factorsTtl;
+    }
+
+    /**
+     * @return The number of milliseconds after its time to live during
+     * which a response is still returned while it is refreshed.
+     */
+    public int getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCachePolicy{" +
+                "maxSize=" + maxSize +
+                ", scoreTtl=" + scoreTtl +
+                ", insightsTtl=" + insightsTtl +
+                ", factorsTtl=" + factorsTtl +
+                ", staleWhileRevalidate=" + staleWhileRevalidate +
+                '}';
+    }
+}
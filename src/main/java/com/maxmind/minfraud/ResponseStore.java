@@ -0,0 +1,53 @@
+package com.maxmind.minfraud;
+
+/**
+ * The storage behind a {@code WebServiceClient}'s response cache. The
+ * client decides what to cache and when an entry is fresh or stale, as set
+ * by the {@code ResponseCachePolicy}. The store only holds the entries, and
+ * decides how many to keep and which to evict.
+ * <p>
+ * By default, the client uses a least recently used store holding up to
+ * the policy's maximum size. Set another with
+ * {@link WebServiceClient.Builder#responseStore(ResponseStore)}, e.g., to
+ * use a cache library with a different eviction policy, or to share a
+ * store between clients. Clients with different user IDs or locales do not
+ * see each other's entries, as both are part of the key. Implementations
+ * must be safe to call from many threads.
+ * </p>
+ */
+public interface ResponseStore {
+    /**
+     * @param key The key of the entry, which includes the user ID, the
+     *            locales and the service.
+     * @return The entry for the key, or null if there is none.
+     */
+    CachedResponse get(String key);
+
+    /**
+     * Stores the entry, replacing any with the same key.
+     *
+     * @param key   The key of the entry, which includes the user ID, the
+     *              locales and the service.
+     * @param entry The entry to store.
+     */
+    void put(String key, CachedResponse entry);
+
+    /**
+     * Removes the entry for the key, if there is one. This is called for
+     * entries that have expired.
+     *
+     * @param key The key of the entry.
+     */
+    void remove(String key);
+
+    /**
+     * @return The number of entries held.
+     */
+    int size();
+
+    /**
+     * @return The number of entries evicted to make room for others, or 0
+     * if the store does not count them.
+     */
+    long evictions();
+}
@@ -0,0 +1,117 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.AuthenticationException;
+import com.maxmind.minfraud.exception.HttpException;
+import com.maxmind.minfraud.exception.InsufficientFundsException;
+import com.maxmind.minfraud.exception.InvalidRequestException;
+import com.maxmind.minfraud.exception.PermissionRequiredException;
+import com.maxmind.minfraud.request.Transaction;
+
+/**
+ * The outcome of a call for one transaction: either the response or the
+ * exception that the call failed with.
+ *
+ * @param <T> The type of the response.
+ */
+public final class Result<T> {
+    private final Transaction transaction;
+    private final T response;
+    private final Exception exception;
+
+    private Result(Transaction transaction, T response, Exception exception) {
+        this.transaction = transaction;
+        this.response = response;
+        this.exception = exception;
+    }
+
+    static <T> Result<T> success(Transaction transaction, T response) {
+        return new Result<>(transaction, response, null);
+    }
+
+    static <T> Result<T> failure(Transaction transaction, Exception exception) {
+        return new Result<>(transaction, null, exception);
+    }
+
+    /**
+     * @return The transaction the call was made for.
+     */
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * @return The response, or null if the call failed.
+     */
+    public T getResponse() {
+        return response;
+    }
+
+    /**
+     * @return The exception the call failed with, or null if it succeeded.
+     * This is any of the exceptions the corresponding {@code WebServiceClient}
+     * method throws.
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    /**
+     * @return The HTTP status of the error response the call failed with, or
+     * 0 if it succeeded or failed for another reason.
+     */
+    public int getHttpStatus() {
+        if (exception instanceof InvalidRequestException) {
+            return ((InvalidRequestException) exception).getHttpStatus();
+        }
+        if (exception instanceof AuthenticationException) {
+            return ((AuthenticationException) exception).getHttpStatus();
+        }
+        if (exception instanceof InsufficientFundsException) {
+            return ((InsufficientFundsException) exception).getHttpStatus();
+        }
+        if (exception instanceof PermissionRequiredException) {
+            return ((PermissionRequiredException) exception).getHttpStatus();
+        }
+        if (exception instanceof HttpException) {
+            return ((HttpException) exception).getHttpStatus();
+        }
+        return 0;
+    }
+
+    /**
+     * @return The error code, such as {@code INVALID_INPUT}, that the web
+     * service rejected the transaction with, or null if the call succeeded
+     * or failed for another reason.
+     */
+    public String getErrorCode() {
+        if (exception instanceof InvalidRequestException) {
+            return ((InvalidRequestException) exception).getCode();
+        }
+        if (exception instanceof AuthenticationException) {
+            return ((AuthenticationException) exception).getCode();
+        }
+        if (exception instanceof InsufficientFundsException) {
+            return ((InsufficientFundsException) exception).getCode();
+        }
+        if (exception instanceof PermissionRequiredException) {
+            return ((PermissionRequiredException) exception).getCode();
+        }
+        return null;
+    }
+
+    /**
+     * @return Whether the call succeeded.
+     */
+    public boolean isSuccess() {
+        return exception == null;
+    }
+
+    @Override
+    public String toString() {
+        return "Result{" +
+                "transaction=" + transaction +
+                ", response=" + response +
+                ", exception=" + exception +
+                '}';
+    }
+}
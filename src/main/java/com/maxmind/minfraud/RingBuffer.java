@@ -0,0 +1,86 @@
+package com.maxmind.minfraud;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded queue that many threads offer to and one thread polls from,
+ * without locks. An offer to a full buffer fails rather than waiting.
+ * <p>
+ * A producer claims a position by advancing the tail, then publishes its
+ * element in the slot. The consumer takes the element at the head once it
+ * has been published, clears the slot, and only then advances the head, so
+ * a producer never claims a slot that still holds an element.
+ * </p>
+ */
+final class RingBuffer<E> {
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity The number of elements the buffer holds. It is rounded
+     *                 up to a power of two.
+     */
+    RingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be from 1 to 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return Whether the element was added. It is not when the buffer is
+     * full.
+     */
+    boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element must not be null");
+        }
+        while (true) {
+            long position = tail.get();
+            if (position - head.get() > mask) {
+                return false;
+            }
+            if (tail.compareAndSet(position, position + 1)) {
+                slots.lazySet((int) position & mask, element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Must only be called by the consumer thread.
+     *
+     * @return The oldest element, or null if there is none or it has not
+     * been published yet.
+     */
+    E poll() {
+        long position = head.get();
+        int index = (int) position & mask;
+        E element = slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    /**
+     * @return Whether every position claimed so far has been polled.
+     */
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
@@ -0,0 +1,258 @@
+package com.maxmind.minfraud;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the endpoint for each call as configured by a
+ * {@code RoutingPolicy}, and ejects and reinstates endpoints based on the
+ * outcomes of their calls and probes. Every endpoint returned by
+ * {@link #choose} must be handed back to {@link #record} or
+ * {@link #release}.
+ */
+final class Router {
+    /**
+     * Checks whether an ejected endpoint is able to answer requests again.
+     */
+    interface Prober {
+        /**
+         * @param endpoint The endpoint to probe.
+         * @throws Exception when the endpoint did not answer properly.
+         */
+        void probe(Endpoint endpoint) throws Exception;
+    }
+
+    static final class Endpoint {
+        private final String host;
+        private final int port;
+
+        // These are guarded by the router.
+        private double ewma;
+        private long sampledAt;
+        private int samples;
+        private int failures;
+        private int inFlight;
+        private boolean ejected;
+        private long ejectedAt;
+
+        private Endpoint(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        String getHost() {
+            return host;
+        }
+
+        int getPort() {
+            return port;
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port;
+        }
+    }
+
+    private final RoutingPolicy policy;
+    private final List<Endpoint> endpoints;
+    private final long probeNanos;
+    private final double decayNanos;
+
+    Router(List<InetSocketAddress> addresses, RoutingPolicy policy) {
+        this.policy = policy;
+        this.probeNanos = TimeUnit.MILLISECONDS.toNanos(policy.getProbeInterval());
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(policy.getDecay());
+        List<Endpoint> list = new ArrayList<>();
+        for (InetSocketAddress address : addresses) {
+            list.add(new Endpoint(address.getHostString(), address.getPort()));
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+    }
+
+    List<Endpoint> endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * @param exclude Endpoints that must not be chosen, e.g., because the
+     *                call already failed on them.
+     * @return The endpoint for the call, or null if every endpoint is
+     * excluded. Ejected endpoints are only chosen when no other endpoint is
+     * left.
+     */
+    synchronized Endpoint choose(Collection<Endpoint> exclude) {
+        List<Endpoint> candidates = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.ejected && !exclude.contains(endpoint)) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (Endpoint endpoint : endpoints) {
+                if (!exclude.contains(endpoint)) {
+                    candidates.add(endpoint);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return null;
+            }
+        }
+
+        Endpoint chosen;
+        long now = System.nanoTime();
+        if (candidates.size() == 1) {
+            chosen = candidates.get(0);
+        } else if (policy.getStrategy() == RoutingPolicy.Strategy.POWER_OF_TWO_CHOICES) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(candidates.size());
+            int second = random.nextInt(candidates.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            Endpoint a = candidates.get(first);
+            Endpoint b = candidates.get(second);
+            chosen = cost(b, now) < cost(a, now) ? b : a;
+        } else {
+            chosen = candidates.get(0);
+            double lowest = cost(chosen, now);
+            for (Endpoint endpoint : candidates) {
+                double cost = cost(endpoint, now);
+                if (cost < lowest) {
+                    chosen = endpoint;
+                    lowest = cost;
+                }
+            }
+        }
+        chosen.inFlight++;
+        return chosen;
+    }
+
+    /**
+     * An endpoint with no latency samples yet costs nothing, so every
+     * endpoint is tried early on.
+     */
+    private double cost(Endpoint endpoint, long now) {
+        double ewma = endpoint.ewma * Math.exp(-(now - endpoint.sampledAt) / decayNanos);
+        return ewma * (endpoint.inFlight + 1);
+    }
+
+    /**
+     * Records the outcome of a call made to the endpoint.
+     */
+    synchronized void record(Endpoint endpoint, long nanos, boolean failure) {
+        endpoint.inFlight--;
+        if (failure) {
+            if (++endpoint.failures >= policy.getMaxFailures()) {
+                eject(endpoint);
+            }
+            return;
+        }
+        endpoint.failures = 0;
+        long now = System.nanoTime();
+        double decayed = endpoint.ewma * Math.exp(-(now - endpoint.sampledAt) / decayNanos);
+        endpoint.ewma = endpoint.samples == 0
+                ? nanos
+                : decayed + policy.getEwmaWeight() * (nanos - decayed);
+        endpoint.sampledAt = now;
+        endpoint.samples++;
+        if (endpoint.samples >= policy.getMinSamples() && isSlow(endpoint)) {
+            eject(endpoint);
+        }
+    }
+
+    /**
+     * Hands back an endpoint whose call was abandoned, e.g., because a hedged
+     * request won, without recording an outcome.
+     */
+    synchronized void release(Endpoint endpoint) {
+        endpoint.inFlight--;
+    }
+
+    synchronized boolean isEjected(Endpoint endpoint) {
+        return endpoint.ejected;
+    }
+
+    private boolean isSlow(Endpoint endpoint) {
+        double fastest = Double.MAX_VALUE;
+        for (Endpoint other : endpoints) {
+            if (other != endpoint && !other.ejected && other.samples > 0) {
+                fastest = Math.min(fastest, other.ewma);
+            }
+        }
+        return fastest != Double.MAX_VALUE && endpoint.ewma > fastest * policy.getSlowCallFactor();
+    }
+
+    private void eject(Endpoint endpoint) {
+        if (endpoints.size() > 1) {
+            endpoint.ejected = true;
+            endpoint.ejectedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Probes every endpoint that has been ejected for at least the probe
+     * interval and reinstates those that answer.
+     */
+    void probeEjected(Prober prober) {
+        List<Endpoint> due = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            for (Endpoint endpoint : endpoints) {
+                if (endpoint.ejected && now - endpoint.ejectedAt >= probeNanos) {
+                    due.add(endpoint);
+                }
+            }
+        }
+        for (Endpoint endpoint : due) {
+            boolean healthy;
+            try {
+                prober.probe(endpoint);
+                healthy = true;
+            } catch (Exception e) {
+                healthy = false;
+            }
+            synchronized (this) {
+                if (healthy) {
+                    reinstate(endpoint);
+                } else {
+                    endpoint.ejectedAt = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    /**
+     * A probe says little about how fast real calls will be, so the
+     * reinstated endpoint starts at the average latency of the others and
+     * has to earn its share of calls again.
+     */
+    private void reinstate(Endpoint endpoint) {
+        double total = 0;
+        int count = 0;
+        for (Endpoint other : endpoints) {
+            if (other != endpoint && !other.ejected && other.samples > 0) {
+                total += other.ewma;
+                count++;
+            }
+        }
+        endpoint.ewma = count == 0 ? 0 : total / count;
+        endpoint.sampledAt = System.nanoTime();
+        endpoint.samples = 0;
+        endpoint.failures = 0;
+        endpoint.ejected = false;
+    }
+
+    @Override
+    public String toString() {
+        return "Router{" +
+                "endpoints=" + endpoints +
+                ", policy=" + policy +
+                '}';
+    }
+}
@@ -0,0 +1,245 @@
+package com.maxmind.minfraud;
+
+/**
+ * {@code RoutingPolicy} configures how a {@code WebServiceClient} with
+ * several endpoints chooses the endpoint for each call.
+ * <p>
+ * The client keeps an exponentially weighted moving average (EWMA) of the
+ * latency of each endpoint and prefers the fastest ones. The average of an
+ * endpoint that is not receiving calls decays over time, so it is tried
+ * again eventually. An endpoint that fails several calls in a row, or whose
+ * average latency grows to a multiple of the fastest endpoint's, is ejected
+ * and receives no calls. An ejected endpoint is probed in the background and
+ * returned to service once it answers a probe. A call that fails with a
+ * transport error or a server error is retried on another endpoint.
+ * </p>
+ */
+public final class RoutingPolicy {
+
+    /**
+     * The strategies available for choosing an endpoint.
+     */
+    public enum Strategy {
+        /**
+         * Each call goes to the endpoint with the lowest cost, which is its
+         * average latency multiplied by one more than its number of calls in
+         * flight.
+         */
+        LOWEST_LATENCY,
+        /**
+         * Each call picks two endpoints at random and goes to the one with
+         * the lower cost. This spreads load better than always picking the
+         * best endpoint, as many clients do not all pile onto the same one.
+         */
+        POWER_OF_TWO_CHOICES
+    }
+
+    private final Strategy strategy;
+    private final double ewmaWeight;
+    private final int decay;
+    private final int maxFailures;
+    private final double slowCallFactor;
+    private final int minSamples;
+    private final int probeInterval;
+
+    private RoutingPolicy(RoutingPolicy.Builder builder) {
+        strategy = builder.strategy;
+        ewmaWeight = builder.ewmaWeight;
+        decay = builder.decay;
+        maxFailures = builder.maxFailures;
+        slowCallFactor = builder.slowCallFactor;
+        minSamples = builder.minSamples;
+        probeInterval = builder.probeInterval;
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code RoutingPolicy}
+     * from values set by the builder's methods.
+     */
+    public static final class Builder {
+        Strategy strategy = Strategy.POWER_OF_TWO_CHOICES;
+        double ewmaWeight = 0.3;
+        int decay = 10000;
+        int maxFailures = 3;
+        double slowCallFactor = 3;
+        int minSamples = 10;
+        int probeInterval = 5000;
+
+        /**
+         * @param val The strategy for choosing an endpoint. The default is
+         *            {@code POWER_OF_TWO_CHOICES}.
+         * @return Builder object
+         */
+        public RoutingPolicy.Builder strategy(Strategy val) {
+            if (val == null) {
+                throw new IllegalArgumentException("strategy must not be null");
+            }
+            strategy = val;
+            return this;
+        }
+
+        /**
+         * @param val The weight of the latest call in an endpoint's average
+         *            latency, from 0, exclusive, to 1. The default is 0.3.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is out of range.
+         */
+        public RoutingPolicy.Builder ewmaWeight(double val) {
+            if (val <= 0 || val > 1) {
+                throw new IllegalArgumentException("ewmaWeight must be greater than 0 and at most 1");
+            }
+            ewmaWeight = val;
+            return this;
+        }
+
+        /**
+         * @param val The time constant in milliseconds with which the average
+         *            latency of an endpoint that receives no calls decays
+         *            towards zero. This lets an endpoint that was slow for a
+         *            while be tried again. The default is 10000.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public RoutingPolicy.Builder decay(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("decay must be positive");
+            }
+            decay = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of consecutive failed calls after which an
+         *            endpoint is ejected. The default is 3.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public RoutingPolicy.Builder maxFailures(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("maxFailures must be positive");
+            }
+            maxFailures = val;
+            return this;
+        }
+
+        /**
+         * @param val How many times the average latency of the fastest
+         *            endpoint another endpoint's average latency may reach
+         *            before it is ejected. The default is 3.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not greater than 1.
+         */
+        public RoutingPolicy.Builder slowCallFactor(double val) {
+            if (val <= 1) {
+                throw new IllegalArgumentException("slowCallFactor must be greater than 1");
+            }
+            slowCallFactor = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of calls an endpoint must complete before it
+         *            may be ejected for being slow. The default is 10.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public RoutingPolicy.Builder minSamples(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("minSamples must be positive");
+            }
+            minSamples = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of milliseconds between probes of an
+         *            ejected endpoint. This is also how long an endpoint
+         *            stays ejected at least, and the timeout of each probe.
+         *            The default is 5000.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is not positive.
+         */
+        public RoutingPolicy.Builder probeInterval(int val) {
+            if (val <= 0) {
+                throw new IllegalArgumentException("probeInterval must be positive");
+            }
+            probeInterval = val;
+            return this;
+        }
+
+        /**
+         * @return An instance of {@code RoutingPolicy} created from the
+         * fields set on this builder.
+         */
+        public RoutingPolicy build() {
+            return new RoutingPolicy(this);
+        }
+    }
+
+    /**
+     * @return The strategy for choosing an endpoint.
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return The weight of the latest call in an endpoint's average latency.
+     */
+    public double getEwmaWeight() {
+        return ewmaWeight;
+    }
+
+    /**
+     * @return The time constant in milliseconds with which the average
+     * latency of an endpoint that receives no calls decays towards zero.
+     */
+    public int getDecay() {
+        return decay;
+    }
+
+    /**
+     * @return The number of consecutive failed calls after which an endpoint
+     * is ejected.
+     */
+    public int getMaxFailures() {
+        return maxFailures;
+    }
+
+    /**
+     * @return How many times the average latency of the fastest endpoint
+     * another endpoint's average latency may reach before it is ejected.
+     */
+    public double getSlowCallFactor() {
+        return slowCallFactor;
+    }
+
+    /**
+     * @return The number of calls an endpoint must complete before it may be
+     * ejected for being slow.
+     */
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    /**
+     * @return The number of milliseconds between probes of an ejected
+     * endpoint.
+     */
+    public int getProbeInterval() {
+        return probeInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingPolicy{" +
+                "strategy=" + strategy +
+                ", ewmaWeight=" + ewmaWeight +
+                ", decay=" + decay +
+                ", maxFailures=" + maxFailures +
+                ", slowCallFactor=" + slowCallFactor +
+                ", minSamples=" + minSamples +
+                ", probeInterval=" + probeInterval +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.Disposition;
+import com.maxmind.minfraud.response.FactorsResponse;
+import com.maxmind.minfraud.response.InsightsResponse;
+import com.maxmind.minfraud.response.ScoreResponse;
+
+import java.io.IOException;
+
+/**
+ * A {@code Fallback} that returns a synthetic response with a fixed risk
+ * score. The response's disposition has the reason {@link #REASON} so that
+ * fallback responses can be told apart from real ones. All other fields of
+ * the response are empty.
+ */
+public final class StaticFallback implements Fallback {
+    /**
+     * The disposition reason of fallback responses.
+     */
+    public static final String REASON = "fallback";
+
+    private final double riskScore;
+    private final String action;
+
+    private StaticFallback(StaticFallback.Builder builder) {
+        riskScore = builder.riskScore;
+        action = builder.action;
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code StaticFallback}
+     * from values set by the builder's methods.
+     */
+    public static final class Builder {
+        final double riskScore;
+        String action;
+
+        /**
+         * @param riskScore The risk score of fallback responses, from 0.01
+         *                  to 99.
+         * @throws IllegalArgumentException when riskScore is out of range.
+         */
+        public Builder(double riskScore) {
+            if (riskScore < 0.01 || riskScore > 99) {
+                throw new IllegalArgumentException("riskScore must be from 0.01 to 99");
+            }
+            this.riskScore = riskScore;
+        }
+
+        /**
+         * @param val The disposition action of fallback responses, e.g.,
+         *            "manual_review". By default the action is null.
+         * @return Builder object
+         */
+        public StaticFallback.Builder action(String val) {
+            action = val;
+            return this;
+        }
+
+        /**
+         * @return An instance of {@code StaticFallback} created from the
+         * fields set on this builder.
+         */
+        public StaticFallback build() {
+            return new StaticFallback(this);
+        }
+    }
+
+    @Override
+    public <T extends ScoreResponse> T responseFor(Class<T> cls, Transaction transaction, IOException cause)
+            throws IOException {
+        Disposition disposition = new Disposition(action, REASON);
+        if (cls == FactorsResponse.class) {
+            return cls.cast(new FactorsResponse(null, null, null, disposition, null,
+                    null, null, null, null, riskScore, null, null, null));
+        }
+        if (cls == InsightsResponse.class) {
+            return cls.cast(new InsightsResponse(null, null, null, disposition, null,
+                    null, null, null, null, riskScore, null, null));
+        }
+        if (cls == ScoreResponse.class) {
+            return cls.cast(new ScoreResponse(disposition, null, null, null, null,
+                    riskScore, null));
+        }
+        throw cause;
+    }
+
+    @Override
+    public String toString() {
+        return "StaticFallback{" +
+                "riskScore=" + riskScore +
+                ", action='" + action + '\'' +
+                '}';
+    }
+}
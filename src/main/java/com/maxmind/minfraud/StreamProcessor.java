@@ -0,0 +1,243 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes a {@code Result} for every transaction from the upstream
+ * publisher. Transactions are requested from upstream only when there is
+ * both downstream demand for their results and room under the client's
+ * in-flight limit, so neither a fast upstream nor a slow downstream can
+ * make results pile up.
+ * <p>
+ * Results are published in the order the calls complete. An error from
+ * upstream is passed on once the calls already made have been published.
+ * Only one subscriber is allowed.
+ * </p>
+ */
+final class StreamProcessor<T> implements Flow.Publisher<Result<T>> {
+    /**
+     * Makes the blocking call for a transaction.
+     */
+    interface Call<T> {
+        T call(Transaction transaction) throws Exception;
+    }
+
+    /**
+     * Supplies the current in-flight limit, which may change over time.
+     */
+    interface Limit {
+        int get();
+    }
+
+    private static final Flow.Subscription NO_SUBSCRIPTION = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final Flow.Publisher<Transaction> upstream;
+    private final Call<T> call;
+    private final Executor executor;
+    private final Limit limit;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    StreamProcessor(Flow.Publisher<Transaction> upstream, Call<T> call, Executor executor, Limit limit) {
+        this.upstream = upstream;
+        this.call = call;
+        this.executor = executor;
+        this.limit = limit;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Result<T>> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber must not be null");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(NO_SUBSCRIPTION);
+            subscriber.onError(new IllegalStateException("This publisher allows only one subscriber"));
+            return;
+        }
+        Bridge bridge = new Bridge(subscriber);
+        subscriber.onSubscribe(bridge);
+        upstream.subscribe(bridge);
+    }
+
+    /**
+     * The subscription given to the downstream subscriber and the subscriber
+     * given to the upstream publisher. All signals to downstream are sent
+     * from {@code drain}, which only ever runs on one thread at a time.
+     */
+    private final class Bridge implements Flow.Subscription, Flow.Subscriber<Transaction> {
+        private final Flow.Subscriber<? super Result<T>> downstream;
+        private final Queue<Result<T>> results = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private volatile Flow.Subscription subscription;
+        private volatile boolean upstreamDone;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+        private boolean finished;
+
+        Bridge(Flow.Subscriber<? super Result<T>> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("The number of results requested must be positive"));
+                return;
+            }
+            while (true) {
+                long current = demand.get();
+                long next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                if (demand.compareAndSet(current, next)) {
+                    break;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+            drain();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            if (subscription != null || cancelled) {
+                s.cancel();
+                return;
+            }
+            subscription = s;
+            drain();
+        }
+
+        @Override
+        public void onNext(final Transaction transaction) {
+            outstanding.decrementAndGet();
+            inFlight.incrementAndGet();
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        complete(transaction);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                finish(Result.<T>failure(transaction, e));
+            }
+        }
+
+        private void complete(Transaction transaction) {
+            Result<T> result;
+            try {
+                result = Result.success(transaction, call.call(transaction));
+            } catch (Exception e) {
+                result = Result.failure(transaction, e);
+            }
+            finish(result);
+        }
+
+        private void finish(Result<T> result) {
+            // The result is queued before the call stops counting as in
+            // flight, so drain never sees the call as neither.
+            results.offer(result);
+            inFlight.decrementAndGet();
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            upstreamDone = true;
+            drain();
+        }
+
+        private void fail(Throwable throwable) {
+            if (error == null) {
+                error = throwable;
+            }
+            Flow.Subscription s = subscription;
+            if (s != null && !upstreamDone) {
+                s.cancel();
+            }
+            upstreamDone = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (cancelled || finished) {
+                    results.clear();
+                } else {
+                    deliver();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void deliver() {
+            while (demand.get() > 0) {
+                Result<T> result = results.poll();
+                if (result == null) {
+                    break;
+                }
+                if (demand.get() != Long.MAX_VALUE) {
+                    demand.decrementAndGet();
+                }
+                downstream.onNext(result);
+            }
+
+            if (upstreamDone && inFlight.get() == 0 && results.isEmpty()) {
+                finished = true;
+                if (error == null) {
+                    downstream.onComplete();
+                } else {
+                    downstream.onError(error);
+                }
+                return;
+            }
+
+            Flow.Subscription s = subscription;
+            if (s == null || upstreamDone) {
+                return;
+            }
+            long wanted = Math.min(limit.get(), demand.get());
+            long budget = wanted - outstanding.get() - inFlight.get() - results.size();
+            if (budget > 0) {
+                outstanding.addAndGet((int) budget);
+                s.request(budget);
+            }
+        }
+    }
+}
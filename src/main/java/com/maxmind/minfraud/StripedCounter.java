@@ -0,0 +1,55 @@
+package com.maxmind.minfraud;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that threads add to without locks and mostly without
+ * contending with each other. Each thread adds to one of several stripes,
+ * chosen by its ID, and the stripes are summed when the counter is read.
+ * The stripes are a cache line apart so that threads adding to different
+ * stripes do not slow each other down.
+ */
+final class StripedCounter {
+    // Eight longs make a 64 byte cache line.
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    StripedCounter() {
+        mask = stripes() - 1;
+        cells = new AtomicLongArray((mask + 1) * PADDING);
+    }
+
+    /**
+     * @return The number of stripes to use: a power of two that is at
+     * least the number of processors, up to 8.
+     */
+    static int stripes() {
+        int processors = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        return Integer.highestOneBit(Math.max(1, processors * 2 - 1));
+    }
+
+    /**
+     * @return The stripe for the current thread, from 0 to mask.
+     */
+    static int stripe(int mask) {
+        return (int) Thread.currentThread().getId() & mask;
+    }
+
+    void add(long n) {
+        cells.getAndAdd(stripe(mask) * PADDING, n);
+    }
+
+    void increment() {
+        add(1);
+    }
+
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+}
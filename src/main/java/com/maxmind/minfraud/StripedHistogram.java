@@ -0,0 +1,75 @@
+package com.maxmind.minfraud;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations that threads record into without locks. The
+ * buckets are laid out like those of an HDR histogram: durations below 64
+ * microseconds each have their own bucket, and every power of two above
+ * that is split into 32 buckets, so a bucket's upper bound is at most 1/32
+ * above the durations in it. Durations of 2^32 microseconds, which is over
+ * an hour, and longer go into the last bucket.
+ * <p>
+ * As with {@code StripedCounter}, each thread records into one of several
+ * copies of the buckets, and the copies are summed for a snapshot.
+ * </p>
+ */
+final class StripedHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final long MAX = (1L << 32) - 1;
+
+    static final int BUCKETS = index(MAX) + 1;
+    private static final long[] BOUNDS = bounds();
+
+    private final AtomicLongArray counts;
+    private final int mask;
+
+    StripedHistogram() {
+        mask = StripedCounter.stripes() - 1;
+        counts = new AtomicLongArray((mask + 1) * BUCKETS);
+    }
+
+    /**
+     * @return The index of the bucket for a duration in microseconds.
+     */
+    static int index(long micros) {
+        long value = Math.max(0, Math.min(micros, MAX));
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int top = (int) (value >>> shift);
+        return SUB_BUCKETS + (shift - 1) * HALF + top - HALF;
+    }
+
+    private static long[] bounds() {
+        long[] bounds = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            if (i < SUB_BUCKETS) {
+                bounds[i] = i;
+            } else {
+                int shift = (i - SUB_BUCKETS) / HALF + 1;
+                int top = (i - SUB_BUCKETS) % HALF + HALF;
+                bounds[i] = ((long) (top + 1) << shift) - 1;
+            }
+        }
+        bounds[BUCKETS - 1] = Long.MAX_VALUE;
+        return bounds;
+    }
+
+    void record(long nanos) {
+        int bucket = index(TimeUnit.NANOSECONDS.toMicros(nanos));
+        counts.getAndIncrement(StripedCounter.stripe(mask) * BUCKETS + bucket);
+    }
+
+    Histogram snapshot() {
+        long[] sums = new long[BUCKETS];
+        for (int i = 0; i < counts.length(); i++) {
+            sums[i % BUCKETS] += counts.get(i);
+        }
+        return new Histogram(BOUNDS, sums);
+    }
+}
@@ -0,0 +1,122 @@
+package com.maxmind.minfraud;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends the requests a {@code WebServiceClient} sends and the responses
+ * it receives to a file, so that they can be served offline by a
+ * {@code TrafficReplay}. Each record holds the service, the request body,
+ * the response status and body, and how long the response took.
+ * <p>
+ * The file is binary and is appended to, so one file can collect the
+ * traffic of several runs. Records are flushed as they are written. A
+ * record cut short by a crash is skipped when the file is read, and is cut
+ * off when the file is opened for recording again. The recorder must be
+ * closed once the client using it is closed.
+ * </p>
+ */
+public final class TrafficRecorder implements Closeable {
+    // "MFRR" and the format version, written at the start of the file.
+    static final int MAGIC = 0x4d465252;
+    static final int VERSION = 1;
+
+    private final File file;
+    private final DataOutputStream out;
+    private long records;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * @param file The file to append to. It is created if it does not exist.
+     * @throws IOException when the file cannot be opened, is not a
+     *                     recording or is corrupt.
+     */
+    public TrafficRecorder(File file) throws IOException {
+        this.file = file;
+        boolean empty = file.length() == 0;
+        if (!empty) {
+            // Reading the records checks that the file is a recording, and
+            // a record cut short by a crash is cut off so that the next
+            // record does not follow it.
+            long end = TrafficReplay.readRecords(file, null);
+            if (end < file.length()) {
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(end);
+                }
+            }
+        }
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        if (empty) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes a record. A failure to write does not fail the call being
+     * recorded. It stops the recording and is thrown by {@link #close}.
+     */
+    synchronized void record(String service, String requestBody, int status,
+                             byte[] responseBody, long nanos) {
+        if (closed || failure != null) {
+            return;
+        }
+        try {
+            out.writeUTF(service);
+            out.writeShort(status);
+            out.writeInt((int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMicros(nanos)));
+            writeBytes(requestBody.getBytes(StandardCharsets.UTF_8));
+            writeBytes(responseBody);
+            out.flush();
+            records++;
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @return The number of records written by this recorder.
+     */
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    /**
+     * Close the file.
+     *
+     * @throws IOException when closing the file or writing an earlier
+     *                     record failed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        out.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TrafficRecorder{" +
+                "file=" + file +
+                '}';
+    }
+}
@@ -0,0 +1,360 @@
+package com.maxmind.minfraud;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves the responses in a file written by a {@code TrafficRecorder}
+ * instead of sending requests to the web service. A client with a
+ * {@code TrafficReplay} opens no connections.
+ * <p>
+ * A request gets the response recorded for the same service and the same
+ * request body, so a transaction with the same field values as a recorded
+ * one gets its response. When a request was recorded more than once, its
+ * responses are served in turn. A request that was not recorded gets the
+ * next of all the responses recorded for the service. Each response is
+ * served after its recorded latency, multiplied by the latency scale.
+ * </p>
+ */
+public final class TrafficReplay {
+    private final File file;
+    private final double latencyScale;
+    private final Map<String, Responses> byRequest;
+    private final Map<String, Responses> byService;
+    private final int records;
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong unmatched = new AtomicLong();
+
+    private TrafficReplay(TrafficReplay.Builder builder) throws IOException {
+        file = builder.file;
+        latencyScale = builder.latencyScale;
+        List<Recorded> all = new ArrayList<>();
+        readRecords(file, all);
+        Map<String, List<Recorded>> requests = new HashMap<>();
+        Map<String, List<Recorded>> services = new HashMap<>();
+        for (Recorded recorded : all) {
+            add(requests, recorded.service + '\n' + recorded.requestBody, recorded);
+            add(services, recorded.service, recorded);
+        }
+        byRequest = freeze(requests);
+        byService = freeze(services);
+        records = all.size();
+    }
+
+    /**
+     * {@code Builder} creates instances of {@code TrafficReplay} from a
+     * recording and values set by the builder's methods.
+     */
+    public static final class Builder {
+        final File file;
+        double latencyScale = 1;
+
+        /**
+         * @param file The file written by a {@code TrafficRecorder}.
+         */
+        public Builder(File file) {
+            if (file == null) {
+                throw new IllegalArgumentException("file must not be null");
+            }
+            this.file = file;
+        }
+
+        /**
+         * @param val The factor the recorded latencies are multiplied by,
+         *            e.g., 0.5 to serve responses twice as fast as they were
+         *            recorded, or 0 to serve them at once. The default is 1.
+         * @return Builder object
+         * @throws IllegalArgumentException when val is negative.
+         */
+        public TrafficReplay.Builder latencyScale(double val) {
+            if (val < 0 || Double.isNaN(val)) {
+                throw new IllegalArgumentException("latencyScale must not be negative");
+            }
+            latencyScale = val;
+            return this;
+        }
+
+        /**
+         * @return An instance of {@code TrafficReplay} holding the
+         * responses in the file.
+         * @throws IOException when the file cannot be read or is not a
+         *                     recording.
+         */
+        public TrafficReplay build() throws IOException {
+            return new TrafficReplay(this);
+        }
+    }
+
+    private static final class Recorded {
+        final String service;
+        final int status;
+        final long nanos;
+        final String requestBody;
+        final byte[] responseBody;
+
+        Recorded(String service, int status, long nanos, String requestBody, byte[] responseBody) {
+            this.service = service;
+            this.status = status;
+            this.nanos = nanos;
+            this.requestBody = requestBody;
+            this.responseBody = responseBody;
+        }
+    }
+
+    private static final class Responses {
+        private final Recorded[] recorded;
+        private final AtomicInteger next = new AtomicInteger();
+
+        Responses(List<Recorded> recorded) {
+            this.recorded = recorded.toArray(new Recorded[recorded.size()]);
+        }
+
+        Recorded next() {
+            int i = next.getAndIncrement() & Integer.MAX_VALUE;
+            return recorded[i % recorded.length];
+        }
+    }
+
+    /**
+     * Reads the records in the file.
+     *
+     * @param records The list the records are added to, or null to only
+     *                check the file.
+     * @return The length of the header and the complete records, i.e.,
+     * where the next record should be written.
+     * @throws IOException when the file cannot be read, is not a recording
+     *                     or is corrupt.
+     */
+    static long readRecords(File file, List<Recorded> records) throws IOException {
+        long remaining = file.length();
+        try (CountingInputStream counting = new CountingInputStream(
+                new BufferedInputStream(new FileInputStream(file)));
+             DataInputStream in = new DataInputStream(counting)) {
+            checkHeader(in, file);
+            long end = counting.count;
+            Recorded recorded;
+            while ((recorded = read(in, counting, remaining, file)) != null) {
+                if (records != null) {
+                    records.add(recorded);
+                }
+                end = counting.count;
+            }
+            return end;
+        }
+    }
+
+    private static void checkHeader(DataInputStream in, File file) throws IOException {
+        try {
+            if (in.readInt() != TrafficRecorder.MAGIC) {
+                throw new IOException(file + " is not a recording of minFraud traffic");
+            }
+            int version = in.readInt();
+            if (version != TrafficRecorder.VERSION) {
+                throw new IOException(file + " is a recording in an unsupported format ("
+                        + version + ")");
+            }
+        } catch (EOFException e) {
+            throw new IOException(file + " is not a recording of minFraud traffic", e);
+        }
+    }
+
+    /**
+     * @return The next record, or null at the end of the file or of the
+     * last complete record.
+     */
+    private static Recorded read(DataInputStream in, CountingInputStream counting,
+                                 long length, File file) throws IOException {
+        try {
+            String service = in.readUTF();
+            int status = in.readUnsignedShort();
+            long nanos = TimeUnit.MICROSECONDS.toNanos(in.readInt());
+            String requestBody = new String(readBytes(in, counting, length, file),
+                    StandardCharsets.UTF_8);
+            byte[] responseBody = readBytes(in, counting, length, file);
+            return new Recorded(service, status, nanos, requestBody, responseBody);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in, CountingInputStream counting,
+                                    long length, File file) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException(file + " is a corrupt recording (a length of "
+                    + size + " at byte " + (counting.count - 4) + ")");
+        }
+        // A length past the end of the file belongs to a record cut short.
+        // Checking it first keeps a damaged length from allocating an
+        // array the file could never fill.
+        if (size > length - counting.count) {
+            throw new EOFException();
+        }
+        byte[] bytes = new byte[size];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Counts the bytes read through it, so that the reader knows where each
+     * record ends.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    private static void add(Map<String, List<Recorded>> map, String key, Recorded recorded) {
+        List<Recorded> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<>();
+            map.put(key, list);
+        }
+        list.add(recorded);
+    }
+
+    private static Map<String, Responses> freeze(Map<String, List<Recorded>> map) {
+        Map<String, Responses> frozen = new HashMap<>();
+        for (Map.Entry<String, List<Recorded>> entry : map.entrySet()) {
+            frozen.put(entry.getKey(), new Responses(entry.getValue()));
+        }
+        return frozen;
+    }
+
+    /**
+     * Serves the response for the request once its latency has passed, or
+     * throws when the request is aborted first.
+     */
+    HttpResponse execute(HttpPost request, String service, String requestBody) throws IOException {
+        Responses responses = byRequest.get(service + '\n' + requestBody);
+        if (responses != null) {
+            matched.incrementAndGet();
+        } else {
+            unmatched.incrementAndGet();
+            responses = byService.get(service);
+            if (responses == null) {
+                throw new IOException("No " + service + " responses were recorded in " + file);
+            }
+        }
+        Recorded recorded = responses.next();
+
+        final CountDownLatch aborted = new CountDownLatch(1);
+        request.setCancellable(new Cancellable() {
+            @Override
+            public boolean cancel() {
+                aborted.countDown();
+                return true;
+            }
+        });
+        if (request.isAborted()) {
+            throw new RequestAbortedException("Request aborted");
+        }
+        long delay = (long) (recorded.nanos * latencyScale);
+        try {
+            if (delay > 0 && aborted.await(delay, TimeUnit.NANOSECONDS)) {
+                throw new RequestAbortedException("Request aborted");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while replaying a response");
+        }
+        return response(recorded.status, recorded.responseBody);
+    }
+
+    static HttpResponse response(int status, byte[] body) {
+        BasicHttpResponse response = new BasicHttpResponse(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, status, null));
+        response.setEntity(new ByteArrayEntity(body));
+        return response;
+    }
+
+    /**
+     * @return The number of records in the recording.
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * @return The number of requests that got the response recorded for the
+     * same request.
+     */
+    public long getMatched() {
+        return matched.get();
+    }
+
+    /**
+     * @return The number of requests that were not recorded and got another
+     * response recorded for the service.
+     */
+    public long getUnmatched() {
+        return unmatched.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TrafficReplay{" +
+                "file=" + file +
+                ", latencyScale=" + latencyScale +
+                ", records=" + records +
+                '}';
+    }
+}
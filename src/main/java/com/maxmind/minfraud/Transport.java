@@ -0,0 +1,23 @@
+package com.maxmind.minfraud;
+
+/**
+ * The HTTP implementations a {@code WebServiceClient} can send its requests
+ * with.
+ */
+public enum Transport {
+    /**
+     * Apache HttpClient with its own connection pool. This is the default.
+     */
+    APACHE_HTTP_CLIENT,
+    /**
+     * The JDK's {@code HttpURLConnection}. Keep-alive connections are kept by
+     * the JDK, and their number per host is set by the
+     * {@code http.maxConnections} system property rather than by the
+     * client's maximum number of connections. Unlike Apache HttpClient 4.5,
+     * which holds monitors while it blocks, recent JDKs implement it without
+     * doing so. Use this transport to make calls from virtual threads without
+     * pinning their carrier threads. {@code WebServiceClient.warmUp} does not
+     * open connections with this transport.
+     */
+    URL_CONNECTION
+}
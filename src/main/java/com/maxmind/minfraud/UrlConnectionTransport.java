@@ -0,0 +1,104 @@
+package com.maxmind.minfraud;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+
+/**
+ * Sends the client's requests with {@code HttpURLConnection} for
+ * {@code Transport.URL_CONNECTION}. It takes the same {@code HttpPost} the
+ * Apache HttpClient transport does and hooks the connection up to the
+ * request's {@code abort()}, so that hedging and deadlines work the same way
+ * with either transport.
+ */
+final class UrlConnectionTransport {
+    private final Proxy proxy;
+    private final RequestConfig defaultConfig;
+
+    UrlConnectionTransport(Proxy proxy, RequestConfig defaultConfig) {
+        this.proxy = proxy;
+        this.defaultConfig = defaultConfig;
+    }
+
+    /**
+     * @return The response. Its entity must be consumed or closed to let the
+     * JDK reuse the connection.
+     */
+    HttpResponse execute(HttpPost request) throws IOException {
+        URL url = request.getURI().toURL();
+        final HttpURLConnection connection = (HttpURLConnection) (proxy == null
+                ? url.openConnection() : url.openConnection(proxy));
+        request.setCancellable(new Cancellable() {
+            @Override
+            public boolean cancel() {
+                connection.disconnect();
+                return true;
+            }
+        });
+        if (request.isAborted()) {
+            throw new RequestAbortedException("Request aborted");
+        }
+
+        RequestConfig config = request.getConfig() == null ? defaultConfig : request.getConfig();
+        connection.setConnectTimeout(Math.max(0, config.getConnectTimeout()));
+        connection.setReadTimeout(Math.max(0, config.getSocketTimeout()));
+        connection.setRequestMethod(request.getMethod());
+        connection.setInstanceFollowRedirects(false);
+        connection.setUseCaches(false);
+        for (Header header : request.getAllHeaders()) {
+            connection.setRequestProperty(header.getName(), header.getValue());
+        }
+
+        HttpEntity entity = request.getEntity();
+        if (entity != null) {
+            if (entity.getContentType() != null) {
+                connection.setRequestProperty("Content-Type", entity.getContentType().getValue());
+            }
+            // The body is buffered rather than streamed. In streaming mode
+            // the JDK discards the body of a 401 response, which holds the
+            // error code.
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                entity.writeTo(out);
+            }
+        }
+
+        int status = connection.getResponseCode();
+        InputStream content = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        long length = connection.getContentLengthLong();
+        if (content == null) {
+            content = new ByteArrayInputStream(new byte[0]);
+            length = 0;
+        }
+        BasicHttpResponse response = new BasicHttpResponse(new BasicStatusLine(
+                HttpVersion.HTTP_1_1, status, connection.getResponseMessage()));
+        // The content type is left unset. The client does not use it, and
+        // the value sent by the web service is not always one Apache
+        // HttpCore can parse.
+        response.setEntity(new InputStreamEntity(content, length));
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return "UrlConnectionTransport{" +
+                "proxy=" + proxy +
+                '}';
+    }
+}
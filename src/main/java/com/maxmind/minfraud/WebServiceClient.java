@@ -1,6 +1,7 @@
 package com.maxmind.minfraud;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.InjectableValues.Std;
@@ -8,10 +9,12 @@ import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.util.StdDateFormat;
 import com.maxmind.minfraud.exception.*;
+import com.maxmind.minfraud.request.Device;
 import com.maxmind.minfraud.request.Transaction;
 import com.maxmind.minfraud.response.FactorsResponse;
 import com.maxmind.minfraud.response.InsightsResponse;
 import com.maxmind.minfraud.response.ScoreResponse;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
@@ -19,18 +22,28 @@ import org.apache.http.auth.Credentials;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.http.entity.ContentType.APPLICATION_JSON;
 
@@ -46,10 +59,56 @@ public final class WebServiceClient implements Closeable {
     private final List<String> locales;
     private final String licenseKey;
     private final int userId;
+    private final Proxy proxy;
 
 
     private final ObjectMapper mapper;
+    private final PoolingHttpClientConnectionManager connectionManager;
     private final CloseableHttpClient httpClient;
+    private final UrlConnectionTransport urlConnectionTransport;
+    private final RequestConfig requestConfig;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final Hedger hedger;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final Fallback fallback;
+    // The responses the fallback supplied, with the exceptions they stood in
+    // for, so that enrichment can tell them from real responses. The
+    // response models do not override equals, so this is keyed by identity.
+    private final Map<ScoreResponse, IOException> fallbackResponses =
+            Collections.synchronizedMap(new WeakHashMap<ScoreResponse, IOException>());
+    private final Map<String, RateLimiter> rateLimiters;
+    private final QuotaTracker quota = new QuotaTracker();
+    private final Router router;
+    private final Coalescer coalescer;
+    private final ResponseCache responseCache;
+    // Responses depend on the account and the locales, so they are part of
+    // the key of a store that may be shared with other clients.
+    private final String cacheKeyPrefix;
+    private final Enricher enricher;
+    private final String enrichmentLane;
+    private final LoadShedder loadShedder;
+    private final TrafficRecorder trafficRecorder;
+    private final TrafficReplay trafficReplay;
+    private final Metrics metrics;
+    private final RequestListener requestListener;
+    private final boolean phaseHooks;
+    private final AuditLog auditLog;
+    private final boolean errorStackTraces;
+    private volatile Long warmUpMillis;
+
+    // The number of calls that streams and batches keep in flight.
+    private final StreamProcessor.Limit inFlightLimit = new StreamProcessor.Limit() {
+        @Override
+        public int get() {
+            if (concurrencyLimiter != null) {
+                return concurrencyLimiter.limit();
+            }
+            return Math.min(connectionManager.getMaxTotal(),
+                    connectionManager.getDefaultMaxPerRoute() * router.endpoints().size());
+        }
+    };
 
     private WebServiceClient(WebServiceClient.Builder builder) {
         host = builder.host;
@@ -58,6 +117,7 @@ public final class WebServiceClient implements Closeable {
         locales = builder.locales;
         licenseKey = builder.licenseKey;
         userId = builder.userId;
+        proxy = builder.proxy;
 
         mapper = new ObjectMapper();
         mapper.disable(MapperFeature.CAN_OVERRIDE_ACCESS_MODIFIERS);
@@ -74,11 +134,102 @@ public final class WebServiceClient implements Closeable {
             configBuilder.setProxy(proxyHost);
         }
 
-        RequestConfig config = configBuilder.build();
-        httpClient =
-                HttpClientBuilder.create()
-                        .setUserAgent(userAgent())
-                        .setDefaultRequestConfig(config).build();
+        requestConfig = configBuilder.build();
+        // The pool is created here rather than by the HttpClientBuilder so
+        // that warmUp can open connections in it.
+        // The hooks that time the phases of a request are only used when a
+        // listener wants the times. The flight recorder's request event
+        // only needs the phases marked outside the HTTP client.
+        phaseHooks = builder.requestListener != null;
+        connectionManager = phaseHooks
+                ? PhaseHooks.connectionManager() : new PoolingHttpClientConnectionManager();
+        if (builder.maxConnections > 0) {
+            connectionManager.setMaxTotal(builder.maxConnections);
+            connectionManager.setDefaultMaxPerRoute(builder.maxConnections);
+        }
+        HttpClientBuilder clientBuilder = HttpClientBuilder.create()
+                .setUserAgent(userAgent())
+                .setDefaultRequestConfig(requestConfig)
+                .setConnectionManager(connectionManager);
+        if (phaseHooks) {
+            clientBuilder.setRequestExecutor(PhaseHooks.requestExecutor());
+        }
+        httpClient = clientBuilder.build();
+        urlConnectionTransport = builder.transport == Transport.URL_CONNECTION
+                ? new UrlConnectionTransport(builder.proxy, requestConfig) : null;
+
+        // The executor runs hedged requests and the calls for streams. It
+        // does not start any threads until one of those is used.
+        executor = Executors.newCachedThreadPool(daemonThreadFactory());
+        hedger = builder.hedgingPolicy == null ? null : new Hedger(builder.hedgingPolicy, executor);
+        // The timer aborts requests whose deadline passes. Its thread is
+        // only started by the first call with a deadline.
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, daemonThreadFactory());
+        scheduler.setRemoveOnCancelPolicy(true);
+        timer = scheduler;
+        circuitBreaker = builder.circuitBreakerPolicy == null
+                ? null : new CircuitBreaker(builder.circuitBreakerPolicy);
+        concurrencyLimiter = builder.concurrencyLimitPolicy == null
+                ? null : new ConcurrencyLimiter(builder.concurrencyLimitPolicy);
+        fallback = builder.fallback;
+        coalescer = builder.coalesceIdenticalCalls ? new Coalescer() : null;
+        responseCache = builder.responseCachePolicy == null
+                ? null : new ResponseCache(builder.responseCachePolicy, builder.responseStore);
+        cacheKeyPrefix = userId + " " + locales + " ";
+
+        Map<String, RateLimiter> limiters = new HashMap<>();
+        for (RateLimitLane lane : builder.rateLimitLanes.values()) {
+            limiters.put(lane.getName(), new RateLimiter(lane));
+        }
+        rateLimiters = Collections.unmodifiableMap(limiters);
+        EnrichmentPolicy enrichmentPolicy = builder.enrichmentPolicy == null
+                ? new EnrichmentPolicy.Builder().build() : builder.enrichmentPolicy;
+        // The enricher starts no threads until the first background call.
+        enricher = new Enricher(enrichmentPolicy);
+        enrichmentLane = enrichmentPolicy.getLane();
+        loadShedder = builder.loadSheddingPolicy == null
+                ? null : new LoadShedder(builder.loadSheddingPolicy, inFlightLimit);
+        trafficRecorder = builder.trafficRecorder;
+        trafficReplay = builder.trafficReplay;
+        metrics = builder.metrics == null ? NoopMetrics.INSTANCE : builder.metrics;
+        requestListener = builder.requestListener;
+        auditLog = builder.auditPolicy == null ? null : new AuditLog(builder.auditPolicy);
+        errorStackTraces = builder.errorStackTraces;
+
+        List<InetSocketAddress> endpoints = builder.endpoints.isEmpty()
+                ? Collections.singletonList(InetSocketAddress.createUnresolved(host, port))
+                : builder.endpoints;
+        RoutingPolicy routingPolicy = builder.routingPolicy == null
+                ? new RoutingPolicy.Builder().build() : builder.routingPolicy;
+        router = new Router(endpoints, routingPolicy);
+        if (endpoints.size() > 1) {
+            final int probeInterval = routingPolicy.getProbeInterval();
+            final Router.Prober prober = new Router.Prober() {
+                @Override
+                public void probe(Router.Endpoint endpoint) throws Exception {
+                    WebServiceClient.this.probe(endpoint, probeInterval);
+                }
+            };
+            timer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    router.probeEjected(prober);
+                }
+            }, probeInterval, probeInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "minfraud-client-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
     }
 
     /**
@@ -109,9 +260,30 @@ public final class WebServiceClient implements Closeable {
 
         int connectTimeout = -1;
         int readTimeout = -1;
+        int maxConnections = -1;
+        int warmUpConnections;
+        Transport transport = Transport.APACHE_HTTP_CLIENT;
 
         List<String> locales = Collections.singletonList("en");
         private Proxy proxy;
+        HedgingPolicy hedgingPolicy;
+        CircuitBreakerPolicy circuitBreakerPolicy;
+        ConcurrencyLimitPolicy concurrencyLimitPolicy;
+        Fallback fallback;
+        final Map<String, RateLimitLane> rateLimitLanes = new LinkedHashMap<>();
+        final List<InetSocketAddress> endpoints = new ArrayList<>();
+        RoutingPolicy routingPolicy;
+        boolean coalesceIdenticalCalls;
+        ResponseCachePolicy responseCachePolicy;
+        ResponseStore responseStore;
+        EnrichmentPolicy enrichmentPolicy;
+        LoadSheddingPolicy loadSheddingPolicy;
+        TrafficRecorder trafficRecorder;
+        TrafficReplay trafficReplay;
+        Metrics metrics;
+        RequestListener requestListener;
+        AuditPolicy auditPolicy;
+        boolean errorStackTraces = true;
 
         /**
          * @param userId     Your MaxMind user ID.
@@ -187,6 +359,46 @@ public final class WebServiceClient implements Closeable {
             return this;
         }
 
+        /**
+         * @param val The maximum number of connections the client keeps open
+         *            to the web service. Calls block while waiting for a
+         *            connection when this many are in use. The default is
+         *            the Apache HttpClient default of two per host.
+         * @return Builder object
+         */
+        public WebServiceClient.Builder maxConnections(int val) {
+            maxConnections = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of connections to open to each endpoint when
+         *            the client is built. See
+         *            {@link WebServiceClient#warmUp(int)}. A warm-up that
+         *            fails is ignored, and the connections are opened by the
+         *            first calls instead. There is no warm-up by default.
+         * @return Builder object
+         */
+        public WebServiceClient.Builder warmUpConnections(int val) {
+            warmUpConnections = val;
+            return this;
+        }
+
+        /**
+         * @param val The HTTP implementation to send requests with. The
+         *            default is {@code APACHE_HTTP_CLIENT}. Use
+         *            {@code URL_CONNECTION} when calling the client from
+         *            virtual threads.
+         * @return Builder object
+         */
+        public WebServiceClient.Builder transport(Transport val) {
+            if (val == null) {
+                throw new IllegalArgumentException("transport must not be null");
+            }
+            transport = val;
+            return this;
+        }
+
         /**
          * @param val the proxy to use when making this request.
          * @return Builder object
@@ -196,12 +408,266 @@ public final class WebServiceClient implements Closeable {
             return this;
         }
 
+        /**
+         * @param val The policy for sending hedged requests. Hedging is
+         *            disabled by default.
+         * @return Builder object
+         */
+        public Builder hedgingPolicy(HedgingPolicy val) {
+            this.hedgingPolicy = val;
+            return this;
+        }
+
+        /**
+         * @param val The policy for the circuit breaker. When the breaker is
+         *            open, calls fail fast with a
+         *            {@code CircuitOpenException} or return the fallback
+         *            response. There is no circuit breaker by default.
+         * @return Builder object
+         */
+        public Builder circuitBreakerPolicy(CircuitBreakerPolicy val) {
+            this.circuitBreakerPolicy = val;
+            return this;
+        }
+
+        /**
+         * @param val The policy for adaptively limiting the number of calls
+         *            in flight. Calls over the limit fail with a
+         *            {@code ConcurrencyLimitedException} or return the
+         *            fallback response. There is no limit by default.
+         * @return Builder object
+         */
+        public Builder concurrencyLimitPolicy(ConcurrencyLimitPolicy val) {
+            this.concurrencyLimitPolicy = val;
+            return this;
+        }
+
+        /**
+         * @param val The fallback supplying responses for calls that fail
+         *            because of a transport error, a server error, an open
+         *            circuit breaker, the concurrency limit, or a passed
+         *            deadline. There is no fallback by default.
+         * @return Builder object
+         */
+        public Builder fallback(Fallback val) {
+            this.fallback = val;
+            return this;
+        }
+
+        /**
+         * Add a rate limit lane. Calls select a lane by passing its name to
+         * the {@code score}, {@code insights}, and {@code factors} methods.
+         * Calls that do not select a lane are not rate limited.
+         *
+         * @param val The lane to add.
+         * @return Builder object
+         * @throws IllegalArgumentException when a lane with the same name has
+         *                                  already been added.
+         */
+        public Builder addRateLimitLane(RateLimitLane val) {
+            if (rateLimitLanes.containsKey(val.getName())) {
+                throw new IllegalArgumentException("A lane named " + val.getName()
+                        + " has already been added");
+            }
+            rateLimitLanes.put(val.getName(), val);
+            return this;
+        }
+
+        /**
+         * Add an endpoint, such as a regional proxy in front of the web
+         * service. When endpoints are added, each call is routed to one of
+         * them as configured by the routing policy, and the host and port
+         * set on this builder are not used.
+         *
+         * @param host The host of the endpoint.
+         * @param port The port of the endpoint.
+         * @return Builder object
+         */
+        public Builder addEndpoint(String host, int port) {
+            if (host == null) {
+                throw new IllegalArgumentException("host must not be null");
+            }
+            endpoints.add(InetSocketAddress.createUnresolved(host, port));
+            return this;
+        }
+
+        /**
+         * @param val The policy for routing calls to the endpoints added with
+         *            {@link #addEndpoint(String, int)}. The default is a
+         *            {@code RoutingPolicy} with default settings.
+         * @return Builder object
+         */
+        public Builder routingPolicy(RoutingPolicy val) {
+            this.routingPolicy = val;
+            return this;
+        }
+
+        /**
+         * Make concurrent calls for identical transactions share one
+         * request. Calls are identical when they are for the same service
+         * and either have the same {@code Event} transaction ID or, for
+         * transactions without one, equal field values. Callers that
+         * join a call in flight get the same response object or exception.
+         * They do not use their rate limit lane, and their deadline only
+         * limits how long they wait.
+         *
+         * @return Builder object
+         */
+        public Builder coalesceIdenticalCalls() {
+            coalesceIdenticalCalls = true;
+            return this;
+        }
+
+        /**
+         * @param val The policy for caching responses. Calls for a
+         *            transaction identical to an earlier one for the same
+         *            service are answered from the cache while the response
+         *            is fresh. Responses supplied by the fallback are not
+         *            cached. By default, responses are not cached.
+         * @return Builder object
+         */
+        public Builder responseCachePolicy(ResponseCachePolicy val) {
+            this.responseCachePolicy = val;
+            return this;
+        }
+
+        /**
+         * @param val The store to hold cached responses in, in place of the
+         *            default least recently used one of the policy's
+         *            maximum size. This requires a
+         *            {@code ResponseCachePolicy}.
+         * @return Builder object
+         */
+        public Builder responseStore(ResponseStore val) {
+            this.responseStore = val;
+            return this;
+        }
+
+        /**
+         * @param val The policy for the background calls made by
+         *            {@code scoreWithInsights} and {@code scoreWithFactors}.
+         *            By default, one thread makes these calls and up to 1000
+         *            may wait for it.
+         * @return Builder object
+         */
+        public Builder enrichmentPolicy(EnrichmentPolicy val) {
+            this.enrichmentPolicy = val;
+            return this;
+        }
+
+        /**
+         * @param val The policy for shedding calls that wait too long for a
+         *            connection. Calls wait for a connection when the client
+         *            already has as many in flight as its concurrency limit
+         *            or maximum number of connections allows. By default,
+         *            they wait until one is free or their deadline passes.
+         * @return Builder object
+         */
+        public Builder loadSheddingPolicy(LoadSheddingPolicy val) {
+            this.loadSheddingPolicy = val;
+            return this;
+        }
+
+        /**
+         * @param val The recorder to append every request sent and response
+         *            received to. Requests that get no response are not
+         *            recorded. The recorder is not closed by the client.
+         * @return Builder object
+         */
+        public Builder recordTo(TrafficRecorder val) {
+            this.trafficRecorder = val;
+            return this;
+        }
+
+        /**
+         * @param val The recorded traffic to serve responses from instead of
+         *            sending requests to the web service. This is meant for
+         *            load tests and takes the place of the transport.
+         * @return Builder object
+         */
+        public Builder replay(TrafficReplay val) {
+            this.trafficReplay = val;
+            return this;
+        }
+
+        /**
+         * @param val The metrics to report the latency and outcome of each
+         *            call, the bytes sent and received, and the retries to.
+         *            Nothing is recorded by default.
+         * @return Builder object
+         */
+        public Builder metrics(Metrics val) {
+            this.metrics = val;
+            return this;
+        }
+
+        /**
+         * @param val The listener to tell when each call reaches each of its
+         *            phases, and when it completes. There is none by
+         *            default, and then the phases are not timed.
+         * @return Builder object
+         */
+        public Builder requestListener(RequestListener val) {
+            this.requestListener = val;
+            return this;
+        }
+
+        /**
+         * @param val The policy for writing an audit log of the calls. No
+         *            log is written by default.
+         * @return Builder object
+         */
+        public Builder auditPolicy(AuditPolicy val) {
+            this.auditPolicy = val;
+            return this;
+        }
+
+        /**
+         * @param val Whether the exceptions for error responses from the web
+         *            service, such as {@code InvalidRequestException} and
+         *            {@code HttpException}, record their stack traces.
+         *            Recording the stack trace is most of the cost of
+         *            creating an exception, and it only shows where the
+         *            client read the response. The default is true.
+         * @return Builder object
+         */
+        public Builder errorStackTraces(boolean val) {
+            this.errorStackTraces = val;
+            return this;
+        }
+
         /**
          * @return an instance of {@code WebServiceClient} created from the
          * fields set on this builder.
+         * @throws IllegalArgumentException when the enrichment policy names a
+         *                                  lane that has not been added,
+         *                                  when both a recorder and a replay
+         *                                  are set, or when a response store
+         *                                  is set without a response cache
+         *                                  policy.
          */
         public WebServiceClient build() {
-            return new WebServiceClient(this);
+            if (trafficRecorder != null && trafficReplay != null) {
+                throw new IllegalArgumentException("A client cannot both record and replay traffic");
+            }
+            if (responseStore != null && responseCachePolicy == null) {
+                throw new IllegalArgumentException("A response store requires a response cache policy");
+            }
+            if (enrichmentPolicy != null && enrichmentPolicy.getLane() != null
+                    && !rateLimitLanes.containsKey(enrichmentPolicy.getLane())) {
+                throw new IllegalArgumentException("Unknown rate limit lane: "
+                        + enrichmentPolicy.getLane());
+            }
+            WebServiceClient client = new WebServiceClient(this);
+            client.metrics.bindTo(client);
+            if (warmUpConnections > 0) {
+                try {
+                    client.warmUp(warmUpConnections);
+                } catch (IOException e) {
+                    // The first calls will open the connections.
+                }
+            }
+            return client;
         }
     }
 
@@ -227,7 +693,98 @@ public final class WebServiceClient implements Closeable {
     public FactorsResponse factors(Transaction transaction) throws IOException,
             MinFraudException, InsufficientFundsException, InvalidRequestException,
             AuthenticationException, PermissionRequiredException, HttpException {
-        return responseFor("factors", transaction, FactorsResponse.class);
+        return responseFor("factors", transaction, null, null, FactorsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Factors request to the web service using the transaction
+     * request object passed to the method. The call is rate limited by the
+     * named lane.
+     *
+     * @param transaction A transaction request object.
+     * @param lane        The name of a lane added with
+     *                    {@link Builder#addRateLimitLane(RateLimitLane)}.
+     * @return An Factors model object
+     * @throws RateLimitedException        when the lane rejects the call.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public FactorsResponse factors(Transaction transaction, String lane) throws IOException,
+            MinFraudException, InsufficientFundsException, InvalidRequestException,
+            AuthenticationException, PermissionRequiredException, HttpException {
+        return responseFor("factors", transaction, lane, null, FactorsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Factors request to the web service using the transaction
+     * request object passed to the method. The call is aborted if it has not
+     * completed by the deadline.
+     *
+     * @param transaction A transaction request object.
+     * @param deadline    The deadline for the whole call.
+     * @return An Factors model object
+     * @throws DeadlineExceededException   when the call does not complete by
+     *                                     the deadline.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public FactorsResponse factors(Transaction transaction, Deadline deadline) throws IOException,
+            MinFraudException, InsufficientFundsException, InvalidRequestException,
+            AuthenticationException, PermissionRequiredException, HttpException {
+        return responseFor("factors", transaction, null, deadline, FactorsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Factors request to the web service using the transaction
+     * request object passed to the method. The call is rate limited by the
+     * named lane and is aborted if it has not completed by the deadline.
+     *
+     * @param transaction A transaction request object.
+     * @param lane        The name of a lane added with
+     *                    {@link Builder#addRateLimitLane(RateLimitLane)}.
+     * @param deadline    The deadline for the whole call.
+     * @return An Factors model object
+     * @throws RateLimitedException        when the lane rejects the call.
+     * @throws DeadlineExceededException   when the call does not complete by
+     *                                     the deadline.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public FactorsResponse factors(Transaction transaction, String lane, Deadline deadline)
+            throws IOException, MinFraudException, InsufficientFundsException,
+            InvalidRequestException, AuthenticationException,
+            PermissionRequiredException, HttpException {
+        return responseFor("factors", transaction, lane, deadline, FactorsResponse.class);
     }
 
     /**
@@ -252,15 +809,19 @@ public final class WebServiceClient implements Closeable {
     public InsightsResponse insights(Transaction transaction) throws IOException,
             MinFraudException, InsufficientFundsException, InvalidRequestException,
             AuthenticationException, PermissionRequiredException, HttpException {
-        return responseFor("insights", transaction, InsightsResponse.class);
+        return responseFor("insights", transaction, null, null, InsightsResponse.class);
     }
 
     /**
-     * Make a minFraud Score request to the web service using the transaction
-     * request object passed to the method.
+     * Make a minFraud Insights request to the web service using the transaction
+     * request object passed to the method. The call is rate limited by the
+     * named lane.
      *
      * @param transaction A transaction request object.
-     * @return An Score model object
+     * @param lane        The name of a lane added with
+     *                    {@link Builder#addRateLimitLane(RateLimitLane)}.
+     * @return An Insights model object
+     * @throws RateLimitedException        when the lane rejects the call.
      * @throws InsufficientFundsException  when there are insufficient funds on
      *                                     the account.
      * @throws AuthenticationException     when there is a problem authenticating.
@@ -274,34 +835,1359 @@ public final class WebServiceClient implements Closeable {
      *                                     response.
      * @throws IOException                 when some other IO error occurs.
      */
-    public ScoreResponse score(Transaction transaction) throws IOException,
+    public InsightsResponse insights(Transaction transaction, String lane) throws IOException,
             MinFraudException, InsufficientFundsException, InvalidRequestException,
             AuthenticationException, PermissionRequiredException, HttpException {
-        return responseFor("score", transaction, ScoreResponse.class);
+        return responseFor("insights", transaction, lane, null, InsightsResponse.class);
     }
 
-    private <T> T responseFor(String service, Transaction transaction, Class<T> cls)
-            throws IOException, MinFraudException {
-        if (transaction == null) {
-            throw new IllegalArgumentException("transaction must not be null");
-        }
-        URL url = createUrl(WebServiceClient.pathBase + service);
-        HttpPost request = requestFor(transaction, url);
-
-        try (CloseableHttpResponse response = httpClient.execute(request)) {
-            return handleResponse(response, url, cls);
-        }
+    /**
+     * Make a minFraud Insights request to the web service using the transaction
+     * request object passed to the method. The call is aborted if it has not
+     * completed by the deadline.
+     *
+     * @param transaction A transaction request object.
+     * @param deadline    The deadline for the whole call.
+     * @return An Insights model object
+     * @throws DeadlineExceededException   when the call does not complete by
+     *                                     the deadline.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public InsightsResponse insights(Transaction transaction, Deadline deadline) throws IOException,
+            MinFraudException, InsufficientFundsException, InvalidRequestException,
+            AuthenticationException, PermissionRequiredException, HttpException {
+        return responseFor("insights", transaction, null, deadline, InsightsResponse.class);
     }
 
-    private HttpPost requestFor(Transaction transaction, URL url)
-            throws MinFraudException, IOException {
-        Credentials credentials = new UsernamePasswordCredentials(Integer.toString(userId), licenseKey);
-
-        HttpPost request;
-        try {
-            request = new HttpPost(url.toURI());
-        } catch (URISyntaxException e) {
-            throw new MinFraudException("Error parsing request URL", e);
+    /**
+     * Make a minFraud Insights request to the web service using the transaction
+     * request object passed to the method. The call is rate limited by the
+     * named lane and is aborted if it has not completed by the deadline.
+     *
+     * @param transaction A transaction request object.
+     * @param lane        The name of a lane added with
+     *                    {@link Builder#addRateLimitLane(RateLimitLane)}.
+     * @param deadline    The deadline for the whole call.
+     * @return An Insights model object
+     * @throws RateLimitedException        when the lane rejects the call.
+     * @throws DeadlineExceededException   when the call does not complete by
+     *                                     the deadline.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public InsightsResponse insights(Transaction transaction, String lane, Deadline deadline)
+            throws IOException, MinFraudException, InsufficientFundsException,
+            InvalidRequestException, AuthenticationException,
+            PermissionRequiredException, HttpException {
+        return responseFor("insights", transaction, lane, deadline, InsightsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service using the transaction
+     * request object passed to the method.
+     *
+     * @param transaction A transaction request object.
+     * @return An Score model object
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public ScoreResponse score(Transaction transaction) throws IOException,
+            MinFraudException, InsufficientFundsException, InvalidRequestException,
+            AuthenticationException, PermissionRequiredException, HttpException {
+        return responseFor("score", transaction, null, null, ScoreResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service using the transaction
+     * request object passed to the method. The call is rate limited by the
+     * named lane.
+     *
+     * @param transaction A transaction request object.
+     * @param lane        The name of a lane added with
+     *                    {@link Builder#addRateLimitLane(RateLimitLane)}.
+     * @return An Score model object
+     * @throws RateLimitedException        when the lane rejects the call.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public ScoreResponse score(Transaction transaction, String lane) throws IOException,
+            MinFraudException, InsufficientFundsException, InvalidRequestException,
+            AuthenticationException, PermissionRequiredException, HttpException {
+        return responseFor("score", transaction, lane, null, ScoreResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service using the transaction
+     * request object passed to the method. The call is aborted if it has not
+     * completed by the deadline.
+     *
+     * @param transaction A transaction request object.
+     * @param deadline    The deadline for the whole call.
+     * @return An Score model object
+     * @throws DeadlineExceededException   when the call does not complete by
+     *                                     the deadline.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public ScoreResponse score(Transaction transaction, Deadline deadline) throws IOException,
+            MinFraudException, InsufficientFundsException, InvalidRequestException,
+            AuthenticationException, PermissionRequiredException, HttpException {
+        return responseFor("score", transaction, null, deadline, ScoreResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service using the transaction
+     * request object passed to the method. The call is rate limited by the
+     * named lane and is aborted if it has not completed by the deadline.
+     *
+     * @param transaction A transaction request object.
+     * @param lane        The name of a lane added with
+     *                    {@link Builder#addRateLimitLane(RateLimitLane)}.
+     * @param deadline    The deadline for the whole call.
+     * @return An Score model object
+     * @throws RateLimitedException        when the lane rejects the call.
+     * @throws DeadlineExceededException   when the call does not complete by
+     *                                     the deadline.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public ScoreResponse score(Transaction transaction, String lane, Deadline deadline)
+            throws IOException, MinFraudException, InsufficientFundsException,
+            InvalidRequestException, AuthenticationException,
+            PermissionRequiredException, HttpException {
+        return responseFor("score", transaction, lane, deadline, ScoreResponse.class);
+    }
+
+    /**
+     * Make a minFraud Factors request to the web service using the
+     * transaction request object passed to the method, and return the
+     * response or the exception the call failed with instead of throwing it.
+     * Set {@link Builder#errorStackTraces(boolean)} to false as well to make
+     * failed calls cheapest.
+     *
+     * @param transaction A transaction request object.
+     * @return The result of the call. An error response from the web
+     * service gives a failure with its HTTP status and, when the web service
+     * sent one, its error code.
+     */
+    public Result<FactorsResponse> factorsResult(Transaction transaction) {
+        return resultFor("factors", transaction, null, null, FactorsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Factors request to the web service using the
+     * transaction request object passed to the method, and return the
+     * response or the exception the call failed with instead of throwing it.
+     *
+     * @param transaction A transaction request object.
+     * @param lane        The name of a lane added with
+     *                    {@link Builder#addRateLimitLane(RateLimitLane)}, or
+     *                    null to not rate limit the call.
+     * @param deadline    The deadline for the whole call, or null for none.
+     * @return The result of the call.
+     */
+    public Result<FactorsResponse> factorsResult(Transaction transaction, String lane, Deadline deadline) {
+        return resultFor("factors", transaction, lane, deadline, FactorsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Insights request to the web service using the
+     * transaction request object passed to the method, and return the
+     * response or the exception the call failed with instead of throwing it.
+     * Set {@link Builder#errorStackTraces(boolean)} to false as well to make
+     * failed calls cheapest.
+     *
+     * @param transaction A transaction request object.
+     * @return The result of the call. An error response from the web
+     * service gives a failure with its HTTP status and, when the web service
+     * sent one, its error code.
+     */
+    public Result<InsightsResponse> insightsResult(Transaction transaction) {
+        return resultFor("insights", transaction, null, null, InsightsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Insights request to the web service using the
+     * transaction request object passed to the method, and return the
+     * response or the exception the call failed with instead of throwing it.
+     *
+     * @param transaction A transaction request object.
+     * @param lane        The name of a lane added with
+     *                    {@link Builder#addRateLimitLane(RateLimitLane)}, or
+     *                    null to not rate limit the call.
+     * @param deadline    The deadline for the whole call, or null for none.
+     * @return The result of the call.
+     */
+    public Result<InsightsResponse> insightsResult(Transaction transaction, String lane, Deadline deadline) {
+        return resultFor("insights", transaction, lane, deadline, InsightsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service using the transaction
+     * request object passed to the method, and return the response or the
+     * exception the call failed with instead of throwing it. Set
+     * {@link Builder#errorStackTraces(boolean)} to false as well to make
+     * failed calls cheapest.
+     *
+     * @param transaction A transaction request object.
+     * @return The result of the call. An error response from the web
+     * service gives a failure with its HTTP status and, when the web service
+     * sent one, its error code.
+     */
+    public Result<ScoreResponse> scoreResult(Transaction transaction) {
+        return resultFor("score", transaction, null, null, ScoreResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service using the transaction
+     * request object passed to the method, and return the response or the
+     * exception the call failed with instead of throwing it.
+     *
+     * @param transaction A transaction request object.
+     * @param lane        The name of a lane added with
+     *                    {@link Builder#addRateLimitLane(RateLimitLane)}, or
+     *                    null to not rate limit the call.
+     * @param deadline    The deadline for the whole call, or null for none.
+     * @return The result of the call.
+     */
+    public Result<ScoreResponse> scoreResult(Transaction transaction, String lane, Deadline deadline) {
+        return resultFor("score", transaction, lane, deadline, ScoreResponse.class);
+    }
+
+    private <T extends ScoreResponse> Result<T> resultFor(String service, Transaction transaction,
+                                                          String lane, Deadline deadline, Class<T> cls) {
+        try {
+            return Result.success(transaction, responseFor(service, transaction, lane, deadline, cls));
+        } catch (IOException | MinFraudException e) {
+            return Result.failure(transaction, e);
+        }
+    }
+
+    /**
+     * Make a minFraud Score request to the web service and, if the policy
+     * calls for it, an Insights or Factors request for the same transaction.
+     * The transaction is serialized once for both requests. A Score response
+     * from the fallback is returned without escalating.
+     *
+     * @param transaction A transaction request object.
+     * @param policy      The policy that decides whether to escalate.
+     * @return The Score response if the transaction was not escalated, or
+     * else the {@code InsightsResponse} or {@code FactorsResponse}.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public ScoreResponse evaluate(Transaction transaction, CascadePolicy policy)
+            throws IOException, MinFraudException, InsufficientFundsException,
+            InvalidRequestException, AuthenticationException,
+            PermissionRequiredException, HttpException {
+        return evaluate(transaction, policy, null);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service and, if the policy
+     * calls for it, an Insights or Factors request for the same transaction.
+     * The transaction is serialized once for both requests. A Score response
+     * from the fallback is returned without escalating. Both requests
+     * are aborted if they have not completed by the deadline.
+     *
+     * @param transaction A transaction request object.
+     * @param policy      The policy that decides whether to escalate.
+     * @param deadline    The deadline for both requests together, or null.
+     * @return The Score response if the transaction was not escalated, or
+     * else the {@code InsightsResponse} or {@code FactorsResponse}.
+     * @throws DeadlineExceededException   when the calls do not complete by
+     *                                     the deadline.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public ScoreResponse evaluate(Transaction transaction, CascadePolicy policy, Deadline deadline)
+            throws IOException, MinFraudException, InsufficientFundsException,
+            InvalidRequestException, AuthenticationException,
+            PermissionRequiredException, HttpException {
+        if (transaction == null) {
+            throw new IllegalArgumentException("transaction must not be null");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("policy must not be null");
+        }
+        String body = transaction.toJson();
+        ScoreResponse score = responseFor("score", transaction, body, null, deadline, ScoreResponse.class);
+        // A score from the fallback stands in for a failed request, so the
+        // service is not asked again for the escalation.
+        if (fallbackCause(score) != null || !policy.shouldEscalate(score)) {
+            return score;
+        }
+        if (policy.getEscalation() == CascadePolicy.Escalation.FACTORS) {
+            return responseFor("factors", transaction, body, null, deadline, FactorsResponse.class);
+        }
+        return responseFor("insights", transaction, body, null, deadline, InsightsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service and return its
+     * response as soon as it arrives. An Insights request for the same
+     * transaction is then queued to run in the background, and its result
+     * is handed to the sink. The transaction is serialized once for both
+     * requests. When the background queue is full, the Insights request is
+     * dropped and the sink is not called. No Insights request is made if
+     * the Score request fails or the fallback supplied its response. The
+     * sink never gets a response from the fallback; if the Insights request
+     * fails, the sink gets the exception.
+     *
+     * @param transaction A transaction request object.
+     * @param sink        Receives the result of the Insights request on a
+     *                    background thread.
+     * @return A Score model object
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public ScoreResponse scoreWithInsights(Transaction transaction, EnrichmentSink<InsightsResponse> sink)
+            throws IOException, MinFraudException, InsufficientFundsException,
+            InvalidRequestException, AuthenticationException,
+            PermissionRequiredException, HttpException {
+        return scoreAndEnrich(transaction, null, "insights", sink, InsightsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service and return its
+     * response as soon as it arrives. An Insights request for the same
+     * transaction is then queued to run in the background, and its result
+     * is handed to the sink. The Score request is aborted if it has not
+     * completed by the deadline; the Insights request is not bound by it.
+     *
+     * @param transaction A transaction request object.
+     * @param deadline    The deadline for the Score request, or null.
+     * @param sink        Receives the result of the Insights request on a
+     *                    background thread.
+     * @return A Score model object
+     * @throws DeadlineExceededException   when the Score call does not
+     *                                     complete by the deadline.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public ScoreResponse scoreWithInsights(Transaction transaction, Deadline deadline,
+                                           EnrichmentSink<InsightsResponse> sink)
+            throws IOException, MinFraudException, InsufficientFundsException,
+            InvalidRequestException, AuthenticationException,
+            PermissionRequiredException, HttpException {
+        return scoreAndEnrich(transaction, deadline, "insights", sink, InsightsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service and return its
+     * response as soon as it arrives. A Factors request for the same
+     * transaction is then queued to run in the background, and its result
+     * is handed to the sink. The transaction is serialized once for both
+     * requests. When the background queue is full, the Factors request is
+     * dropped and the sink is not called. No Factors request is made if
+     * the Score request fails or the fallback supplied its response. The
+     * sink never gets a response from the fallback; if the Factors request
+     * fails, the sink gets the exception.
+     *
+     * @param transaction A transaction request object.
+     * @param sink        Receives the result of the Factors request on a
+     *                    background thread.
+     * @return A Score model object
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public ScoreResponse scoreWithFactors(Transaction transaction, EnrichmentSink<FactorsResponse> sink)
+            throws IOException, MinFraudException, InsufficientFundsException,
+            InvalidRequestException, AuthenticationException,
+            PermissionRequiredException, HttpException {
+        return scoreAndEnrich(transaction, null, "factors", sink, FactorsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service and return its
+     * response as soon as it arrives. A Factors request for the same
+     * transaction is then queued to run in the background, and its result
+     * is handed to the sink. The Score request is aborted if it has not
+     * completed by the deadline; the Factors request is not bound by it.
+     *
+     * @param transaction A transaction request object.
+     * @param deadline    The deadline for the Score request, or null.
+     * @param sink        Receives the result of the Factors request on a
+     *                    background thread.
+     * @return A Score model object
+     * @throws DeadlineExceededException   when the Score call does not
+     *                                     complete by the deadline.
+     * @throws InsufficientFundsException  when there are insufficient funds on
+     *                                     the account.
+     * @throws AuthenticationException     when there is a problem authenticating.
+     * @throws InvalidRequestException     when the request is invalid for some
+     *                                     other reason.
+     * @throws PermissionRequiredException when permission is required to use the
+     *                                     service.
+     * @throws MinFraudException           when the web service returns unexpected
+     *                                     content.
+     * @throws HttpException               when the web service returns an unexpected
+     *                                     response.
+     * @throws IOException                 when some other IO error occurs.
+     */
+    public ScoreResponse scoreWithFactors(Transaction transaction, Deadline deadline,
+                                          EnrichmentSink<FactorsResponse> sink)
+            throws IOException, MinFraudException, InsufficientFundsException,
+            InvalidRequestException, AuthenticationException,
+            PermissionRequiredException, HttpException {
+        return scoreAndEnrich(transaction, deadline, "factors", sink, FactorsResponse.class);
+    }
+
+    private <T extends ScoreResponse> ScoreResponse scoreAndEnrich(
+            Transaction transaction, Deadline deadline, final String service,
+            EnrichmentSink<T> sink, final Class<T> cls)
+            throws IOException, MinFraudException, InsufficientFundsException,
+            InvalidRequestException, AuthenticationException,
+            PermissionRequiredException, HttpException {
+        if (transaction == null) {
+            throw new IllegalArgumentException("transaction must not be null");
+        }
+        if (sink == null) {
+            throw new IllegalArgumentException("sink must not be null");
+        }
+        final String body = transaction.toJson();
+        ScoreResponse score = responseFor("score", transaction, body, null, deadline, ScoreResponse.class);
+        if (fallbackCause(score) != null) {
+            return score;
+        }
+        enricher.submit(transaction, new StreamProcessor.Call<T>() {
+            @Override
+            public T call(Transaction transaction) throws Exception {
+                T response = responseFor(service, transaction, body, enrichmentLane, null, cls);
+                IOException cause = fallbackCause(response);
+                if (cause != null) {
+                    throw cause;
+                }
+                return response;
+            }
+        }, sink);
+        return score;
+    }
+
+    /**
+     * Make a minFraud Factors request to the web service for every
+     * transaction from the publisher. Transactions are only requested from
+     * the publisher when results have been requested and there is room under
+     * the client's in-flight limit, which is the concurrency limit if a
+     * {@code ConcurrencyLimitPolicy} is set and the maximum number of
+     * connections otherwise. Results are published in the order the calls
+     * complete. Each pairs the transaction with its response or with the
+     * exception the call failed with. An error from the publisher is passed
+     * on once the calls already made have been published.
+     *
+     * @param transactions A publisher of transaction request objects.
+     * @return A publisher of results that allows one subscriber.
+     */
+    public Flow.Publisher<Result<FactorsResponse>> factorsStream(Flow.Publisher<Transaction> transactions) {
+        return streamFor("factors", transactions, FactorsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Insights request to the web service for every
+     * transaction from the publisher. Transactions are only requested from
+     * the publisher when results have been requested and there is room under
+     * the client's in-flight limit, which is the concurrency limit if a
+     * {@code ConcurrencyLimitPolicy} is set and the maximum number of
+     * connections otherwise. Results are published in the order the calls
+     * complete. Each pairs the transaction with its response or with the
+     * exception the call failed with. An error from the publisher is passed
+     * on once the calls already made have been published.
+     *
+     * @param transactions A publisher of transaction request objects.
+     * @return A publisher of results that allows one subscriber.
+     */
+    public Flow.Publisher<Result<InsightsResponse>> insightsStream(Flow.Publisher<Transaction> transactions) {
+        return streamFor("insights", transactions, InsightsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service for every
+     * transaction from the publisher. Transactions are only requested from
+     * the publisher when results have been requested and there is room under
+     * the client's in-flight limit, which is the concurrency limit if a
+     * {@code ConcurrencyLimitPolicy} is set and the maximum number of
+     * connections otherwise. Results are published in the order the calls
+     * complete. Each pairs the transaction with its response or with the
+     * exception the call failed with. An error from the publisher is passed
+     * on once the calls already made have been published.
+     *
+     * @param transactions A publisher of transaction request objects.
+     * @return A publisher of results that allows one subscriber.
+     */
+    public Flow.Publisher<Result<ScoreResponse>> scoreStream(Flow.Publisher<Transaction> transactions) {
+        return streamFor("score", transactions, ScoreResponse.class);
+    }
+
+    private <T extends ScoreResponse> Flow.Publisher<Result<T>> streamFor(
+            String service, Flow.Publisher<Transaction> transactions, Class<T> cls) {
+        if (transactions == null) {
+            throw new IllegalArgumentException("transactions must not be null");
+        }
+        return new StreamProcessor<>(transactions, callFor(service, cls), executor, inFlightLimit);
+    }
+
+    /**
+     * Make a minFraud Factors request to the web service for every
+     * transaction in the list. The calls run in parallel, up to the client's
+     * in-flight limit, which is the concurrency limit if a
+     * {@code ConcurrencyLimitPolicy} is set and the maximum number of
+     * connections otherwise. A failed call does not stop the batch.
+     *
+     * @param transactions A list of transaction request objects.
+     * @return The results in the order of the transactions. Each holds
+     * either the response or the exception the call failed with.
+     * @throws InterruptedIOException when the thread is interrupted while
+     *                                waiting for the calls.
+     */
+    public BatchResult<FactorsResponse> factorsAll(List<Transaction> transactions)
+            throws InterruptedIOException {
+        return batchFor("factors", transactions, FactorsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Insights request to the web service for every
+     * transaction in the list. The calls run in parallel, up to the client's
+     * in-flight limit, which is the concurrency limit if a
+     * {@code ConcurrencyLimitPolicy} is set and the maximum number of
+     * connections otherwise. A failed call does not stop the batch.
+     *
+     * @param transactions A list of transaction request objects.
+     * @return The results in the order of the transactions. Each holds
+     * either the response or the exception the call failed with.
+     * @throws InterruptedIOException when the thread is interrupted while
+     *                                waiting for the calls.
+     */
+    public BatchResult<InsightsResponse> insightsAll(List<Transaction> transactions)
+            throws InterruptedIOException {
+        return batchFor("insights", transactions, InsightsResponse.class);
+    }
+
+    /**
+     * Make a minFraud Score request to the web service for every
+     * transaction in the list. The calls run in parallel, up to the client's
+     * in-flight limit, which is the concurrency limit if a
+     * {@code ConcurrencyLimitPolicy} is set and the maximum number of
+     * connections otherwise. A failed call does not stop the batch.
+     *
+     * @param transactions A list of transaction request objects.
+     * @return The results in the order of the transactions. Each holds
+     * either the response or the exception the call failed with.
+     * @throws InterruptedIOException when the thread is interrupted while
+     *                                waiting for the calls.
+     */
+    public BatchResult<ScoreResponse> scoreAll(List<Transaction> transactions)
+            throws InterruptedIOException {
+        return batchFor("score", transactions, ScoreResponse.class);
+    }
+
+    private <T extends ScoreResponse> BatchResult<T> batchFor(
+            String service, List<Transaction> transactions, Class<T> cls) throws InterruptedIOException {
+        if (transactions == null) {
+            throw new IllegalArgumentException("transactions must not be null");
+        }
+        return new Batch<>(callFor(service, cls), executor, inFlightLimit).run(transactions);
+    }
+
+    private <T extends ScoreResponse> StreamProcessor.Call<T> callFor(final String service, final Class<T> cls) {
+        return new StreamProcessor.Call<T>() {
+            @Override
+            public T call(Transaction transaction) throws Exception {
+                return responseFor(service, transaction, null, null, cls);
+            }
+        };
+    }
+
+
+    /**
+     * @param service The service, "score", "insights", or "factors".
+     * @return The approximate number of queries remaining for the service as
+     * of the most recent response, or null if no response has been received
+     * for the service yet.
+     */
+    public Integer getQueriesRemaining(String service) {
+        return quota.queriesRemaining(service);
+    }
+
+    /**
+     * @return The approximate US dollar value of the funds remaining on your
+     * MaxMind account as of the most recent response, or null if no response
+     * has been received yet.
+     */
+    public Double getFundsRemaining() {
+        return quota.fundsRemaining();
+    }
+
+    /**
+     * Prepare the client for its first calls so that they are as fast as
+     * later ones. This resolves the host names of the endpoints, opens
+     * keep-alive connections to them, including the TLS handshake, and has
+     * Jackson build its serializers and deserializers for the request and
+     * response models. No requests are sent to the web service.
+     * <p>
+     * Connections are not opened when a proxy is set or the transport is
+     * {@code URL_CONNECTION}.
+     * </p>
+     *
+     * @param connections The number of connections to open to each
+     *                    endpoint. This is capped at the maximum number of
+     *                    connections. Connections that are already open
+     *                    count towards it.
+     * @return The number of milliseconds the warm-up took.
+     * @throws IOException when a host name cannot be resolved or a
+     *                     connection cannot be opened.
+     */
+    public long warmUp(int connections) throws IOException {
+        long start = System.nanoTime();
+        primeMappers();
+        // A client replaying traffic makes no connections.
+        for (Router.Endpoint endpoint : trafficReplay == null
+                ? router.endpoints() : Collections.<Router.Endpoint>emptyList()) {
+            InetAddress.getAllByName(endpoint.getHost());
+            if (proxy == null && urlConnectionTransport == null) {
+                openConnections(endpoint, connections);
+            }
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        warmUpMillis = millis;
+        return millis;
+    }
+
+    /**
+     * @return The number of milliseconds the most recent successful warm-up
+     * took, or null if the client has not been warmed up.
+     */
+    public Long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
+    /**
+     * @return The counters of the response cache, or null if no
+     * {@code ResponseCachePolicy} is set.
+     */
+    public CacheStats getCacheStats() {
+        return responseCache == null ? null : responseCache.stats();
+    }
+
+    /**
+     * @return The number of background Insights and Factors requests that
+     * were dropped because the queue was full.
+     */
+    public long getEnrichmentsDropped() {
+        return enricher.dropped();
+    }
+
+    /**
+     * @return The counters and wait times of the queue for connections, or
+     * null if no {@code LoadSheddingPolicy} is set.
+     */
+    public QueueStats getQueueStats() {
+        return loadShedder == null ? null : loadShedder.stats();
+    }
+
+    /**
+     * @return The number of connections in the pool that are in use and
+     * idle, and the number of calls waiting for one.
+     */
+    public ConnectionPoolStats getConnectionPoolStats() {
+        PoolStats totals = connectionManager.getTotalStats();
+        return new ConnectionPoolStats(totals.getLeased(), totals.getAvailable(), totals.getPending(),
+                totals.getMax());
+    }
+
+    /**
+     * @return The number of calls left out of the audit log because its
+     * buffer was full or writing it failed, or 0 if there is no audit log.
+     */
+    public long getAuditEntriesDropped() {
+        return auditLog == null ? 0 : auditLog.dropped();
+    }
+
+    private void primeMappers() throws IOException {
+        new Transaction.Builder(new Device.Builder(InetAddress.getLoopbackAddress()).build())
+                .build()
+                .toJson();
+        InjectableValues inject = new Std().addValue("locales", locales);
+        for (Class<?> cls : Arrays.asList(ScoreResponse.class, InsightsResponse.class,
+                FactorsResponse.class)) {
+            mapper.readerFor(cls).with(inject).readValue("{}");
+        }
+    }
+
+    private void openConnections(Router.Endpoint endpoint, int count) throws IOException {
+        HttpRoute route = new HttpRoute(new HttpHost(endpoint.getHost(), endpoint.getPort(),
+                useHttps ? "https" : "http"), null, useHttps);
+        int connectTimeout = Math.max(0, requestConfig.getConnectTimeout());
+        count = Math.min(count, Math.min(connectionManager.getMaxTotal(),
+                connectionManager.getMaxPerRoute(route)));
+
+        // Holding on to every connection until all have been leased makes
+        // the pool open a new one each time.
+        List<HttpClientConnection> leased = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                ConnectionRequest request = connectionManager.requestConnection(route, null);
+                HttpClientConnection connection = request.get(connectTimeout, TimeUnit.MILLISECONDS);
+                leased.add(connection);
+                if (!connection.isOpen()) {
+                    HttpClientContext context = HttpClientContext.create();
+                    connectionManager.connect(connection, route, connectTimeout, context);
+                    connectionManager.routeComplete(connection, route, context);
+                    // The connection binds its socket streams lazily, when it
+                    // first sends. Until then, the pool's check of idle
+                    // connections fails on it, so bind them now.
+                    connection.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while opening connections");
+        } catch (ExecutionException e) {
+            throw new IOException("Error opening a connection to " + endpoint, e.getCause());
+        } finally {
+            for (HttpClientConnection connection : leased) {
+                connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private <T extends ScoreResponse> T responseFor(String service, Transaction transaction,
+                                                    String lane, Deadline deadline, Class<T> cls)
+            throws IOException, MinFraudException {
+        return responseFor(service, transaction, null, lane, deadline, cls);
+    }
+
+    /**
+     * @param body The transaction already serialized, or null to serialize
+     *             it if a request is sent.
+     */
+    private <T extends ScoreResponse> T responseFor(String service, Transaction transaction, String body,
+                                                    String lane, Deadline deadline, Class<T> cls)
+            throws IOException, MinFraudException {
+        Object flightEvent = FlightEvents.INSTANCE.beginRequest();
+        RequestTimeline timeline = requestListener == null && flightEvent == null
+                ? null : new RequestTimeline(service, transaction, requestListener, flightEvent);
+        long start = System.nanoTime();
+        T response;
+        String outcome = Metrics.SUCCESS;
+        try {
+            if (transaction == null) {
+                throw new IllegalArgumentException("transaction must not be null");
+            }
+            RateLimiter limiter = null;
+            if (lane != null) {
+                limiter = rateLimiters.get(lane);
+                if (limiter == null) {
+                    throw new IllegalArgumentException("Unknown rate limit lane: " + lane);
+                }
+            }
+            String cacheKey = null;
+            response = null;
+            if (responseCache != null && responseCache.caches(service)) {
+                cacheKey = cacheKeyPrefix + service + " " + transaction.fingerprint();
+                response = cached(service, transaction, cacheKey, cls);
+            }
+            if (response != null) {
+                outcome = Metrics.CACHE_HIT;
+            } else {
+                response = respond(service, transaction, body, limiter, cacheKey, deadline, timeline, cls);
+            }
+        } catch (IOException | MinFraudException | RuntimeException e) {
+            long nanos = System.nanoTime() - start;
+            String failure = outcomeOf(e);
+            metrics.recordCall(service, failure, nanos);
+            if (auditLog != null) {
+                auditLog.offer(service, transaction, failure, null, e, nanos);
+            }
+            if (timeline != null) {
+                timeline.complete(null, e);
+            }
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        // A response the fallback made up is not a success, so that an
+        // outage it hides still shows in the metrics.
+        IOException cause = fallbackCause(response);
+        if (cause != null) {
+            outcome = Metrics.FALLBACK;
+        }
+        metrics.recordCall(service, outcome, nanos);
+        if (auditLog != null) {
+            auditLog.offer(service, transaction, outcome, response, cause, nanos);
+        }
+        if (timeline != null) {
+            timeline.complete(response, null);
+        }
+        return response;
+    }
+
+    /**
+     * @return The outcome of a call that threw the exception, as described
+     * by {@code Metrics.recordCall}.
+     */
+    static String outcomeOf(Exception e) {
+        String name = e.getClass().getName();
+        if (name.startsWith("com.maxmind.minfraud.exception.")) {
+            return e.getClass().getSimpleName();
+        }
+        return e instanceof IOException ? "IOException" : "RuntimeException";
+    }
+
+    /**
+     * @return The cached response, or null if there is none. A stale one is
+     * refreshed in the background.
+     */
+    private <T extends ScoreResponse> T cached(String service, Transaction transaction, String cacheKey,
+                                               Class<T> cls) {
+        ResponseCache.Hit hit = responseCache.get(service, cacheKey);
+        if (hit == null) {
+            return null;
+        }
+        if (hit.isStale()) {
+            revalidate(service, transaction, cacheKey, cls);
+        }
+        return cls.cast(hit.getResponse());
+    }
+
+    /**
+     * @param cacheKey The key to cache the response under, or null if it is
+     *                 not cached.
+     * @param timeline The timeline to mark the phases of the call on, or
+     *                 null if there is no listener.
+     */
+    private <T extends ScoreResponse> T respond(String service, Transaction transaction, String body,
+                                                RateLimiter limiter, String cacheKey, Deadline deadline,
+                                                RequestTimeline timeline, Class<T> cls)
+            throws IOException, MinFraudException {
+        if (deadline != null && deadline.isExpired()) {
+            return fallback(cls, transaction, deadlineExceeded(service, null));
+        }
+        if (coalescer == null) {
+            return call(service, transaction, body, limiter, deadline, cacheKey, timeline, cls);
+        }
+        return coalescedCall(service, transaction, body, limiter, deadline, cacheKey, timeline, cls);
+    }
+
+    /**
+     * Refreshes a stale cached response in the background unless that is
+     * already being done.
+     */
+    private <T extends ScoreResponse> void revalidate(final String service, final Transaction transaction,
+                                                      final String cacheKey, final Class<T> cls) {
+        if (!responseCache.startRevalidation(cacheKey)) {
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        call(service, transaction, null, null, null, cacheKey, null, cls);
+                    } catch (IOException | MinFraudException | RuntimeException e) {
+                        // The stale response stays until it expires.
+                    } finally {
+                        responseCache.endRevalidation(cacheKey);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            responseCache.endRevalidation(cacheKey);
+        }
+    }
+
+    private <T extends ScoreResponse> T coalescedCall(final String service, final Transaction transaction,
+                                                      final String body, final RateLimiter limiter,
+                                                      final Deadline deadline, final String cacheKey,
+                                                      final RequestTimeline timeline, final Class<T> cls)
+            throws IOException, MinFraudException {
+        String transactionId = transaction.getEvent() == null ? null : transaction.getEvent().getTransactionId();
+        String key = transactionId == null
+                ? service + " fingerprint " + transaction.fingerprint()
+                : service + " id " + transactionId;
+        try {
+            return coalescer.call(key, deadline, new Coalescer.Call<T>() {
+                @Override
+                public T call() throws IOException, MinFraudException {
+                    return WebServiceClient.this.call(service, transaction, body, limiter, deadline, cacheKey,
+                            timeline, cls);
+                }
+            });
+        } catch (DeadlineExceededException e) {
+            return fallback(cls, transaction, e);
+        }
+    }
+
+    /**
+     * @param cacheKey The key to cache the response under, or null if it is
+     *                 not cached.
+     */
+    private <T extends ScoreResponse> T call(String service, Transaction transaction, String body,
+                                             RateLimiter limiter, Deadline deadline, String cacheKey,
+                                             RequestTimeline timeline, Class<T> cls)
+            throws IOException, MinFraudException {
+        if (limiter != null) {
+            try {
+                limiter.acquire(quota.queriesRemainingForLane(service), deadline);
+            } catch (DeadlineExceededException e) {
+                return fallback(cls, transaction, e);
+            }
+        }
+        if (loadShedder == null) {
+            return callAdmitted(service, transaction, body, deadline, cacheKey, timeline, cls);
+        }
+        try {
+            loadShedder.acquire(deadline);
+        } catch (OverloadedException | DeadlineExceededException e) {
+            return fallback(cls, transaction, e);
+        }
+        try {
+            return callAdmitted(service, transaction, body, deadline, cacheKey, timeline, cls);
+        } finally {
+            loadShedder.release();
+        }
+    }
+
+    private <T extends ScoreResponse> T callAdmitted(String service, Transaction transaction, String body,
+                                                     Deadline deadline, String cacheKey,
+                                                     RequestTimeline timeline, Class<T> cls)
+            throws IOException, MinFraudException {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            return fallback(cls, transaction, new CircuitOpenException(
+                    "The circuit breaker is open. The " + service + " request was not sent."));
+        }
+        if (concurrencyLimiter != null) {
+            try {
+                concurrencyLimiter.acquire(deadline);
+            } catch (IOException e) {
+                if (circuitBreaker != null) {
+                    circuitBreaker.cancel();
+                }
+                if (!(e instanceof ConcurrencyLimitedException)) {
+                    throw e;
+                }
+                if (deadline != null && deadline.isExpired()) {
+                    return fallback(cls, transaction, deadlineExceeded(service, e));
+                }
+                return fallback(cls, transaction, e);
+            }
+        }
+
+        long start = System.nanoTime();
+        T response;
+        try {
+            response = send(service, body == null ? serialize(transaction, timeline) : body, deadline,
+                    timeline, cls);
+        } catch (IOException e) {
+            boolean failure = isFailure(e);
+            recordOutcome(start, failure);
+            if (!failure) {
+                throw e;
+            }
+            return fallback(cls, transaction, e);
+        } catch (InsufficientFundsException e) {
+            quota.exhausted();
+            recordOutcome(start, false);
+            throw e;
+        } catch (MinFraudException | RuntimeException e) {
+            recordOutcome(start, false);
+            throw e;
+        }
+        recordOutcome(start, false);
+        quota.update(service, response);
+        if (cacheKey != null) {
+            responseCache.put(cacheKey, response);
+        }
+        return response;
+    }
+
+    private static String serialize(Transaction transaction, RequestTimeline timeline) throws IOException {
+        if (timeline == null) {
+            return transaction.toJson();
+        }
+        timeline.mark(RequestTimeline.Phase.SERIALIZE_START);
+        String body = transaction.toJson();
+        timeline.mark(RequestTimeline.Phase.SERIALIZE_END);
+        return body;
+    }
+
+    private static DeadlineExceededException deadlineExceeded(String service, Throwable cause) {
+        return new DeadlineExceededException("The deadline passed before the "
+                + service + " request was sent", cause);
+    }
+
+    private static boolean isFailure(IOException e) {
+        if (e instanceof HttpException) {
+            int status = ((HttpException) e).getHttpStatus();
+            return status < 400 || status >= 500;
+        }
+        return true;
+    }
+
+    private void recordOutcome(long start, boolean failure) {
+        long nanos = System.nanoTime() - start;
+        if (circuitBreaker != null) {
+            circuitBreaker.record(nanos, failure);
+        }
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.release(nanos, failure);
+        }
+    }
+
+    private <T extends ScoreResponse> T fallback(Class<T> cls, Transaction transaction, IOException cause)
+            throws IOException {
+        if (fallback == null) {
+            throw cause;
+        }
+        T response = fallback.responseFor(cls, transaction, cause);
+        if (response != null) {
+            fallbackResponses.put(response, cause);
+        }
+        return response;
+    }
+
+    /**
+     * @return The exception the response stood in for if the fallback
+     * supplied it, or null otherwise.
+     */
+    private IOException fallbackCause(ScoreResponse response) {
+        if (fallback == null || response == null) {
+            return null;
+        }
+        return fallbackResponses.get(response);
+    }
+
+    private <T> T send(String service, String requestBody, Deadline deadline, RequestTimeline timeline,
+                       Class<T> cls)
+            throws IOException, MinFraudException {
+        String path = WebServiceClient.pathBase + service;
+
+        List<Router.Endpoint> tried = new ArrayList<>();
+        while (true) {
+            Router.Endpoint endpoint = router.choose(tried);
+            try {
+                return sendTo(endpoint, path, requestBody, deadline, timeline, cls);
+            } catch (IOException e) {
+                tried.add(endpoint);
+                // Fail over to another endpoint unless the web service
+                // answered the request itself or the call is out of time.
+                if (!isFailure(e) || e instanceof DeadlineExceededException
+                        || tried.size() == router.endpoints().size()) {
+                    throw e;
+                }
+                metrics.recordRetry(service);
+                if (timeline != null) {
+                    timeline.retried();
+                }
+            }
+        }
+    }
+
+    private <T> T sendTo(Router.Endpoint endpoint, final String path, String requestBody,
+                         final Deadline deadline, final RequestTimeline timeline, final Class<T> cls)
+            throws IOException, MinFraudException {
+        URL url = createUrl(endpoint, path);
+        if (hedger == null) {
+            return executeOn(endpoint, requestFor(requestBody, url, deadline), url, deadline, timeline, cls);
+        }
+        HttpPost primary = requestFor(requestBody, url, deadline);
+        final HttpPost hedge = requestFor(requestBody, url, deadline);
+        final List<Router.Endpoint> exclude = Collections.singletonList(endpoint);
+        Callable<T> hedgeCall = new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                // The hedge goes to another endpoint when there is one.
+                Router.Endpoint other = router.choose(exclude);
+                if (other == null) {
+                    other = router.choose(Collections.<Router.Endpoint>emptyList());
+                }
+                URL hedgeUrl = createUrl(other, path);
+                hedge.setURI(hedgeUrl.toURI());
+                return executeOn(other, hedge, hedgeUrl, deadline, timeline, cls);
+            }
+        };
+        return hedger.execute(primary, callFor(endpoint, primary, url, deadline, timeline, cls),
+                hedge, hedgeCall);
+    }
+
+    private <T> Callable<T> callFor(final Router.Endpoint endpoint, final HttpPost request,
+                                    final URL url, final Deadline deadline,
+                                    final RequestTimeline timeline, final Class<T> cls) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return executeOn(endpoint, request, url, deadline, timeline, cls);
+            }
+        };
+    }
+
+    private <T> T executeOn(Router.Endpoint endpoint, HttpPost request, URL url,
+                            Deadline deadline, RequestTimeline timeline, Class<T> cls)
+            throws IOException, MinFraudException {
+        long start = System.nanoTime();
+        T response;
+        try {
+            response = execute(request, url, deadline, timeline, cls);
+        } catch (IOException | MinFraudException | RuntimeException e) {
+            // An aborted request says nothing about the endpoint.
+            if (request.isAborted()) {
+                router.release(endpoint);
+            } else {
+                router.record(endpoint, System.nanoTime() - start,
+                        e instanceof IOException && isFailure((IOException) e));
+            }
+            throw e;
+        }
+        router.record(endpoint, System.nanoTime() - start, false);
+        return response;
+    }
+
+    private void probe(Router.Endpoint endpoint, int timeout) throws Exception {
+        URL url = createUrl(endpoint, WebServiceClient.pathBase + "score");
+        HttpGet request = new HttpGet(url.toURI());
+        request.setConfig(RequestConfig.copy(requestConfig)
+                .setConnectionRequestTimeout(timeout)
+                .setConnectTimeout(timeout)
+                .setSocketTimeout(timeout)
+                .build());
+        // Any answer that is not a server error shows that the endpoint
+        // can reach the web service. The request is not scored.
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            EntityUtils.consume(response.getEntity());
+            int status = response.getStatusLine().getStatusCode();
+            if (status >= 500) {
+                throw new HttpException("Received a server error (" + status
+                        + ") when probing " + url, status, url, null, errorStackTraces);
+            }
+        }
+    }
+
+    private <T> T execute(final HttpPost request, URL url, Deadline deadline, RequestTimeline timeline,
+                          Class<T> cls)
+            throws IOException, MinFraudException {
+        if (deadline == null) {
+            return exchange(request, url, timeline, cls);
+        }
+
+        // The socket timeouts only bound each read, so a response that
+        // trickles in could take much longer. Aborting the request when the
+        // deadline passes ends whatever stage the call is in.
+        ScheduledFuture<?> abort = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                request.abort();
+            }
+        }, deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        try {
+            return exchange(request, url, timeline, cls);
+        } catch (IOException | MinFraudException e) {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException("The request to " + url
+                        + " did not complete before the deadline", e);
+            }
+            throw e;
+        } finally {
+            abort.cancel(false);
+        }
+    }
+
+    private <T> T exchange(HttpPost request, URL url, RequestTimeline timeline, Class<T> cls)
+            throws IOException, MinFraudException {
+        if (trafficReplay != null) {
+            HttpResponse response = trafficReplay.execute(request, serviceOf(url), requestBodyOf(request));
+            return handleResponse(request, response, url, timeline, cls);
+        }
+        if (trafficRecorder != null) {
+            return exchangeRecorded(request, url, timeline, cls);
+        }
+        if (urlConnectionTransport != null) {
+            HttpResponse response = executeUrlConnection(request, timeline);
+            try {
+                return handleResponse(request, response, url, timeline, cls);
+            } finally {
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
+        }
+        try (CloseableHttpResponse response = executeHttpClient(request, timeline)) {
+            return handleResponse(request, response, url, timeline, cls);
+        }
+    }
+
+    private HttpResponse executeUrlConnection(HttpPost request, RequestTimeline timeline) throws IOException {
+        HttpResponse response = urlConnectionTransport.execute(request);
+        if (timeline != null) {
+            timeline.mark(RequestTimeline.Phase.FIRST_BYTE);
+        }
+        return response;
+    }
+
+    private CloseableHttpResponse executeHttpClient(HttpPost request, RequestTimeline timeline)
+            throws IOException {
+        if (timeline == null || !phaseHooks) {
+            return httpClient.execute(request);
+        }
+        return httpClient.execute(request, PhaseHooks.contextFor(timeline));
+    }
+
+    /**
+     * Reads the whole response so that it can be recorded, then handles it
+     * the same way as one that is not recorded.
+     */
+    private <T> T exchangeRecorded(HttpPost request, URL url, RequestTimeline timeline, Class<T> cls)
+            throws IOException, MinFraudException {
+        long start = System.nanoTime();
+        int status;
+        byte[] body;
+        if (urlConnectionTransport != null) {
+            HttpResponse response = executeUrlConnection(request, timeline);
+            try {
+                status = response.getStatusLine().getStatusCode();
+                body = bodyOf(response);
+            } finally {
+                EntityUtils.consumeQuietly(response.getEntity());
+            }
+        } else {
+            try (CloseableHttpResponse response = executeHttpClient(request, timeline)) {
+                status = response.getStatusLine().getStatusCode();
+                body = bodyOf(response);
+            }
+        }
+        trafficRecorder.record(serviceOf(url), requestBodyOf(request), status, body,
+                System.nanoTime() - start);
+        return handleResponse(request, TrafficReplay.response(status, body), url, timeline, cls);
+    }
+
+    private static byte[] bodyOf(HttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        return entity == null ? new byte[0] : EntityUtils.toByteArray(entity);
+    }
+
+    private static String serviceOf(URL url) {
+        return url.getPath().substring(WebServiceClient.pathBase.length());
+    }
+
+    private static String requestBodyOf(HttpPost request) throws IOException {
+        return EntityUtils.toString(request.getEntity(), "UTF-8");
+    }
+
+    private HttpPost requestFor(String requestBody, URL url, Deadline deadline)
+            throws MinFraudException, IOException {
+        Credentials credentials = new UsernamePasswordCredentials(Integer.toString(userId), licenseKey);
+
+        HttpPost request;
+        try {
+            request = new HttpPost(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new MinFraudException("Error parsing request URL", e);
         }
         try {
             request.addHeader(new BasicScheme().authenticate(credentials, request, null));
@@ -311,39 +2197,77 @@ public final class WebServiceClient implements Closeable {
         request.addHeader("Accept", "application/json");
         request.addHeader("User-Agent", this.userAgent());
 
-        String requestBody = transaction.toJson();
-
         StringEntity input = new StringEntity(requestBody, APPLICATION_JSON);
 
         request.setEntity(input);
+
+        if (deadline != null) {
+            int millis = (int) Math.min(Integer.MAX_VALUE,
+                    Math.max(1, deadline.remaining(TimeUnit.MILLISECONDS)));
+            request.setConfig(RequestConfig.copy(requestConfig)
+                    .setConnectionRequestTimeout(millis)
+                    .setConnectTimeout(withinDeadline(requestConfig.getConnectTimeout(), millis))
+                    .setSocketTimeout(withinDeadline(requestConfig.getSocketTimeout(), millis))
+                    .build());
+        }
         return request;
     }
 
-    private <T> T handleResponse(CloseableHttpResponse response, URL url, Class<T> cls)
+    private static int withinDeadline(int timeout, int millis) {
+        return timeout <= 0 ? millis : Math.min(timeout, millis);
+    }
+
+    private <T> T handleResponse(HttpPost request, HttpResponse response, URL url,
+                                 RequestTimeline timeline, Class<T> cls)
+            throws MinFraudException, IOException {
+        if (metrics != NoopMetrics.INSTANCE || timeline != null) {
+            HttpEntity entity = response.getEntity();
+            long requestBytes = request.getEntity().getContentLength();
+            long responseBytes = entity == null ? 0 : Math.max(0, entity.getContentLength());
+            metrics.recordBytes(serviceOf(url), requestBytes, responseBytes);
+            if (timeline != null) {
+                timeline.received(response.getStatusLine().getStatusCode(), requestBytes, responseBytes);
+            }
+        }
+        return handleResponse(response, url, timeline, cls);
+    }
+
+    private <T> T handleResponse(HttpResponse response, URL url, RequestTimeline timeline, Class<T> cls)
             throws MinFraudException, IOException {
         int status = response.getStatusLine().getStatusCode();
         if (status >= 400 && status < 500) {
             this.handle4xxStatus(response, url);
         } else if (status >= 500 && status < 600) {
+            EntityUtils.consume(response.getEntity());
             throw new HttpException("Received a server error (" + status
-                    + ") for " + url, status, url);
+                    + ") for " + url, status, url, null, errorStackTraces);
         } else if (status != 200) {
+            EntityUtils.consume(response.getEntity());
             throw new HttpException("Received an unexpected HTTP status ("
-                    + status + ") for " + url, status, url);
+                    + status + ") for " + url, status, url, null, errorStackTraces);
         }
 
         HttpEntity entity = response.getEntity();
 
         if (entity.getContentLength() <= 0L) {
             throw new HttpException("Received a 200 response for " + url
-                    + " but there was no message body.", 200, url);
+                    + " but there was no message body.", 200, url, null, errorStackTraces);
         }
 
         InjectableValues inject = new Std().addValue(
                 "locales", locales);
 
         try {
-            return mapper.readerFor(cls).with(inject).readValue(entity.getContent());
+            if (timeline == null) {
+                return mapper.readerFor(cls).with(inject).readValue(entity.getContent());
+            }
+            // The body is read before it is parsed so that the two can be
+            // timed separately.
+            byte[] body = EntityUtils.toByteArray(entity);
+            timeline.mark(RequestTimeline.Phase.BODY_READ);
+            T parsed = mapper.readerFor(cls).with(inject).readValue(body);
+            timeline.mark(RequestTimeline.Phase.PARSE_DONE);
+            return parsed;
         } catch (IOException e) {
             throw new MinFraudException(
                     "Received a 200 response but could not decode it as JSON", e);
@@ -353,6 +2277,11 @@ public final class WebServiceClient implements Closeable {
     }
 
 
+    /**
+     * Reads the code and message from the error body with a streaming
+     * parser. The body is only turned into a string when it has to be
+     * quoted in the exception's message.
+     */
     private void handle4xxStatus(HttpResponse response, URL url)
             throws IOException, InsufficientFundsException,
             InvalidRequestException, AuthenticationException,
@@ -360,62 +2289,72 @@ public final class WebServiceClient implements Closeable {
         HttpEntity entity = response.getEntity();
         int status = response.getStatusLine().getStatusCode();
 
-        if (entity.getContentLength() <= 0L) {
+        if (entity == null || entity.getContentLength() <= 0L) {
+            EntityUtils.consume(entity);
             throw new HttpException("Received a " + status + " error for "
-                    + url + " with no body", status, url);
+                    + url + " with no body", status, url, null, errorStackTraces);
         }
 
-        String body = EntityUtils.toString(entity, "UTF-8");
+        byte[] body = EntityUtils.toByteArray(entity);
 
-        Map<String, String> content;
-        try {
-            content = mapper.readValue(body,
-                    new TypeReference<HashMap<String, String>>() {
-                    });
-            this.handleErrorWithJsonBody(content, body, status, url);
-        } catch (HttpException e) {
-            throw e;
+        String error = null;
+        String code = null;
+        try (JsonParser parser = mapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("The body is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value.isStructStart()) {
+                    parser.skipChildren();
+                } else if ("error".equals(name)) {
+                    error = parser.getValueAsString();
+                } else if ("code".equals(name)) {
+                    code = parser.getValueAsString();
+                }
+            }
+            if (parser.getCurrentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new IOException("The body is not a single JSON object");
+            }
         } catch (IOException e) {
             throw new HttpException("Received a " + status + " error for "
                     + url + " but it did not include the expected JSON body: "
-                    + body, status, url, e);
+                    + new String(body, StandardCharsets.UTF_8), status, url, e, errorStackTraces);
         }
+        handleError(error, code, body, status, url);
     }
 
-    private void handleErrorWithJsonBody(Map<String, String> content,
-                                         String body, int status, URL url)
+    private void handleError(String error, String code, byte[] body, int status, URL url)
             throws HttpException, InsufficientFundsException,
             InvalidRequestException, AuthenticationException,
             PermissionRequiredException {
-        String error = content.get("error");
-        String code = content.get("code");
-
         if (error == null || code == null) {
             throw new HttpException(
                     "Error response contains JSON but it does not specify code or error keys: "
-                            + body, status, url);
+                            + new String(body, StandardCharsets.UTF_8), status, url, null, errorStackTraces);
         }
 
         switch (code) {
             case "AUTHORIZATION_INVALID":
             case "LICENSE_KEY_REQUIRED":
             case "USER_ID_REQUIRED":
-                throw new AuthenticationException(error);
+                throw new AuthenticationException(error, code, status, errorStackTraces);
             case "INSUFFICIENT_FUNDS":
-                throw new InsufficientFundsException(error);
+                throw new InsufficientFundsException(error, code, status, errorStackTraces);
             case "PERMISSION_REQUIRED":
-                throw new PermissionRequiredException(error);
+                throw new PermissionRequiredException(error, code, status, errorStackTraces);
             default:
-                throw new InvalidRequestException(error, code, status, url, null);
+                throw new InvalidRequestException(error, code, status, url, null, errorStackTraces);
         }
     }
 
-    private URL createUrl(String path) throws MinFraudException {
+    private URL createUrl(Router.Endpoint endpoint, String path) throws MinFraudException {
         try {
             return new URIBuilder()
                     .setScheme(useHttps ? "https" : "http")
-                    .setHost(this.host)
-                    .setPort(this.port)
+                    .setHost(endpoint.getHost())
+                    .setPort(endpoint.getPort())
                     .setPath(path)
                     .build().toURL();
         } catch (MalformedURLException | URISyntaxException e) {
@@ -435,7 +2374,17 @@ public final class WebServiceClient implements Closeable {
      */
     @Override
     public void close() throws IOException {
-        httpClient.close();
+        executor.shutdownNow();
+        enricher.shutdownNow();
+        timer.shutdownNow();
+        try {
+            httpClient.close();
+        } finally {
+            // This throws if writing the audit log failed at any point.
+            if (auditLog != null) {
+                auditLog.close();
+            }
+        }
     }
 
     @Override
@@ -449,6 +2398,7 @@ public final class WebServiceClient implements Closeable {
                 ", userId=" + userId +
                 ", mapper=" + mapper +
                 ", httpClient=" + httpClient +
+                ", router=" + router +
                 '}';
     }
 }
@@ -4,11 +4,16 @@ package com.maxmind.minfraud.exception;
  * This exception is thrown when there is an error authenticating.
  */
 public final class AuthenticationException extends MinFraudException {
+    private final String code;
+    private final int httpStatus;
+
     /**
      * @param message A message explaining the cause of the error.
      */
     public AuthenticationException(String message) {
         super(message);
+        this.code = null;
+        this.httpStatus = 0;
     }
 
     /**
@@ -17,5 +22,38 @@ public final class AuthenticationException extends MinFraudException {
      */
     public AuthenticationException(String message, Throwable e) {
         super(message, e);
+        this.code = null;
+        this.httpStatus = 0;
+    }
+
+    /**
+     * @param message            A message explaining the cause of the error.
+     * @param code               The error code returned by the web service.
+     * @param httpStatus         The HTTP status of the response.
+     * @param writableStackTrace Whether to record the stack trace. An
+     *                           exception without one is much cheaper to
+     *                           create.
+     */
+    public AuthenticationException(String message, String code, int httpStatus,
+                                   boolean writableStackTrace) {
+        super(message, null, writableStackTrace);
+        this.code = code;
+        this.httpStatus = httpStatus;
+    }
+
+    /**
+     * @return The error code returned by the MaxMind web service. Will be
+     * null if it was not set at throw time.
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @return The integer HTTP status returned by the MaxMind web service.
+     * Will be 0 if it was not set at throw time.
+     */
+    public int getHttpStatus() {
+        return httpStatus;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.maxmind.minfraud.exception;
+
+import java.io.IOException;
+
+/**
+ * This exception is thrown when a call is rejected without contacting the
+ * web service because the client's circuit breaker is open. Like
+ * {@code HttpException}, it describes a transport problem rather than an
+ * error returned by the web service, so it is an IOException.
+ */
+public final class CircuitOpenException extends IOException {
+
+    /**
+     * @param message A message explaining the cause of the error.
+     */
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,28 @@
+package com.maxmind.minfraud.exception;
+
+import java.io.IOException;
+
+/**
+ * This exception is thrown when a call is rejected without contacting the
+ * web service because the client already has as many calls in flight as
+ * its adaptive concurrency limit allows.
+ */
+public final class ConcurrencyLimitedException extends IOException {
+    private final int limit;
+
+    /**
+     * @param message A message explaining the cause of the error.
+     * @param limit   The concurrency limit at the time of the call.
+     */
+    public ConcurrencyLimitedException(String message, int limit) {
+        super(message);
+        this.limit = limit;
+    }
+
+    /**
+     * @return The concurrency limit at the time of the call.
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
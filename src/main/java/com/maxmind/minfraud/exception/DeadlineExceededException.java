@@ -0,0 +1,26 @@
+package com.maxmind.minfraud.exception;
+
+import java.io.IOException;
+
+/**
+ * This exception is thrown when a call does not complete before its
+ * {@code Deadline}. The request may not have been sent, or it may have been
+ * aborted while waiting for the response.
+ */
+public final class DeadlineExceededException extends IOException {
+
+    /**
+     * @param message A message explaining the cause of the error.
+     */
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+
+    /**
+     * @param message A message explaining the cause of the error.
+     * @param cause   The cause of the exception.
+     */
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -11,6 +11,7 @@ import java.net.URL;
 public final class HttpException extends IOException {
     private final int httpStatus;
     private final URL url;
+    private final boolean writableStackTrace;
 
     /**
      * @param message    A message describing the reason why the exception was thrown.
@@ -18,9 +19,7 @@ public final class HttpException extends IOException {
      * @param url        The URL queried.
      */
     public HttpException(String message, int httpStatus, URL url) {
-        super(message);
-        this.httpStatus = httpStatus;
-        this.url = url;
+        this(message, httpStatus, url, null, true);
     }
 
     /**
@@ -31,9 +30,35 @@ public final class HttpException extends IOException {
      */
     public HttpException(String message, int httpStatus, URL url,
                          Throwable cause) {
+        this(message, httpStatus, url, cause, true);
+    }
+
+    /**
+     * @param message            A message describing the reason why the exception was thrown.
+     * @param httpStatus         The HTTP status of the response that caused the exception.
+     * @param url                The URL queried.
+     * @param cause              The cause of the exception.
+     * @param writableStackTrace Whether to record the stack trace. An
+     *                           exception without one is much cheaper to
+     *                           create.
+     */
+    public HttpException(String message, int httpStatus, URL url,
+                         Throwable cause, boolean writableStackTrace) {
         super(message, cause);
         this.httpStatus = httpStatus;
         this.url = url;
+        this.writableStackTrace = writableStackTrace;
+        if (writableStackTrace) {
+            super.fillInStackTrace();
+        }
+    }
+
+    // IOException cannot be told not to record the stack trace, so this
+    // does nothing while Throwable's constructor runs, as writableStackTrace
+    // is not yet set, and the constructor above records the trace instead.
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return writableStackTrace ? super.fillInStackTrace() : this;
     }
 
     /**
@@ -39,6 +39,24 @@ public class InvalidRequestException extends MinFraudException {
         this.httpStatus = httpStatus;
     }
 
+    /**
+     * @param message            A message explaining the cause of the error.
+     * @param code               The error code returned by the web service.
+     * @param httpStatus         The HTTP status of the response.
+     * @param url                The URL queried.
+     * @param e                  The cause of the exception.
+     * @param writableStackTrace Whether to record the stack trace. An
+     *                           exception without one is much cheaper to
+     *                           create.
+     */
+    public InvalidRequestException(String message, String code, int httpStatus,
+                                   URL url, Throwable e, boolean writableStackTrace) {
+        super(message, e, writableStackTrace);
+        this.code = code;
+        this.url = url;
+        this.httpStatus = httpStatus;
+    }
+
     /**
      * @return The error code returned by the MaxMind web service.
      */
@@ -24,4 +24,15 @@ public class MinFraudException extends Exception {
     public MinFraudException(String message, Throwable e) {
         super(message, e);
     }
+
+    /**
+     * @param message            A message explaining the cause of the error.
+     * @param e                  The cause of the exception.
+     * @param writableStackTrace Whether to record the stack trace. An
+     *                           exception without one is much cheaper to
+     *                           create.
+     */
+    protected MinFraudException(String message, Throwable e, boolean writableStackTrace) {
+        super(message, e, true, writableStackTrace);
+    }
 }
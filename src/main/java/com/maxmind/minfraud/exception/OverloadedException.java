@@ -0,0 +1,23 @@
+package com.maxmind.minfraud.exception;
+
+import java.io.IOException;
+
+/**
+ * This exception is thrown when a call is rejected without contacting the
+ * web service because calls have been waiting too long for a connection.
+ * It is thrown often under load and so, to be cheap, it has no stack trace.
+ */
+public final class OverloadedException extends IOException {
+
+    /**
+     * @param message A message explaining the cause of the error.
+     */
+    public OverloadedException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,29 @@
+package com.maxmind.minfraud.exception;
+
+import java.io.IOException;
+
+/**
+ * This exception is thrown when a call is rejected without contacting the
+ * web service by one of the client's rate limit lanes, either because the
+ * call would wait longer than the lane allows or because the lane's quota
+ * reserve has been used up.
+ */
+public final class RateLimitedException extends IOException {
+    private final String lane;
+
+    /**
+     * @param message A message explaining the cause of the error.
+     * @param lane    The name of the lane that rejected the call.
+     */
+    public RateLimitedException(String message, String lane) {
+        super(message);
+        this.lane = lane;
+    }
+
+    /**
+     * @return The name of the lane that rejected the call.
+     */
+    public String getLane() {
+        return lane;
+    }
+}
@@ -3,6 +3,7 @@ package com.maxmind.minfraud.request;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.maxmind.minfraud.AbstractModel;
 
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 /**
@@ -22,6 +23,8 @@ public abstract class AbstractLocation extends AbstractModel {
     private final String phoneNumber;
     private final String phoneCountryCode;
 
+    private int hash;
+
     protected AbstractLocation(AbstractLocation.Builder builder) {
         firstName = builder.firstName;
         lastName = builder.lastName;
@@ -258,4 +261,56 @@ public abstract class AbstractLocation extends AbstractModel {
     public final String getPhoneCountryCode() {
         return phoneCountryCode;
     }
+
+    /**
+     * Locations are only equal to locations of the same class, so billing
+     * and shipping addresses are never equal.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        AbstractLocation other = (AbstractLocation) o;
+        return Objects.equals(firstName, other.firstName)
+                && Objects.equals(lastName, other.lastName)
+                && Objects.equals(company, other.company)
+                && Objects.equals(address, other.address)
+                && Objects.equals(address2, other.address2)
+                && Objects.equals(city, other.city)
+                && Objects.equals(region, other.region)
+                && Objects.equals(country, other.country)
+                && Objects.equals(postal, other.postal)
+                && Objects.equals(phoneNumber, other.phoneNumber)
+                && Objects.equals(phoneCountryCode, other.phoneCountryCode);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(firstName, lastName, company, address, address2, city,
+                    region, country, postal, phoneNumber, phoneCountryCode);
+            hash = h;
+        }
+        return h;
+    }
+
+    void addTo(Fingerprinter fingerprinter) {
+        fingerprinter
+                .add(firstName)
+                .add(lastName)
+                .add(company)
+                .add(address)
+                .add(address2)
+                .add(city)
+                .add(region)
+                .add(country)
+                .add(postal)
+                .add(phoneNumber)
+                .add(phoneCountryCode);
+    }
 }
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.maxmind.minfraud.AbstractModel;
 import org.apache.commons.codec.digest.DigestUtils;
 
+import java.util.Objects;
+
 /**
  * Account related data for the minFraud request
  */
@@ -11,6 +13,8 @@ public final class Account extends AbstractModel {
     private final String userId;
     private final String usernameMd5;
 
+    private int hash;
+
     private Account(Account.Builder builder) {
         userId = builder.userId;
         usernameMd5 = builder.usernameMd5;
@@ -74,4 +78,33 @@ public final class Account extends AbstractModel {
     public String getUsernameMd5() {
         return usernameMd5;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Account)) {
+            return false;
+        }
+        Account other = (Account) o;
+        return Objects.equals(userId, other.userId)
+                && Objects.equals(usernameMd5, other.usernameMd5);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(userId, usernameMd5);
+            hash = h;
+        }
+        return h;
+    }
+
+    void addTo(Fingerprinter fingerprinter) {
+        fingerprinter
+                .add(userId)
+                .add(usernameMd5);
+    }
+}
@@ -3,6 +3,7 @@ package com.maxmind.minfraud.request;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.maxmind.minfraud.AbstractModel;
 
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 /**
@@ -18,6 +19,8 @@ public final class CreditCard extends AbstractModel {
     private final Character cvvResult;
     private final String token;
 
+    private int hash;
+
     private CreditCard(CreditCard.Builder builder) {
         issuerIdNumber = builder.issuerIdNumber;
         last4Digits = builder.last4Digits;
@@ -225,4 +228,45 @@ public final class CreditCard extends AbstractModel {
     public String getToken() {
         return token;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CreditCard)) {
+            return false;
+        }
+        CreditCard other = (CreditCard) o;
+        return Objects.equals(issuerIdNumber, other.issuerIdNumber)
+                && Objects.equals(last4Digits, other.last4Digits)
+                && Objects.equals(bankName, other.bankName)
+                && Objects.equals(bankPhoneCountryCode, other.bankPhoneCountryCode)
+                && Objects.equals(bankPhoneNumber, other.bankPhoneNumber)
+                && Objects.equals(avsResult, other.avsResult)
+                && Objects.equals(cvvResult, other.cvvResult)
+                && Objects.equals(token, other.token);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(issuerIdNumber, last4Digits, bankName, bankPhoneCountryCode, bankPhoneNumber, avsResult, cvvResult, token);
+            hash = h;
+        }
+        return h;
+    }
+
+    void addTo(Fingerprinter fingerprinter) {
+        fingerprinter
+                .add(issuerIdNumber)
+                .add(last4Digits)
+                .add(bankName)
+                .add(bankPhoneCountryCode)
+                .add(bankPhoneNumber)
+                .add(avsResult)
+                .add(cvvResult)
+                .add(token);
+    }
 }
@@ -6,6 +6,7 @@ import com.maxmind.minfraud.AbstractModel;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 /**
@@ -16,6 +17,8 @@ import java.util.regex.Pattern;
 public final class CustomInputs extends AbstractModel {
     private final Map<String, Object> inputs;
 
+    private int hash;
+
     private CustomInputs(Builder builder) {
         inputs = Collections.unmodifiableMap(new HashMap<>(builder.inputs));
     }
@@ -111,4 +114,30 @@ public final class CustomInputs extends AbstractModel {
     public Map<String, Object> getInputs() {
         return inputs;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CustomInputs)) {
+            return false;
+        }
+        CustomInputs other = (CustomInputs) o;
+        return Objects.equals(inputs, other.inputs);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hashCode(inputs);
+            hash = h;
+        }
+        return h;
+    }
+
+    void addTo(Fingerprinter fingerprinter) {
+        fingerprinter.add(inputs);
+    }
+}
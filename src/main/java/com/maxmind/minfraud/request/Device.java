@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.maxmind.minfraud.AbstractModel;
 
 import java.net.InetAddress;
+import java.util.Objects;
 
 /**
  * The device information for the transaction.
@@ -15,6 +16,8 @@ public final class Device extends AbstractModel {
     private final Double sessionAge;
     private final String sessionId;
 
+    private int hash;
+
     private Device(Device.Builder builder) {
         ipAddress = builder.ipAddress;
         userAgent = builder.userAgent;
@@ -142,4 +145,39 @@ public final class Device extends AbstractModel {
 
         return ipAddress;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Device)) {
+            return false;
+        }
+        Device other = (Device) o;
+        return Objects.equals(ipAddress, other.ipAddress)
+                && Objects.equals(userAgent, other.userAgent)
+                && Objects.equals(acceptLanguage, other.acceptLanguage)
+                && Objects.equals(sessionAge, other.sessionAge)
+                && Objects.equals(sessionId, other.sessionId);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(ipAddress, userAgent, acceptLanguage, sessionAge, sessionId);
+            hash = h;
+        }
+        return h;
+    }
+
+    void addTo(Fingerprinter fingerprinter) {
+        fingerprinter
+                .add(ipAddress)
+                .add(userAgent)
+                .add(acceptLanguage)
+                .add(sessionAge)
+                .add(sessionId);
+    }
 }
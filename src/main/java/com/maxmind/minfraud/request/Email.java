@@ -7,6 +7,8 @@ import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.validator.routines.DomainValidator;
 import org.apache.commons.validator.routines.EmailValidator;
 
+import java.util.Objects;
+
 /**
  * The email information for the transaction.
  */
@@ -15,6 +17,8 @@ public final class Email extends AbstractModel {
     private final boolean hashAddress;
     private final String domain;
 
+    private int hash;
+
     private Email(Email.Builder builder) {
         address = builder.address;
         hashAddress = builder.hashAddress;
@@ -132,4 +136,35 @@ public final class Email extends AbstractModel {
     public String getDomain() {
         return domain;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Email)) {
+            return false;
+        }
+        Email other = (Email) o;
+        return Objects.equals(address, other.address)
+                && hashAddress == other.hashAddress
+                && Objects.equals(domain, other.domain);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(address, hashAddress, domain);
+            hash = h;
+        }
+        return h;
+    }
+
+    void addTo(Fingerprinter fingerprinter) {
+        fingerprinter
+                .add(address)
+                .add(hashAddress)
+                .add(domain);
+    }
 }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.maxmind.minfraud.AbstractModel;
 
 import java.util.Date;
+import java.util.Objects;
 
 public final class Event extends AbstractModel {
 
@@ -12,6 +13,8 @@ public final class Event extends AbstractModel {
     private final Date time;
     private final Type type;
 
+    private int hash;
+
     private Event(Event.Builder builder) {
         transactionId = builder.transactionId;
         shopId = builder.shopId;
@@ -101,7 +104,8 @@ public final class Event extends AbstractModel {
      */
     @JsonProperty("time")
     public Date getTime() {
-        return time;
+        // A copy, as the hash code of the event must not change.
+        return time == null ? null : new Date(time.getTime());
     }
 
     /**
@@ -112,6 +116,39 @@ public final class Event extends AbstractModel {
         return type;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Event)) {
+            return false;
+        }
+        Event other = (Event) o;
+        return Objects.equals(transactionId, other.transactionId)
+                && Objects.equals(shopId, other.shopId)
+                && Objects.equals(time, other.time)
+                && Objects.equals(type, other.type);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(transactionId, shopId, time, type);
+            hash = h;
+        }
+        return h;
+    }
+
+    void addTo(Fingerprinter fingerprinter) {
+        fingerprinter
+                .add(transactionId)
+                .add(shopId)
+                .add(time)
+                .add(type);
+    }
+
     /**
      * The enumerated event types.
      */
@@ -0,0 +1,67 @@
+package com.maxmind.minfraud.request;
+
+/**
+ * A 128-bit hash of the field values of a {@code Transaction}. Equal
+ * transactions have equal fingerprints. Different transactions have
+ * different fingerprints with overwhelming probability, so a fingerprint
+ * can stand in for the transaction as a cache or deduplication key. It is
+ * not a cryptographic hash and must not be relied on where someone could
+ * craft colliding transactions on purpose.
+ */
+public final class Fingerprint {
+    private final long high;
+    private final long low;
+
+    Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @return The upper 64 bits of the fingerprint.
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * @return The lower 64 bits of the fingerprint.
+     */
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Fingerprint)) {
+            return false;
+        }
+        Fingerprint other = (Fingerprint) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (low ^ (low >>> 32));
+    }
+
+    /**
+     * @return The fingerprint as 32 hexadecimal digits.
+     */
+    @Override
+    public String toString() {
+        StringBuilder hex = new StringBuilder(32);
+        appendHex(hex, high);
+        appendHex(hex, low);
+        return hex.toString();
+    }
+
+    private static void appendHex(StringBuilder hex, long value) {
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            hex.append(Character.forDigit((int) (value >>> shift) & 0xf, 16));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.maxmind.minfraud.request;
+
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Computes a {@code Fingerprint} from a sequence of values. The mixing is
+ * that of MurmurHash3's 128-bit x64 variant, fed one long at a time, so no
+ * byte array of the input is ever built.
+ * <p>
+ * Every value is preceded by its length or a marker for null, so that
+ * different sequences of fields do not run into each other.
+ * </p>
+ */
+final class Fingerprinter {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final long NULL = 0x9e3779b97f4a7c15L;
+
+    private long h1;
+    private long h2;
+    private long length;
+
+    Fingerprinter add(long value) {
+        long k1 = Long.rotateLeft(value * C1, 31) * C2;
+        h1 ^= k1;
+        h1 = Long.rotateLeft(h1, 27) + h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        long k2 = Long.rotateLeft(value * C2, 33) * C1;
+        h2 ^= k2;
+        h2 = Long.rotateLeft(h2, 31) + h1;
+        h2 = h2 * 5 + 0x38495ab5;
+
+        length++;
+        return this;
+    }
+
+    Fingerprinter add(boolean value) {
+        return add(value ? 1 : 0);
+    }
+
+    Fingerprinter add(Boolean value) {
+        return value == null ? add(NULL) : add(value ? 1 : 0);
+    }
+
+    Fingerprinter add(Integer value) {
+        return value == null ? add(NULL) : add(0).add(value.longValue());
+    }
+
+    Fingerprinter add(Double value) {
+        return value == null ? add(NULL) : add(0).add(Double.doubleToLongBits(value));
+    }
+
+    Fingerprinter add(Character value) {
+        return value == null ? add(NULL) : add(0).add(value.charValue());
+    }
+
+    Fingerprinter add(Enum<?> value) {
+        return value == null ? add(NULL) : add(value.name());
+    }
+
+    Fingerprinter add(Date value) {
+        return value == null ? add(NULL) : add(0).add(value.getTime());
+    }
+
+    Fingerprinter add(String value) {
+        if (value == null) {
+            return add(NULL);
+        }
+        int length = value.length();
+        add(length);
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            add((long) value.charAt(i)
+                    | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32
+                    | (long) value.charAt(i + 3) << 48);
+        }
+        if (i < length) {
+            long rest = 0;
+            for (int shift = 0; i < length; i++, shift += 16) {
+                rest |= (long) value.charAt(i) << shift;
+            }
+            add(rest);
+        }
+        return this;
+    }
+
+    Fingerprinter add(BigDecimal value) {
+        // The scale matters, as it does for equals and for the JSON sent.
+        return value == null ? add(NULL) : add(value.toString());
+    }
+
+    Fingerprinter add(URI value) {
+        return value == null ? add(NULL) : add(value.toString());
+    }
+
+    Fingerprinter add(InetAddress value) {
+        if (value == null) {
+            return add(NULL);
+        }
+        byte[] bytes = value.getAddress();
+        add(bytes.length);
+        long word = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            word = word << 8 | (bytes[i] & 0xff);
+            if (i % 8 == 7 || i == bytes.length - 1) {
+                add(word);
+                word = 0;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds a marker for whether a nested model is present. Callers then add
+     * its fields if it is.
+     *
+     * @return Whether value is not null.
+     */
+    boolean present(Object value) {
+        add(value == null ? NULL : 0);
+        return value != null;
+    }
+
+    /**
+     * Adds the entries in key order, so that equal maps have equal
+     * fingerprints however they were built. Values are strings, booleans,
+     * or numbers. A number's class is included as it is part of equality.
+     */
+    Fingerprinter add(Map<String, Object> values) {
+        Map<String, Object> sorted = new TreeMap<>(values);
+        add(sorted.size());
+        for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+            add(entry.getKey());
+            Object value = entry.getValue();
+            if (value instanceof Boolean) {
+                add(1).add((Boolean) value);
+            } else if (value instanceof String) {
+                add(2).add((String) value);
+            } else {
+                add(3).add(value.getClass().getName()).add(value.toString());
+            }
+        }
+        return this;
+    }
+
+    Fingerprint finish() {
+        long a = h1 ^ length;
+        long b = h2 ^ length;
+        a += b;
+        b += a;
+        a = mix(a);
+        b = mix(b);
+        a += b;
+        b += a;
+        return new Fingerprint(a, b);
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -5,6 +5,7 @@ import com.maxmind.minfraud.AbstractModel;
 
 import java.math.BigDecimal;
 import java.net.URI;
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 /**
@@ -20,6 +21,8 @@ public final class Order extends AbstractModel {
     private final Boolean isGift;
     private final Boolean hasGiftMessage;
 
+    private int hash;
+
     private Order(Order.Builder builder) {
         amount = builder.amount;
         currency = builder.currency;
@@ -209,4 +212,45 @@ public final class Order extends AbstractModel {
     public Boolean isGift() {
         return isGift;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Order)) {
+            return false;
+        }
+        Order other = (Order) o;
+        return Objects.equals(amount, other.amount)
+                && Objects.equals(currency, other.currency)
+                && Objects.equals(discountCode, other.discountCode)
+                && Objects.equals(affiliateId, other.affiliateId)
+                && Objects.equals(subaffiliateId, other.subaffiliateId)
+                && Objects.equals(referrerUri, other.referrerUri)
+                && Objects.equals(isGift, other.isGift)
+                && Objects.equals(hasGiftMessage, other.hasGiftMessage);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(amount, currency, discountCode, affiliateId, subaffiliateId, referrerUri, isGift, hasGiftMessage);
+            hash = h;
+        }
+        return h;
+    }
+
+    void addTo(Fingerprinter fingerprinter) {
+        fingerprinter
+                .add(amount)
+                .add(currency)
+                .add(discountCode)
+                .add(affiliateId)
+                .add(subaffiliateId)
+                .add(referrerUri)
+                .add(isGift)
+                .add(hasGiftMessage);
+    }
 }
@@ -3,6 +3,8 @@ package com.maxmind.minfraud.request;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.maxmind.minfraud.AbstractModel;
 
+import java.util.Objects;
+
 /**
  * The payment information for the transaction.
  */
@@ -11,6 +13,8 @@ public final class Payment extends AbstractModel {
     private final Boolean wasAuthorized;
     private final String declineCode;
 
+    private int hash;
+
     private Payment(Payment.Builder builder) {
         processor = builder.processor;
         wasAuthorized = builder.wasAuthorized;
@@ -90,6 +94,37 @@ public final class Payment extends AbstractModel {
         return declineCode;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Payment)) {
+            return false;
+        }
+        Payment other = (Payment) o;
+        return Objects.equals(processor, other.processor)
+                && Objects.equals(wasAuthorized, other.wasAuthorized)
+                && Objects.equals(declineCode, other.declineCode);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(processor, wasAuthorized, declineCode);
+            hash = h;
+        }
+        return h;
+    }
+
+    void addTo(Fingerprinter fingerprinter) {
+        fingerprinter
+                .add(processor)
+                .add(wasAuthorized)
+                .add(declineCode);
+    }
+
     /**
      * Enumeration of payment processors
      */
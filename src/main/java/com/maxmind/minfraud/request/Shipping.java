@@ -2,6 +2,8 @@ package com.maxmind.minfraud.request;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.Objects;
+
 /**
  * The shipping information for the transaction.
  */
@@ -44,6 +46,21 @@ public final class Shipping extends AbstractLocation {
         return deliverySpeed;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && deliverySpeed == ((Shipping) o).deliverySpeed;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Objects.hashCode(deliverySpeed);
+    }
+
+    @Override
+    void addTo(Fingerprinter fingerprinter) {
+        super.addTo(fingerprinter);
+        fingerprinter.add(deliverySpeed);
+    }
 
     /**
      * Enumerated delivery speeds.
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.maxmind.minfraud.AbstractModel;
 
 import java.math.BigDecimal;
+import java.util.Objects;
 
 /**
  * An item in the shopping cart.
@@ -14,6 +15,8 @@ public final class ShoppingCartItem extends AbstractModel {
     private final Integer quantity;
     private final BigDecimal price;
 
+    private int hash;
+
     private ShoppingCartItem(ShoppingCartItem.Builder builder) {
         category = builder.category;
         itemId = builder.itemId;
@@ -122,5 +125,37 @@ public final class ShoppingCartItem extends AbstractModel {
     public BigDecimal getPrice() {
         return price;
     }
-}
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ShoppingCartItem)) {
+            return false;
+        }
+        ShoppingCartItem other = (ShoppingCartItem) o;
+        return Objects.equals(category, other.category)
+                && Objects.equals(itemId, other.itemId)
+                && Objects.equals(quantity, other.quantity)
+                && Objects.equals(price, other.price);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(category, itemId, quantity, price);
+            hash = h;
+        }
+        return h;
+    }
+
+    void addTo(Fingerprinter fingerprinter) {
+        fingerprinter
+                .add(category)
+                .add(itemId)
+                .add(quantity)
+                .add(price);
+    }
+}
@@ -5,6 +5,7 @@ import com.maxmind.minfraud.AbstractModel;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Class representing the transaction to be sent to minFraud.
@@ -22,6 +23,9 @@ public final class Transaction extends AbstractModel {
     private final Shipping shipping;
     private final List<ShoppingCartItem> shoppingCart;
 
+    private int hash;
+    private volatile Fingerprint fingerprint;
+
     private Transaction(Transaction.Builder builder) {
         account = builder.account;
         billing = builder.billing;
@@ -33,7 +37,9 @@ public final class Transaction extends AbstractModel {
         order = builder.order;
         payment = builder.payment;
         shipping = builder.shipping;
-        shoppingCart = builder.shoppingCart;
+        // Copied so that adding items to the builder afterwards does not
+        // change this transaction.
+        shoppingCart = new ArrayList<>(builder.shoppingCart);
     }
 
     /**
@@ -253,4 +259,92 @@ public final class Transaction extends AbstractModel {
     public List<ShoppingCartItem> getShoppingCart() {
         return new ArrayList<>(shoppingCart);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Transaction)) {
+            return false;
+        }
+        Transaction other = (Transaction) o;
+        return hashCode() == other.hashCode()
+                && Objects.equals(account, other.account)
+                && Objects.equals(billing, other.billing)
+                && Objects.equals(creditCard, other.creditCard)
+                && Objects.equals(customInputs, other.customInputs)
+                && Objects.equals(device, other.device)
+                && Objects.equals(email, other.email)
+                && Objects.equals(event, other.event)
+                && Objects.equals(order, other.order)
+                && Objects.equals(payment, other.payment)
+                && Objects.equals(shipping, other.shipping)
+                && Objects.equals(shoppingCart, other.shoppingCart);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(account, billing, creditCard, customInputs, device, email, event,
+                    order, payment, shipping, shoppingCart);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * The fingerprint is computed from the field values of this transaction
+     * and the models it contains, without serializing them. It is computed
+     * once and then cached.
+     *
+     * @return A 128-bit hash of this transaction. Equal transactions have
+     * equal fingerprints.
+     */
+    public Fingerprint fingerprint() {
+        Fingerprint f = fingerprint;
+        if (f == null) {
+            Fingerprinter fingerprinter = new Fingerprinter();
+            if (fingerprinter.present(account)) {
+                account.addTo(fingerprinter);
+            }
+            if (fingerprinter.present(billing)) {
+                billing.addTo(fingerprinter);
+            }
+            if (fingerprinter.present(creditCard)) {
+                creditCard.addTo(fingerprinter);
+            }
+            if (fingerprinter.present(customInputs)) {
+                customInputs.addTo(fingerprinter);
+            }
+            if (fingerprinter.present(device)) {
+                device.addTo(fingerprinter);
+            }
+            if (fingerprinter.present(email)) {
+                email.addTo(fingerprinter);
+            }
+            if (fingerprinter.present(event)) {
+                event.addTo(fingerprinter);
+            }
+            if (fingerprinter.present(order)) {
+                order.addTo(fingerprinter);
+            }
+            if (fingerprinter.present(payment)) {
+                payment.addTo(fingerprinter);
+            }
+            if (fingerprinter.present(shipping)) {
+                shipping.addTo(fingerprinter);
+            }
+            fingerprinter.add(shoppingCart.size());
+            for (ShoppingCartItem item : shoppingCart) {
+                if (fingerprinter.present(item)) {
+                    item.addTo(fingerprinter);
+                }
+            }
+            f = fingerprinter.finish();
+            fingerprint = f;
+        }
+        return f;
+    }
 }
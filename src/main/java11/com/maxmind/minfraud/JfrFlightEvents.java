@@ -0,0 +1,48 @@
+package com.maxmind.minfraud;
+
+import org.apache.http.conn.routing.HttpRoute;
+
+/**
+ * The {@code FlightEvents} of a JVM that has the flight recorder. This class
+ * is only loaded by name, from {@code FlightEvents}.
+ */
+final class JfrFlightEvents extends FlightEvents {
+    // Only used to check whether the events are enabled.
+    private final MinFraudRequestEvent requestProbe = new MinFraudRequestEvent();
+    private final MinFraudPoolWaitEvent poolWaitProbe = new MinFraudPoolWaitEvent();
+
+    @Override
+    boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    Object beginRequest() {
+        if (!requestProbe.isEnabled()) {
+            return null;
+        }
+        MinFraudRequestEvent event = new MinFraudRequestEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitRequest(Object event, RequestTimeline timeline) {
+        ((MinFraudRequestEvent) event).commit(timeline);
+    }
+
+    @Override
+    Object beginPoolWait() {
+        if (!poolWaitProbe.isEnabled()) {
+            return null;
+        }
+        MinFraudPoolWaitEvent event = new MinFraudPoolWaitEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void commitPoolWait(Object event, HttpRoute route) {
+        ((MinFraudPoolWaitEvent) event).commit(route);
+    }
+}
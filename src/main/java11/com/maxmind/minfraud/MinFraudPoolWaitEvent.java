@@ -0,0 +1,49 @@
+package com.maxmind.minfraud;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+import org.apache.http.conn.routing.HttpRoute;
+
+/**
+ * A JDK Flight Recorder event for a wait for a connection from the pool of
+ * the {@code APACHE_HTTP_CLIENT} transport, named
+ * {@code com.maxmind.minfraud.MinFraudPoolWait}. The event is disabled by
+ * default, and once enabled only records waits of 1 ms or more unless its
+ * threshold is changed. It is recorded by clients with a
+ * {@code RequestListener}, as only they hook into the connection pool.
+ * <p>
+ * This class needs Java 11 or later, or a Java 8 build with the flight
+ * recorder. The client only loads it on such a JVM.
+ * </p>
+ */
+@Name("com.maxmind.minfraud.MinFraudPoolWait")
+@Label("minFraud Connection Pool Wait")
+@Category("minFraud")
+@Description("A wait for a connection to the minFraud web service")
+@Enabled(false)
+@Threshold("1 ms")
+public final class MinFraudPoolWaitEvent extends Event {
+    @Label("Host")
+    String host;
+
+    @Label("Port")
+    int port;
+
+    MinFraudPoolWaitEvent() {
+    }
+
+    void commit(HttpRoute route) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        host = route.getTargetHost().getHostName();
+        port = route.getTargetHost().getPort();
+        commit();
+    }
+}
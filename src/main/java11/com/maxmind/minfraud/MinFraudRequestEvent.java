@@ -0,0 +1,101 @@
+package com.maxmind.minfraud;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A JDK Flight Recorder event for each minFraud call, named
+ * {@code com.maxmind.minfraud.MinFraudRequest}. The event is disabled by
+ * default. Enable it in a recording's settings, or with
+ * {@code Recording.enable("com.maxmind.minfraud.MinFraudRequest")}. The
+ * event's duration is the whole call, and its fields split it into
+ * serializing the transaction, the network round trip, and parsing the
+ * response.
+ * <p>
+ * This class needs Java 11 or later, or a Java 8 build with the flight
+ * recorder. The client only loads it on such a JVM.
+ * </p>
+ */
+@Name("com.maxmind.minfraud.MinFraudRequest")
+@Label("minFraud Request")
+@Category("minFraud")
+@Description("A call to the minFraud web service")
+@Enabled(false)
+@StackTrace(false)
+public final class MinFraudRequestEvent extends Event {
+    @Label("Service")
+    String service;
+
+    @Label("Outcome")
+    @Description("2xx, or the exception the call threw")
+    String outcome;
+
+    @Label("Status")
+    @Description("The HTTP status of the response, or -1 if none was received")
+    int status;
+
+    @Label("Bytes Out")
+    @DataAmount
+    long bytesOut;
+
+    @Label("Bytes In")
+    @DataAmount
+    long bytesIn;
+
+    @Label("Serialize Duration")
+    @Timespan
+    long serializeDuration;
+
+    @Label("Network Duration")
+    @Description("From sending the request until its response was read")
+    @Timespan
+    long networkDuration;
+
+    @Label("Parse Duration")
+    @Timespan
+    long parseDuration;
+
+    @Label("Retries")
+    @Description("The number of times the request was retried on another endpoint")
+    int retries;
+
+    MinFraudRequestEvent() {
+    }
+
+    void commit(RequestTimeline timeline) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        service = timeline.getService();
+        Exception exception = timeline.getException();
+        outcome = exception == null ? Metrics.SUCCESS : WebServiceClient.outcomeOf(exception);
+        status = timeline.getStatus();
+        bytesOut = timeline.getRequestBytes();
+        bytesIn = timeline.getResponseBytes();
+        long serializeStart = timeline.getNanos(RequestTimeline.Phase.SERIALIZE_START);
+        long serializeEnd = timeline.getNanos(RequestTimeline.Phase.SERIALIZE_END);
+        long bodyRead = timeline.getNanos(RequestTimeline.Phase.BODY_READ);
+        long parseDone = timeline.getNanos(RequestTimeline.Phase.PARSE_DONE);
+        serializeDuration = serializeEnd < 0 ? 0 : serializeEnd - serializeStart;
+        // A call that got no response spent the rest of its time on the
+        // network, unless it never sent a request.
+        if (serializeEnd < 0) {
+            networkDuration = 0;
+        } else if (bodyRead < 0) {
+            networkDuration = timeline.getTotalNanos() - serializeEnd;
+        } else {
+            networkDuration = bodyRead - serializeEnd;
+        }
+        parseDuration = parseDone < 0 ? 0 : parseDone - bodyRead;
+        retries = timeline.getRetries();
+        commit();
+    }
+}
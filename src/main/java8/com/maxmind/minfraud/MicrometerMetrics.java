@@ -0,0 +1,165 @@
+package com.maxmind.minfraud;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * {@code MicrometerMetrics} reports the measurements of a
+ * {@code WebServiceClient} to a Micrometer {@code MeterRegistry}. It needs
+ * Java 8 and {@code io.micrometer:micrometer-core} on the class path, which
+ * this library does not depend on otherwise, and is in
+ * {@code src/main/java8}, compiled only when building on JDK 8 or later.
+ * <p>
+ * The meters are:
+ * </p>
+ * <ul>
+ * <li>{@code minfraud.client.requests}, a timer tagged with the
+ * {@code service} and the {@code outcome} of each call. Enable percentile
+ * histograms for it with a {@code MeterFilter} to get HDR histograms.</li>
+ * <li>{@code minfraud.client.request.bytes} and
+ * {@code minfraud.client.response.bytes}, distribution summaries of the
+ * body sizes tagged with the {@code service}.</li>
+ * <li>{@code minfraud.client.retries}, a counter tagged with the
+ * {@code service}.</li>
+ * <li>{@code minfraud.client.pool.leased}, {@code .available} and
+ * {@code .pending}, gauges of the connection pool.</li>
+ * <li>{@code minfraud.client.queries.remaining}, a gauge tagged with the
+ * {@code service}, and {@code minfraud.client.funds.remaining}. These are
+ * NaN until a response has been received.</li>
+ * </ul>
+ */
+public final class MicrometerMetrics implements Metrics {
+    private static final String[] SERVICES = {"score", "insights", "factors"};
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final Map<String, ServiceMeters> services;
+
+    /**
+     * @param registry The registry to report to.
+     */
+    public MicrometerMetrics(MeterRegistry registry) {
+        this(registry, Tags.empty());
+    }
+
+    /**
+     * @param registry The registry to report to.
+     * @param tags     Tags to add to every meter, for instance to tell
+     *                 several clients apart.
+     */
+    public MicrometerMetrics(MeterRegistry registry, Tags tags) {
+        if (registry == null) {
+            throw new IllegalArgumentException("registry must not be null");
+        }
+        this.registry = registry;
+        this.tags = tags == null ? Tags.empty() : tags;
+        Map<String, ServiceMeters> map = new HashMap<>();
+        for (String service : SERVICES) {
+            map.put(service, new ServiceMeters(service));
+        }
+        services = Collections.unmodifiableMap(map);
+    }
+
+    private final class ServiceMeters {
+        final String service;
+        final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+        final DistributionSummary requestBytes;
+        final DistributionSummary responseBytes;
+        final Counter retries;
+
+        ServiceMeters(String service) {
+            this.service = service;
+            Tags serviceTags = tags.and("service", service);
+            requestBytes = registry.summary("minfraud.client.request.bytes", serviceTags);
+            responseBytes = registry.summary("minfraud.client.response.bytes", serviceTags);
+            retries = registry.counter("minfraud.client.retries", serviceTags);
+        }
+
+        Timer timer(String outcome) {
+            Timer timer = timers.get(outcome);
+            if (timer == null) {
+                // The registry returns the same timer for the same tags, so
+                // a race here creates nothing twice.
+                timer = registry.timer("minfraud.client.requests",
+                        tags.and("service", service, "outcome", outcome));
+                timers.putIfAbsent(outcome, timer);
+            }
+            return timer;
+        }
+    }
+
+    private ServiceMeters meters(String service) {
+        ServiceMeters meters = services.get(service);
+        if (meters == null) {
+            throw new IllegalArgumentException("Unknown service: " + service);
+        }
+        return meters;
+    }
+
+    @Override
+    public void bindTo(WebServiceClient client) {
+        registry.gauge("minfraud.client.pool.leased", tags, client, new ToDoubleFunction<WebServiceClient>() {
+            @Override
+            public double applyAsDouble(WebServiceClient c) {
+                return c.getConnectionPoolStats().getLeased();
+            }
+        });
+        registry.gauge("minfraud.client.pool.available", tags, client, new ToDoubleFunction<WebServiceClient>() {
+            @Override
+            public double applyAsDouble(WebServiceClient c) {
+                return c.getConnectionPoolStats().getAvailable();
+            }
+        });
+        registry.gauge("minfraud.client.pool.pending", tags, client, new ToDoubleFunction<WebServiceClient>() {
+            @Override
+            public double applyAsDouble(WebServiceClient c) {
+                return c.getConnectionPoolStats().getPending();
+            }
+        });
+        for (final String service : SERVICES) {
+            registry.gauge("minfraud.client.queries.remaining", tags.and("service", service), client,
+                    new ToDoubleFunction<WebServiceClient>() {
+                        @Override
+                        public double applyAsDouble(WebServiceClient c) {
+                            Integer remaining = c.getQueriesRemaining(service);
+                            return remaining == null ? Double.NaN : remaining;
+                        }
+                    });
+        }
+        registry.gauge("minfraud.client.funds.remaining", tags, client, new ToDoubleFunction<WebServiceClient>() {
+            @Override
+            public double applyAsDouble(WebServiceClient c) {
+                Double remaining = c.getFundsRemaining();
+                return remaining == null ? Double.NaN : remaining;
+            }
+        });
+    }
+
+    @Override
+    public void recordCall(String service, String outcome, long nanos) {
+        meters(service).timer(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordBytes(String service, long requestBytes, long responseBytes) {
+        ServiceMeters meters = meters(service);
+        meters.requestBytes.record(requestBytes);
+        meters.responseBytes.record(responseBytes);
+    }
+
+    @Override
+    public void recordRetry(String service) {
+        meters(service).retries.increment();
+    }
+}
@@ -0,0 +1,93 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the hot paths do not allocate more than they did when their
+ * budgets were set. The budgets leave some room over the measured
+ * allocation, so that only real regressions fail. When an optimization
+ * lowers the allocation, lower the budget with it.
+ */
+public class AllocationBudgetTest {
+    // Measured on Java 17: 4008, 51500 and 42000 bytes. The client calls
+    // include building the HttpPost and looking the body up in the replay.
+    private static final long TO_JSON_BUDGET = 6 * 1024;
+    private static final long INSIGHTS_BUDGET = 80 * 1024;
+    private static final long SCORE_BUDGET = 64 * 1024;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testToJson() throws Exception {
+        final Transaction transaction = fullTransaction();
+        AllocationMeter.assertWithinBudget("Transaction.toJson", TO_JSON_BUDGET,
+                new AllocationMeter.Operation() {
+                    @Override
+                    public void run() throws Exception {
+                        transaction.toJson();
+                    }
+                });
+    }
+
+    @Test
+    public void testInsights() throws Exception {
+        // The Insights response is the largest the client parses, so this
+        // measures the parsing through the client's own reader.
+        final Transaction transaction = fullTransaction();
+        try (final WebServiceClient client = replayClient("insights", transaction,
+                readJsonFile("insights-response"))) {
+            assertEquals(Integer.valueOf(1000), client.insights(transaction).getQueriesRemaining());
+            AllocationMeter.assertWithinBudget("WebServiceClient.insights", INSIGHTS_BUDGET,
+                    new AllocationMeter.Operation() {
+                        @Override
+                        public void run() throws Exception {
+                            client.insights(transaction);
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void testScore() throws Exception {
+        // The replay serves the response from memory, so the call is
+        // measured without a network round trip.
+        final Transaction transaction = fullTransaction();
+        try (final WebServiceClient client = replayClient("score", transaction,
+                readJsonFile("score-response"))) {
+            assertEquals(Double.valueOf(0.01), client.score(transaction).getRiskScore());
+            AllocationMeter.assertWithinBudget("WebServiceClient.score", SCORE_BUDGET,
+                    new AllocationMeter.Operation() {
+                        @Override
+                        public void run() throws Exception {
+                            client.score(transaction);
+                        }
+                    });
+        }
+    }
+
+    private WebServiceClient replayClient(String service, Transaction transaction, String response)
+            throws Exception {
+        File file = folder.newFile();
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            recorder.record(service, transaction.toJson(), 200,
+                    response.getBytes(StandardCharsets.UTF_8), 0);
+        }
+        return new WebServiceClient.Builder(6, "0123456789")
+                .host("localhost")
+                .port(1)
+                .disableHttps()
+                .replay(new TrafficReplay.Builder(file).latencyScale(0).build())
+                .build();
+    }
+}
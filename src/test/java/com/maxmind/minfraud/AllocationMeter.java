@@ -0,0 +1,70 @@
+package com.maxmind.minfraud;
+
+import org.junit.Assume;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures how many bytes an operation allocates on the calling thread,
+ * using {@code com.sun.management.ThreadMXBean.getThreadAllocatedBytes}.
+ * The operation is first run enough times for the JIT to compile it, so
+ * that the measurement reflects steady state, including escape analysis.
+ * Tests using it are skipped on JVMs that cannot measure allocation.
+ */
+final class AllocationMeter {
+    private static final int WARM_UP = 5000;
+    private static final int MEASURED = 2000;
+
+    /**
+     * An operation to measure.
+     */
+    interface Operation {
+        void run() throws Exception;
+    }
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * @return The average number of bytes the operation allocates.
+     */
+    static long bytesPerOperation(Operation operation) throws Exception {
+        com.sun.management.ThreadMXBean threads = threadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARM_UP; i++) {
+            operation.run();
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED; i++) {
+            operation.run();
+        }
+        long after = threads.getThreadAllocatedBytes(thread);
+        return (after - before) / MEASURED;
+    }
+
+    /**
+     * Fails when the operation allocates more than its budget, with a
+     * message giving both.
+     */
+    static void assertWithinBudget(String name, long budget, Operation operation) throws Exception {
+        long bytes = bytesPerOperation(operation);
+        assertTrue(name + " allocated " + bytes + " bytes per operation, over its budget of "
+                + budget + " bytes", bytes <= budget);
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("This JVM cannot measure allocation",
+                threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        Assume.assumeTrue("This JVM cannot measure allocation",
+                sunThreads.isThreadAllocatedMemorySupported());
+        if (!sunThreads.isThreadAllocatedMemoryEnabled()) {
+            sunThreads.setThreadAllocatedMemoryEnabled(true);
+        }
+        return sunThreads;
+    }
+}
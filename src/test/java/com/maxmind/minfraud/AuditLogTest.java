@@ -0,0 +1,184 @@
+package com.maxmind.minfraud;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maxmind.minfraud.request.Device;
+import com.maxmind.minfraud.request.Event;
+import com.maxmind.minfraud.request.Transaction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class AuditLogTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCallsAreLogged() throws Exception {
+        File directory = new File(folder.getRoot(), "audit");
+        AuditPolicy policy = new AuditPolicy.Builder(directory).build();
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().auditPolicy(policy).build()) {
+            client.score(transaction("tx-1"));
+            client.score(transaction("tx-2"));
+        }
+
+        List<JsonNode> lines = read(new File(directory, "minfraud-audit.log"));
+        assertEquals(2, lines.size());
+        JsonNode first = lines.get(0);
+        assertEquals("score", first.get("service").asText());
+        assertEquals("tx-1", first.get("transaction_id").asText());
+        assertEquals("2xx", first.get("outcome").asText());
+        assertEquals(0.01, first.get("risk_score").asDouble(), 0);
+        assertNotNull(first.get("id"));
+        assertTrue(first.get("latency_ms").asDouble() > 0);
+        assertTrue(first.get("timestamp").asText().endsWith("Z"));
+        assertNull(first.get("request"));
+        assertNull(first.get("response"));
+        assertEquals("tx-2", lines.get(1).get("transaction_id").asText());
+    }
+
+    @Test
+    public void testFailuresAreLogged() throws Exception {
+        StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+        WebServiceClient.Builder builder = server.clientBuilder().connectTimeout(500);
+        server.close();
+        AuditPolicy policy = new AuditPolicy.Builder(folder.getRoot()).build();
+        try (WebServiceClient client = builder.auditPolicy(policy).build()) {
+            client.score(transaction("tx-1"));
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            // expected
+        }
+
+        List<JsonNode> lines = read(new File(folder.getRoot(), "minfraud-audit.log"));
+        assertEquals(1, lines.size());
+        assertEquals("IOException", lines.get(0).get("outcome").asText());
+        assertNotNull(lines.get(0).get("error"));
+        assertNull(lines.get(0).get("risk_score"));
+    }
+
+    @Test
+    public void testFallbackIsLogged() throws Exception {
+        StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+        WebServiceClient.Builder builder = server.clientBuilder().connectTimeout(500)
+                .fallback(new StaticFallback.Builder(20).build());
+        server.close();
+        AuditPolicy policy = new AuditPolicy.Builder(folder.getRoot()).build();
+        try (WebServiceClient client = builder.auditPolicy(policy).build()) {
+            client.score(transaction("tx-1"));
+        }
+
+        List<JsonNode> lines = read(new File(folder.getRoot(), "minfraud-audit.log"));
+        assertEquals(1, lines.size());
+        assertEquals("fallback", lines.get(0).get("outcome").asText());
+        assertNotNull(lines.get(0).get("error"));
+        assertEquals(20, lines.get(0).get("risk_score").asDouble(), 0);
+    }
+
+    @Test
+    public void testSampledBodies() throws Exception {
+        AuditPolicy policy = new AuditPolicy.Builder(folder.getRoot()).bodySampleRate(1).build();
+        Transaction transaction = fullTransaction();
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().auditPolicy(policy).build()) {
+            client.score(transaction);
+        }
+
+        JsonNode line = read(new File(folder.getRoot(), "minfraud-audit.log")).get(0);
+        assertEquals(mapper.readTree(transaction.toJson()), line.get("request"));
+        assertEquals(0.01, line.get("response").get("risk_score").asDouble(), 0);
+    }
+
+    @Test
+    public void testRotation() throws Exception {
+        AuditPolicy policy = new AuditPolicy.Builder(folder.getRoot())
+                .fileName("audit.log")
+                .maxFileBytes(1000)
+                .maxFiles(2)
+                .build();
+        AuditLog log = new AuditLog(policy);
+        for (int i = 0; i < 100; i++) {
+            log.offer("score", transaction("tx-" + i), "IOException", null, new IOException("refused"), 1000000);
+        }
+        log.close();
+
+        File current = new File(folder.getRoot(), "audit.log");
+        File first = new File(folder.getRoot(), "audit.log.1");
+        File second = new File(folder.getRoot(), "audit.log.2");
+        assertTrue(current.exists());
+        assertTrue(first.exists());
+        assertTrue(second.exists());
+        assertFalse(new File(folder.getRoot(), "audit.log.3").exists());
+        for (File file : new File[]{current, first, second}) {
+            assertTrue(file.length() <= 1000);
+        }
+        // The newest entries are in the current file, and the older ones in
+        // the rotated files in order.
+        List<JsonNode> lines = read(current);
+        assertEquals("tx-99", lines.get(lines.size() - 1).get("transaction_id").asText());
+        List<JsonNode> rotated = read(first);
+        int next = Integer.parseInt(lines.get(0).get("transaction_id").asText().substring(3));
+        assertEquals("tx-" + (next - 1),
+                rotated.get(rotated.size() - 1).get("transaction_id").asText());
+        assertEquals(0, log.dropped());
+    }
+
+    @Test
+    public void testFullBufferDrops() throws Exception {
+        AuditPolicy policy = new AuditPolicy.Builder(folder.getRoot()).capacity(4).build();
+        AuditLog log = new AuditLog(policy);
+        int offered = 10000;
+        for (int i = 0; i < offered; i++) {
+            log.offer("score", transaction("tx-" + i), "IOException", null, new IOException("refused"), 1000000);
+        }
+        log.close();
+
+        int written = read(new File(folder.getRoot(), "minfraud-audit.log")).size();
+        assertTrue("Nothing was dropped", log.dropped() > 0);
+        assertEquals(offered, written + log.dropped());
+    }
+
+    @Test
+    public void testWriteFailureIsThrownOnClose() throws Exception {
+        // The directory cannot be created where a file is.
+        File file = folder.newFile();
+        AuditLog log = new AuditLog(new AuditPolicy.Builder(file).build());
+        log.offer("score", transaction("tx-1"), "IOException", null, new IOException("refused"), 1000000);
+        try {
+            log.close();
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(1, log.dropped());
+    }
+
+    private List<JsonNode> read(File file) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            lines.add(mapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static Transaction transaction(String id) throws Exception {
+        return new Transaction.Builder(new Device.Builder(InetAddress.getByName("1.1.1.1")).build())
+                .event(new Event.Builder().transactionId(id).build())
+                .build();
+    }
+}
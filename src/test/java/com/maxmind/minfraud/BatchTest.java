@@ -0,0 +1,136 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Device;
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class BatchTest {
+
+    @Test
+    public void testResultsAreInInputOrder() throws Exception {
+        // Random latencies make the calls complete out of order.
+        StubServer.Latency random = new StubServer.Latency() {
+            @Override
+            public long millis(int connection, int inFlight) {
+                return ThreadLocalRandom.current().nextInt(20);
+            }
+        };
+        List<Transaction> transactions = transactions(100);
+        try (StubServer server = new StubServer(readJsonFile("score-response"), random);
+             WebServiceClient client = server.clientBuilder().maxConnections(8).build()) {
+            BatchResult<ScoreResponse> batch = client.scoreAll(transactions);
+
+            assertEquals(100, batch.getResults().size());
+            assertEquals(100, batch.getSuccesses());
+            assertEquals(0, batch.getFailures());
+            for (int i = 0; i < transactions.size(); i++) {
+                Result<ScoreResponse> result = batch.getResults().get(i);
+                assertSame(transactions.get(i), result.getTransaction());
+                assertEquals(Double.valueOf(0.01), result.getResponse().getRiskScore());
+            }
+            assertTrue(batch.getElapsedMillis() > 0);
+            assertTrue(batch.getThroughput() > 0);
+        }
+    }
+
+    @Test
+    public void testFailedCallsDoNotFailTheBatch() throws Exception {
+        // Every fifth request takes longer than the read timeout.
+        final AtomicInteger count = new AtomicInteger();
+        StubServer.Latency sometimesSlow = new StubServer.Latency() {
+            @Override
+            public long millis(int connection, int inFlight) {
+                return count.incrementAndGet() % 5 == 0 ? 1000 : 0;
+            }
+        };
+        try (StubServer server = new StubServer(readJsonFile("score-response"), sometimesSlow);
+             WebServiceClient client = server.clientBuilder().readTimeout(200).build()) {
+            BatchResult<ScoreResponse> batch = client.scoreAll(transactions(20));
+
+            assertEquals(20, batch.getResults().size());
+            assertEquals(4, batch.getFailures());
+            assertEquals(16, batch.getSuccesses());
+            for (Result<ScoreResponse> result : batch.getResults()) {
+                assertEquals(result.isSuccess(), result.getResponse() != null);
+                assertEquals(result.isSuccess(), result.getException() == null);
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyBatch() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().build()) {
+            BatchResult<ScoreResponse> batch = client.scoreAll(Collections.<Transaction>emptyList());
+            assertTrue(batch.getResults().isEmpty());
+            assertEquals(0, server.requests());
+        }
+    }
+
+    @Test
+    public void testInFlightStaysUnderConnectionLimit() throws Exception {
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        StubServer.Latency latency = new StubServer.Latency() {
+            @Override
+            public long millis(int connection, int inFlight) {
+                while (true) {
+                    int max = maxInFlight.get();
+                    if (inFlight <= max || maxInFlight.compareAndSet(max, inFlight)) {
+                        return 20;
+                    }
+                }
+            }
+        };
+        try (StubServer server = new StubServer(readJsonFile("score-response"), latency);
+             WebServiceClient client = server.clientBuilder().maxConnections(4).build()) {
+            BatchResult<ScoreResponse> batch = client.scoreAll(transactions(40));
+            assertEquals(40, batch.getSuccesses());
+            assertEquals(4, maxInFlight.get());
+        }
+    }
+
+    // A rough benchmark against a naive loop. With a 10 ms service time,
+    // the loop is bound by latency, while the batch keeps eight calls in
+    // flight.
+    @Test
+    public void testFasterThanSequentialLoop() throws Exception {
+        List<Transaction> transactions = transactions(200);
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(10));
+             WebServiceClient client = server.clientBuilder().maxConnections(8).build()) {
+            client.warmUp(8);
+
+            long start = System.nanoTime();
+            for (Transaction transaction : transactions) {
+                client.score(transaction);
+            }
+            double sequential = transactions.size() * 1e9 / (System.nanoTime() - start);
+
+            BatchResult<ScoreResponse> batch = client.scoreAll(transactions);
+            assertEquals(200, batch.getSuccesses());
+
+            String results = "sequential=" + (int) sequential + "/s, batch=" + (int) batch.getThroughput() + "/s";
+            assertTrue(results, batch.getThroughput() > sequential * 3);
+        }
+    }
+
+    private static List<Transaction> transactions(int count) throws Exception {
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            transactions.add(new Transaction.Builder(
+                    new Device.Builder(InetAddress.getByName("1.1.1." + (i % 250 + 1))).build()
+            ).build());
+        }
+        return transactions;
+    }
+}
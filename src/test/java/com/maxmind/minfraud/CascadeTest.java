@@ -0,0 +1,144 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.DeadlineExceededException;
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.FactorsResponse;
+import com.maxmind.minfraud.response.InsightsResponse;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class CascadeTest {
+    private static final String SCORE = "/minfraud/v2.0/score";
+    private static final String INSIGHTS = "/minfraud/v2.0/insights";
+    private static final String FACTORS = "/minfraud/v2.0/factors";
+
+    @Test
+    public void testLowRiskNotEscalated() throws Exception {
+        try (StubServer server = stub(0.5, "accept");
+             WebServiceClient client = server.clientBuilder().build()) {
+            ScoreResponse response = client.evaluate(fullTransaction(), new CascadePolicy.Builder().build());
+
+            assertFalse(response instanceof InsightsResponse);
+            assertEquals(Double.valueOf(0.5), response.getRiskScore());
+            assertEquals(1, server.requests(SCORE));
+            assertEquals(0, server.requests(INSIGHTS));
+        }
+    }
+
+    @Test
+    public void testHighRiskEscalatedToInsights() throws Exception {
+        try (StubServer server = stub(25, "accept");
+             WebServiceClient client = server.clientBuilder().build()) {
+            Transaction transaction = fullTransaction();
+            ScoreResponse response = client.evaluate(transaction, new CascadePolicy.Builder()
+                    .riskScoreThreshold(20)
+                    .build());
+
+            assertTrue(response instanceof InsightsResponse);
+            assertEquals(1, server.requests(SCORE));
+            assertEquals(1, server.requests(INSIGHTS));
+            // Both requests carry the same body, serialized once.
+            assertEquals(transaction.toJson(), server.lastRequestBody(SCORE));
+            assertEquals(server.lastRequestBody(SCORE), server.lastRequestBody(INSIGHTS));
+        }
+    }
+
+    @Test
+    public void testEscalatedToFactors() throws Exception {
+        try (StubServer server = stub(25, "accept");
+             WebServiceClient client = server.clientBuilder().build()) {
+            ScoreResponse response = client.evaluate(fullTransaction(), new CascadePolicy.Builder()
+                    .escalateTo(CascadePolicy.Escalation.FACTORS)
+                    .build());
+
+            assertTrue(response instanceof FactorsResponse);
+            assertEquals(1, server.requests(FACTORS));
+            assertEquals(0, server.requests(INSIGHTS));
+        }
+    }
+
+    @Test
+    public void testDispositionEscalates() throws Exception {
+        try (StubServer server = stub(0.5, "manual_review");
+             WebServiceClient client = server.clientBuilder().build()) {
+            CascadePolicy policy = new CascadePolicy.Builder()
+                    .escalateOnAction("manual_review")
+                    .build();
+            assertTrue(client.evaluate(fullTransaction(), policy) instanceof InsightsResponse);
+
+            CascadePolicy other = new CascadePolicy.Builder()
+                    .escalateOnAction("reject")
+                    .build();
+            assertFalse(client.evaluate(fullTransaction(), other) instanceof InsightsResponse);
+            assertEquals(2, server.requests(SCORE));
+            assertEquals(1, server.requests(INSIGHTS));
+        }
+    }
+
+    @Test
+    public void testDeadlineCoversBothCalls() throws Exception {
+        try (StubServer server = stub(25, "accept");
+             WebServiceClient client = server.clientBuilder().build()) {
+            client.score(fullTransaction());
+            // The Score call fits in the deadline, but the Insights call
+            // cannot, so the deadline must carry over to it.
+            server.delay(INSIGHTS, 10000);
+            try {
+                client.evaluate(fullTransaction(), new CascadePolicy.Builder().build(),
+                        Deadline.after(1, TimeUnit.SECONDS));
+                fail("Expected a DeadlineExceededException");
+            } catch (DeadlineExceededException e) {
+                assertEquals(2, server.requests(SCORE));
+                assertEquals(1, server.requests(INSIGHTS));
+            }
+        }
+    }
+
+    @Test
+    public void testFallbackScoreNotEscalated() throws Exception {
+        try (StubServer server = stub(25, "accept")) {
+            server.delay(SCORE, 1000);
+            try (WebServiceClient client = server.clientBuilder()
+                    .readTimeout(50)
+                    .circuitBreakerPolicy(new CircuitBreakerPolicy.Builder()
+                            .minimumCalls(2)
+                            .openDuration(60000)
+                            .build())
+                    .fallback(new StaticFallback.Builder(20).build())
+                    .build()) {
+                // These time out and open the breaker.
+                client.score(fullTransaction());
+                client.score(fullTransaction());
+
+                ScoreResponse response = client.evaluate(fullTransaction(), new CascadePolicy.Builder()
+                        .riskScoreThreshold(10)
+                        .build());
+
+                assertFalse(response instanceof InsightsResponse);
+                assertEquals(StaticFallback.REASON, response.getDisposition().getReason());
+                assertEquals(2, server.requests(SCORE));
+                assertEquals(0, server.requests(INSIGHTS));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThresholdOutOfRange() {
+        new CascadePolicy.Builder().riskScoreThreshold(101);
+    }
+
+    private static StubServer stub(double riskScore, String action) throws Exception {
+        StubServer server = new StubServer(readJsonFile("insights-response"), StubServer.fixed(0));
+        server.body(SCORE, readJsonFile("score-response")
+                .replace("\"risk_score\": 0.01", "\"risk_score\": " + riskScore)
+                .replace("\"action\": \"reject\"", "\"action\": \"" + action + "\""));
+        server.body(FACTORS, readJsonFile("factors-response"));
+        return server;
+    }
+}
@@ -0,0 +1,165 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.CircuitOpenException;
+import com.maxmind.minfraud.response.FactorsResponse;
+import com.maxmind.minfraud.response.InsightsResponse;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+    private static final long MS = 1000000;
+
+    private static CircuitBreakerPolicy.Builder policy() {
+        return new CircuitBreakerPolicy.Builder()
+                .windowSize(10)
+                .minimumCalls(4)
+                .failureRateThreshold(50)
+                .openDuration(100)
+                .halfOpenCalls(2);
+    }
+
+    @Test
+    public void testOpensOnFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker(policy().build());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.record(MS, true);
+        }
+        // Not enough calls yet
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        breaker.record(MS, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testStaysClosedBelowThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(policy().build());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(breaker.tryAcquire());
+            // One failure in every five calls
+            breaker.record(MS, i % 5 == 0);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void testOpensOnSlowCallRate() {
+        CircuitBreaker breaker = new CircuitBreaker(policy()
+                .slowCallDuration(10)
+                .slowCallRateThreshold(75)
+                .build());
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquire();
+            breaker.record(20 * MS, false);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    public void testHalfOpenProbesClose() throws Exception {
+        CircuitBreaker breaker = open();
+        Thread.sleep(150);
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        // Only two probes are let through
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+
+        breaker.record(MS, false);
+        breaker.record(MS, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testHalfOpenProbesReopen() throws Exception {
+        CircuitBreaker breaker = open();
+        Thread.sleep(150);
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        breaker.record(MS, false);
+        breaker.record(MS, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    private static CircuitBreaker open() {
+        CircuitBreaker breaker = new CircuitBreaker(policy().build());
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquire();
+            breaker.record(MS, true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        return breaker;
+    }
+
+    @Test
+    public void testClientFailsFastWhenOpen() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(1000));
+             WebServiceClient client = server.clientBuilder()
+                     .readTimeout(50)
+                     .circuitBreakerPolicy(policy().openDuration(60000).build())
+                     .build()) {
+            for (int i = 0; i < 4; i++) {
+                try {
+                    client.score(fullTransaction());
+                    fail("Expected a read timeout");
+                } catch (SocketTimeoutException e) {
+                    // expected
+                }
+            }
+            int sent = server.requests();
+
+            long start = System.nanoTime();
+            try {
+                client.score(fullTransaction());
+                fail("Expected the circuit breaker to be open");
+            } catch (CircuitOpenException e) {
+                assertTrue((System.nanoTime() - start) < 50 * MS);
+            }
+            assertEquals(sent, server.requests());
+        }
+    }
+
+    @Test
+    public void testFallbackResponses() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(1000));
+             WebServiceClient client = server.clientBuilder()
+                     .readTimeout(50)
+                     .circuitBreakerPolicy(policy().openDuration(60000).build())
+                     .fallback(new StaticFallback.Builder(20).action("manual_review").build())
+                     .build()) {
+            for (int i = 0; i < 4; i++) {
+                ScoreResponse response = client.score(fullTransaction());
+                assertEquals(StaticFallback.REASON, response.getDisposition().getReason());
+            }
+
+            ScoreResponse score = client.score(fullTransaction());
+            assertEquals(Double.valueOf(20), score.getRiskScore());
+            assertEquals("manual_review", score.getDisposition().getAction());
+            assertEquals(StaticFallback.REASON, score.getDisposition().getReason());
+
+            InsightsResponse insights = client.insights(fullTransaction());
+            assertEquals(Double.valueOf(20), insights.getRiskScore());
+            assertNotNull(insights.getIpAddress());
+
+            FactorsResponse factors = client.factors(fullTransaction());
+            assertEquals(StaticFallback.REASON, factors.getDisposition().getReason());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFallbackRiskScore() {
+        new StaticFallback.Builder(100);
+    }
+}
@@ -0,0 +1,322 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.DeadlineExceededException;
+import com.maxmind.minfraud.exception.MinFraudException;
+import com.maxmind.minfraud.request.Device;
+import com.maxmind.minfraud.request.Event;
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class CoalescerTest {
+
+    @Test
+    public void testConcurrentCallsShareOneRequest() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(200));
+             WebServiceClient client = server.clientBuilder().coalesceIdenticalCalls().build()) {
+            List<ScoreResponse> responses = scoreConcurrently(client, 5, fullTransaction());
+
+            assertEquals(1, server.requests());
+            for (ScoreResponse response : responses) {
+                assertSame(responses.get(0), response);
+            }
+        }
+    }
+
+    @Test
+    public void testNotCoalescedByDefault() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(200));
+             WebServiceClient client = server.clientBuilder().build()) {
+            scoreConcurrently(client, 3, fullTransaction());
+            assertEquals(3, server.requests());
+        }
+    }
+
+    @Test
+    public void testKeyedByTransactionId() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(200));
+             WebServiceClient client = server.clientBuilder().coalesceIdenticalCalls().build()) {
+            // The bodies differ, but the transaction ID is the same.
+            List<Transaction> transactions = new ArrayList<>();
+            transactions.add(transaction("1.1.1.1", "txn1"));
+            transactions.add(transaction("1.1.1.2", "txn1"));
+            transactions.add(transaction("1.1.1.1", "txn2"));
+            scoreConcurrently(client, transactions);
+            assertEquals(2, server.requests());
+        }
+    }
+
+    @Test
+    public void testKeyedByBodyWithoutTransactionId() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(200));
+             WebServiceClient client = server.clientBuilder().coalesceIdenticalCalls().build()) {
+            List<Transaction> transactions = new ArrayList<>();
+            transactions.add(transaction("1.1.1.1", null));
+            transactions.add(transaction("1.1.1.1", null));
+            transactions.add(transaction("1.1.1.2", null));
+            scoreConcurrently(client, transactions);
+            assertEquals(2, server.requests());
+        }
+    }
+
+    @Test
+    public void testKeyedByService() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("insights-response"), StubServer.fixed(200));
+             final WebServiceClient client = server.clientBuilder().coalesceIdenticalCalls().build()) {
+            final Transaction transaction = fullTransaction();
+            ExecutorService executor = Executors.newCachedThreadPool();
+            try {
+                Future<?> score = executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        return client.score(transaction);
+                    }
+                });
+                Future<?> insights = executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        return client.insights(transaction);
+                    }
+                });
+                score.get();
+                insights.get();
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(2, server.requests());
+        }
+    }
+
+    @Test
+    public void testCompletedCallsAreNotReused() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().coalesceIdenticalCalls().build()) {
+            ScoreResponse first = client.score(fullTransaction());
+            ScoreResponse second = client.score(fullTransaction());
+            assertNotSame(first, second);
+            assertEquals(2, server.requests());
+        }
+    }
+
+    @Test
+    public void testFailureIsShared() throws Exception {
+        // A read timeout is an InterruptedIOException, but the waiters must
+        // not mistake it for the leader being interrupted.
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(1000));
+             WebServiceClient client = server.clientBuilder()
+                     .readTimeout(200)
+                     .coalesceIdenticalCalls()
+                     .build()) {
+            List<Future<ScoreResponse>> futures = submit(client, 3, fullTransaction());
+            Throwable first = null;
+            for (Future<ScoreResponse> future : futures) {
+                try {
+                    future.get();
+                    fail("Expected the call to time out");
+                } catch (java.util.concurrent.ExecutionException e) {
+                    if (first == null) {
+                        first = e.getCause();
+                    }
+                    assertSame(first, e.getCause());
+                }
+            }
+            assertEquals(1, server.requests());
+        }
+    }
+
+    @Test
+    public void testWaiterDeadline() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(500));
+             final WebServiceClient client = server.clientBuilder().coalesceIdenticalCalls().build()) {
+            List<Future<ScoreResponse>> leader = submit(client, 1, fullTransaction());
+            Thread.sleep(100);
+            try {
+                client.score(fullTransaction(), Deadline.after(100, TimeUnit.MILLISECONDS));
+                fail("Expected a DeadlineExceededException");
+            } catch (DeadlineExceededException e) {
+                // expected
+            }
+            // The leader is not affected.
+            assertEquals(Double.valueOf(0.01), leader.get(0).get().getRiskScore());
+            assertEquals(1, server.requests());
+        }
+    }
+
+    @Test
+    public void testInterruptedWaiter() throws Exception {
+        final Coalescer coalescer = new Coalescer();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            Future<String> leader = executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return coalescer.call("key", null, new Coalescer.Call<String>() {
+                        @Override
+                        public String call() throws IOException {
+                            started.countDown();
+                            await(release);
+                            return "response";
+                        }
+                    });
+                }
+            });
+            started.await();
+            Future<String> waiter = executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return coalescer.call("key", null, unexpectedCall());
+                }
+            });
+            Thread.sleep(50);
+            waiter.cancel(true);
+            release.countDown();
+            assertEquals("response", leader.get());
+            assertEquals(0, coalescer.inFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaiterTakesOverFromInterruptedLeader() throws Exception {
+        final Coalescer coalescer = new Coalescer();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            Future<String> leader = executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return coalescer.call("key", null, new Coalescer.Call<String>() {
+                        @Override
+                        public String call() throws IOException {
+                            calls.incrementAndGet();
+                            started.countDown();
+                            await(release);
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("interrupted");
+                        }
+                    });
+                }
+            });
+            started.await();
+            Future<String> waiter = executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return coalescer.call("key", null, new Coalescer.Call<String>() {
+                        @Override
+                        public String call() {
+                            calls.incrementAndGet();
+                            return "response";
+                        }
+                    });
+                }
+            });
+            Thread.sleep(50);
+            release.countDown();
+
+            try {
+                leader.get();
+                fail("Expected the leader to be interrupted");
+            } catch (java.util.concurrent.ExecutionException e) {
+                assertTrue(e.getCause() instanceof InterruptedIOException);
+            }
+            assertEquals("response", waiter.get());
+            assertEquals(2, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws InterruptedIOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static Coalescer.Call<String> unexpectedCall() {
+        return new Coalescer.Call<String>() {
+            @Override
+            public String call() throws MinFraudException {
+                throw new MinFraudException("A waiter must not make the call");
+            }
+        };
+    }
+
+    private static Transaction transaction(String ip, String transactionId) throws Exception {
+        Transaction.Builder builder = new Transaction.Builder(
+                new Device.Builder(InetAddress.getByName(ip)).build());
+        if (transactionId != null) {
+            builder.event(new Event.Builder().transactionId(transactionId).build());
+        }
+        return builder.build();
+    }
+
+    private static List<ScoreResponse> scoreConcurrently(WebServiceClient client, int calls,
+                                                         Transaction transaction) throws Exception {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            transactions.add(transaction);
+        }
+        return scoreConcurrently(client, transactions);
+    }
+
+    private static List<ScoreResponse> scoreConcurrently(WebServiceClient client,
+                                                         List<Transaction> transactions) throws Exception {
+        List<Future<ScoreResponse>> futures = submit(client, transactions);
+        List<ScoreResponse> responses = new ArrayList<>();
+        for (Future<ScoreResponse> future : futures) {
+            responses.add(future.get());
+        }
+        return responses;
+    }
+
+    private static List<Future<ScoreResponse>> submit(WebServiceClient client, int calls,
+                                                      Transaction transaction) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            transactions.add(transaction);
+        }
+        return submit(client, transactions);
+    }
+
+    private static List<Future<ScoreResponse>> submit(final WebServiceClient client,
+                                                      List<Transaction> transactions) {
+        // The threads are left to finish on their own, as some tests check
+        // calls that are still in flight.
+        ExecutorService executor = Executors.newCachedThreadPool();
+        List<Future<ScoreResponse>> futures = new ArrayList<>();
+        for (final Transaction transaction : transactions) {
+            futures.add(executor.submit(new Callable<ScoreResponse>() {
+                @Override
+                public ScoreResponse call() throws Exception {
+                    return client.score(transaction);
+                }
+            }));
+        }
+        executor.shutdown();
+        return futures;
+    }
+}
@@ -0,0 +1,210 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.ConcurrencyLimitedException;
+import com.maxmind.minfraud.request.Transaction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class ConcurrencyLimiterTest {
+    private static final long MS = 1000000;
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testRejectsOverLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new ConcurrencyLimitPolicy.Builder()
+                .initialLimit(2)
+                .build());
+        limiter.acquire(null);
+        limiter.acquire(null);
+
+        thrown.expect(ConcurrencyLimitedException.class);
+        thrown.expectMessage("The client already has 2 calls in flight");
+        limiter.acquire(null);
+    }
+
+    @Test
+    public void testQueuesUntilReleased() throws Exception {
+        final ConcurrencyLimiter limiter = new ConcurrencyLimiter(new ConcurrencyLimitPolicy.Builder()
+                .initialLimit(1)
+                .maxWait(5000)
+                .build());
+        limiter.acquire(null);
+        Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                limiter.release(MS, false);
+            }
+        });
+        releaser.start();
+
+        long start = System.nanoTime();
+        limiter.acquire(null);
+        assertTrue(System.nanoTime() - start >= 40 * MS);
+        releaser.join();
+    }
+
+    @Test
+    public void testAimd() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new ConcurrencyLimitPolicy.Builder()
+                .algorithm(ConcurrencyLimitPolicy.Algorithm.AIMD)
+                .initialLimit(10)
+                .build());
+        // Calls at the no-load round trip time grow the limit by one for
+        // every limit's worth of them while it is in use.
+        acquire(limiter, 10);
+        for (int i = 0; i < 11; i++) {
+            release(limiter, 1, 10 * MS, false);
+            acquire(limiter, 1);
+        }
+        assertEquals(11, limiter.limit());
+
+        // A slow call cuts it.
+        release(limiter, 1, 100 * MS, false);
+        assertEquals(9, limiter.limit());
+
+        // So does a failure.
+        release(limiter, 1, 10 * MS, true);
+        assertEquals(8, limiter.limit());
+    }
+
+    @Test
+    public void testGradient() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new ConcurrencyLimitPolicy.Builder()
+                .initialLimit(16)
+                .minLimit(4)
+                .build());
+        acquire(limiter, 16);
+        release(limiter, 16, 10 * MS, false);
+        assertTrue(limiter.limit() > 16);
+
+        // At ten times the no-load round trip time, the limit converges on
+        // the point where halving it plus the queueing allowance keeps it
+        // unchanged, which is below the minimum.
+        for (int i = 0; i < 100; i++) {
+            acquire(limiter, 1);
+            release(limiter, 1, 100 * MS, false);
+        }
+        assertEquals(4, limiter.limit());
+    }
+
+    @Test
+    public void testIdleLimitDoesNotGrow() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new ConcurrencyLimitPolicy.Builder()
+                .algorithm(ConcurrencyLimitPolicy.Algorithm.AIMD)
+                .initialLimit(10)
+                .build());
+        for (int i = 0; i < 20; i++) {
+            acquire(limiter, 1);
+            release(limiter, 1, 10 * MS, false);
+        }
+        assertEquals(10, limiter.limit());
+    }
+
+    private static void acquire(ConcurrencyLimiter limiter, int calls) throws Exception {
+        for (int i = 0; i < calls; i++) {
+            limiter.acquire(null);
+        }
+    }
+
+    private static void release(ConcurrencyLimiter limiter, int calls, long rtt, boolean failure) {
+        for (int i = 0; i < calls; i++) {
+            limiter.release(rtt, failure);
+        }
+    }
+
+    // The stub models a web service with capacity for four concurrent
+    // requests. Beyond that, each request slows all of them down
+    // quadratically, so piling on requests lowers throughput. The latencies
+    // are long enough that the client's CPU use does not matter.
+    private static final StubServer.Latency OVERLOAD = new StubServer.Latency() {
+        @Override
+        public long millis(int connection, int inFlight) {
+            double load = inFlight / 4.0;
+            return (long) (40 * Math.max(1, load * load));
+        }
+    };
+
+    @Test
+    public void testThroughputUnderOverload() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), OVERLOAD)) {
+            Transaction transaction = fullTransaction();
+            int optimal = throughput(server.clientBuilder().maxConnections(4), 4, transaction);
+            int unlimited = throughput(server.clientBuilder().maxConnections(64), 32, transaction);
+            int gradient = throughput(server.clientBuilder().maxConnections(64)
+                    .concurrencyLimitPolicy(new ConcurrencyLimitPolicy.Builder()
+                            .maxWait(10000)
+                            .build()), 32, transaction);
+            int aimd = throughput(server.clientBuilder().maxConnections(64)
+                    .concurrencyLimitPolicy(new ConcurrencyLimitPolicy.Builder()
+                            .algorithm(ConcurrencyLimitPolicy.Algorithm.AIMD)
+                            .maxWait(10000)
+                            .build()), 32, transaction);
+
+            String results = "optimal=" + optimal + "/s, unlimited=" + unlimited
+                    + "/s, gradient=" + gradient + "/s, aimd=" + aimd + "/s";
+            assertTrue(results, unlimited < optimal / 2);
+            // The gradient limit settles where 19.2 / L^2 = 1 - 1 / L
+            // against this model, at about 4.9 calls, and so alternates
+            // between four and five calls in flight. AIMD cuts to four
+            // after a round trip at five and grows back within a round
+            // trip.
+            assertTrue(results, gradient > optimal * 0.8);
+            assertTrue(results, aimd > optimal * 0.8);
+        }
+    }
+
+    private static int throughput(WebServiceClient.Builder builder, int threads,
+                                  final Transaction transaction) throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        try (final WebServiceClient client = builder.build()) {
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Thread worker = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        while (running.get()) {
+                            try {
+                                client.score(transaction);
+                                completed.incrementAndGet();
+                            } catch (Exception e) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                });
+                worker.start();
+                workers.add(worker);
+            }
+            // Give the limit time to settle before measuring.
+            Thread.sleep(2000);
+            int before = completed.get();
+            Thread.sleep(2000);
+            int after = completed.get();
+            running.set(false);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            assertEquals(0, errors.get());
+            return (after - before) / 2;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.DeadlineExceededException;
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class DeadlineTest {
+    private static final long MS = 1000000;
+
+    @Test
+    public void testRemaining() throws Exception {
+        Deadline deadline = Deadline.after(200, TimeUnit.MILLISECONDS);
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.remaining(TimeUnit.MILLISECONDS) <= 200);
+        Thread.sleep(250);
+        assertTrue(deadline.isExpired());
+        assertEquals(0, deadline.remaining(TimeUnit.NANOSECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDuration() {
+        Deadline.after(-1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testCompletesBeforeDeadline() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(10));
+             WebServiceClient client = server.clientBuilder().build()) {
+            ScoreResponse response = client.score(fullTransaction(),
+                    Deadline.after(5, TimeUnit.SECONDS));
+            assertEquals(Double.valueOf(0.01), response.getRiskScore());
+        }
+    }
+
+    @Test
+    public void testTrickleAbortedAtDeadline() throws Exception {
+        // Every chunk arrives well within the read timeout, but the whole
+        // body takes about two seconds.
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().readTimeout(1000).build()) {
+            server.trickle(50);
+            long start = System.nanoTime();
+            try {
+                client.score(fullTransaction(), Deadline.after(250, TimeUnit.MILLISECONDS));
+                fail("Expected a DeadlineExceededException");
+            } catch (DeadlineExceededException e) {
+                long elapsed = (System.nanoTime() - start) / MS;
+                assertTrue("took " + elapsed + " ms", elapsed < 1000);
+            }
+        }
+    }
+
+    @Test
+    public void testSlowResponseAbortedAtDeadline() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(2000));
+             WebServiceClient client = server.clientBuilder().build()) {
+            long start = System.nanoTime();
+            try {
+                client.insights(fullTransaction(), Deadline.after(100, TimeUnit.MILLISECONDS));
+                fail("Expected a DeadlineExceededException");
+            } catch (DeadlineExceededException e) {
+                long elapsed = (System.nanoTime() - start) / MS;
+                assertTrue("took " + elapsed + " ms", elapsed < 1000);
+            }
+        }
+    }
+
+    @Test
+    public void testRetryGetsRemainingBudget() throws Exception {
+        Transaction transaction = fullTransaction();
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(200));
+             WebServiceClient client = server.clientBuilder().build()) {
+            // Warm up the client and its connection.
+            client.score(transaction);
+
+            long start = System.nanoTime();
+            Deadline deadline = Deadline.after(300, TimeUnit.MILLISECONDS);
+            client.score(transaction, deadline);
+            try {
+                // Only about 100 ms are left for the second call.
+                client.score(transaction, deadline);
+                fail("Expected a DeadlineExceededException");
+            } catch (DeadlineExceededException e) {
+                long elapsed = (System.nanoTime() - start) / MS;
+                assertTrue("took " + elapsed + " ms", elapsed < 380);
+            }
+        }
+    }
+
+    @Test
+    public void testExpiredDeadlineNotSent() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().build()) {
+            try {
+                client.factors(fullTransaction(), Deadline.after(0, TimeUnit.MILLISECONDS));
+                fail("Expected a DeadlineExceededException");
+            } catch (DeadlineExceededException e) {
+                assertEquals("The deadline passed before the factors request was sent", e.getMessage());
+            }
+            assertEquals(0, server.requests());
+        }
+    }
+
+    @Test
+    public void testLaneWaitLimitedByDeadline() throws Exception {
+        Transaction transaction = fullTransaction();
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder()
+                     .addRateLimitLane(new RateLimitLane.Builder("batch", 1).burst(1).build())
+                     .build()) {
+            client.score(transaction, "batch", Deadline.after(1, TimeUnit.SECONDS));
+            long start = System.nanoTime();
+            try {
+                // The lane would make the call wait about a second.
+                client.score(transaction, "batch", Deadline.after(100, TimeUnit.MILLISECONDS));
+                fail("Expected a DeadlineExceededException");
+            } catch (DeadlineExceededException e) {
+                assertEquals("The batch lane would wait past the deadline of the call", e.getMessage());
+            }
+            assertTrue((System.nanoTime() - start) / MS < 100);
+            assertEquals(1, server.requests());
+        }
+    }
+
+    @Test
+    public void testFallbackOnDeadline() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(2000));
+             WebServiceClient client = server.clientBuilder()
+                     .fallback(new StaticFallback.Builder(50).build())
+                     .build()) {
+            ScoreResponse response = client.score(fullTransaction(),
+                    Deadline.after(100, TimeUnit.MILLISECONDS));
+            assertEquals(Double.valueOf(50), response.getRiskScore());
+        }
+    }
+}
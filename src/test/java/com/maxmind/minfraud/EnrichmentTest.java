@@ -0,0 +1,211 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.MinFraudException;
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.FactorsResponse;
+import com.maxmind.minfraud.response.InsightsResponse;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class EnrichmentTest {
+    private static final String SCORE = "/minfraud/v2.0/score";
+    private static final String INSIGHTS = "/minfraud/v2.0/insights";
+    private static final String FACTORS = "/minfraud/v2.0/factors";
+
+    @Test
+    public void testScoreReturnsBeforeInsights() throws Exception {
+        Transaction transaction = fullTransaction();
+        try (StubServer server = server()) {
+            server.delay(INSIGHTS, 500);
+            Sink<InsightsResponse> sink = new Sink<>();
+            try (WebServiceClient client = server.clientBuilder().build()) {
+                long start = System.nanoTime();
+                ScoreResponse score = client.scoreWithInsights(transaction, sink);
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                assertEquals(Double.valueOf(0.01), score.getRiskScore());
+                assertTrue("The score took " + millis + " ms", millis < 400);
+                assertTrue(sink.results().isEmpty());
+
+                List<Result<InsightsResponse>> results = sink.await(1);
+                Result<InsightsResponse> result = results.get(0);
+                assertTrue(result.isSuccess());
+                assertSame(transaction, result.getTransaction());
+                assertEquals("27d26476-e2bc-11e4-92b8-962e705b4af5",
+                        result.getResponse().getId().toString());
+                assertEquals("The same body is sent to both services",
+                        server.lastRequestBody(SCORE), server.lastRequestBody(INSIGHTS));
+            }
+        }
+    }
+
+    @Test
+    public void testFactors() throws Exception {
+        try (StubServer server = server();
+             WebServiceClient client = server.clientBuilder().build()) {
+            Sink<FactorsResponse> sink = new Sink<>();
+            client.scoreWithFactors(fullTransaction(), null, sink);
+
+            Result<FactorsResponse> result = sink.await(1).get(0);
+            assertTrue(result.isSuccess());
+            assertNotNull(result.getResponse().getSubscores());
+            assertEquals(1, server.requests(FACTORS));
+            assertEquals(0, server.requests(INSIGHTS));
+        }
+    }
+
+    @Test
+    public void testOverflowIsDropped() throws Exception {
+        try (StubServer server = server()) {
+            server.delay(INSIGHTS, 500);
+            Sink<InsightsResponse> sink = new Sink<>();
+            try (WebServiceClient client = server.clientBuilder()
+                    .enrichmentPolicy(new EnrichmentPolicy.Builder()
+                            .threads(1)
+                            .queueCapacity(1)
+                            .build())
+                    .build()) {
+                // One call runs, one waits in the queue and three are dropped.
+                for (int i = 0; i < 5; i++) {
+                    client.scoreWithInsights(fullTransaction(), sink);
+                }
+                assertEquals(3, client.getEnrichmentsDropped());
+                assertEquals(5, server.requests(SCORE));
+
+                assertEquals(2, sink.await(2).size());
+                Thread.sleep(100);
+                assertEquals(2, sink.results().size());
+                assertEquals(2, server.requests(INSIGHTS));
+            }
+        }
+    }
+
+    @Test
+    public void testFailureGoesToSink() throws Exception {
+        try (StubServer server = server()) {
+            server.body(INSIGHTS, "not json");
+            Sink<InsightsResponse> sink = new Sink<>();
+            try (WebServiceClient client = server.clientBuilder().build()) {
+                client.scoreWithInsights(fullTransaction(), sink);
+
+                Result<InsightsResponse> result = sink.await(1).get(0);
+                assertFalse(result.isSuccess());
+                assertTrue(result.getException() instanceof MinFraudException);
+            }
+        }
+    }
+
+    @Test
+    public void testNoEnrichmentWhenScoreFails() throws Exception {
+        StubServer server = server();
+        WebServiceClient.Builder builder = server.clientBuilder().connectTimeout(500);
+        server.close();
+        Sink<InsightsResponse> sink = new Sink<>();
+        try (WebServiceClient client = builder.build()) {
+            try {
+                client.scoreWithInsights(fullTransaction(), sink);
+                fail("Expected an IOException");
+            } catch (IOException e) {
+                // expected
+            }
+            Thread.sleep(100);
+            assertTrue(sink.results().isEmpty());
+            assertEquals(0, client.getEnrichmentsDropped());
+        }
+    }
+
+    @Test
+    public void testNoEnrichmentOfFallbackScore() throws Exception {
+        try (StubServer server = server()) {
+            server.delay(SCORE, 1000);
+            try (WebServiceClient client = server.clientBuilder()
+                    .readTimeout(50)
+                    .circuitBreakerPolicy(new CircuitBreakerPolicy.Builder()
+                            .minimumCalls(2)
+                            .openDuration(60000)
+                            .build())
+                    .fallback(new StaticFallback.Builder(20).build())
+                    .build()) {
+                // These time out and open the breaker.
+                client.score(fullTransaction());
+                client.score(fullTransaction());
+                int sent = server.requests();
+
+                Sink<InsightsResponse> sink = new Sink<>();
+                ScoreResponse score = client.scoreWithInsights(fullTransaction(), sink);
+                assertEquals(StaticFallback.REASON, score.getDisposition().getReason());
+                assertEquals("The breaker is open", sent, server.requests());
+
+                Thread.sleep(200);
+                assertTrue(sink.results().isEmpty());
+                assertEquals(0, server.requests(INSIGHTS));
+            }
+        }
+    }
+
+    @Test
+    public void testEnrichmentDoesNotUseFallback() throws Exception {
+        try (StubServer server = server()) {
+            server.delay(INSIGHTS, 1000);
+            Sink<InsightsResponse> sink = new Sink<>();
+            try (WebServiceClient client = server.clientBuilder()
+                    .readTimeout(200)
+                    .fallback(new StaticFallback.Builder(20).build())
+                    .build()) {
+                ScoreResponse score = client.scoreWithInsights(fullTransaction(), sink);
+                assertEquals(Double.valueOf(0.01), score.getRiskScore());
+
+                Result<InsightsResponse> result = sink.await(1).get(0);
+                assertFalse(result.isSuccess());
+                assertTrue(result.getException() instanceof IOException);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownLane() {
+        new WebServiceClient.Builder(6, "0123456789")
+                .enrichmentPolicy(new EnrichmentPolicy.Builder().lane("background").build())
+                .build();
+    }
+
+    private static StubServer server() throws Exception {
+        StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+        server.body(INSIGHTS, readJsonFile("insights-response"));
+        server.body(FACTORS, readJsonFile("factors-response"));
+        return server;
+    }
+
+    private static final class Sink<T> implements EnrichmentSink<T> {
+        private final List<Result<T>> results = new ArrayList<>();
+
+        @Override
+        public synchronized void accept(Result<T> result) {
+            results.add(result);
+            notifyAll();
+        }
+
+        synchronized List<Result<T>> results() {
+            return new ArrayList<>(results);
+        }
+
+        synchronized List<Result<T>> await(int count) throws InterruptedException {
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (results.size() < count) {
+                long left = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime());
+                assertTrue("Only " + results.size() + " results arrived", left > 0);
+                wait(left);
+            }
+            return new ArrayList<>(results);
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.maxmind.minfraud;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+
+/**
+ * An embedded stand-in for the minFraud web service, for throughput tests,
+ * benchmarks and tests of how the client copes with a slow or failing
+ * service. Unlike {@code StubServer}, which answers every request with a
+ * fixed body, it implements the Score, Insights and Factors endpoints:
+ * <ul>
+ * <li>Responses are built from the response files in the test data, with a
+ * new ID each time, a risk score derived from the request body and a
+ * falling number of queries remaining.</li>
+ * <li>Latencies are drawn from a {@code Latency} distribution.</li>
+ * <li>With a capacity set, requests beyond it queue for the server, so
+ * latency grows with load as it does for an overloaded service.</li>
+ * <li>A fraction of requests can be answered with a {@code Fault}: an error
+ * status, a minFraud error code, a malformed body or a dropped
+ * connection.</li>
+ * <li>Requests without credentials get a 401 response, as they do from the
+ * web service.</li>
+ * </ul>
+ */
+final class FakeMinFraudServer implements Closeable {
+    static {
+        // Without this, Nagle's algorithm delays most responses by 40 ms.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final String PATH_BASE = "/minfraud/v2.0/";
+    private static final List<String> SERVICES = Arrays.asList("score", "insights", "factors");
+
+    /**
+     * A distribution of response times.
+     */
+    interface Latency {
+        /**
+         * @return A response time in milliseconds.
+         */
+        double millis(Random random);
+    }
+
+    static Latency fixed(final double millis) {
+        return new Latency() {
+            @Override
+            public double millis(Random random) {
+                return millis;
+            }
+        };
+    }
+
+    static Latency uniform(final double minMillis, final double maxMillis) {
+        return new Latency() {
+            @Override
+            public double millis(Random random) {
+                return minMillis + random.nextDouble() * (maxMillis - minMillis);
+            }
+        };
+    }
+
+    static Latency exponential(final double meanMillis) {
+        return new Latency() {
+            @Override
+            public double millis(Random random) {
+                return -meanMillis * Math.log(1 - random.nextDouble());
+            }
+        };
+    }
+
+    /**
+     * A log-normal distribution, which has the long tail typical of web
+     * service latencies, given by its median and 99th percentile.
+     */
+    static Latency logNormal(double medianMillis, double p99Millis) {
+        final double mu = Math.log(medianMillis);
+        // 2.326 is the 99th percentile of the standard normal distribution.
+        final double sigma = Math.log(p99Millis / medianMillis) / 2.326;
+        return new Latency() {
+            @Override
+            public double millis(Random random) {
+                return Math.exp(mu + sigma * random.nextGaussian());
+            }
+        };
+    }
+
+    /**
+     * A way of failing a request.
+     */
+    static final class Fault {
+        private enum Kind {STATUS, ERROR, MALFORMED, DISCONNECT}
+
+        private final Kind kind;
+        private final int status;
+        private final String code;
+
+        private Fault(Kind kind, int status, String code) {
+            this.kind = kind;
+            this.status = status;
+            this.code = code;
+        }
+
+        /**
+         * A response with the status and no body, e.g., 503.
+         */
+        static Fault status(int status) {
+            return new Fault(Kind.STATUS, status, null);
+        }
+
+        /**
+         * A response with the status and a minFraud error body, e.g., 402
+         * and "INSUFFICIENT_FUNDS".
+         */
+        static Fault error(int status, String code) {
+            return new Fault(Kind.ERROR, status, code);
+        }
+
+        /**
+         * A 200 response whose body is not JSON.
+         */
+        static Fault malformed() {
+            return new Fault(Kind.MALFORMED, 200, null);
+        }
+
+        /**
+         * The connection is closed without a response.
+         */
+        static Fault disconnect() {
+            return new Fault(Kind.DISCONNECT, 0, null);
+        }
+
+        @Override
+        public String toString() {
+            return kind + (status > 0 ? " " + status : "") + (code != null ? " " + code : "");
+        }
+    }
+
+    static final class Builder {
+        private Latency latency = fixed(0);
+        private int capacity;
+        private Double riskScore;
+        private final List<Double> faultRates = new ArrayList<>();
+        private final List<Fault> faults = new ArrayList<>();
+
+        /**
+         * @param val The distribution of response times. The default is no
+         *            delay.
+         */
+        Builder latency(Latency val) {
+            latency = val;
+            return this;
+        }
+
+        /**
+         * @param val The number of requests the server works on at once.
+         *            Others wait for their turn before their response time
+         *            starts. The default is no limit.
+         */
+        Builder capacity(int val) {
+            capacity = val;
+            return this;
+        }
+
+        /**
+         * @param val The risk score of every response. By default, it is
+         *            derived from the request body, so that the same
+         *            transaction always gets the same score.
+         */
+        Builder riskScore(double val) {
+            riskScore = val;
+            return this;
+        }
+
+        /**
+         * @param rate  The fraction of requests that fail with the fault.
+         *              The rates of all faults must add up to at most 1.
+         * @param fault The way the requests fail.
+         */
+        Builder fault(double rate, Fault fault) {
+            faultRates.add(rate);
+            faults.add(fault);
+            return this;
+        }
+
+        FakeMinFraudServer build() throws IOException {
+            return new FakeMinFraudServer(this);
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, ObjectNode> templates = new HashMap<>();
+    private final Latency latency;
+    private final Semaphore capacity;
+    private final Double riskScore;
+    private final double[] faultRates;
+    private final Fault[] faults;
+    private final AtomicLong queriesRemaining = new AtomicLong(1000000);
+    private final ConcurrentMap<String, AtomicInteger> serviceRequests = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger faulted = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private FakeMinFraudServer(Builder builder) throws IOException {
+        latency = builder.latency;
+        capacity = builder.capacity > 0 ? new Semaphore(builder.capacity, true) : null;
+        riskScore = builder.riskScore;
+        faultRates = new double[builder.faults.size()];
+        double total = 0;
+        for (int i = 0; i < faultRates.length; i++) {
+            total += builder.faultRates.get(i);
+            faultRates[i] = total;
+        }
+        if (total > 1) {
+            throw new IllegalArgumentException("The fault rates add up to more than 1");
+        }
+        faults = builder.faults.toArray(new Fault[0]);
+        try {
+            for (String service : SERVICES) {
+                templates.put(service, (ObjectNode) mapper.readTree(readJsonFile(service + "-response")));
+            }
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange);
+            }
+        });
+        server.start();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] requestBody = readAll(in);
+            String path = exchange.getRequestURI().getPath();
+            String service = path.startsWith(PATH_BASE) ? path.substring(PATH_BASE.length()) : null;
+            if (service == null || !templates.containsKey(service)) {
+                send(exchange, 404, new byte[0]);
+                return;
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, new byte[0]);
+                return;
+            }
+            requests.incrementAndGet();
+            AtomicInteger count = serviceRequests.putIfAbsent(service, new AtomicInteger(1));
+            if (count != null) {
+                count.incrementAndGet();
+            }
+            if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+                send(exchange, 401, error("AUTHORIZATION_INVALID",
+                        "You have supplied an invalid MaxMind user ID and/or license key."));
+                return;
+            }
+
+            if (capacity != null) {
+                capacity.acquire();
+            }
+            try {
+                track(inFlight.incrementAndGet());
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long micros = (long) (latency.millis(random) * 1000);
+                    if (micros > 0) {
+                        TimeUnit.MICROSECONDS.sleep(micros);
+                    }
+                    Fault fault = fault(random.nextDouble());
+                    if (fault != null) {
+                        faulted.incrementAndGet();
+                        fail(exchange, fault);
+                        return;
+                    }
+                    send(exchange, 200, responseFor(service, requestBody));
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            } finally {
+                if (capacity != null) {
+                    capacity.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int n; (n = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private void track(int current) {
+        while (true) {
+            int max = maxInFlight.get();
+            if (current <= max || maxInFlight.compareAndSet(max, current)) {
+                return;
+            }
+        }
+    }
+
+    private Fault fault(double roll) {
+        for (int i = 0; i < faultRates.length; i++) {
+            if (roll < faultRates[i]) {
+                return faults[i];
+            }
+        }
+        return null;
+    }
+
+    private void fail(HttpExchange exchange, Fault fault) throws IOException {
+        switch (fault.kind) {
+            case STATUS:
+                send(exchange, fault.status, new byte[0]);
+                break;
+            case ERROR:
+                send(exchange, fault.status, error(fault.code, "A fault injected by the test server."));
+                break;
+            case MALFORMED:
+                send(exchange, 200, "{\"risk_score\": ".getBytes(StandardCharsets.UTF_8));
+                break;
+            case DISCONNECT:
+                // Closing the exchange without sending anything closes the
+                // connection.
+                break;
+        }
+    }
+
+    private byte[] responseFor(String service, byte[] requestBody) throws IOException {
+        ObjectNode response = templates.get(service).deepCopy();
+        response.put("id", UUID.randomUUID().toString());
+        response.put("risk_score", riskScore != null ? riskScore : riskScoreFor(requestBody));
+        response.put("queries_remaining", Math.max(0, queriesRemaining.decrementAndGet()));
+        return mapper.writeValueAsBytes(response);
+    }
+
+    /**
+     * A score from 0.01 to 99 that is the same for the same request body.
+     */
+    private static double riskScoreFor(byte[] requestBody) {
+        int hash = Arrays.hashCode(requestBody) & Integer.MAX_VALUE;
+        return (1 + hash % 9900) / 100.0;
+    }
+
+    private byte[] error(String code, String message) throws IOException {
+        Map<String, String> body = new HashMap<>();
+        body.put("code", code);
+        body.put("error", message);
+        return mapper.writeValueAsBytes(body);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    String host() {
+        return server.getAddress().getAddress().getHostAddress();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return The number of requests to the endpoints, including those that
+     * failed.
+     */
+    int requests() {
+        return requests.get();
+    }
+
+    int requests(String service) {
+        AtomicInteger count = serviceRequests.get(service);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @return The number of requests that failed with a fault.
+     */
+    int faulted() {
+        return faulted.get();
+    }
+
+    /**
+     * @return The most requests that were worked on at once.
+     */
+    int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    WebServiceClient.Builder clientBuilder() {
+        return new WebServiceClient.Builder(6, "0123456789")
+                .host(host())
+                .port(port())
+                .disableHttps();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,218 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.AuthenticationException;
+import com.maxmind.minfraud.exception.HttpException;
+import com.maxmind.minfraud.exception.InsufficientFundsException;
+import com.maxmind.minfraud.exception.MinFraudException;
+import com.maxmind.minfraud.request.Device;
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.FactorsResponse;
+import com.maxmind.minfraud.response.InsightsResponse;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static org.junit.Assert.*;
+
+public class FakeMinFraudServerTest {
+
+    @Test
+    public void testResponses() throws Exception {
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder().build();
+             WebServiceClient client = server.clientBuilder().build()) {
+            Transaction transaction = fullTransaction();
+            ScoreResponse first = client.score(transaction);
+            ScoreResponse second = client.score(transaction);
+            assertNotEquals(first.getId(), second.getId());
+            assertEquals(first.getRiskScore(), second.getRiskScore());
+            assertTrue(first.getRiskScore() >= 0.01 && first.getRiskScore() <= 99);
+            assertEquals(first.getQueriesRemaining() - 1, (long) second.getQueriesRemaining());
+            assertEquals("reject", first.getDisposition().getAction());
+
+            InsightsResponse insights = client.insights(transaction);
+            assertEquals("GB", insights.getIpAddress().getCountry().getIsoCode());
+            FactorsResponse factors = client.factors(transaction);
+            assertNotNull(factors.getSubscores());
+
+            assertEquals(2, server.requests("score"));
+            assertEquals(1, server.requests("insights"));
+            assertEquals(1, server.requests("factors"));
+        }
+    }
+
+    @Test
+    public void testFixedRiskScore() throws Exception {
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder().riskScore(42).build();
+             WebServiceClient client = server.clientBuilder().build()) {
+            assertEquals(Double.valueOf(42), client.score(fullTransaction()).getRiskScore());
+        }
+    }
+
+    @Test
+    public void testMissingCredentials() throws Exception {
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder().build()) {
+            HttpURLConnection connection = (HttpURLConnection) new URL(
+                    "http://" + server.host() + ":" + server.port() + "/minfraud/v2.0/score")
+                    .openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.getOutputStream().close();
+            assertEquals(401, connection.getResponseCode());
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void testErrorCodes() throws Exception {
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .fault(1, FakeMinFraudServer.Fault.error(402, "INSUFFICIENT_FUNDS"))
+                .build();
+             WebServiceClient client = server.clientBuilder().build()) {
+            client.score(fullTransaction());
+            fail("Expected an InsufficientFundsException");
+        } catch (InsufficientFundsException e) {
+            // expected
+        }
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .fault(1, FakeMinFraudServer.Fault.error(401, "LICENSE_KEY_REQUIRED"))
+                .build();
+             WebServiceClient client = server.clientBuilder().build()) {
+            client.score(fullTransaction());
+            fail("Expected an AuthenticationException");
+        } catch (AuthenticationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testFaults() throws Exception {
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .fault(1, FakeMinFraudServer.Fault.status(503))
+                .build();
+             WebServiceClient client = server.clientBuilder().build()) {
+            client.score(fullTransaction());
+            fail("Expected an HttpException");
+        } catch (HttpException e) {
+            assertEquals(503, e.getHttpStatus());
+        }
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .fault(1, FakeMinFraudServer.Fault.malformed())
+                .build();
+             WebServiceClient client = server.clientBuilder().build()) {
+            client.score(fullTransaction());
+            fail("Expected a MinFraudException");
+        } catch (MinFraudException e) {
+            // expected
+        }
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .fault(1, FakeMinFraudServer.Fault.disconnect())
+                .build();
+             WebServiceClient client = server.clientBuilder().build()) {
+            client.score(fullTransaction());
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertFalse(e instanceof HttpException);
+        }
+    }
+
+    @Test
+    public void testFaultRate() throws Exception {
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .fault(0.3, FakeMinFraudServer.Fault.status(500))
+                .build();
+             WebServiceClient client = server.clientBuilder().build()) {
+            int failed = 0;
+            for (int i = 0; i < 300; i++) {
+                try {
+                    client.score(fullTransaction());
+                } catch (HttpException e) {
+                    failed++;
+                }
+            }
+            assertEquals(failed, server.faulted());
+            assertTrue("Failed " + failed + " of 300", failed > 50 && failed < 130);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFaultRatesOverOne() throws Exception {
+        new FakeMinFraudServer.Builder()
+                .fault(0.6, FakeMinFraudServer.Fault.status(500))
+                .fault(0.6, FakeMinFraudServer.Fault.disconnect())
+                .build();
+    }
+
+    @Test
+    public void testCapacityQueuesRequests() throws Exception {
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .latency(FakeMinFraudServer.fixed(50))
+                .capacity(2)
+                .build();
+             final WebServiceClient client = server.clientBuilder().maxConnections(6).build()) {
+            ExecutorService executor = Executors.newFixedThreadPool(6);
+            try {
+                List<Future<ScoreResponse>> results = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int i = 0; i < 6; i++) {
+                    final Transaction transaction = new Transaction.Builder(
+                            new Device.Builder(InetAddress.getByName("1.1.1." + (i + 1))).build()).build();
+                    results.add(executor.submit(new Callable<ScoreResponse>() {
+                        @Override
+                        public ScoreResponse call() throws Exception {
+                            return client.score(transaction);
+                        }
+                    }));
+                }
+                for (Future<ScoreResponse> result : results) {
+                    result.get(5, TimeUnit.SECONDS);
+                }
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                // Six requests two at a time take three rounds.
+                assertTrue("The requests took " + millis + " ms", millis >= 145);
+                assertEquals(2, server.maxInFlight());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void testLatencyDistributions() {
+        Random random = new Random(1);
+        double[] samples = new double[10000];
+        FakeMinFraudServer.Latency logNormal = FakeMinFraudServer.logNormal(20, 200);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = logNormal.millis(random);
+        }
+        Arrays.sort(samples);
+        assertEquals(20, samples[5000], 2);
+        assertEquals(200, samples[9900], 40);
+
+        FakeMinFraudServer.Latency exponential = FakeMinFraudServer.exponential(10);
+        double total = 0;
+        for (int i = 0; i < samples.length; i++) {
+            total += exponential.millis(random);
+        }
+        assertEquals(10, total / samples.length, 0.5);
+
+        FakeMinFraudServer.Latency uniform = FakeMinFraudServer.uniform(5, 10);
+        for (int i = 0; i < 1000; i++) {
+            double millis = uniform.millis(random);
+            assertTrue(millis >= 5 && millis < 10);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the flight recorder events. The tests are compiled for Java 7 like
+ * the library, so the recording is made and read through reflection, and
+ * the tests are skipped on JVMs without the flight recorder.
+ */
+public class FlightEventsTest {
+    private static final String REQUEST = "com.maxmind.minfraud.MinFraudRequest";
+    private static final String POOL_WAIT = "com.maxmind.minfraud.MinFraudPoolWait";
+
+    @Before
+    public void requireFlightRecorder() {
+        Assume.assumeTrue("The JVM has no flight recorder", FlightEvents.INSTANCE.isAvailable());
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        assertNull(FlightEvents.INSTANCE.beginRequest());
+        assertNull(FlightEvents.INSTANCE.beginPoolWait());
+
+        Object recording = startRecording();
+        try {
+            assertNull(FlightEvents.INSTANCE.beginRequest());
+        } finally {
+            stopAndRead(recording);
+        }
+    }
+
+    @Test
+    public void testRequestEvents() throws Exception {
+        Transaction transaction = fullTransaction();
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .latency(FakeMinFraudServer.fixed(10))
+                .build();
+             WebServiceClient client = server.clientBuilder().build()) {
+            Object recording = startRecording(REQUEST);
+            client.score(transaction);
+            client.insights(transaction);
+            List<Object> events = stopAndRead(recording);
+
+            assertEquals(2, events.size());
+            Object score = events.get(0);
+            assertEquals("score", value(score, "service"));
+            assertEquals(Metrics.SUCCESS, value(score, "outcome"));
+            assertEquals(200, value(score, "status"));
+            assertEquals((long) transaction.toJson().getBytes("UTF-8").length, value(score, "bytesOut"));
+            assertTrue((Long) value(score, "bytesIn") > 0);
+            assertEquals(0, value(score, "retries"));
+            assertTrue(millis(value(score, "networkDuration")) >= 10);
+            assertTrue(millis(value(score, "duration")) >= millis(value(score, "networkDuration")));
+            assertEquals("insights", value(events.get(1), "service"));
+        }
+    }
+
+    @Test
+    public void testPoolWaitEvents() throws Exception {
+        final Transaction transaction = fullTransaction();
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .latency(FakeMinFraudServer.fixed(50))
+                .build();
+             // Only a client with a listener hooks into the connection pool.
+             final WebServiceClient client = server.clientBuilder()
+                     .maxConnections(1)
+                     .requestListener(new RequestListener() {
+                         @Override
+                         public void onPhase(RequestTimeline timeline, RequestTimeline.Phase phase, long nanos) {
+                         }
+
+                         @Override
+                         public void onComplete(RequestTimeline timeline) {
+                         }
+                     })
+                     .build()) {
+            Object recording = startRecording(POOL_WAIT);
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            try {
+                List<Future<?>> calls = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    calls.add(executor.submit(new Callable<Object>() {
+                        @Override
+                        public Object call() throws Exception {
+                            return client.score(transaction);
+                        }
+                    }));
+                }
+                for (Future<?> call : calls) {
+                    call.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+            List<Object> events = stopAndRead(recording);
+
+            // Each call leases the one connection, and two of them have to
+            // wait for it.
+            assertEquals(3, events.size());
+            int waited = 0;
+            for (Object event : events) {
+                assertEquals(server.host(), value(event, "host"));
+                assertEquals(server.port(), value(event, "port"));
+                if (millis(value(event, "duration")) >= 25) {
+                    waited++;
+                }
+            }
+            assertEquals(2, waited);
+        }
+    }
+
+    private static Object startRecording(String... names) throws Exception {
+        Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+        Class<?> durationClass = Class.forName("java.time.Duration");
+
+        Object recording = recordingClass.getConstructor().newInstance();
+        for (String name : names) {
+            Object settings = recordingClass.getMethod("enable", String.class).invoke(recording, name);
+            settingsClass.getMethod("withThreshold", durationClass)
+                    .invoke(settings, durationClass.getField("ZERO").get(null));
+        }
+        recordingClass.getMethod("start").invoke(recording);
+        return recording;
+    }
+
+    /**
+     * @return The minFraud events recorded, in the order they were
+     * committed.
+     */
+    private static List<Object> stopAndRead(Object recording) throws Exception {
+        Class<?> recordingClass = recording.getClass();
+        Class<?> recordingFileClass = Class.forName("jdk.jfr.consumer.RecordingFile");
+        Class<?> eventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+        Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+
+        recordingClass.getMethod("stop").invoke(recording);
+        Path file = Files.createTempFile("minfraud", ".jfr");
+        try {
+            recordingClass.getMethod("dump", Path.class).invoke(recording, file);
+            List<?> events = (List<?>) recordingFileClass.getMethod("readAllEvents", Path.class)
+                    .invoke(null, file);
+            List<Object> minFraudEvents = new ArrayList<>();
+            for (Object event : events) {
+                Object type = eventClass.getMethod("getEventType").invoke(event);
+                String name = (String) eventTypeClass.getMethod("getName").invoke(type);
+                if (name.startsWith("com.maxmind.minfraud.")) {
+                    minFraudEvents.add(event);
+                }
+            }
+            return minFraudEvents;
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+            Files.delete(file);
+        }
+    }
+
+    private static Object value(Object event, String field) throws Exception {
+        Method getValue = event.getClass().getMethod("getValue", String.class);
+        return getValue.invoke(event, field);
+    }
+
+    /**
+     * @param duration The event's duration, or one of its timespan fields,
+     *                 which are read as nanoseconds.
+     */
+    private static long millis(Object duration) throws Exception {
+        if (duration instanceof Long) {
+            return TimeUnit.NANOSECONDS.toMillis((Long) duration);
+        }
+        return (Long) duration.getClass().getMethod("toMillis").invoke(duration);
+    }
+}
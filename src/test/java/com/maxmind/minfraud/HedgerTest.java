@@ -0,0 +1,117 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class HedgerTest {
+    private static final long SLOW = 1000;
+
+    // The first connection the server sees is slow and every later one is
+    // fast, so a hedge sent on a second connection wins.
+    private static final StubServer.Latency SLOW_FIRST_CONNECTION = new StubServer.Latency() {
+        @Override
+        public long millis(int connection, int inFlight) {
+            return connection == 0 ? SLOW : 5;
+        }
+    };
+
+    @Test
+    public void testHedgeWinsOverSlowConnection() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), SLOW_FIRST_CONNECTION);
+             WebServiceClient client = server.clientBuilder()
+                     .maxConnections(4)
+                     .hedgingPolicy(new HedgingPolicy.Builder()
+                             .delay(50)
+                             .maxHedgeFraction(1)
+                             .build())
+                     .build()) {
+            long start = System.nanoTime();
+            ScoreResponse response = client.score(fullTransaction());
+            long elapsed = (System.nanoTime() - start) / 1000000;
+
+            assertEquals(Double.valueOf(0.01), response.getRiskScore());
+            assertTrue("took " + elapsed + " ms", elapsed < SLOW / 2);
+            assertEquals(2, server.requests());
+            assertEquals(2, server.connections());
+        }
+    }
+
+    @Test
+    public void testNoHedgeWhenFastEnough() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder()
+                     .maxConnections(4)
+                     .hedgingPolicy(new HedgingPolicy.Builder()
+                             .delay(500)
+                             .maxHedgeFraction(1)
+                             .build())
+                     .build()) {
+            for (int i = 0; i < 5; i++) {
+                client.score(fullTransaction());
+            }
+            assertEquals(5, server.requests());
+        }
+    }
+
+    @Test
+    public void testHedgesLimitedByBudget() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(100));
+             WebServiceClient client = server.clientBuilder()
+                     .maxConnections(4)
+                     .hedgingPolicy(new HedgingPolicy.Builder()
+                             .delay(10)
+                             .maxHedgeFraction(0.5)
+                             .build())
+                     .build()) {
+            for (int i = 0; i < 6; i++) {
+                client.score(fullTransaction());
+            }
+            // Every call is slow enough to hedge, but only every second call
+            // earns a full hedge.
+            assertEquals(9, server.requests());
+        }
+    }
+
+    @Test
+    public void testPercentileDelay() throws Exception {
+        // The first call and its hedge are slow. Later calls are fast.
+        final AtomicInteger count = new AtomicInteger();
+        StubServer.Latency slowStart = new StubServer.Latency() {
+            @Override
+            public long millis(int connection, int inFlight) {
+                return count.incrementAndGet() <= 2 ? 100 : 20;
+            }
+        };
+        try (StubServer server = new StubServer(readJsonFile("score-response"), slowStart);
+             WebServiceClient client = server.clientBuilder()
+                     .maxConnections(4)
+                     .hedgingPolicy(new HedgingPolicy.Builder()
+                             .delay(1)
+                             .percentile(99)
+                             .minSamples(1)
+                             .maxHedgeFraction(1)
+                             .build())
+                     .build()) {
+            // The first call uses the 1 ms fallback delay and is hedged.
+            // Later calls wait for the tracked latency of about 100 ms,
+            // which they never reach.
+            client.score(fullTransaction());
+            assertEquals(2, server.requests());
+            for (int i = 0; i < 5; i++) {
+                client.score(fullTransaction());
+            }
+            assertEquals(7, server.requests());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFraction() {
+        new HedgingPolicy.Builder().maxHedgeFraction(1.5);
+    }
+}
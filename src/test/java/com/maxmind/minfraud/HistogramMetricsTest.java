@@ -0,0 +1,197 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.HttpException;
+import com.maxmind.minfraud.exception.InvalidRequestException;
+import com.maxmind.minfraud.request.Transaction;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class HistogramMetricsTest {
+
+    @Test
+    public void testCallsPerServiceAndOutcome() throws Exception {
+        HistogramMetrics metrics = new HistogramMetrics();
+        Transaction transaction = fullTransaction();
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .latency(FakeMinFraudServer.fixed(5))
+                .build();
+             WebServiceClient client = server.clientBuilder().metrics(metrics).build()) {
+            for (int i = 0; i < 3; i++) {
+                client.score(transaction);
+            }
+            client.insights(transaction);
+        }
+
+        Histogram score = metrics.getLatency("score", Metrics.SUCCESS);
+        assertEquals(3, score.getCount());
+        assertTrue(score.getPercentile(50) >= 5000);
+        assertEquals(1, metrics.getLatency("insights", Metrics.SUCCESS).getCount());
+        assertEquals(1, metrics.getLatencies("score").size());
+        assertTrue(metrics.getLatencies("factors").isEmpty());
+        assertNull(metrics.getLatency("factors", Metrics.SUCCESS));
+
+        long requestBytes = transaction.toJson().getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(3 * requestBytes, metrics.getRequestBytes("score"));
+        assertEquals(requestBytes, metrics.getRequestBytes("insights"));
+        assertTrue(metrics.getResponseBytes("insights") > metrics.getResponseBytes("score") / 3);
+        assertEquals(0, metrics.getRetries("score"));
+    }
+
+    @Test
+    public void testExceptionOutcomes() throws Exception {
+        HistogramMetrics metrics = new HistogramMetrics();
+        Transaction transaction = fullTransaction();
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .fault(1, FakeMinFraudServer.Fault.error(400, "INVALID_INPUT"))
+                .build();
+             WebServiceClient client = server.clientBuilder().metrics(metrics).build()) {
+            try {
+                client.score(transaction);
+                fail("Expected an InvalidRequestException");
+            } catch (InvalidRequestException e) {
+                // expected
+            }
+        }
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .fault(1, FakeMinFraudServer.Fault.status(503))
+                .build();
+             WebServiceClient client = server.clientBuilder().metrics(metrics).build()) {
+            try {
+                client.score(transaction);
+                fail("Expected an HttpException");
+            } catch (HttpException e) {
+                // expected
+            }
+        }
+        FakeMinFraudServer server = new FakeMinFraudServer.Builder().build();
+        WebServiceClient.Builder builder = server.clientBuilder().metrics(metrics);
+        server.close();
+        try (WebServiceClient client = builder.build()) {
+            client.score(transaction);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            // expected
+        }
+
+        assertEquals(1, metrics.getLatency("score", "InvalidRequestException").getCount());
+        assertEquals(1, metrics.getLatency("score", "HttpException").getCount());
+        assertEquals(1, metrics.getLatency("score", "IOException").getCount());
+        assertNull(metrics.getLatency("score", Metrics.SUCCESS));
+    }
+
+    @Test
+    public void testOutcomeOf() {
+        assertEquals("InvalidRequestException", WebServiceClient.outcomeOf(
+                new InvalidRequestException("bad", "INVALID_INPUT", null)));
+        assertEquals("IOException", WebServiceClient.outcomeOf(new java.net.SocketTimeoutException()));
+        assertEquals("RuntimeException", WebServiceClient.outcomeOf(new IllegalStateException()));
+    }
+
+    @Test
+    public void testFallbackOutcome() throws Exception {
+        HistogramMetrics metrics = new HistogramMetrics();
+        StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+        WebServiceClient.Builder builder = server.clientBuilder()
+                .connectTimeout(500)
+                .fallback(new StaticFallback.Builder(20).build())
+                .metrics(metrics);
+        server.close();
+        try (WebServiceClient client = builder.build()) {
+            assertEquals(StaticFallback.REASON,
+                    client.score(fullTransaction()).getDisposition().getReason());
+        }
+
+        assertEquals(1, metrics.getLatency("score", Metrics.FALLBACK).getCount());
+        assertNull(metrics.getLatency("score", Metrics.SUCCESS));
+    }
+
+    @Test
+    public void testCacheHitOutcome() throws Exception {
+        HistogramMetrics metrics = new HistogramMetrics();
+        Transaction transaction = fullTransaction();
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder()
+                     .responseCachePolicy(new ResponseCachePolicy.Builder().build())
+                     .metrics(metrics)
+                     .build()) {
+            client.score(transaction);
+            client.score(transaction);
+            assertEquals(1, server.requests());
+        }
+
+        assertEquals(1, metrics.getLatency("score", Metrics.SUCCESS).getCount());
+        assertEquals(1, metrics.getLatency("score", Metrics.CACHE_HIT).getCount());
+    }
+
+    @Test
+    public void testRetries() throws Exception {
+        HistogramMetrics metrics = new HistogramMetrics();
+        FakeMinFraudServer down = new FakeMinFraudServer.Builder().build();
+        String downHost = down.host();
+        int downPort = down.port();
+        down.close();
+        Transaction transaction = fullTransaction();
+        try (FakeMinFraudServer up = new FakeMinFraudServer.Builder().build();
+             WebServiceClient client = new WebServiceClient.Builder(6, "0123456789")
+                     .disableHttps()
+                     .addEndpoint(downHost, downPort)
+                     .addEndpoint(up.host(), up.port())
+                     .routingPolicy(new RoutingPolicy.Builder()
+                             .strategy(RoutingPolicy.Strategy.LOWEST_LATENCY)
+                             .build())
+                     .metrics(metrics)
+                     .build()) {
+            // Both endpoints start with no latency, so the first one listed
+            // is tried first.
+            client.score(transaction);
+            assertEquals(1, metrics.getRetries("score"));
+            assertEquals(1, metrics.getLatency("score", Metrics.SUCCESS).getCount());
+            assertEquals(1, up.requests());
+        }
+    }
+
+    @Test
+    public void testBindTo() throws Exception {
+        final AtomicReference<WebServiceClient> bound = new AtomicReference<>();
+        Metrics metrics = new Metrics() {
+            @Override
+            public void bindTo(WebServiceClient client) {
+                bound.set(client);
+            }
+
+            @Override
+            public void recordCall(String service, String outcome, long nanos) {
+            }
+
+            @Override
+            public void recordBytes(String service, long requestBytes, long responseBytes) {
+            }
+
+            @Override
+            public void recordRetry(String service) {
+            }
+        };
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder().build();
+             WebServiceClient client = server.clientBuilder().metrics(metrics).maxConnections(4).build()) {
+            assertSame(client, bound.get());
+            client.score(fullTransaction());
+            ConnectionPoolStats pool = client.getConnectionPoolStats();
+            assertEquals(0, pool.getLeased());
+            assertEquals(1, pool.getAvailable());
+            assertEquals(0, pool.getPending());
+            assertEquals(4, pool.getMax());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownService() {
+        new HistogramMetrics().getRetries("chargeback");
+    }
+}
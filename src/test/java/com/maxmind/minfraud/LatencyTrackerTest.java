@@ -0,0 +1,39 @@
+package com.maxmind.minfraud;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyTrackerTest {
+
+    @Test
+    public void testEmpty() {
+        assertEquals(-1, new LatencyTracker(10).percentile(50));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyTracker tracker = new LatencyTracker(100);
+        for (int i = 100; i > 0; i--) {
+            tracker.record(i);
+        }
+        assertEquals(100, tracker.count());
+        assertEquals(1, tracker.percentile(1));
+        assertEquals(50, tracker.percentile(50));
+        assertEquals(95, tracker.percentile(95));
+        assertEquals(100, tracker.percentile(99.9));
+    }
+
+    @Test
+    public void testWindowReplacesOldestSamples() {
+        LatencyTracker tracker = new LatencyTracker(8);
+        for (int i = 0; i < 8; i++) {
+            tracker.record(1000);
+        }
+        assertEquals(1000, tracker.percentile(50));
+        for (int i = 0; i < 8; i++) {
+            tracker.record(1);
+        }
+        assertEquals(1, tracker.percentile(99));
+    }
+}
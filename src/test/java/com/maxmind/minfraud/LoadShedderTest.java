@@ -0,0 +1,221 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.DeadlineExceededException;
+import com.maxmind.minfraud.exception.OverloadedException;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class LoadShedderTest {
+    private static final StreamProcessor.Limit ONE = new StreamProcessor.Limit() {
+        @Override
+        public int get() {
+            return 1;
+        }
+    };
+
+    @Test
+    public void testFreeConnectionIsNotQueued() throws Exception {
+        LoadShedder shedder = shedder(5, 50);
+        shedder.acquire(null);
+        shedder.release();
+        shedder.acquire(null);
+        shedder.release();
+
+        QueueStats stats = shedder.stats();
+        assertEquals(2, stats.getAdmitted());
+        assertEquals(0, stats.getShed());
+        assertFalse(stats.isOverloaded());
+        assertEquals(2, stats.getQueueTime().getCounts()[0]);
+        assertEquals(0, stats.getQueueTime().getPercentile(99));
+    }
+
+    @Test
+    public void testShortQueueIsAllowed() throws Exception {
+        final LoadShedder shedder = shedder(50, 200);
+        shedder.acquire(null);
+        Future<?> waiter = acquireAsync(shedder, null);
+        Thread.sleep(20);
+        shedder.release();
+        waiter.get(1, TimeUnit.SECONDS);
+
+        QueueStats stats = shedder.stats();
+        assertEquals(2, stats.getAdmitted());
+        assertEquals(0, stats.getShed());
+        assertEquals(2, stats.getQueueTime().getCount());
+        long waited = stats.getQueueTime().getPercentile(100);
+        assertTrue("Waited " + waited + " us", waited >= 10000 && waited <= 250000);
+    }
+
+    @Test
+    public void testStandingQueueIsShed() throws Exception {
+        LoadShedder shedder = shedder(5, 50);
+        shedder.acquire(null);
+        // No call gets through for a whole interval, so the waiter is shed
+        // once the interval ends.
+        Future<?> waiter = acquireAsync(shedder, null);
+        try {
+            waiter.get(1, TimeUnit.SECONDS);
+            fail("Expected an OverloadedException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof OverloadedException);
+        }
+        assertTrue(shedder.stats().isOverloaded());
+
+        // New calls are rejected at once while the queue is overloaded.
+        long start = System.nanoTime();
+        try {
+            shedder.acquire(null);
+            fail("Expected an OverloadedException");
+        } catch (OverloadedException e) {
+            assertEquals(0, e.getStackTrace().length);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(2, shedder.stats().getShed());
+        assertEquals(0, shedder.stats().getWaiting());
+    }
+
+    @Test
+    public void testRecovery() throws Exception {
+        LoadShedder shedder = shedder(5, 50);
+        shedder.acquire(null);
+        try {
+            acquireAsync(shedder, null).get(1, TimeUnit.SECONDS);
+            fail("Expected an OverloadedException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof OverloadedException);
+        }
+        shedder.release();
+
+        // A free connection is used even while overloaded, and calls that
+        // get one at once end the overload after the next interval.
+        shedder.acquire(null);
+        shedder.release();
+        Thread.sleep(60);
+        shedder.acquire(null);
+        assertFalse(shedder.stats().isOverloaded());
+        Future<?> waiter = acquireAsync(shedder, null);
+        Thread.sleep(2);
+        shedder.release();
+        waiter.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        LoadShedder shedder = shedder(5, 1000);
+        shedder.acquire(null);
+        long start = System.nanoTime();
+        try {
+            acquireAsync(shedder, Deadline.after(30, TimeUnit.MILLISECONDS)).get(1, TimeUnit.SECONDS);
+            fail("Expected a DeadlineExceededException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof DeadlineExceededException);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(0, shedder.stats().getShed());
+    }
+
+    @Test
+    public void testClientShedsWhenConnectionsAreBusy() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(200));
+             final WebServiceClient client = server.clientBuilder()
+                     .maxConnections(1)
+                     .loadSheddingPolicy(new LoadSheddingPolicy.Builder()
+                             .target(5)
+                             .interval(50)
+                             .build())
+                     .build()) {
+            ExecutorService executor = Executors.newFixedThreadPool(6);
+            List<Future<ScoreResponse>> results = new ArrayList<>();
+            try {
+                for (int i = 0; i < 6; i++) {
+                    results.add(executor.submit(new Callable<ScoreResponse>() {
+                        @Override
+                        public ScoreResponse call() throws Exception {
+                            return client.score(fullTransaction());
+                        }
+                    }));
+                }
+                int succeeded = 0;
+                int shed = 0;
+                for (Future<ScoreResponse> result : results) {
+                    try {
+                        result.get(5, TimeUnit.SECONDS);
+                        succeeded++;
+                    } catch (ExecutionException e) {
+                        assertTrue(e.getCause() instanceof OverloadedException);
+                        shed++;
+                    }
+                }
+                assertTrue(succeeded >= 1);
+                assertTrue(shed >= 1);
+                assertEquals(succeeded, server.requests());
+                QueueStats stats = client.getQueueStats();
+                assertEquals(succeeded, stats.getAdmitted());
+                assertEquals(shed, stats.getShed());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void testNoStatsWithoutPolicy() throws Exception {
+        try (WebServiceClient client = new WebServiceClient.Builder(6, "0123456789").build()) {
+            assertNull(client.getQueueStats());
+        }
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        assertEquals(0, Histogram.bucket(0));
+        assertEquals(1, Histogram.bucket(1));
+        assertEquals(1, Histogram.bucket(100));
+        assertEquals(2, Histogram.bucket(101));
+        assertEquals(Histogram.BOUNDS.length - 1, Histogram.bucket(Long.MAX_VALUE - 1));
+
+        long[] counts = new long[Histogram.BOUNDS.length];
+        counts[1] = 90;
+        counts[6] = 10;
+        Histogram histogram = new Histogram(counts);
+        assertEquals(100, histogram.getCount());
+        assertEquals(100, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(90));
+        assertEquals(5000, histogram.getPercentile(91));
+        assertEquals(100, histogram.getPercentile(0));
+    }
+
+    private static LoadShedder shedder(int target, int interval) {
+        return new LoadShedder(new LoadSheddingPolicy.Builder()
+                .target(target)
+                .interval(interval)
+                .build(), ONE);
+    }
+
+    private static Future<?> acquireAsync(final LoadShedder shedder, final Deadline deadline) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    shedder.acquire(deadline);
+                    return null;
+                }
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
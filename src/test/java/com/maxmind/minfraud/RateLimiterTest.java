@@ -0,0 +1,152 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.InsufficientFundsException;
+import com.maxmind.minfraud.exception.RateLimitedException;
+import com.maxmind.minfraud.request.Transaction;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class RateLimiterTest {
+    private static final long MS = 1000000;
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSpacesOutCalls() throws Exception {
+        RateLimiter limiter = new RateLimiter(new RateLimitLane.Builder("batch", 50).burst(1).build());
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            limiter.acquire(null, null);
+        }
+        // The first call uses the burst and the next five wait 20 ms each.
+        long elapsed = (System.nanoTime() - start) / MS;
+        assertTrue("took " + elapsed + " ms", elapsed >= 95);
+    }
+
+    @Test
+    public void testBurst() throws Exception {
+        RateLimiter limiter = new RateLimiter(new RateLimitLane.Builder("batch", 1)
+                .burst(5).maxWait(0).build());
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(null, null);
+        }
+        thrown.expect(RateLimitedException.class);
+        thrown.expectMessage("The batch lane would wait longer than 0 ms for a call");
+        limiter.acquire(null, null);
+    }
+
+    @Test
+    public void testQuotaReserveUsedUp() throws Exception {
+        RateLimiter limiter = new RateLimiter(new RateLimitLane.Builder("batch", 1000)
+                .quotaReserve(100).build());
+        limiter.acquire(100, null);
+        limiter.acquire(50, null);
+
+        thrown.expect(RateLimitedException.class);
+        thrown.expectMessage("The quota reserve of the batch lane has been used up");
+        limiter.acquire(0, null);
+    }
+
+    @Test
+    public void testReservedLaneRecoversAfterTopUp() throws Exception {
+        // The replay answers the first request with a 402 and the next one,
+        // after the account has been topped up, with the Score response.
+        Transaction transaction = fullTransaction();
+        File file = folder.newFile();
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            recorder.record("score", transaction.toJson(), 402,
+                    "{\"code\":\"INSUFFICIENT_FUNDS\",\"error\":\"out of credit\"}"
+                            .getBytes(StandardCharsets.UTF_8), 0);
+            recorder.record("score", transaction.toJson(), 200,
+                    readJsonFile("score-response").getBytes(StandardCharsets.UTF_8), 0);
+        }
+        TrafficReplay replay = new TrafficReplay.Builder(file).latencyScale(0).build();
+        try (WebServiceClient client = new WebServiceClient.Builder(6, "0123456789")
+                .host("localhost")
+                .port(1)
+                .disableHttps()
+                .replay(replay)
+                .addRateLimitLane(new RateLimitLane.Builder("batch", 1000)
+                        .quotaReserve(100).build())
+                .build()) {
+            try {
+                client.score(transaction, "batch");
+                fail("Expected an InsufficientFundsException");
+            } catch (InsufficientFundsException e) {
+                // expected
+            }
+            try {
+                client.score(transaction, "batch");
+                fail("Expected a RateLimitedException");
+            } catch (RateLimitedException e) {
+                assertEquals(1, replay.getMatched());
+            }
+
+            // A call is let through once the probe interval has passed.
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(QuotaTracker.PROBE_INTERVAL_NANOS) + 100);
+            assertEquals(Double.valueOf(0.01), client.score(transaction, "batch").getRiskScore());
+            assertEquals(Integer.valueOf(1000), client.getQueriesRemaining("score"));
+            assertEquals(2, replay.getMatched());
+        }
+    }
+
+    @Test
+    public void testLanesSlowedByQueriesRemaining() throws Exception {
+        // The stub response has 1000 queries remaining. That is 1% of the
+        // batch lane's reserve, so its rate drops from 10 to 0.1 per second
+        // and the next call would wait for about ten seconds.
+        Transaction transaction = fullTransaction();
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder()
+                     .addRateLimitLane(new RateLimitLane.Builder("realtime", 10)
+                             .burst(1).maxWait(500).build())
+                     .addRateLimitLane(new RateLimitLane.Builder("batch", 10)
+                             .burst(1).maxWait(500).quotaReserve(100000).build())
+                     .build()) {
+            assertNull(client.getQueriesRemaining("score"));
+
+            client.score(transaction, "realtime");
+            client.score(transaction, "realtime");
+
+            client.score(transaction, "batch");
+            assertEquals(Integer.valueOf(1000), client.getQueriesRemaining("score"));
+            assertEquals(Double.valueOf(10), client.getFundsRemaining());
+            assertNull(client.getQueriesRemaining("insights"));
+
+            thrown.expect(RateLimitedException.class);
+            client.score(transaction, "batch");
+        }
+    }
+
+    @Test
+    public void testUnknownLane() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().build()) {
+            thrown.expect(IllegalArgumentException.class);
+            thrown.expectMessage("Unknown rate limit lane: batch");
+            client.score(fullTransaction(), "batch");
+        }
+    }
+
+    @Test
+    public void testDuplicateLane() {
+        thrown.expect(IllegalArgumentException.class);
+        new WebServiceClient.Builder(6, "0123456789")
+                .addRateLimitLane(new RateLimitLane.Builder("batch", 1).build())
+                .addRateLimitLane(new RateLimitLane.Builder("batch", 2).build());
+    }
+}
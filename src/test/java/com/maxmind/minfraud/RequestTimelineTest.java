@@ -0,0 +1,120 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.HttpException;
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.maxmind.minfraud.RequestTimeline.Phase.*;
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static org.junit.Assert.*;
+
+public class RequestTimelineTest {
+
+    @Test
+    public void testPhasesOfNewAndKeptAliveConnections() throws Exception {
+        Recorder recorder = new Recorder();
+        Transaction transaction = fullTransaction();
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .latency(FakeMinFraudServer.fixed(20))
+                .build();
+             WebServiceClient client = server.clientBuilder().requestListener(recorder).build()) {
+            ScoreResponse response = client.score(transaction);
+
+            RequestTimeline first = recorder.completed.get(0);
+            assertEquals("score", first.getService());
+            assertSame(transaction, first.getTransaction());
+            assertSame(response, first.getResponse());
+            assertNull(first.getException());
+            assertEquals(-1, first.getNanos(TLS_DONE));
+            assertEquals(ordered(SERIALIZE_START, SERIALIZE_END, LEASE_ACQUIRED, CONNECTED, REQUEST_SENT,
+                    FIRST_BYTE, BODY_READ, PARSE_DONE), recorder.phases);
+            assertInOrder(first, SERIALIZE_START, SERIALIZE_END, LEASE_ACQUIRED, CONNECTED, REQUEST_SENT,
+                    FIRST_BYTE, BODY_READ, PARSE_DONE);
+            assertTrue(first.getNanos(FIRST_BYTE) - first.getNanos(REQUEST_SENT)
+                    >= TimeUnit.MILLISECONDS.toNanos(20));
+            assertTrue(first.getTotalNanos() >= first.getNanos(PARSE_DONE));
+
+            // The second call reuses the connection.
+            recorder.phases.clear();
+            client.score(transaction);
+            assertEquals(ordered(SERIALIZE_START, SERIALIZE_END, LEASE_ACQUIRED, REQUEST_SENT,
+                    FIRST_BYTE, BODY_READ, PARSE_DONE), recorder.phases);
+            assertEquals(-1, recorder.completed.get(1).getNanos(CONNECTED));
+        }
+    }
+
+    @Test
+    public void testUrlConnectionPhases() throws Exception {
+        Recorder recorder = new Recorder();
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder().build();
+             WebServiceClient client = server.clientBuilder()
+                     .transport(Transport.URL_CONNECTION)
+                     .requestListener(recorder)
+                     .build()) {
+            client.insights(fullTransaction());
+            assertEquals(ordered(SERIALIZE_START, SERIALIZE_END, FIRST_BYTE, BODY_READ, PARSE_DONE),
+                    recorder.phases);
+            assertEquals("insights", recorder.completed.get(0).getService());
+        }
+    }
+
+    @Test
+    public void testFailedCall() throws Exception {
+        Recorder recorder = new Recorder();
+        try (FakeMinFraudServer server = new FakeMinFraudServer.Builder()
+                .fault(1, FakeMinFraudServer.Fault.status(500))
+                .build();
+             WebServiceClient client = server.clientBuilder().requestListener(recorder).build()) {
+            try {
+                client.score(fullTransaction());
+                fail("Expected an HttpException");
+            } catch (HttpException e) {
+                assertEquals(1, recorder.completed.size());
+                RequestTimeline timeline = recorder.completed.get(0);
+                assertSame(e, timeline.getException());
+                assertNull(timeline.getResponse());
+                assertTrue(timeline.getNanos(FIRST_BYTE) >= 0);
+                assertEquals(-1, timeline.getNanos(BODY_READ));
+                assertTrue(timeline.toString().contains("exception=HttpException"));
+            }
+        }
+    }
+
+    private static List<RequestTimeline.Phase> ordered(RequestTimeline.Phase... phases) {
+        List<RequestTimeline.Phase> list = new ArrayList<>();
+        Collections.addAll(list, phases);
+        return list;
+    }
+
+    private static void assertInOrder(RequestTimeline timeline, RequestTimeline.Phase... phases) {
+        long previous = 0;
+        for (RequestTimeline.Phase phase : phases) {
+            long nanos = timeline.getNanos(phase);
+            assertTrue(phase + " came before the phase before it", nanos >= previous);
+            previous = nanos;
+        }
+    }
+
+    private static final class Recorder implements RequestListener {
+        final List<RequestTimeline.Phase> phases = Collections.synchronizedList(
+                new ArrayList<RequestTimeline.Phase>());
+        final List<RequestTimeline> completed = Collections.synchronizedList(new ArrayList<RequestTimeline>());
+
+        @Override
+        public void onPhase(RequestTimeline timeline, RequestTimeline.Phase phase, long nanos) {
+            assertEquals(nanos, timeline.getNanos(phase));
+            phases.add(phase);
+        }
+
+        @Override
+        public void onComplete(RequestTimeline timeline) {
+            completed.add(timeline);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Device;
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.InsightsResponse;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class ResponseCacheTest {
+
+    @Test
+    public void testFreshResponseIsReused() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder()
+                     .responseCachePolicy(new ResponseCachePolicy.Builder().build())
+                     .build()) {
+            ScoreResponse first = client.score(fullTransaction());
+            // An equal transaction built separately has the same key.
+            ScoreResponse second = client.score(fullTransaction());
+
+            assertSame(first, second);
+            assertEquals(1, server.requests());
+            CacheStats stats = client.getCacheStats();
+            assertEquals(1, stats.getHits());
+            assertEquals(1, stats.getMisses());
+            assertEquals(1, stats.getSize());
+            assertEquals(0.5, stats.getHitRate(), 0.001);
+        }
+    }
+
+    @Test
+    public void testKeyedByTransactionAndService() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("insights-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder()
+                     .responseCachePolicy(new ResponseCachePolicy.Builder().build())
+                     .build()) {
+            client.score(transaction("1.1.1.1"));
+            client.score(transaction("1.1.1.2"));
+            client.insights(transaction("1.1.1.1"));
+            assertEquals(3, server.requests());
+            assertEquals(3, client.getCacheStats().getMisses());
+        }
+    }
+
+    @Test
+    public void testExpiredResponseIsNotReused() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder()
+                     .responseCachePolicy(new ResponseCachePolicy.Builder().scoreTtl(100).build())
+                     .build()) {
+            ScoreResponse first = client.score(fullTransaction());
+            Thread.sleep(150);
+            ScoreResponse second = client.score(fullTransaction());
+
+            assertNotSame(first, second);
+            assertEquals(2, server.requests());
+        }
+    }
+
+    @Test
+    public void testPerServiceTtl() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("insights-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder()
+                     .responseCachePolicy(new ResponseCachePolicy.Builder().insightsTtl(0).build())
+                     .build()) {
+            InsightsResponse first = client.insights(fullTransaction());
+            InsightsResponse second = client.insights(fullTransaction());
+            assertNotSame(first, second);
+            assertEquals(2, server.requests());
+            // Calls for a service that is not cached are not counted.
+            assertEquals(0, client.getCacheStats().getMisses());
+        }
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(200));
+             WebServiceClient client = server.clientBuilder()
+                     .responseCachePolicy(new ResponseCachePolicy.Builder()
+                             .scoreTtl(500)
+                             .staleWhileRevalidate(5000)
+                             .build())
+                     .build()) {
+            ScoreResponse first = client.score(fullTransaction());
+            Thread.sleep(550);
+
+            // The stale response is returned without waiting for the
+            // refresh, and only one refresh is sent.
+            long start = System.nanoTime();
+            assertSame(first, client.score(fullTransaction()));
+            assertSame(first, client.score(fullTransaction()));
+            assertTrue(System.nanoTime() - start < 150 * 1000000L);
+            assertEquals(2, client.getCacheStats().getStaleHits());
+
+            Thread.sleep(300);
+            assertEquals(2, server.requests());
+            ScoreResponse refreshed = client.score(fullTransaction());
+            assertNotSame(first, refreshed);
+            assertEquals(2, server.requests());
+            assertEquals(1, client.getCacheStats().getHits());
+        }
+    }
+
+    @Test
+    public void testStaleResponseNotReturnedAfterWindow() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder()
+                     .responseCachePolicy(new ResponseCachePolicy.Builder()
+                             .scoreTtl(50)
+                             .staleWhileRevalidate(50)
+                             .build())
+                     .build()) {
+            ScoreResponse first = client.score(fullTransaction());
+            Thread.sleep(150);
+            assertNotSame(first, client.score(fullTransaction()));
+            assertEquals(0, client.getCacheStats().getStaleHits());
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder()
+                     .responseCachePolicy(new ResponseCachePolicy.Builder().maxSize(2).build())
+                     .build()) {
+            client.score(transaction("1.1.1.1"));
+            client.score(transaction("1.1.1.2"));
+            // This makes 1.1.1.2 the least recently used.
+            client.score(transaction("1.1.1.1"));
+            client.score(transaction("1.1.1.3"));
+            assertEquals(3, server.requests());
+
+            client.score(transaction("1.1.1.1"));
+            assertEquals(3, server.requests());
+            client.score(transaction("1.1.1.2"));
+            assertEquals(4, server.requests());
+
+            CacheStats stats = client.getCacheStats();
+            assertEquals(2, stats.getEvictions());
+            assertEquals(2, stats.getSize());
+        }
+    }
+
+    @Test
+    public void testFallbackResponsesAreNotCached() throws Exception {
+        StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+        WebServiceClient.Builder builder = server.clientBuilder()
+                .connectTimeout(500)
+                .fallback(new StaticFallback.Builder(50).build())
+                .responseCachePolicy(new ResponseCachePolicy.Builder().build());
+        server.close();
+        try (WebServiceClient client = builder.build()) {
+            client.score(fullTransaction());
+            client.score(fullTransaction());
+            CacheStats stats = client.getCacheStats();
+            assertEquals(2, stats.getMisses());
+            assertEquals(0, stats.getSize());
+        }
+    }
+
+    @Test
+    public void testStoreIsPluggable() throws Exception {
+        MapStore store = new MapStore();
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0))) {
+            WebServiceClient.Builder builder = server.clientBuilder()
+                    .responseCachePolicy(new ResponseCachePolicy.Builder().build())
+                    .responseStore(store);
+            // Clients sharing a store answer each other's calls.
+            try (WebServiceClient first = builder.build();
+                 WebServiceClient second = builder.build()) {
+                ScoreResponse response = first.score(fullTransaction());
+                assertEquals(1, store.entries.size());
+                assertSame(response, store.entries.values().iterator().next().getResponse());
+
+                assertSame(response, second.score(fullTransaction()));
+                assertEquals(1, server.requests());
+                assertEquals(1, second.getCacheStats().getHits());
+                assertEquals(1, second.getCacheStats().getSize());
+            }
+        }
+    }
+
+    @Test
+    public void testSharedStoreIsKeyedByAccountAndLocales() throws Exception {
+        MapStore store = new MapStore();
+        ResponseCachePolicy policy = new ResponseCachePolicy.Builder().build();
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient first = server.clientBuilder()
+                     .responseCachePolicy(policy)
+                     .responseStore(store)
+                     .build();
+             WebServiceClient otherAccount = new WebServiceClient.Builder(7, "0123456789")
+                     .host(server.host())
+                     .port(server.port())
+                     .disableHttps()
+                     .responseCachePolicy(policy)
+                     .responseStore(store)
+                     .build();
+             WebServiceClient otherLocales = server.clientBuilder()
+                     .locales(Collections.singletonList("de"))
+                     .responseCachePolicy(policy)
+                     .responseStore(store)
+                     .build()) {
+            first.score(fullTransaction());
+            otherAccount.score(fullTransaction());
+            otherLocales.score(fullTransaction());
+
+            assertEquals(3, server.requests());
+            assertEquals(3, store.entries.size());
+            assertEquals(0, otherAccount.getCacheStats().getHits());
+            assertEquals(0, otherLocales.getCacheStats().getHits());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStoreRequiresPolicy() throws Exception {
+        new WebServiceClient.Builder(6, "0123456789").responseStore(new MapStore()).build();
+    }
+
+    @Test
+    public void testNoStatsWithoutCache() throws Exception {
+        try (WebServiceClient client = new WebServiceClient.Builder(6, "0123456789").build()) {
+            assertNull(client.getCacheStats());
+        }
+    }
+
+    private static Transaction transaction(String ip) throws Exception {
+        return new Transaction.Builder(new Device.Builder(InetAddress.getByName(ip)).build()).build();
+    }
+
+    private static final class MapStore implements ResponseStore {
+        final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+        @Override
+        public CachedResponse get(String key) {
+            return entries.get(key);
+        }
+
+        @Override
+        public void put(String key, CachedResponse entry) {
+            entries.put(key, entry);
+        }
+
+        @Override
+        public void remove(String key) {
+            entries.remove(key);
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public long evictions() {
+            return 0;
+        }
+    }
+}
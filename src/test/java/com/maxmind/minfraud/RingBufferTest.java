@@ -0,0 +1,84 @@
+package com.maxmind.minfraud;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RingBufferTest {
+
+    @Test
+    public void testCapacityIsRoundedUp() {
+        assertEquals(1, new RingBuffer<String>(1).capacity());
+        assertEquals(8, new RingBuffer<String>(5).capacity());
+        assertEquals(8, new RingBuffer<String>(8).capacity());
+    }
+
+    @Test
+    public void testOfferFailsWhenFull() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(Integer.valueOf(0), ring.poll());
+        assertTrue(ring.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(Integer.valueOf(i), ring.poll());
+        }
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void testManyProducers() throws Exception {
+        final int producers = 4;
+        final int perProducer = 100000;
+        final RingBuffer<Integer> ring = new RingBuffer<>(64);
+        final AtomicInteger dropped = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        if (!ring.offer(producer * perProducer + i)) {
+                            dropped.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        // Each producer's elements come out in the order it offered them.
+        int[] last = new int[producers];
+        Arrays.fill(last, -1);
+        int received = 0;
+        while (true) {
+            Integer element = ring.poll();
+            if (element == null) {
+                boolean alive = false;
+                for (Thread thread : threads) {
+                    alive |= thread.isAlive();
+                }
+                if (!alive && ring.isEmpty()) {
+                    break;
+                }
+                continue;
+            }
+            int producer = element / perProducer;
+            int index = element % perProducer;
+            assertTrue(index > last[producer]);
+            last[producer] = index;
+            received++;
+        }
+        assertEquals(producers * perProducer, received + dropped.get());
+    }
+}
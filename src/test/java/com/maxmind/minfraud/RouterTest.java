@@ -0,0 +1,260 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class RouterTest {
+    private static final long MS = 1000000;
+    private static final List<Router.Endpoint> NONE = Collections.emptyList();
+
+    private static Router router(int endpoints, RoutingPolicy.Builder policy) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < endpoints; i++) {
+            addresses.add(InetSocketAddress.createUnresolved("host" + i, 443));
+        }
+        return new Router(addresses, policy.build());
+    }
+
+    private static void call(Router router, Router.Endpoint endpoint, long nanos, boolean failure) {
+        Router.Endpoint chosen = router.choose(router.endpoints());
+        assertNull(chosen);
+        // Pretend the endpoint was chosen for the call.
+        List<Router.Endpoint> others = new ArrayList<>(router.endpoints());
+        others.remove(endpoint);
+        assertSame(endpoint, router.choose(others));
+        router.record(endpoint, nanos, failure);
+    }
+
+    @Test
+    public void testLowestLatency() {
+        Router router = router(2, new RoutingPolicy.Builder()
+                .strategy(RoutingPolicy.Strategy.LOWEST_LATENCY));
+        Router.Endpoint first = router.endpoints().get(0);
+        Router.Endpoint second = router.endpoints().get(1);
+
+        // Endpoints without samples are tried first.
+        assertSame(first, router.choose(NONE));
+        router.record(first, 10 * MS, false);
+        assertSame(second, router.choose(NONE));
+        router.record(second, 15 * MS, false);
+
+        for (int i = 0; i < 5; i++) {
+            assertSame(first, router.choose(NONE));
+            router.record(first, 10 * MS, false);
+        }
+
+        // Calls in flight raise the cost of an endpoint.
+        assertSame(first, router.choose(NONE));
+        assertSame(second, router.choose(NONE));
+        router.release(first);
+        router.release(second);
+    }
+
+    @Test
+    public void testPowerOfTwoChoices() {
+        Router router = router(3, new RoutingPolicy.Builder().minSamples(10000));
+        long[] latencies = {10 * MS, 20 * MS, 200 * MS};
+        for (int i = 0; i < 3; i++) {
+            call(router, router.endpoints().get(i), latencies[i], false);
+        }
+
+        int[] counts = new int[3];
+        for (int i = 0; i < 1000; i++) {
+            Router.Endpoint endpoint = router.choose(NONE);
+            int index = router.endpoints().indexOf(endpoint);
+            counts[index]++;
+            router.record(endpoint, latencies[index], false);
+        }
+        // The slowest endpoint always loses and the fastest wins whenever it
+        // is one of the two choices.
+        assertEquals(0, counts[2]);
+        assertTrue(counts[0] > 550);
+        assertTrue(counts[1] > 200);
+    }
+
+    @Test
+    public void testEjectsAfterConsecutiveFailures() {
+        Router router = router(2, new RoutingPolicy.Builder().maxFailures(3));
+        Router.Endpoint bad = router.endpoints().get(0);
+        Router.Endpoint good = router.endpoints().get(1);
+
+        call(router, bad, MS, true);
+        call(router, bad, MS, true);
+        call(router, bad, MS, false);
+        call(router, bad, MS, true);
+        call(router, bad, MS, true);
+        assertFalse(router.isEjected(bad));
+        call(router, bad, MS, true);
+        assertTrue(router.isEjected(bad));
+
+        for (int i = 0; i < 10; i++) {
+            Router.Endpoint endpoint = router.choose(NONE);
+            assertSame(good, endpoint);
+            router.record(endpoint, MS, false);
+        }
+        // An ejected endpoint is still used when no other is left.
+        assertSame(bad, router.choose(Collections.singletonList(good)));
+        router.release(bad);
+    }
+
+    @Test
+    public void testEjectsSlowEndpoint() {
+        Router router = router(2, new RoutingPolicy.Builder()
+                .minSamples(3)
+                .slowCallFactor(2)
+                .ewmaWeight(1));
+        Router.Endpoint fast = router.endpoints().get(0);
+        Router.Endpoint slow = router.endpoints().get(1);
+
+        call(router, fast, 10 * MS, false);
+        call(router, slow, 15 * MS, false);
+        call(router, slow, 15 * MS, false);
+        call(router, slow, 25 * MS, false);
+        assertTrue(router.isEjected(slow));
+        assertFalse(router.isEjected(fast));
+    }
+
+    @Test
+    public void testSingleEndpointNeverEjected() {
+        Router router = router(1, new RoutingPolicy.Builder().maxFailures(1));
+        Router.Endpoint only = router.endpoints().get(0);
+        call(router, only, MS, true);
+        assertFalse(router.isEjected(only));
+    }
+
+    @Test
+    public void testProbeReinstates() throws Exception {
+        Router router = router(2, new RoutingPolicy.Builder()
+                .maxFailures(1)
+                .probeInterval(20));
+        Router.Endpoint bad = router.endpoints().get(0);
+        call(router, router.endpoints().get(1), 10 * MS, false);
+        call(router, bad, MS, true);
+        assertTrue(router.isEjected(bad));
+
+        final AtomicInteger probes = new AtomicInteger();
+        Router.Prober failing = new Router.Prober() {
+            @Override
+            public void probe(Router.Endpoint endpoint) throws Exception {
+                probes.incrementAndGet();
+                throw new IOException("Connection refused");
+            }
+        };
+        Router.Prober working = new Router.Prober() {
+            @Override
+            public void probe(Router.Endpoint endpoint) {
+                probes.incrementAndGet();
+            }
+        };
+
+        // Too early to probe
+        router.probeEjected(working);
+        assertEquals(0, probes.get());
+
+        Thread.sleep(30);
+        router.probeEjected(failing);
+        assertEquals(1, probes.get());
+        assertTrue(router.isEjected(bad));
+
+        // A failed probe restarts the interval.
+        router.probeEjected(working);
+        assertEquals(1, probes.get());
+
+        Thread.sleep(30);
+        router.probeEjected(working);
+        assertEquals(2, probes.get());
+        assertFalse(router.isEjected(bad));
+    }
+
+    // The first call a JVM makes is much slower than later ones, which
+    // would throw off the averages the router compares.
+    private static void warmUp(StubServer server, Transaction transaction) throws Exception {
+        try (WebServiceClient client = server.clientBuilder().build()) {
+            client.score(transaction);
+        }
+    }
+
+    private static WebServiceClient.Builder clientBuilder(StubServer... servers) {
+        WebServiceClient.Builder builder = new WebServiceClient.Builder(6, "0123456789")
+                .disableHttps();
+        for (StubServer server : servers) {
+            builder.addEndpoint(server.host(), server.port());
+        }
+        return builder;
+    }
+
+    @Test
+    public void testRoutesToFastEndpoint() throws Exception {
+        Transaction transaction = fullTransaction();
+        try (StubServer fast = new StubServer(readJsonFile("score-response"), StubServer.fixed(5));
+             StubServer slow = new StubServer(readJsonFile("score-response"), StubServer.fixed(100));
+             WebServiceClient client = clientBuilder(fast, slow).build()) {
+            warmUp(slow, transaction);
+            for (int i = 0; i < 20; i++) {
+                client.score(transaction);
+            }
+            assertEquals(2, slow.requests());
+            assertEquals(19, fast.requests());
+        }
+    }
+
+    @Test
+    public void testShiftsAwayFromEndpointThatSlowsDown() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        StubServer.Latency degrading = new StubServer.Latency() {
+            @Override
+            public long millis(int connection, int inFlight) {
+                return count.incrementAndGet() <= 10 ? 5 : 150;
+            }
+        };
+        Transaction transaction = fullTransaction();
+        try (StubServer first = new StubServer(readJsonFile("score-response"), degrading);
+             StubServer second = new StubServer(readJsonFile("score-response"), StubServer.fixed(30));
+             WebServiceClient client = clientBuilder(first, second)
+                     .routingPolicy(new RoutingPolicy.Builder().decay(200).build())
+                     .build()) {
+            warmUp(second, transaction);
+            for (int i = 0; i < 40; i++) {
+                client.score(transaction);
+            }
+            // The first endpoint gets nearly every call while it is fast.
+            // After it slows down, a call or two raise its average above the
+            // second endpoint's. With a short decay, the first endpoint is
+            // retried now and then.
+            assertTrue("first=" + first.requests(), first.requests() < 25);
+            assertTrue("second=" + second.requests(), second.requests() > 16);
+        }
+    }
+
+    @Test
+    public void testFailsOverFromDownEndpoint() throws Exception {
+        StubServer down = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+        down.close();
+        Transaction transaction = fullTransaction();
+        try (StubServer up = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = clientBuilder(down, up)
+                     .routingPolicy(new RoutingPolicy.Builder().maxFailures(2).build())
+                     .build()) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(Double.valueOf(0.01), client.score(transaction).getRiskScore());
+            }
+            assertEquals(10, up.requests());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidEwmaWeight() {
+        new RoutingPolicy.Builder().ewmaWeight(0);
+    }
+}
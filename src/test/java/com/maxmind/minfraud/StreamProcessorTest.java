@@ -0,0 +1,312 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Device;
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class StreamProcessorTest {
+
+    @Test
+    public void testEveryTransactionGetsAResult() throws Exception {
+        List<Transaction> transactions = transactions(50);
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(5));
+             WebServiceClient client = server.clientBuilder().build()) {
+            ListPublisher publisher = new ListPublisher(transactions);
+            Collector collector = new Collector(Long.MAX_VALUE);
+            client.scoreStream(publisher).subscribe(collector);
+            collector.await();
+
+            assertNull(collector.error);
+            assertTrue(collector.completed);
+            assertEquals(50, collector.results.size());
+            Set<Transaction> seen = new HashSet<>();
+            for (Result<ScoreResponse> result : collector.results) {
+                assertTrue(result.isSuccess());
+                assertEquals(Double.valueOf(0.01), result.getResponse().getRiskScore());
+                seen.add(result.getTransaction());
+            }
+            assertEquals(new HashSet<>(transactions), seen);
+            assertEquals(50, server.requests());
+        }
+    }
+
+    @Test
+    public void testUpstreamDemandFollowsDownstreamDemand() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().build()) {
+            ListPublisher publisher = new ListPublisher(transactions(20));
+            Collector collector = new Collector(5);
+            client.scoreStream(publisher).subscribe(collector);
+            collector.awaitResults(5);
+            // Give a stray request time to show up.
+            Thread.sleep(100);
+            assertEquals(5, publisher.emitted());
+            assertEquals(5, server.requests());
+
+            collector.subscription.request(15);
+            collector.await();
+            assertTrue(collector.completed);
+            assertEquals(20, collector.results.size());
+            assertEquals(20, publisher.emitted());
+        }
+    }
+
+    @Test
+    public void testInFlightStaysUnderConnectionLimit() throws Exception {
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        StubServer.Latency latency = new StubServer.Latency() {
+            @Override
+            public long millis(int connection, int inFlight) {
+                while (true) {
+                    int max = maxInFlight.get();
+                    if (inFlight <= max || maxInFlight.compareAndSet(max, inFlight)) {
+                        return 20;
+                    }
+                }
+            }
+        };
+        try (StubServer server = new StubServer(readJsonFile("score-response"), latency);
+             WebServiceClient client = server.clientBuilder().maxConnections(3).build()) {
+            ListPublisher publisher = new ListPublisher(transactions(30));
+            Collector collector = new Collector(Long.MAX_VALUE);
+            client.scoreStream(publisher).subscribe(collector);
+            collector.await();
+
+            assertTrue(collector.completed);
+            assertEquals(30, collector.results.size());
+            assertEquals(3, maxInFlight.get());
+        }
+    }
+
+    @Test
+    public void testFailuresAreResults() throws Exception {
+        StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+        WebServiceClient.Builder builder = server.clientBuilder().connectTimeout(500);
+        server.close();
+        try (WebServiceClient client = builder.build()) {
+            Collector collector = new Collector(Long.MAX_VALUE);
+            client.scoreStream(new ListPublisher(transactions(3))).subscribe(collector);
+            collector.await();
+
+            assertTrue(collector.completed);
+            assertEquals(3, collector.results.size());
+            for (Result<ScoreResponse> result : collector.results) {
+                assertFalse(result.isSuccess());
+                assertNull(result.getResponse());
+                assertNotNull(result.getException());
+            }
+        }
+    }
+
+    @Test
+    public void testUpstreamErrorFollowsResults() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(20));
+             WebServiceClient client = server.clientBuilder().build()) {
+            ListPublisher publisher = new ListPublisher(transactions(4));
+            publisher.failAtEnd = new IllegalStateException("upstream broke");
+            Collector collector = new Collector(Long.MAX_VALUE);
+            client.scoreStream(publisher).subscribe(collector);
+            collector.await();
+
+            assertFalse(collector.completed);
+            assertEquals("upstream broke", collector.error.getMessage());
+            assertEquals(4, collector.results.size());
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().build()) {
+            ListPublisher publisher = new ListPublisher(transactions(20));
+            Collector collector = new Collector(2);
+            client.scoreStream(publisher).subscribe(collector);
+            collector.awaitResults(2);
+            collector.subscription.cancel();
+            assertTrue(publisher.cancelled);
+
+            collector.subscription.request(10);
+            Thread.sleep(100);
+            assertEquals(2, collector.results.size());
+            assertEquals(2, publisher.emitted());
+            assertFalse(collector.completed);
+        }
+    }
+
+    @Test
+    public void testNonPositiveRequestIsAnError() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().build()) {
+            ListPublisher publisher = new ListPublisher(transactions(5));
+            Collector collector = new Collector(0);
+            client.scoreStream(publisher).subscribe(collector);
+            collector.subscription.request(0);
+            collector.await();
+
+            assertTrue(collector.error instanceof IllegalArgumentException);
+            assertTrue(publisher.cancelled);
+        }
+    }
+
+    @Test
+    public void testOneSubscriberOnly() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().build()) {
+            Flow.Publisher<Result<ScoreResponse>> results =
+                    client.scoreStream(new ListPublisher(transactions(1)));
+            Collector first = new Collector(Long.MAX_VALUE);
+            results.subscribe(first);
+            Collector second = new Collector(Long.MAX_VALUE);
+            results.subscribe(second);
+
+            first.await();
+            second.await();
+            assertTrue(first.completed);
+            assertTrue(second.error instanceof IllegalStateException);
+        }
+    }
+
+    private static List<Transaction> transactions(int count) throws Exception {
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            transactions.add(new Transaction.Builder(
+                    new Device.Builder(InetAddress.getByName("1.1.1." + (i % 250 + 1))).build()
+            ).build());
+        }
+        return transactions;
+    }
+
+    /**
+     * Emits the transactions as they are requested. A request made from
+     * within onNext is added to the demand and served by the outer loop.
+     */
+    private static final class ListPublisher implements Flow.Publisher<Transaction> {
+        private final List<Transaction> transactions;
+        private final AtomicInteger emitted = new AtomicInteger();
+        volatile Exception failAtEnd;
+        volatile boolean cancelled;
+
+        ListPublisher(List<Transaction> transactions) {
+            this.transactions = transactions;
+        }
+
+        int emitted() {
+            return emitted.get();
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super Transaction> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private long demand;
+                private boolean emitting;
+                private boolean done;
+
+                @Override
+                public void request(long n) {
+                    synchronized (this) {
+                        demand += n;
+                        if (emitting) {
+                            return;
+                        }
+                        emitting = true;
+                    }
+                    while (true) {
+                        synchronized (this) {
+                            if (demand == 0 || cancelled || done) {
+                                emitting = false;
+                                return;
+                            }
+                            demand--;
+                        }
+                        int index = emitted.getAndIncrement();
+                        subscriber.onNext(transactions.get(index));
+                        if (index == transactions.size() - 1) {
+                            synchronized (this) {
+                                done = true;
+                            }
+                            if (failAtEnd == null) {
+                                subscriber.onComplete();
+                            } else {
+                                subscriber.onError(failAtEnd);
+                            }
+                        }
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    private static final class Collector implements Flow.Subscriber<Result<ScoreResponse>> {
+        private final long initialRequest;
+        private final CountDownLatch done = new CountDownLatch(1);
+        final List<Result<ScoreResponse>> results = new ArrayList<>();
+        volatile Flow.Subscription subscription;
+        volatile boolean completed;
+        volatile Throwable error;
+
+        Collector(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(Result<ScoreResponse> item) {
+            synchronized (results) {
+                results.add(item);
+                results.notifyAll();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("The stream did not finish", done.await(30, TimeUnit.SECONDS));
+        }
+
+        void awaitResults(int count) throws InterruptedException {
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            synchronized (results) {
+                while (results.size() < count) {
+                    long left = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime());
+                    assertTrue("Only " + results.size() + " results arrived", left > 0);
+                    results.wait(left);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.maxmind.minfraud;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StripedHistogramTest {
+
+    @Test
+    public void testBucketBounds() {
+        StripedHistogram histogram = new StripedHistogram();
+        long[] bounds = histogram.snapshot().getUpperBounds();
+        assertEquals(StripedHistogram.BUCKETS, bounds.length);
+        assertEquals(Long.MAX_VALUE, bounds[bounds.length - 1]);
+        for (long micros = 0; micros < 1L << 31; micros += 1 + micros / 7) {
+            long bound = bounds[StripedHistogram.index(micros)];
+            assertTrue(micros + " is above " + bound, micros <= bound);
+            assertTrue(bound + " is too far above " + micros, bound - micros <= micros / 32);
+            if (StripedHistogram.index(micros) > 0) {
+                assertTrue(micros > bounds[StripedHistogram.index(micros) - 1]);
+            }
+        }
+        assertEquals(StripedHistogram.BUCKETS - 1, StripedHistogram.index(Long.MAX_VALUE));
+        assertEquals(0, StripedHistogram.index(-1));
+    }
+
+    @Test
+    public void testPercentiles() {
+        StripedHistogram histogram = new StripedHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        Histogram snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50, snapshot.getPercentile(50) / 1000, 50 / 32.0);
+        assertEquals(99, snapshot.getPercentile(99) / 1000, 99 / 32.0);
+        assertEquals(100, snapshot.getPercentile(100) / 1000, 100 / 32.0);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final StripedHistogram histogram = new StripedHistogram();
+        final StripedCounter counter = new StripedCounter();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++) {
+                        histogram.record(i % 1000 * 1000);
+                        counter.add(2);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(800000, histogram.snapshot().getCount());
+        assertEquals(1600000, counter.sum());
+    }
+}
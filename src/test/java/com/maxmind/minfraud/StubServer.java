@@ -0,0 +1,216 @@
+package com.maxmind.minfraud;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local HTTP server for client tests that need control over latency,
+ * which the WireMock stubs do not give us. Every request is answered with
+ * the same body after a delay chosen by a {@code Latency}.
+ */
+final class StubServer implements Closeable {
+    static {
+        // Without this, Nagle's algorithm delays most responses by 40 ms.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    /**
+     * Chooses how long to wait before answering a request.
+     */
+    interface Latency {
+        /**
+         * @param connection The zero-based index of the connection, in the
+         *                   order connections were first seen.
+         * @param inFlight   The number of requests being handled, including
+         *                   this one.
+         * @return The delay in milliseconds.
+         */
+        long millis(int connection, int inFlight);
+    }
+
+    static Latency fixed(final long millis) {
+        return new Latency() {
+            @Override
+            public long millis(int connection, int inFlight) {
+                return millis;
+            }
+        };
+    }
+
+    private static final int TRICKLE_CHUNK = 16;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final byte[] body;
+    private final Latency latency;
+    private final ConcurrentMap<String, byte[]> pathBodies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> pathDelays = new ConcurrentHashMap<>();
+    private final ConcurrentMap<InetSocketAddress, Integer> connections = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> pathRequests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> lastRequestBodies = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile long trickleMillis;
+
+    StubServer(String body, Latency latency) throws IOException {
+        this.body = body.getBytes(StandardCharsets.UTF_8);
+        this.latency = latency;
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange);
+            }
+        });
+        server.start();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        int current = inFlight.incrementAndGet();
+        boolean counted = true;
+        try (InputStream in = exchange.getRequestBody()) {
+            requests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                received.write(buffer, 0, n);
+            }
+            lastRequestBodies.put(path, received.toString("UTF-8"));
+            AtomicInteger count = pathRequests.putIfAbsent(path, new AtomicInteger(1));
+            if (count != null) {
+                count.incrementAndGet();
+            }
+            byte[] body = pathBodies.containsKey(path) ? pathBodies.get(path) : this.body;
+            long delay = latency.millis(connectionIndex(exchange), current);
+            Long pathDelay = pathDelays.get(path);
+            if (pathDelay != null) {
+                delay += pathDelay;
+            }
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            // The client may send its next request as soon as it has read
+            // the response, so this one stops counting before it is sent.
+            inFlight.decrementAndGet();
+            counted = false;
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (trickleMillis > 0) {
+                    trickle(out, body);
+                } else {
+                    out.write(body);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (counted) {
+                inFlight.decrementAndGet();
+            }
+            exchange.close();
+        }
+    }
+
+    private void trickle(OutputStream out, byte[] body) throws IOException, InterruptedException {
+        for (int i = 0; i < body.length; i += TRICKLE_CHUNK) {
+            out.write(body, i, Math.min(TRICKLE_CHUNK, body.length - i));
+            out.flush();
+            Thread.sleep(trickleMillis);
+        }
+    }
+
+    private int connectionIndex(HttpExchange exchange) {
+        InetSocketAddress remote = exchange.getRemoteAddress();
+        Integer index = connections.get(remote);
+        if (index == null) {
+            synchronized (connections) {
+                index = connections.get(remote);
+                if (index == null) {
+                    index = connections.size();
+                    connections.put(remote, index);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Answer requests for the path, e.g., "/minfraud/v2.0/score", with the
+     * body instead of the default one.
+     */
+    void body(String path, String body) {
+        pathBodies.put(path, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Wait the extra milliseconds before answering requests for the path.
+     */
+    void delay(String path, long millis) {
+        pathDelays.put(path, millis);
+    }
+
+    /**
+     * Send response bodies in small chunks with a pause after each one, so
+     * that no single read waits long but the whole response is slow.
+     */
+    void trickle(long millisPerChunk) {
+        trickleMillis = millisPerChunk;
+    }
+
+    String host() {
+        return server.getAddress().getAddress().getHostAddress();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    int requests(String path) {
+        AtomicInteger count = pathRequests.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    String lastRequestBody(String path) {
+        return lastRequestBodies.get(path);
+    }
+
+    int connections() {
+        return connections.size();
+    }
+
+    WebServiceClient.Builder clientBuilder() {
+        return new WebServiceClient.Builder(6, "0123456789")
+                .host(host())
+                .port(port())
+                .disableHttps();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,263 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.DeadlineExceededException;
+import com.maxmind.minfraud.exception.InsufficientFundsException;
+import com.maxmind.minfraud.request.Device;
+import com.maxmind.minfraud.request.Transaction;
+import com.maxmind.minfraud.response.InsightsResponse;
+import com.maxmind.minfraud.response.ScoreResponse;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class TrafficReplayTest {
+    private static final String INSIGHTS = "/minfraud/v2.0/insights";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        File file = folder.newFile();
+        Transaction full = fullTransaction();
+        Transaction other = transaction("1.1.1.1");
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(100));
+             TrafficRecorder recorder = new TrafficRecorder(file)) {
+            server.body(INSIGHTS, readJsonFile("insights-response"));
+            try (WebServiceClient client = server.clientBuilder().recordTo(recorder).build()) {
+                assertEquals(Double.valueOf(0.01), client.score(full).getRiskScore());
+                client.insights(other);
+            }
+            assertEquals(2, recorder.getRecords());
+        }
+
+        TrafficReplay replay = new TrafficReplay.Builder(file).build();
+        assertEquals(2, replay.getRecords());
+        // Nothing listens on this port, so every response must come from
+        // the recording.
+        try (WebServiceClient client = new WebServiceClient.Builder(6, "0123456789")
+                .host("localhost")
+                .port(1)
+                .disableHttps()
+                .replay(replay)
+                .build()) {
+            long start = System.nanoTime();
+            ScoreResponse score = client.score(full);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals(Double.valueOf(0.01), score.getRiskScore());
+            assertTrue("The response took " + millis + " ms", millis >= 90);
+
+            InsightsResponse insights = client.insights(other);
+            assertEquals("27d26476-e2bc-11e4-92b8-962e705b4af5", insights.getId().toString());
+            assertEquals(2, replay.getMatched());
+            assertEquals(0, replay.getUnmatched());
+
+            // A transaction that was not recorded gets a recorded response
+            // for the same service.
+            assertEquals("27d26476-e2bc-11e4-92b8-962e705b4af5",
+                    client.insights(transaction("2.2.2.2")).getId().toString());
+            assertEquals(1, replay.getUnmatched());
+            try {
+                client.factors(full);
+                fail("Expected an IOException");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("No factors responses"));
+            }
+        }
+    }
+
+    @Test
+    public void testLatencyScale() throws Exception {
+        File file = folder.newFile();
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            recorder.record("score", fullTransaction().toJson(), 200,
+                    bytes(readJsonFile("score-response")), TimeUnit.MILLISECONDS.toNanos(200));
+        }
+        try (WebServiceClient client = replayClient(new TrafficReplay.Builder(file)
+                .latencyScale(0.25)
+                .build())) {
+            long start = System.nanoTime();
+            client.score(fullTransaction());
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue("The response took " + millis + " ms", millis >= 45 && millis < 150);
+        }
+        try (WebServiceClient client = replayClient(new TrafficReplay.Builder(file)
+                .latencyScale(0)
+                .build())) {
+            long start = System.nanoTime();
+            client.score(fullTransaction());
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(45));
+        }
+    }
+
+    @Test
+    public void testErrorIsReplayed() throws Exception {
+        File file = folder.newFile();
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            recorder.record("score", fullTransaction().toJson(), 402,
+                    bytes("{\"code\":\"INSUFFICIENT_FUNDS\",\"error\":\"out of credit\"}"), 0);
+        }
+        try (WebServiceClient client = replayClient(new TrafficReplay.Builder(file).build())) {
+            client.score(fullTransaction());
+            fail("Expected an InsufficientFundsException");
+        } catch (InsufficientFundsException e) {
+            assertEquals("out of credit", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testDeadlineAbortsReplay() throws Exception {
+        File file = folder.newFile();
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            recorder.record("score", fullTransaction().toJson(), 200,
+                    bytes(readJsonFile("score-response")), TimeUnit.SECONDS.toNanos(5));
+        }
+        try (WebServiceClient client = replayClient(new TrafficReplay.Builder(file).build())) {
+            long start = System.nanoTime();
+            try {
+                client.score(fullTransaction(), Deadline.after(50, TimeUnit.MILLISECONDS));
+                fail("Expected a DeadlineExceededException");
+            } catch (DeadlineExceededException e) {
+                // expected
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    @Test
+    public void testAppendAndTruncatedRecord() throws Exception {
+        File file = folder.newFile();
+        String body = fullTransaction().toJson();
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            recorder.record("score", body, 200, bytes("{}"), 0);
+        }
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            recorder.record("score", body, 200, bytes("{}"), 0);
+            recorder.record("insights", body, 200, bytes("{}"), 0);
+        }
+        assertEquals(3, new TrafficReplay.Builder(file).build().getRecords());
+
+        // A record cut short, e.g., by a crash, is skipped.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        assertEquals(2, new TrafficReplay.Builder(file).build().getRecords());
+    }
+
+    @Test
+    public void testAppendAfterTruncatedRecord() throws Exception {
+        File file = folder.newFile();
+        String body = fullTransaction().toJson();
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            recorder.record("score", body, 200, bytes("{}"), 0);
+            recorder.record("score", body, 200, bytes("{}"), 0);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+
+        // The partial record is cut off, so the new one can be read.
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            recorder.record("insights", body, 200, bytes("{}"), 0);
+        }
+        TrafficReplay replay = new TrafficReplay.Builder(file).build();
+        assertEquals(2, replay.getRecords());
+        try (WebServiceClient client = replayClient(replay)) {
+            client.insights(fullTransaction());
+        }
+        assertEquals(1, replay.getMatched());
+    }
+
+    @Test
+    public void testCorruptLength() throws Exception {
+        File file = folder.newFile();
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            recorder.record("score", "{}", 200, bytes("{}"), 0);
+        }
+        // The header, the service, the status and the latency come before
+        // the length of the request body.
+        long offset = 8 + 2 + "score".length() + 2 + 4;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(offset);
+            raf.writeInt(-1);
+        }
+        try {
+            new TrafficReplay.Builder(file).build();
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("is a corrupt recording"));
+        }
+        try {
+            new TrafficRecorder(file).close();
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("is a corrupt recording"));
+        }
+
+        // A length past the end of the file is a record cut short, and is
+        // not allocated.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(offset);
+            raf.writeInt(Integer.MAX_VALUE);
+        }
+        assertEquals(0, new TrafficReplay.Builder(file).build().getRecords());
+    }
+
+    @Test
+    public void testNotARecording() throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), bytes("{\"not\": \"a recording\"}"));
+        try {
+            new TrafficReplay.Builder(file).build();
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("is not a recording"));
+        }
+        try {
+            new TrafficRecorder(file).close();
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("is not a recording"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordAndReplayAreExclusive() throws Exception {
+        File file = folder.newFile();
+        try (TrafficRecorder recorder = new TrafficRecorder(file)) {
+            new WebServiceClient.Builder(6, "0123456789")
+                    .recordTo(recorder)
+                    .replay(new TrafficReplay.Builder(file).build())
+                    .build();
+        }
+    }
+
+    private static WebServiceClient replayClient(TrafficReplay replay) {
+        return new WebServiceClient.Builder(6, "0123456789")
+                .host("localhost")
+                .port(1)
+                .disableHttps()
+                .replay(replay)
+                .build();
+    }
+
+    private static Transaction transaction(String ip) throws Exception {
+        return new Transaction.Builder(new Device.Builder(InetAddress.getByName(ip)).build()).build();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
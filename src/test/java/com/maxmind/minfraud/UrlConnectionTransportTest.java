@@ -0,0 +1,101 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.exception.DeadlineExceededException;
+import com.maxmind.minfraud.request.Transaction;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+/**
+ * Runs every {@code WebServiceClientTest} with the {@code URL_CONNECTION}
+ * transport, plus tests for aborting its requests.
+ */
+public class UrlConnectionTransportTest extends WebServiceClientTest {
+    private static final long MS = 1000000;
+
+    @Override
+    protected WebServiceClient.Builder clientBuilder() {
+        return super.clientBuilder().transport(Transport.URL_CONNECTION);
+    }
+
+    @Test
+    public void testConcurrentCalls() throws Exception {
+        final Transaction transaction = fullTransaction();
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(5));
+             final WebServiceClient client = server.clientBuilder()
+                     .transport(Transport.URL_CONNECTION)
+                     .build()) {
+            List<Future<Double>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(new Callable<Double>() {
+                    @Override
+                    public Double call() throws Exception {
+                        return client.score(transaction).getRiskScore();
+                    }
+                }));
+            }
+            for (Future<Double> result : results) {
+                assertEquals(Double.valueOf(0.01), result.get());
+            }
+            assertEquals(200, server.requests());
+            // Connections are kept alive and reused.
+            assertTrue(server.connections() < 200);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTrickleAbortedAtDeadline() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder()
+                     .transport(Transport.URL_CONNECTION)
+                     .readTimeout(1000)
+                     .build()) {
+            server.trickle(50);
+            long start = System.nanoTime();
+            try {
+                client.score(fullTransaction(), Deadline.after(250, TimeUnit.MILLISECONDS));
+                fail("Expected a DeadlineExceededException");
+            } catch (DeadlineExceededException e) {
+                long elapsed = (System.nanoTime() - start) / MS;
+                assertTrue("took " + elapsed + " ms", elapsed < 1000);
+            }
+        }
+    }
+
+    @Test
+    public void testHedgeWins() throws Exception {
+        StubServer.Latency slowFirst = new StubServer.Latency() {
+            @Override
+            public long millis(int connection, int inFlight) {
+                return connection == 0 ? 1000 : 5;
+            }
+        };
+        try (StubServer server = new StubServer(readJsonFile("score-response"), slowFirst);
+             WebServiceClient client = server.clientBuilder()
+                     .transport(Transport.URL_CONNECTION)
+                     .hedgingPolicy(new HedgingPolicy.Builder()
+                             .delay(50)
+                             .maxHedgeFraction(1)
+                             .build())
+                     .build()) {
+            long start = System.nanoTime();
+            client.score(fullTransaction());
+            long elapsed = (System.nanoTime() - start) / MS;
+            assertTrue("took " + elapsed + " ms", elapsed < 500);
+            assertEquals(2, server.requests());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.maxmind.minfraud;
+
+import com.maxmind.minfraud.request.Transaction;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that calls made from virtual threads with the
+ * {@code URL_CONNECTION} transport do not pin their carrier threads. The
+ * library is built for Java 7, so virtual threads and JFR are reached
+ * through reflection, and the test is skipped before Java 21.
+ */
+public class VirtualThreadTest {
+    private static final int CALLS = 10000;
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+
+    @Test
+    public void testNoPinning() throws Exception {
+        Method newVirtualThreadPerTaskExecutor;
+        try {
+            newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            Assume.assumeNoException("Virtual threads require Java 21", e);
+            return;
+        }
+
+        final Transaction transaction = fullTransaction();
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(10));
+             final WebServiceClient client = server.clientBuilder()
+                     .transport(Transport.URL_CONNECTION)
+                     .build()) {
+            // Build Jackson's serializers and deserializers first. That is
+            // done once, under locks, and is not what this test is about.
+            client.warmUp(1);
+
+            Object recording = startPinnedRecording();
+            ExecutorService executor = (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+            List<Future<Double>> results = new ArrayList<>();
+            try {
+                for (int i = 0; i < CALLS; i++) {
+                    results.add(executor.submit(new Callable<Double>() {
+                        @Override
+                        public Double call() throws Exception {
+                            return client.score(transaction).getRiskScore();
+                        }
+                    }));
+                }
+                for (Future<Double> result : results) {
+                    assertEquals(Double.valueOf(0.01), result.get());
+                }
+            } finally {
+                executor.shutdown();
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            List<String> pinned = stopAndReadPinnedEvents(recording);
+            assertEquals(CALLS, server.requests());
+            assertTrue("Carrier threads were pinned:\n" + pinned, pinned.isEmpty());
+        }
+    }
+
+    private static Object startPinnedRecording() throws Exception {
+        Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        Class<?> settingsClass = Class.forName("jdk.jfr.EventSettings");
+        Class<?> durationClass = Class.forName("java.time.Duration");
+
+        Object recording = recordingClass.getConstructor().newInstance();
+        Object settings = recordingClass.getMethod("enable", String.class).invoke(recording, PINNED);
+        // Record every pinning, not only those over the default 20 ms.
+        settingsClass.getMethod("withThreshold", durationClass)
+                .invoke(settings, durationClass.getField("ZERO").get(null));
+        settingsClass.getMethod("withStackTrace").invoke(settings);
+        recordingClass.getMethod("start").invoke(recording);
+        return recording;
+    }
+
+    private static List<String> stopAndReadPinnedEvents(Object recording) throws Exception {
+        Class<?> recordingClass = recording.getClass();
+        Class<?> recordingFileClass = Class.forName("jdk.jfr.consumer.RecordingFile");
+        Class<?> eventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+        Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+
+        recordingClass.getMethod("stop").invoke(recording);
+        Path file = Files.createTempFile("pinning", ".jfr");
+        try {
+            recordingClass.getMethod("dump", Path.class).invoke(recording, file);
+            List<?> events = (List<?>) recordingFileClass.getMethod("readAllEvents", Path.class)
+                    .invoke(null, file);
+            List<String> pinned = new ArrayList<>();
+            for (Object event : events) {
+                Object type = eventClass.getMethod("getEventType").invoke(event);
+                if (PINNED.equals(eventTypeClass.getMethod("getName").invoke(type))) {
+                    pinned.add(event.toString());
+                }
+            }
+            return pinned;
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.maxmind.minfraud;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.readJsonFile;
+import static org.junit.Assert.*;
+
+public class WarmUpTest {
+
+    /**
+     * Accepts connections without ever answering, so that the test can
+     * count the connections a warm-up opens.
+     */
+    private static final class CountingServer implements AutoCloseable {
+        private final ServerSocket socket;
+        private final List<Socket> accepted = new CopyOnWriteArrayList<>();
+
+        CountingServer() throws IOException {
+            socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (true) {
+                            accepted.add(socket.accept());
+                        }
+                    } catch (IOException e) {
+                        // closed
+                    }
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int accepted() throws InterruptedException {
+            // Connecting completes before the server thread accepts.
+            Thread.sleep(100);
+            return accepted.size();
+        }
+
+        WebServiceClient.Builder clientBuilder() {
+            return new WebServiceClient.Builder(6, "0123456789")
+                    .host(socket.getInetAddress().getHostAddress())
+                    .port(socket.getLocalPort())
+                    .disableHttps();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+            for (Socket s : accepted) {
+                s.close();
+            }
+        }
+    }
+
+    @Test
+    public void testOpensConnections() throws Exception {
+        try (CountingServer server = new CountingServer();
+             WebServiceClient client = server.clientBuilder().maxConnections(10).build()) {
+            assertNull(client.getWarmUpMillis());
+            long millis = client.warmUp(4);
+            assertTrue(millis >= 0);
+            assertEquals(Long.valueOf(millis), client.getWarmUpMillis());
+            assertEquals(4, server.accepted());
+
+            // Open connections count towards the number asked for.
+            client.warmUp(6);
+            assertEquals(6, server.accepted());
+        }
+    }
+
+    @Test
+    public void testCappedAtMaxConnections() throws Exception {
+        try (CountingServer server = new CountingServer();
+             WebServiceClient client = server.clientBuilder().maxConnections(3).build()) {
+            client.warmUp(8);
+            assertEquals(3, server.accepted());
+        }
+    }
+
+    @Test
+    public void testBuilderWarmUp() throws Exception {
+        try (CountingServer server = new CountingServer();
+             WebServiceClient client = server.clientBuilder().warmUpConnections(2).build()) {
+            assertNotNull(client.getWarmUpMillis());
+            assertEquals(2, server.accepted());
+        }
+    }
+
+    @Test
+    public void testFailedBuilderWarmUpIgnored() throws Exception {
+        StubServer down = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+        down.close();
+        try (WebServiceClient client = down.clientBuilder().warmUpConnections(2).build()) {
+            assertNull(client.getWarmUpMillis());
+        }
+    }
+
+    @Test
+    public void testWarmConnectionsUsedByCalls() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().build()) {
+            client.warmUp(2);
+            // The warm-up does not send any requests.
+            assertEquals(0, server.requests());
+
+            for (int i = 0; i < 3; i++) {
+                assertEquals(Double.valueOf(0.01), client.score(fullTransaction()).getRiskScore());
+            }
+            assertEquals(3, server.requests());
+            assertEquals(1, server.connections());
+        }
+    }
+
+    @Test
+    public void testIdleWarmConnectionsUsable() throws Exception {
+        try (StubServer server = new StubServer(readJsonFile("score-response"), StubServer.fixed(0));
+             WebServiceClient client = server.clientBuilder().build()) {
+            client.warmUp(1);
+            // The pool checks connections idle for over two seconds before
+            // reusing them.
+            Thread.sleep(2100);
+            assertEquals(Double.valueOf(0.01), client.score(fullTransaction()).getRiskScore());
+            assertEquals(1, server.connections());
+        }
+    }
+}
@@ -22,6 +22,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.jcabi.matchers.RegexMatchers.matchesPattern;
 import static com.maxmind.minfraud.request.RequestTestHelper.*;
 import static org.hamcrest.core.StringStartsWith.startsWith;
+import static org.junit.Assert.*;
 
 @RunWith(JUnitParamsRunner.class)
 public class WebServiceClientTest {
@@ -238,6 +239,92 @@ public class WebServiceClientTest {
         );
     }
 
+    @Test
+    public void testScoreResult() throws Exception {
+        try (WebServiceClient client = createSuccessClient("score", readJsonFile("score-response"))) {
+            Transaction request = fullTransaction();
+            Result<ScoreResponse> result = client.scoreResult(request);
+
+            assertTrue(result.isSuccess());
+            assertSame(request, result.getTransaction());
+            assertEquals(Double.valueOf(0.01), result.getResponse().getRiskScore());
+            assertEquals(0, result.getHttpStatus());
+            assertNull(result.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testInvalidRequestResult() throws Exception {
+        try (WebServiceClient client = createClient("insights", 400, "application/json",
+                "{\"code\":\"IP_ADDRESS_INVALID\",\"error\":\"IP invalid\",\"extra\":{\"a\":[1]}}",
+                clientBuilder().errorStackTraces(false))) {
+            Result<InsightsResponse> result = client.insightsResult(fullTransaction());
+
+            assertFalse(result.isSuccess());
+            assertNull(result.getResponse());
+            assertEquals(400, result.getHttpStatus());
+            assertEquals("IP_ADDRESS_INVALID", result.getErrorCode());
+            assertTrue(result.getException() instanceof InvalidRequestException);
+            assertEquals("IP invalid", result.getException().getMessage());
+            assertEquals(0, result.getException().getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void testServerErrorResult() throws Exception {
+        try (WebServiceClient client = createClient("factors", 503, "application/json", "",
+                clientBuilder().errorStackTraces(false))) {
+            Result<FactorsResponse> result = client.factorsResult(fullTransaction(), null, null);
+
+            assertEquals(503, result.getHttpStatus());
+            assertNull(result.getErrorCode());
+            assertTrue(result.getException() instanceof HttpException);
+            assertEquals(0, result.getException().getStackTrace().length);
+        }
+    }
+
+    @Test
+    @Parameters({"401, LICENSE_KEY_REQUIRED, AuthenticationException",
+            "402, INSUFFICIENT_FUNDS, InsufficientFundsException",
+            "403, PERMISSION_REQUIRED, PermissionRequiredException"})
+    public void testAccountErrorResult(int status, String code, String exception) throws Exception {
+        try (WebServiceClient client = createClient("score", status, "application/json",
+                "{\"code\":\"" + code + "\",\"error\":\"Account error\"}",
+                clientBuilder().errorStackTraces(false))) {
+            Result<ScoreResponse> result = client.scoreResult(fullTransaction());
+
+            assertFalse(result.isSuccess());
+            assertEquals(status, result.getHttpStatus());
+            assertEquals(code, result.getErrorCode());
+            assertEquals(exception, result.getException().getClass().getSimpleName());
+            assertEquals("Account error", result.getException().getMessage());
+            assertEquals(0, result.getException().getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void testNoBodyResult() throws Exception {
+        try (WebServiceClient client = createClient("score", 200, "application/json", "",
+                clientBuilder().errorStackTraces(false))) {
+            Result<ScoreResponse> result = client.scoreResult(fullTransaction());
+
+            assertEquals(200, result.getHttpStatus());
+            assertTrue(result.getException() instanceof HttpException);
+            assertEquals(0, result.getException().getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void testErrorStackTracesByDefault() throws Exception {
+        try (WebServiceClient client = createClient("score", 402, "application/json",
+                "{\"code\":\"INSUFFICIENT_FUNDS\",\"error\":\"out of credit\"}",
+                clientBuilder())) {
+            Exception e = client.scoreResult(fullTransaction()).getException();
+            assertTrue(e instanceof InsufficientFundsException);
+            assertTrue(e.getStackTrace().length > 0);
+        }
+    }
+
     private WebServiceClient createSuccessClient(String service, String responseContent) {
         return createClient(
                 service,
@@ -259,6 +346,11 @@ public class WebServiceClientTest {
     }
 
     private WebServiceClient createClient(String service, int status, String contentType, String responseContent) {
+        return createClient(service, status, contentType, responseContent, clientBuilder());
+    }
+
+    private WebServiceClient createClient(String service, int status, String contentType, String responseContent,
+                                          WebServiceClient.Builder builder) {
         stubFor(post(urlEqualTo("/minfraud/v2.0/" + service))
                 .withHeader("Accept", equalTo("application/json"))
                 .willReturn(aResponse()
@@ -268,10 +360,14 @@ public class WebServiceClientTest {
                         .withHeader("Content-Length", Integer.toString(responseContent.length()))
                         .withBody(responseContent)));
 
-        return new WebServiceClient.Builder(6, "0123456789")
+        return builder
                 .host("localhost")
                 .port(this.wireMockRule.port())
                 .disableHttps()
                 .build();
     }
+
+    protected WebServiceClient.Builder clientBuilder() {
+        return new WebServiceClient.Builder(6, "0123456789");
+    }
 }
@@ -5,6 +5,7 @@ import org.junit.Test;
 import java.net.URL;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class HttpExceptionTest {
 
@@ -15,4 +16,18 @@ public class HttpExceptionTest {
         assertEquals("correct status", 200, e.getHttpStatus());
         assertEquals("correct URL", url, e.getUrl());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testWithoutStackTrace() throws Exception {
+        URL url = new URL("https://www.maxmind.com/");
+        HttpException e = new HttpException("message", 500, url, null, false);
+        assertEquals(0, e.getStackTrace().length);
+        e.fillInStackTrace();
+        assertEquals(0, e.getStackTrace().length);
+
+        HttpException traced = new HttpException("message", 500, url, null, true);
+        // The trace starts at the caller, as it would without the override.
+        assertTrue(traced.getStackTrace().length > 0);
+        assertEquals("testWithoutStackTrace", traced.getStackTrace()[0].getMethodName());
+    }
+}
@@ -5,6 +5,7 @@ import com.maxmind.minfraud.request.Shipping.DeliverySpeed;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class ShippingTest extends AbstractLocationTest {
 
@@ -17,4 +18,15 @@ public class ShippingTest extends AbstractLocationTest {
         Shipping loc = this.builder().deliverySpeed(DeliverySpeed.EXPEDITED).build();
         assertEquals(DeliverySpeed.EXPEDITED, loc.getDeliverySpeed());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEquals() throws Exception {
+        Shipping first = this.builder().city("c").deliverySpeed(DeliverySpeed.EXPEDITED).build();
+        Shipping second = this.builder().city("c").deliverySpeed(DeliverySpeed.EXPEDITED).build();
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        assertNotEquals(first, this.builder().city("c").deliverySpeed(DeliverySpeed.STANDARD).build());
+        assertNotEquals(first, new Billing.Builder().city("c").build());
+    }
+}
@@ -2,10 +2,14 @@ package com.maxmind.minfraud.request;
 
 import org.junit.Test;
 
+import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransaction;
+import static com.maxmind.minfraud.request.RequestTestHelper.fullTransactionEmailMd5;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class TransactionTest {
     private Transaction.Builder builder() throws UnknownHostException {
@@ -78,4 +82,79 @@ public class TransactionTest {
         Transaction request = this.builder().addShoppingCartItem(new ShoppingCartItem.Builder().itemId("1").build()).build();
         assertEquals("1", request.getShoppingCart().get(0).getItemId());
     }
+
+    @Test
+    public void testShoppingCartCopiedFromBuilder() throws Exception {
+        Transaction.Builder builder = this.builder().addShoppingCartItem(new ShoppingCartItem.Builder().itemId("1").build());
+        Transaction request = builder.build();
+        builder.addShoppingCartItem(new ShoppingCartItem.Builder().itemId("2").build());
+        assertEquals(1, request.getShoppingCart().size());
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        Transaction first = fullTransaction();
+        Transaction second = fullTransaction();
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(first.fingerprint(), second.fingerprint());
+
+        Transaction other = fullTransactionEmailMd5();
+        assertNotEquals(first, other);
+        assertNotEquals(first.fingerprint(), other.fingerprint());
+    }
+
+    @Test
+    public void testNestedFieldChangesFingerprint() throws Exception {
+        Transaction first = this.builder().order(new Order.Builder().amount(1.1).build()).build();
+        Transaction second = this.builder().order(new Order.Builder().amount(1.2).build()).build();
+        assertNotEquals(first, second);
+        assertNotEquals(first.fingerprint(), second.fingerprint());
+    }
+
+    @Test
+    public void testFieldBoundariesInFingerprint() throws Exception {
+        Transaction first = this.builder().billing(new Billing.Builder().firstName("ab").build()).build();
+        Transaction second = this.builder().billing(new Billing.Builder().firstName("a").lastName("b").build()).build();
+        assertNotEquals(first.fingerprint(), second.fingerprint());
+
+        // The same address for billing or shipping is a different transaction.
+        Transaction billing = this.builder().billing(new Billing.Builder().city("c").build()).build();
+        Transaction shipping = this.builder().shipping(new Shipping.Builder().city("c").build()).build();
+        assertNotEquals(billing, shipping);
+        assertNotEquals(billing.fingerprint(), shipping.fingerprint());
+    }
+
+    @Test
+    public void testCustomInputOrderDoesNotMatter() throws Exception {
+        Transaction first = this.builder().customInputs(new CustomInputs.Builder()
+                .put("a", "x").put("b", 1).put("c", true).build()).build();
+        Transaction second = this.builder().customInputs(new CustomInputs.Builder()
+                .put("c", true).put("b", 1).put("a", "x").build()).build();
+        assertEquals(first, second);
+        assertEquals(first.fingerprint(), second.fingerprint());
+
+        Transaction third = this.builder().customInputs(new CustomInputs.Builder()
+                .put("a", "x").put("b", 2).put("c", true).build()).build();
+        assertNotEquals(first.fingerprint(), third.fingerprint());
+    }
+
+    @Test
+    public void testShoppingCartOrderMatters() throws Exception {
+        ShoppingCartItem one = new ShoppingCartItem.Builder().itemId("1").build();
+        ShoppingCartItem two = new ShoppingCartItem.Builder().itemId("2").build();
+        Transaction first = this.builder().addShoppingCartItem(one).addShoppingCartItem(two).build();
+        Transaction second = this.builder().addShoppingCartItem(two).addShoppingCartItem(one).build();
+        assertNotEquals(first, second);
+        assertNotEquals(first.fingerprint(), second.fingerprint());
+    }
+
+    @Test
+    public void testFingerprintString() throws Exception {
+        Fingerprint fingerprint = fullTransaction().fingerprint();
+        String hex = fingerprint.toString();
+        assertEquals(32, hex.length());
+        assertEquals(fingerprint.getHigh(), new BigInteger(hex.substring(0, 16), 16).longValue());
+        assertEquals(fingerprint.getLow(), new BigInteger(hex.substring(16), 16).longValue());
+    }
 }